@@ -31,7 +31,10 @@ import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOpt
 import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.HOST;
 import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.HOST_DISTANCE;
 import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.KEY_SPACES;
+import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.MAX_BATCH_BYTES;
+import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.MAX_BATCH_ROWS;
 import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.MAX_CONNECTIONS__PER_HOST;
+import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.MAX_IN_FLIGHT_REQUESTS;
 import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.MAX_QUEUE_SIZE;
 import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.MAX_REQUESTS_PER_CONNECTION;
 import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.PASSWORD;
@@ -50,6 +53,15 @@ public class CassandraSinkConfig extends CassandraCommonConfig {
 
     private boolean asyncWrite;
 
+    /** The max number of write requests waiting for their replies */
+    private int maxInFlightRequests = 64;
+
+    /** The max number of rows in one single-partition batch */
+    private int maxBatchRows = 100;
+
+    /** The max serialized size in bytes of one single-partition batch */
+    private int maxBatchBytes = 5 * 1024;
+
     public static CassandraSinkConfig from(ReadableConfig config) {
         CassandraSinkConfig sinkConfig = new CassandraSinkConfig();
 
@@ -65,6 +77,9 @@ public class CassandraSinkConfig extends CassandraCommonConfig {
         sinkConfig.setHostDistance(config.get(HOST_DISTANCE));
 
         sinkConfig.setAsyncWrite(config.get(ASYNC_WRITE));
+        sinkConfig.setMaxInFlightRequests(config.get(MAX_IN_FLIGHT_REQUESTS));
+        sinkConfig.setMaxBatchRows(config.get(MAX_BATCH_ROWS));
+        sinkConfig.setMaxBatchBytes(config.get(MAX_BATCH_BYTES));
         sinkConfig.setConnectTimeoutMillis(config.get(CONNECT_TIMEOUT_MILLISECONDS));
         sinkConfig.setCoreConnectionsPerHost(config.get(CORE_CONNECTIONS_PER_HOST));
         sinkConfig.setMaxQueueSize(config.get(MAX_QUEUE_SIZE));
@@ -136,6 +136,27 @@ public class CassandraCommonOptions {
                     .defaultValue(false)
                     .withDescription("Cassandra params. Async write data to databases.");
 
+    public static final ConfigOption<Integer> MAX_IN_FLIGHT_REQUESTS =
+            ConfigOptions.key("maxInFlightRequests")
+                    .intType()
+                    .defaultValue(64)
+                    .withDescription(
+                            "Cassandra params. The max number of write requests waiting for their replies.");
+
+    public static final ConfigOption<Integer> MAX_BATCH_ROWS =
+            ConfigOptions.key("maxBatchRows")
+                    .intType()
+                    .defaultValue(100)
+                    .withDescription(
+                            "Cassandra params. The max number of rows in one single-partition batch.");
+
+    public static final ConfigOption<Integer> MAX_BATCH_BYTES =
+            ConfigOptions.key("maxBatchBytes")
+                    .intType()
+                    .defaultValue(5 * 1024)
+                    .withDescription(
+                            "Cassandra params. The max serialized size of one single-partition batch, keep it below batch_size_fail_threshold of the server.");
+
     public static final ConfigOption<String> WHERE =
             ConfigOptions.key("where")
                     .stringType()
@@ -27,18 +27,28 @@ import org.apache.flink.table.data.RowData;
 
 import com.datastax.driver.core.BatchStatement;
 import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.CodecRegistry;
 import com.datastax.driver.core.ConsistencyLevel;
 import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ProtocolVersion;
 import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.TableMetadata;
 import com.datastax.driver.core.querybuilder.Insert;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
 
 import static com.dtstack.chunjun.connector.cassandra.util.CassandraService.quoteColumn;
 
@@ -53,9 +63,21 @@ public class CassandraOutputFormat extends BaseRichOutputFormat {
 
     private PreparedStatement preparedStatement;
 
-    protected List<ResultSetFuture> unConfirmedWrite;
+    private transient ProtocolVersion protocolVersion;
 
-    protected List<BoundStatement> bufferedWrite;
+    private transient CodecRegistry codecRegistry;
+
+    /** Bounds the requests in flight, a permit is given back when the reply of a request arrives */
+    private transient Semaphore inFlightPermits;
+
+    /** Requests failed since the last flush, their rows are written one by one afterwards */
+    private transient Queue<PendingWrite> failedWrites;
+
+    /** Positions of the primary key columns among the bind markers of the insert */
+    private transient int[] primaryKeyIndexes;
+
+    /** The client side timestamp given to the last request, in microseconds */
+    private transient long lastTimestamp;
 
     @Override
     protected void writeSingleRecordInternal(RowData rowData) throws WriteRecordException {
@@ -70,50 +92,136 @@ public class CassandraOutputFormat extends BaseRichOutputFormat {
         }
     }
 
+    /**
+     * With asyncWrite every row is sent as its own request, which the token aware policy routes to
+     * a replica of its partition. Otherwise the rows are grouped by partition key and each group is
+     * sent as unlogged batches of at most maxBatchRows rows and maxBatchBytes bytes, so no batch
+     * has to be fanned out across the ring by its coordinator or exceeds the batch size threshold
+     * of the server. A row whose primary key is already in the batch starts a new one, because the
+     * statements of a batch share one timestamp. Rows whose partition key can not be computed are
+     * sent one by one. Either way the requests are sent without waiting for the previous replies,
+     * at most maxInFlightRequests at a time, each with a timestamp greater than the previous one.
+     */
     @Override
     @SuppressWarnings("unchecked")
     protected void writeMultipleRecordsInternal() throws Exception {
-        if (batchSize > 1) {
-            BoundStatement boundStatement = preparedStatement.bind();
-            for (RowData rowData : rows) {
-
-                BoundStatement statement =
-                        (BoundStatement) rowConverter.toExternal(rowData, boundStatement);
-
-                if (sinkConfig.isAsyncWrite()) {
-                    unConfirmedWrite.add(session.executeAsync(statement));
-                    if (unConfirmedWrite.size() >= batchSize) {
-                        for (ResultSetFuture write : unConfirmedWrite) {
-                            write.getUninterruptibly(10000, TimeUnit.MILLISECONDS);
-                        }
-                        unConfirmedWrite.clear();
-                    }
-                } else {
-                    bufferedWrite.add(statement);
-                    if (bufferedWrite.size() >= batchSize) {
-                        BatchStatement batchStatement =
-                                new BatchStatement(BatchStatement.Type.UNLOGGED);
-                        batchStatement.addAll(bufferedWrite);
-                        session.execute(batchStatement);
-                        bufferedWrite.clear();
-                    }
-                }
+        Map<ByteBuffer, PendingWrite> partitions = new LinkedHashMap<>();
+        for (RowData rowData : rows) {
+            BoundStatement statement;
+            try {
+                statement =
+                        (BoundStatement) rowConverter.toExternal(rowData, preparedStatement.bind());
+            } catch (Exception e) {
+                dirtyManager.collect(rowData, new WriteRecordException("", e, -1, rowData), null);
+                continue;
             }
 
-            // 检查是否还有数据未写出去
-            if (unConfirmedWrite != null && unConfirmedWrite.size() > 0) {
-                for (ResultSetFuture write : unConfirmedWrite) {
-                    write.getUninterruptibly(10000, TimeUnit.MILLISECONDS);
-                }
-                unConfirmedWrite.clear();
+            ByteBuffer routingKey =
+                    sinkConfig.isAsyncWrite()
+                            ? null
+                            : statement.getRoutingKey(protocolVersion, codecRegistry);
+            if (routingKey == null) {
+                executeAsync(new PendingWrite(rowData, statement, 0));
+                continue;
+            }
+
+            int size = statement.requestSizeInBytes(protocolVersion, codecRegistry);
+            List<ByteBuffer> primaryKey = primaryKey(statement);
+            PendingWrite partition =
+                    partitions.computeIfAbsent(routingKey, key -> new PendingWrite());
+            if (!partition.rows.isEmpty()
+                    && (partition.rows.size() >= sinkConfig.getMaxBatchRows()
+                            || partition.bytes + size > sinkConfig.getMaxBatchBytes()
+                            || partition.primaryKeys.contains(primaryKey))) {
+                // the requests carry increasing client side timestamps, so chunks of the same
+                // partition still resolve in row order even if their replies come back out of order
+                executeAsync(partition);
+                partition = new PendingWrite();
+                partitions.put(routingKey, partition);
             }
-            if (bufferedWrite != null && bufferedWrite.size() > 0) {
-                BatchStatement batchStatement = new BatchStatement(BatchStatement.Type.UNLOGGED);
-                batchStatement.addAll(bufferedWrite);
-                session.execute(batchStatement);
-                bufferedWrite.clear();
+            partition.add(rowData, statement, size);
+            partition.primaryKeys.add(primaryKey);
+        }
+        for (PendingWrite partition : partitions.values()) {
+            executeAsync(partition);
+        }
+
+        // 等待所有请求返回，失败请求中的数据逐条重写以找出脏数据
+        inFlightPermits.acquireUninterruptibly(sinkConfig.getMaxInFlightRequests());
+        inFlightPermits.release(sinkConfig.getMaxInFlightRequests());
+        PendingWrite failed;
+        while ((failed = failedWrites.poll()) != null) {
+            if (failed.rows.size() == 1) {
+                dirtyManager.collect(
+                        failed.rows.get(0),
+                        new WriteRecordException("", failed.error, -1, failed.rows.get(0)),
+                        null);
+                continue;
             }
+            for (int i = 0; i < failed.rows.size(); i++) {
+                try {
+                    // keep the timestamp of the batch, so the row does not overwrite later writes
+                    BoundStatement statement = failed.statements.get(i);
+                    statement.setDefaultTimestamp(failed.timestamp);
+                    session.execute(statement);
+                } catch (Exception e) {
+                    dirtyManager.collect(
+                            failed.rows.get(i),
+                            new WriteRecordException("", e, -1, failed.rows.get(i)),
+                            null);
+                }
+            }
+        }
+    }
+
+    private void executeAsync(PendingWrite write) throws InterruptedException {
+        Statement statement;
+        if (write.statements.size() == 1) {
+            statement = write.statements.get(0);
+        } else {
+            statement =
+                    new BatchStatement(BatchStatement.Type.UNLOGGED)
+                            .addAll(write.statements)
+                            .setConsistencyLevel(preparedStatement.getConsistencyLevel());
+        }
+        write.timestamp = nextTimestamp();
+        statement.setDefaultTimestamp(write.timestamp);
+
+        inFlightPermits.acquire();
+        ResultSetFuture future;
+        try {
+            future = session.executeAsync(statement);
+        } catch (Exception e) {
+            inFlightPermits.release();
+            write.error = e;
+            failedWrites.add(write);
+            return;
+        }
+        future.addListener(
+                () -> {
+                    try {
+                        future.getUninterruptibly();
+                    } catch (Exception e) {
+                        write.error = e;
+                        failedWrites.add(write);
+                    } finally {
+                        inFlightPermits.release();
+                    }
+                },
+                Runnable::run);
+    }
+
+    private List<ByteBuffer> primaryKey(BoundStatement statement) {
+        List<ByteBuffer> primaryKey = new ArrayList<>(primaryKeyIndexes.length);
+        for (int index : primaryKeyIndexes) {
+            primaryKey.add(statement.getBytesUnsafe(index));
         }
+        return primaryKey;
+    }
+
+    private long nextTimestamp() {
+        lastTimestamp = Math.max(System.currentTimeMillis() * 1000, lastTimestamp + 1);
+        return lastTimestamp;
     }
 
     @Override
@@ -142,14 +250,16 @@ public class CassandraOutputFormat extends BaseRichOutputFormat {
         insert.setConsistencyLevel(consistencyLevel);
 
         preparedStatement = session.prepare(insert);
+        primaryKeyIndexes =
+                metadata.getPrimaryKey().stream()
+                        .mapToInt(metadata.getColumns()::indexOf)
+                        .toArray();
 
-        if (batchSize > 1) {
-            if (sinkConfig.isAsyncWrite()) {
-                unConfirmedWrite = new ArrayList<>();
-            } else {
-                bufferedWrite = new ArrayList<>();
-            }
-        }
+        protocolVersion =
+                session.getCluster().getConfiguration().getProtocolOptions().getProtocolVersion();
+        codecRegistry = session.getCluster().getConfiguration().getCodecRegistry();
+        inFlightPermits = new Semaphore(sinkConfig.getMaxInFlightRequests());
+        failedWrites = new ConcurrentLinkedQueue<>();
     }
 
     @Override
@@ -164,4 +274,34 @@ public class CassandraOutputFormat extends BaseRichOutputFormat {
     public void setSinkConfig(CassandraSinkConfig sinkConfig) {
         this.sinkConfig = sinkConfig;
     }
+
+    /** The rows sent in one request and their statements. */
+    private static class PendingWrite {
+
+        private final List<RowData> rows = new ArrayList<>();
+
+        private final List<BoundStatement> statements = new ArrayList<>();
+
+        /** serialized size of the statements */
+        private int bytes;
+
+        private final Set<List<ByteBuffer>> primaryKeys = new HashSet<>();
+
+        /** client side timestamp of the request, in microseconds */
+        private long timestamp;
+
+        private volatile Throwable error;
+
+        private PendingWrite() {}
+
+        private PendingWrite(RowData rowData, BoundStatement statement, int size) {
+            add(rowData, statement, size);
+        }
+
+        private void add(RowData rowData, BoundStatement statement, int size) {
+            rows.add(rowData);
+            statements.add(statement);
+            bytes += size;
+        }
+    }
 }
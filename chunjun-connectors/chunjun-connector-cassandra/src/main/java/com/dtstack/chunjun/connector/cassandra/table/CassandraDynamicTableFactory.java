@@ -45,7 +45,10 @@ import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOpt
 import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.HOST;
 import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.HOST_DISTANCE;
 import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.KEY_SPACES;
+import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.MAX_BATCH_BYTES;
+import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.MAX_BATCH_ROWS;
 import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.MAX_CONNECTIONS__PER_HOST;
+import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.MAX_IN_FLIGHT_REQUESTS;
 import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.MAX_QUEUE_SIZE;
 import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.MAX_REQUESTS_PER_CONNECTION;
 import static com.dtstack.chunjun.connector.cassandra.optinos.CassandraCommonOptions.PASSWORD;
@@ -158,6 +161,9 @@ public class CassandraDynamicTableFactory
         optionalOptions.add(POOL_TIMEOUT_MILLISECONDS);
         optionalOptions.add(USE_SSL);
         optionalOptions.add(ASYNC_WRITE);
+        optionalOptions.add(MAX_IN_FLIGHT_REQUESTS);
+        optionalOptions.add(MAX_BATCH_ROWS);
+        optionalOptions.add(MAX_BATCH_BYTES);
 
         optionalOptions.add(SCAN_PARTITION_COLUMN);
         optionalOptions.add(SCAN_PARTITION_STRATEGY);
@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.cassandra.sink;
+
+import com.dtstack.chunjun.connector.cassandra.config.CassandraSinkConfig;
+import com.dtstack.chunjun.converter.AbstractRowConverter;
+import com.dtstack.chunjun.dirty.manager.DirtyManager;
+import com.dtstack.chunjun.throwable.WriteRecordException;
+
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.CodecRegistry;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.WriteType;
+import com.datastax.driver.core.exceptions.NoHostAvailableException;
+import com.datastax.driver.core.exceptions.WriteTimeoutException;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Futures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CassandraOutputFormatTest {
+
+    private static final int MAX_IN_FLIGHT_REQUESTS = 2;
+
+    private CassandraSinkConfig sinkConfig;
+    private Session session;
+    private DirtyManager dirtyManager;
+    private Semaphore inFlightPermits;
+    private CassandraOutputFormat format;
+
+    /** the statement bound for each row */
+    private final Map<RowData, BoundStatement> statements = new HashMap<>();
+
+    /** requests sent, with the timestamp they carried when sent */
+    private final List<Statement> sent = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<Long> sentTimestamps = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sinkConfig = new CassandraSinkConfig();
+        sinkConfig.setMaxInFlightRequests(MAX_IN_FLIGHT_REQUESTS);
+
+        AbstractRowConverter<?, ?, ?, ?> rowConverter = mock(AbstractRowConverter.class);
+        when(rowConverter.toExternal(any(), any()))
+                .thenAnswer(invocation -> statements.get((RowData) invocation.getArgument(0)));
+
+        session = mock(Session.class);
+        dirtyManager = mock(DirtyManager.class);
+        inFlightPermits = new Semaphore(MAX_IN_FLIGHT_REQUESTS);
+
+        format = new CassandraOutputFormat();
+        format.setSinkConfig(sinkConfig);
+        Whitebox.setInternalState(format, "session", session);
+        Whitebox.setInternalState(format, "preparedStatement", mock(PreparedStatement.class));
+        Whitebox.setInternalState(format, "protocolVersion", ProtocolVersion.V4);
+        Whitebox.setInternalState(format, "codecRegistry", CodecRegistry.DEFAULT_INSTANCE);
+        Whitebox.setInternalState(format, "primaryKeyIndexes", new int[] {0, 1});
+        Whitebox.setInternalState(format, "rowConverter", rowConverter);
+        Whitebox.setInternalState(format, "dirtyManager", dirtyManager);
+        Whitebox.setInternalState(format, "inFlightPermits", inFlightPermits);
+        Whitebox.setInternalState(format, "failedWrites", (Queue<?>) new ConcurrentLinkedQueue<>());
+    }
+
+    @Test
+    void permitsShouldBeReleasedWhetherRequestsSucceedOrFail() {
+        sinkConfig.setAsyncWrite(true);
+        RowData succeeded = row(1, 1);
+        RowData failed = row(1, 2);
+        RowData rejected = row(1, 3);
+        RowData last = row(1, 4);
+        answerExecuteAsync(
+                statement -> {
+                    if (statement == statements.get(failed)) {
+                        return TestResultSetFuture.failed(writeTimeout());
+                    }
+                    if (statement == statements.get(rejected)) {
+                        throw new NoHostAvailableException(Collections.emptyMap());
+                    }
+                    return TestResultSetFuture.succeeded();
+                });
+
+        // a leaked permit would block the last row or the final wait
+        assertTimeoutPreemptively(
+                Duration.ofSeconds(5), () -> write(succeeded, failed, rejected, last));
+
+        verify(session, times(4)).executeAsync(any(Statement.class));
+        assertEquals(MAX_IN_FLIGHT_REQUESTS, inFlightPermits.availablePermits());
+        verify(dirtyManager).collect(eq(failed), any(WriteRecordException.class), isNull());
+        verify(dirtyManager).collect(eq(rejected), any(WriteRecordException.class), isNull());
+        verify(dirtyManager, times(2)).collect(any(), any(), any());
+    }
+
+    @Test
+    void flushShouldWaitForEveryOutstandingRequest() throws Exception {
+        sinkConfig.setAsyncWrite(true);
+        List<TestResultSetFuture> futures = Collections.synchronizedList(new ArrayList<>());
+        answerExecuteAsync(
+                statement -> {
+                    TestResultSetFuture future = new TestResultSetFuture();
+                    futures.add(future);
+                    return future;
+                });
+
+        CompletableFuture<Void> flush =
+                CompletableFuture.runAsync(
+                        () -> {
+                            try {
+                                write(row(1, 1), row(1, 2), row(1, 3));
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                        });
+
+        // the third request waits for a permit
+        verify(session, timeout(5000).times(2)).executeAsync(any(Statement.class));
+        TimeUnit.MILLISECONDS.sleep(200);
+        verify(session, times(2)).executeAsync(any(Statement.class));
+
+        futures.get(0).succeed();
+        verify(session, timeout(5000).times(3)).executeAsync(any(Statement.class));
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertFalse(flush.isDone());
+
+        futures.get(1).succeed();
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertFalse(flush.isDone());
+
+        futures.get(2).succeed();
+        flush.get(5, TimeUnit.SECONDS);
+        assertEquals(MAX_IN_FLIGHT_REQUESTS, inFlightPermits.availablePermits());
+    }
+
+    @Test
+    void rowsOfOnePartitionShouldBeSentInOrderWithIncreasingTimestamps() throws Exception {
+        sinkConfig.setMaxBatchRows(3);
+        sinkConfig.setMaxInFlightRequests(10);
+        Whitebox.setInternalState(format, "inFlightPermits", new Semaphore(10));
+        answerExecuteAsync(statement -> TestResultSetFuture.succeeded());
+        RowData first = row(1, 1);
+        RowData other = row(2, 1);
+        RowData second = row(1, 2);
+        RowData firstAgain = row(1, 1);
+        RowData third = row(1, 3);
+
+        write(first, other, second, firstAgain, third);
+
+        // the second write of key 1 starts a new batch instead of sharing a timestamp with the
+        // first
+        assertEquals(3, sent.size());
+        assertEquals(statementsOf(first, second), batched(sent.get(0)));
+        assertEquals(statementsOf(firstAgain, third), batched(sent.get(1)));
+        assertSame(statements.get(other), sent.get(2));
+        assertTrue(sentTimestamps.get(0) < sentTimestamps.get(1));
+        assertTrue(sentTimestamps.get(1) < sentTimestamps.get(2));
+    }
+
+    @Test
+    void rowsOfFailedBatchShouldBeRewrittenWithTheTimestampOfTheBatch() throws Exception {
+        sinkConfig.setMaxBatchRows(2);
+        RowData first = row(1, 1);
+        RowData second = row(1, 2);
+        RowData third = row(1, 3);
+        answerExecuteAsync(
+                statement ->
+                        statement instanceof BatchStatement
+                                ? TestResultSetFuture.failed(writeTimeout())
+                                : TestResultSetFuture.succeeded());
+        List<Long> rewriteTimestamps = new ArrayList<>();
+        when(session.execute(any(Statement.class)))
+                .thenAnswer(
+                        invocation -> {
+                            Statement statement = invocation.getArgument(0);
+                            rewriteTimestamps.add(statement.getDefaultTimestamp());
+                            if (statement == statements.get(second)) {
+                                throw writeTimeout();
+                            }
+                            return mock(ResultSet.class);
+                        });
+
+        write(first, second, third);
+
+        verify(session).execute(statements.get(first));
+        verify(session).execute(statements.get(second));
+        long batchTimestamp = sentTimestamps.get(0);
+        assertEquals(Arrays.asList(batchTimestamp, batchTimestamp), rewriteTimestamps);
+        // the rewritten rows do not overwrite the later write of the partition
+        assertTrue(batchTimestamp < sentTimestamps.get(1));
+        verify(dirtyManager).collect(eq(second), any(WriteRecordException.class), isNull());
+        verify(dirtyManager, times(1)).collect(any(), any(), any());
+        assertEquals(MAX_IN_FLIGHT_REQUESTS, inFlightPermits.availablePermits());
+    }
+
+    private void write(RowData... rows) throws Exception {
+        Whitebox.setInternalState(format, "rows", new ArrayList<>(Arrays.asList(rows)));
+        format.writeMultipleRecordsInternal();
+    }
+
+    private void answerExecuteAsync(Function<Statement, ResultSetFuture> answer) {
+        when(session.executeAsync(any(Statement.class)))
+                .thenAnswer(
+                        invocation -> {
+                            Statement statement = invocation.getArgument(0);
+                            sent.add(statement);
+                            sentTimestamps.add(statement.getDefaultTimestamp());
+                            return answer.apply(statement);
+                        });
+    }
+
+    /** a row of (partition key, clustering key), bound to a statement routed by its partition */
+    private RowData row(int partition, int key) {
+        RowData row = GenericRowData.of(partition, key);
+        BoundStatement statement = mock(BoundStatement.class);
+        when(statement.getRoutingKey(any(ProtocolVersion.class), any(CodecRegistry.class)))
+                .thenReturn(ByteBuffer.wrap(new byte[] {(byte) partition}));
+        when(statement.requestSizeInBytes(any(ProtocolVersion.class), any(CodecRegistry.class)))
+                .thenReturn(10);
+        when(statement.getBytesUnsafe(anyInt()))
+                .thenAnswer(
+                        invocation ->
+                                ByteBuffer.wrap(
+                                        new byte[] {(byte) row.getInt(invocation.getArgument(0))}));
+        when(statement.setDefaultTimestamp(anyLong())).thenCallRealMethod();
+        when(statement.getDefaultTimestamp()).thenCallRealMethod();
+        statements.put(row, statement);
+        return row;
+    }
+
+    private List<Statement> statementsOf(RowData... rows) {
+        List<Statement> result = new ArrayList<>();
+        for (RowData row : rows) {
+            result.add(statements.get(row));
+        }
+        return result;
+    }
+
+    private static List<Statement> batched(Statement statement) {
+        return new ArrayList<>(((BatchStatement) statement).getStatements());
+    }
+
+    private static WriteTimeoutException writeTimeout() {
+        return new WriteTimeoutException(ConsistencyLevel.ONE, WriteType.UNLOGGED_BATCH, 0, 1);
+    }
+
+    /** A reply completed by the test. */
+    private static class TestResultSetFuture extends AbstractFuture<ResultSet>
+            implements ResultSetFuture {
+
+        static TestResultSetFuture succeeded() {
+            TestResultSetFuture future = new TestResultSetFuture();
+            future.succeed();
+            return future;
+        }
+
+        static TestResultSetFuture failed(Throwable error) {
+            TestResultSetFuture future = new TestResultSetFuture();
+            future.setException(error);
+            return future;
+        }
+
+        void succeed() {
+            set(mock(ResultSet.class));
+        }
+
+        @Override
+        public ResultSet getUninterruptibly() {
+            return Futures.getUnchecked(this);
+        }
+
+        @Override
+        public ResultSet getUninterruptibly(long timeout, TimeUnit unit) {
+            return getUninterruptibly();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.clickhouse.config;
+
+import com.dtstack.chunjun.connector.jdbc.config.JdbcConfig;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@EqualsAndHashCode(callSuper = true)
+@Data
+public class ClickhouseConfig extends JdbcConfig {
+
+    private static final long serialVersionUID = -2896263424702374565L;
+
+    /** insertSqlMode为rowBinary时，编码后的数据达到该大小即写出，与batchSize先到者为准 */
+    private long batchBytes = 32 * 1024 * 1024L;
+
+    /** insertSqlMode为rowBinary时请求体的压缩方式：lz4、gzip、none */
+    private String compression = "lz4";
+}
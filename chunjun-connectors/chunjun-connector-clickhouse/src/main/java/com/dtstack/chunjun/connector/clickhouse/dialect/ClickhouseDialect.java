@@ -24,7 +24,12 @@ import com.dtstack.chunjun.connector.jdbc.source.JdbcInputSplit;
 import com.dtstack.chunjun.converter.RawTypeConverter;
 import com.dtstack.chunjun.throwable.ChunJunRuntimeException;
 
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.LogicalTypeFamily;
+
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class ClickhouseDialect implements JdbcDialect {
 
@@ -73,4 +78,30 @@ public class ClickhouseDialect implements JdbcDialect {
                 " modulo(%s,%s) = %s",
                 quoteIdentifier(splitPkName), split.getTotalNumberOfSplits(), split.getMod());
     }
+
+    @Override
+    public Optional<String> getLimitClause(long limit) {
+        return Optional.of(" LIMIT " + limit);
+    }
+
+    /** Clickhouse treats backslash in string literals as an escape character. */
+    @Override
+    public Optional<String> formatFilterLiteral(Object value, LogicalType type) {
+        if (type.is(LogicalTypeFamily.CHARACTER_STRING)) {
+            return Optional.of(
+                    "'" + value.toString().replace("\\", "\\\\").replace("'", "''") + "'");
+        }
+        return JdbcDialect.super.formatFilterLiteral(value, type);
+    }
+
+    /** 以RowBinary格式写入的insert语句，数据放在请求体中 */
+    public String getRowBinaryInsertStatement(String schema, String tableName, String[] fields) {
+        String columns =
+                Arrays.stream(fields).map(this::quoteIdentifier).collect(Collectors.joining(", "));
+        return "INSERT INTO "
+                + buildTableInfoWithSchema(schema, tableName)
+                + " ("
+                + columns
+                + ") FORMAT RowBinary";
+    }
 }
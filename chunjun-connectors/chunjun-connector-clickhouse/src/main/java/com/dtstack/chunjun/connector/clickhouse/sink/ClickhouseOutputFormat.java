@@ -18,19 +18,229 @@
 
 package com.dtstack.chunjun.connector.clickhouse.sink;
 
+import com.dtstack.chunjun.connector.clickhouse.config.ClickhouseConfig;
+import com.dtstack.chunjun.connector.clickhouse.dialect.ClickhouseDialect;
 import com.dtstack.chunjun.connector.clickhouse.util.ClickhouseUtil;
 import com.dtstack.chunjun.connector.jdbc.sink.JdbcOutputFormat;
+import com.dtstack.chunjun.connector.jdbc.util.JdbcUtil;
+import com.dtstack.chunjun.element.ColumnRowData;
+import com.dtstack.chunjun.enums.EWriteMode;
+import com.dtstack.chunjun.enums.Semantic;
+import com.dtstack.chunjun.throwable.NoRestartException;
+import com.dtstack.chunjun.throwable.WriteRecordException;
+
+import org.apache.flink.api.java.tuple.Tuple3;
+import org.apache.flink.table.data.RowData;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+import ru.yandex.clickhouse.ClickHouseConnection;
+import ru.yandex.clickhouse.ClickHouseStatement;
+import ru.yandex.clickhouse.domain.ClickHouseCompression;
+import ru.yandex.clickhouse.settings.ClickHouseQueryParam;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
 
+@Slf4j
 public class ClickhouseOutputFormat extends JdbcOutputFormat {
 
     private static final long serialVersionUID = 8629752097265213952L;
 
+    /** 以RowBinary格式通过HTTP接口写入 */
+    private static final String INSERT_SQL_MODE_ROW_BINARY = "rowBinary";
+
+    private static final String COMPRESSION_LZ4 = "lz4";
+
+    private transient ClickhouseRowBinaryWriter rowBinaryWriter;
+    /** rows中已编码的行数 */
+    private transient int encodedRows;
+    /** 编码失败后，本批剩余数据不再提前编码，由写出时的批量写失败转为单条写 */
+    private transient boolean encodeFailed;
+
+    private long batchBytes;
+
+    @Override
+    protected void openInternal(int taskNumber, int numTasks) {
+        super.openInternal(taskNumber, numTasks);
+        if (isRowBinaryMode()) {
+            initRowBinaryWriter();
+        }
+    }
+
     @Override
     protected Connection getConnection() throws SQLException {
+        Properties properties = new Properties();
+        if (isRowBinaryMode() && COMPRESSION_LZ4.equalsIgnoreCase(getCompression())) {
+            // 请求体使用ClickHouse原生的LZ4压缩
+            properties.put(ClickHouseQueryParam.DECOMPRESS.getKey(), "true");
+        }
         return ClickhouseUtil.getConnection(
-                jdbcConfig.getJdbcUrl(), jdbcConfig.getUsername(), jdbcConfig.getPassword());
+                jdbcConfig.getJdbcUrl(),
+                jdbcConfig.getUsername(),
+                jdbcConfig.getPassword(),
+                properties);
+    }
+
+    private boolean isRowBinaryMode() {
+        return INSERT_SQL_MODE_ROW_BINARY.equalsIgnoreCase(jdbcConfig.getInsertSqlMode())
+                && EWriteMode.INSERT.name().equalsIgnoreCase(jdbcConfig.getMode());
+    }
+
+    private String getCompression() {
+        return jdbcConfig instanceof ClickhouseConfig
+                ? ((ClickhouseConfig) jdbcConfig).getCompression()
+                : COMPRESSION_LZ4;
+    }
+
+    /** 按目标表的字段类型创建RowBinary写入器，存在不支持的类型时仍使用jdbc写入 */
+    private void initRowBinaryWriter() {
+        List<String> columnTypes;
+        try {
+            Tuple3<String, String, String> tableIdentify =
+                    jdbcDialect.getTableIdentify().apply(jdbcConfig);
+            Pair<List<String>, List<String>> tableMetaData =
+                    JdbcUtil.getTableMetaData(
+                            tableIdentify.f0, tableIdentify.f1, tableIdentify.f2, dbConn);
+            columnTypes = new ArrayList<>(columnNameList.size());
+            for (String columnName : columnNameList) {
+                int index = tableMetaData.getLeft().indexOf(columnName);
+                columnTypes.add(index < 0 ? null : tableMetaData.getRight().get(index));
+            }
+        } catch (Exception e) {
+            log.warn("can not get column types of target table, use jdbc insert instead", e);
+            return;
+        }
+        for (int i = 0; i < columnTypes.size(); i++) {
+            if (!ClickhouseRowBinaryWriter.isSupported(columnTypes.get(i))) {
+                log.warn(
+                        "RowBinary does not support column [{}] with type [{}], use jdbc insert instead",
+                        columnNameList.get(i),
+                        columnTypes.get(i));
+                return;
+            }
+        }
+
+        String compression = getCompression().toLowerCase(Locale.ENGLISH);
+        ClickHouseCompression bodyCompression;
+        switch (compression) {
+            case COMPRESSION_LZ4:
+            case "none":
+                bodyCompression = ClickHouseCompression.none;
+                break;
+            case "gzip":
+                bodyCompression = ClickHouseCompression.gzip;
+                break;
+            default:
+                throw new NoRestartException(
+                        "unsupported compression [" + compression + "], only lz4, gzip and none");
+        }
+        batchBytes =
+                jdbcConfig instanceof ClickhouseConfig
+                        ? ((ClickhouseConfig) jdbcConfig).getBatchBytes()
+                        : new ClickhouseConfig().getBatchBytes();
+        String insertSql =
+                ((ClickhouseDialect) jdbcDialect)
+                        .getRowBinaryInsertStatement(
+                                jdbcConfig.getSchema(),
+                                jdbcConfig.getTable(),
+                                columnNameList.toArray(new String[0]));
+        rowBinaryWriter =
+                new ClickhouseRowBinaryWriter(
+                        insertSql, columnNameList, columnTypes, bodyCompression);
+        log.info(
+                "write sql:{}, column types:{}, compression:{}, batchBytes:{}",
+                insertSql,
+                columnTypes,
+                compression,
+                batchBytes);
+    }
+
+    @Override
+    public synchronized void writeRecord(RowData rowData) {
+        if (rowBinaryWriter == null) {
+            super.writeRecord(rowData);
+            return;
+        }
+        // 数据到达时即编码，按编码后的大小决定何时写出；flushEnable为false时数据需留在rows中等待checkpoint结束
+        if (rowData instanceof ColumnRowData
+                && batchSize > 1
+                && flushEnable.get()
+                && !encodeFailed
+                && encodedRows == rows.size()) {
+            try {
+                rowBinaryWriter.writeRow((ColumnRowData) rowData);
+                encodedRows++;
+            } catch (Exception e) {
+                log.warn("encode row into RowBinary failed", e);
+                encodeFailed = true;
+            }
+        }
+        super.writeRecord(rowData);
+        if (batchBytes > 0 && rowBinaryWriter.bytes() >= batchBytes && !rows.isEmpty()) {
+            writeRecordInternal();
+        }
+    }
+
+    @Override
+    protected void writeSingleRecordInternal(RowData row) throws WriteRecordException {
+        if (rowBinaryWriter == null) {
+            super.writeSingleRecordInternal(row);
+            return;
+        }
+        if (!(row instanceof ColumnRowData)) {
+            throw new NoRestartException("RowBinary mode only support data sync with out table");
+        }
+        try (ClickHouseStatement statement = createStatement()) {
+            rowBinaryWriter.clear();
+            rowBinaryWriter.writeRow((ColumnRowData) row);
+            rowBinaryWriter.send(statement);
+            if (Semantic.EXACTLY_ONCE == semantic) {
+                rowsOfCurrentTransaction++;
+            }
+        } catch (Exception e) {
+            rowBinaryWriter.clear();
+            processWriteException(e, 0, row);
+        }
+    }
+
+    @Override
+    protected void writeMultipleRecordsInternal() throws Exception {
+        if (rowBinaryWriter == null) {
+            super.writeMultipleRecordsInternal();
+            return;
+        }
+        try (ClickHouseStatement statement = createStatement()) {
+            if (encodeFailed) {
+                throw new WriteRecordException("encode rows into RowBinary failed", null);
+            }
+            for (int i = encodedRows; i < rows.size(); i++) {
+                RowData row = rows.get(i);
+                if (!(row instanceof ColumnRowData)) {
+                    throw new NoRestartException(
+                            "RowBinary mode only support data sync with out table");
+                }
+                rowBinaryWriter.writeRow((ColumnRowData) row);
+            }
+            rowBinaryWriter.send(statement);
+            if (Semantic.EXACTLY_ONCE == semantic) {
+                rowsOfCurrentTransaction += rows.size();
+            }
+        } catch (Exception e) {
+            log.warn("write Multiple Records with RowBinary error, row size = {}", rows.size(), e);
+            throw e;
+        } finally {
+            rowBinaryWriter.clear();
+            encodedRows = 0;
+            encodeFailed = false;
+        }
+    }
+
+    private ClickHouseStatement createStatement() throws SQLException {
+        return dbConn.unwrap(ClickHouseConnection.class).createStatement();
     }
 }
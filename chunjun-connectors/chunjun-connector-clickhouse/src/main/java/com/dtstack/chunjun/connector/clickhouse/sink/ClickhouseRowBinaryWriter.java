@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.clickhouse.sink;
+
+import com.dtstack.chunjun.element.AbstractBaseColumn;
+import com.dtstack.chunjun.element.ColumnRowData;
+import com.dtstack.chunjun.element.column.BytesColumn;
+import com.dtstack.chunjun.element.column.NullColumn;
+
+import ru.yandex.clickhouse.ClickHouseStatement;
+import ru.yandex.clickhouse.domain.ClickHouseCompression;
+import ru.yandex.clickhouse.domain.ClickHouseFormat;
+import ru.yandex.clickhouse.settings.ClickHouseProperties;
+import ru.yandex.clickhouse.util.ClickHouseRowBinaryStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 将数据编码为ClickHouse的RowBinary格式并缓存在内存中，写出时通过HTTP接口以 INSERT ... FORMAT RowBinary 发送。
+ *
+ * <p>数据按目标字段的实际类型编码，服务端无需解析SQL中的字面量。
+ *
+ * <p>编码结果有意整批缓存在内存中，而不是在数据到达时直接写入请求体：一次HTTP请求不能跨多次writeRecord保持打开，
+ * 编码失败的行需要从缓冲中回退，批量写失败后还要转为单条写。缓冲的大小受batchSize和batchBytes限制，
+ * 写出时不压缩或lz4压缩直接把缓冲写入请求体，gzip压缩时会额外产生一份压缩后的副本。
+ */
+public class ClickhouseRowBinaryWriter {
+
+    private static final Pattern WRAPPER_PATTERN =
+            Pattern.compile("^(Nullable|LowCardinality)\\((.*)\\)$");
+    private static final Pattern DECIMAL_PATTERN =
+            Pattern.compile("^Decimal\\((\\d+),\\s*(\\d+)\\)$");
+    private static final Pattern DECIMAL_N_PATTERN =
+            Pattern.compile("^Decimal(32|64|128|256)\\((\\d+)\\)$");
+    private static final Pattern FIXED_STRING_PATTERN =
+            Pattern.compile("^FixedString\\((\\d+)\\)$");
+    private static final Pattern DATETIME_PATTERN = Pattern.compile("^DateTime(\\(.*\\))?$");
+    private static final Pattern DATETIME64_PATTERN =
+            Pattern.compile("^DateTime64\\((\\d+)(,.*)?\\)$");
+
+    private final String insertSql;
+    private final ClickHouseCompression compression;
+    private final List<String> columnNames;
+    private final FieldEncoder[] encoders;
+    private final boolean[] nullable;
+
+    private final RowBuffer buffer = new RowBuffer();
+    private final ClickHouseRowBinaryStream stream =
+            new ClickHouseRowBinaryStream(
+                    buffer, TimeZone.getDefault(), new ClickHouseProperties());
+
+    private int rowCount;
+
+    /**
+     * @param insertSql 以RowBinary格式写入的insert语句
+     * @param columnNames 写入的字段
+     * @param columnTypes 字段在ClickHouse中的类型，如Nullable(String)
+     * @param compression 请求体的压缩方式，lz4由连接参数decompress控制，这里为none
+     */
+    public ClickhouseRowBinaryWriter(
+            String insertSql,
+            List<String> columnNames,
+            List<String> columnTypes,
+            ClickHouseCompression compression) {
+        this.insertSql = insertSql;
+        this.compression = compression;
+        this.columnNames = columnNames;
+        this.encoders = new FieldEncoder[columnTypes.size()];
+        this.nullable = new boolean[columnTypes.size()];
+        for (int i = 0; i < encoders.length; i++) {
+            String type = columnTypes.get(i);
+            Matcher matcher;
+            while (type != null && (matcher = WRAPPER_PATTERN.matcher(type.trim())).matches()) {
+                nullable[i] |= "Nullable".equals(matcher.group(1));
+                type = matcher.group(2);
+            }
+            encoders[i] = createEncoder(type);
+            if (encoders[i] == null) {
+                throw new IllegalArgumentException(
+                        "RowBinary does not support type " + columnTypes.get(i));
+            }
+        }
+    }
+
+    /** 类型是否支持RowBinary编码 */
+    public static boolean isSupported(String columnType) {
+        String type = columnType;
+        Matcher matcher;
+        while (type != null && (matcher = WRAPPER_PATTERN.matcher(type.trim())).matches()) {
+            type = matcher.group(2);
+        }
+        return createEncoder(type) != null;
+    }
+
+    /** 编码一行数据，编码失败时丢弃该行已写入的部分 */
+    public void writeRow(ColumnRowData row) throws IOException {
+        int mark = buffer.size();
+        try {
+            for (int i = 0; i < encoders.length; i++) {
+                AbstractBaseColumn column = row.getField(i);
+                boolean isNull = column == null || column instanceof NullColumn;
+                if (nullable[i]) {
+                    stream.markNextNullable(isNull);
+                    if (isNull) {
+                        continue;
+                    }
+                } else if (isNull) {
+                    throw new IllegalArgumentException(
+                            "column [" + columnNames.get(i) + "] is not Nullable");
+                }
+                encoders[i].encode(column, stream);
+            }
+            rowCount++;
+        } catch (Exception e) {
+            buffer.truncate(mark);
+            throw e;
+        }
+    }
+
+    /** 已编码的字节数 */
+    public int bytes() {
+        return buffer.size();
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /** 发送已编码的数据，发送后清空。不压缩时直接写出缓冲区，不再复制 */
+    public void send(ClickHouseStatement statement) throws IOException, SQLException {
+        if (rowCount == 0) {
+            return;
+        }
+        try {
+            if (compression == ClickHouseCompression.gzip) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(buffer.size() / 4);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    buffer.writeTo(gzip);
+                }
+                statement
+                        .write()
+                        .sql(insertSql)
+                        .data(
+                                new ByteArrayInputStream(compressed.toByteArray()),
+                                ClickHouseFormat.RowBinary,
+                                ClickHouseCompression.gzip)
+                        .send();
+            } else {
+                statement
+                        .write()
+                        .send(
+                                insertSql,
+                                out -> out.writeBytes(buffer.array(), 0, buffer.size()),
+                                ClickHouseFormat.RowBinary);
+            }
+        } finally {
+            clear();
+        }
+    }
+
+    public void clear() {
+        buffer.reset();
+        rowCount = 0;
+    }
+
+    private static FieldEncoder createEncoder(String columnType) {
+        if (columnType == null) {
+            return null;
+        }
+        String type = columnType.trim();
+        switch (type) {
+            case "Bool":
+            case "Boolean":
+                return (column, out) -> out.writeUInt8(column.asBoolean());
+            case "Int8":
+                return (column, out) -> out.writeInt8(column.asInt());
+            case "UInt8":
+                return (column, out) -> out.writeUInt8(column.asInt());
+            case "Int16":
+                return (column, out) -> out.writeInt16(column.asShort());
+            case "UInt16":
+                return (column, out) -> out.writeUInt16(column.asInt());
+            case "Int32":
+                return (column, out) -> out.writeInt32(column.asInt());
+            case "UInt32":
+                return (column, out) -> out.writeUInt32(column.asLong());
+            case "Int64":
+                return (column, out) -> out.writeInt64(column.asLong());
+            case "UInt64":
+                return (column, out) -> out.writeUInt64(column.asBigDecimal().toBigInteger());
+            case "Float32":
+                return (column, out) -> out.writeFloat32(column.asFloat());
+            case "Float64":
+                return (column, out) -> out.writeFloat64(column.asDouble());
+            case "String":
+                return (column, out) -> {
+                    if (column instanceof BytesColumn) {
+                        byte[] bytes = column.asBytes();
+                        out.writeUnsignedLeb128(bytes.length);
+                        out.writeBytes(bytes);
+                    } else {
+                        out.writeString(column.asString());
+                    }
+                };
+            case "UUID":
+                return (column, out) -> out.writeUUID(UUID.fromString(column.asString()));
+            case "Date":
+                return (column, out) ->
+                        out.writeUInt16((int) column.asSqlDate().toLocalDate().toEpochDay());
+            case "Date32":
+                return (column, out) ->
+                        out.writeInt32((int) column.asSqlDate().toLocalDate().toEpochDay());
+            default:
+        }
+
+        Matcher matcher;
+        if ((matcher = FIXED_STRING_PATTERN.matcher(type)).matches()) {
+            int length = Integer.parseInt(matcher.group(1));
+            return (column, out) -> out.writeFixedString(column.asString(), length);
+        }
+        if (DATETIME_PATTERN.matcher(type).matches()) {
+            // DateTime存储的是秒级时间戳，时区只影响展示
+            return (column, out) ->
+                    out.writeUInt32(Math.floorDiv(column.asTimestamp().getTime(), 1000L));
+        }
+        if ((matcher = DATETIME64_PATTERN.matcher(type)).matches()) {
+            int precision = Integer.parseInt(matcher.group(1));
+            long multiplier = pow10(precision);
+            long divisor = pow10(9 - precision);
+            return (column, out) -> {
+                Timestamp timestamp = column.asTimestamp();
+                long seconds = Math.floorDiv(timestamp.getTime(), 1000L);
+                out.writeInt64(seconds * multiplier + timestamp.getNanos() / divisor);
+            };
+        }
+        if ((matcher = DECIMAL_PATTERN.matcher(type)).matches()) {
+            int precision = Integer.parseInt(matcher.group(1));
+            int scale = Integer.parseInt(matcher.group(2));
+            return createDecimalEncoder(
+                    precision <= 9 ? 32 : precision <= 18 ? 64 : precision <= 38 ? 128 : 256,
+                    scale);
+        }
+        if ((matcher = DECIMAL_N_PATTERN.matcher(type)).matches()) {
+            return createDecimalEncoder(
+                    Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+        }
+        return null;
+    }
+
+    private static FieldEncoder createDecimalEncoder(int bits, int scale) {
+        switch (bits) {
+            case 32:
+                return (column, out) -> out.writeDecimal32(toDecimal(column, scale), scale);
+            case 64:
+                return (column, out) -> out.writeDecimal64(toDecimal(column, scale), scale);
+            case 128:
+                return (column, out) -> out.writeDecimal128(toDecimal(column, scale), scale);
+            default:
+                return (column, out) -> out.writeDecimal256(toDecimal(column, scale), scale);
+        }
+    }
+
+    private static BigDecimal toDecimal(AbstractBaseColumn column, int scale) {
+        return column.asBigDecimal().setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    private static long pow10(int exponent) {
+        long value = 1;
+        for (int i = 0; i < exponent; i++) {
+            value *= 10;
+        }
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface FieldEncoder {
+        void encode(AbstractBaseColumn column, ClickHouseRowBinaryStream out) throws IOException;
+    }
+
+    /** 可以回退到指定位置的内存缓冲 */
+    private static class RowBuffer extends ByteArrayOutputStream {
+
+        private RowBuffer() {
+            super(64 * 1024);
+        }
+
+        private byte[] array() {
+            return buf;
+        }
+
+        private void truncate(int size) {
+            count = size;
+        }
+    }
+}
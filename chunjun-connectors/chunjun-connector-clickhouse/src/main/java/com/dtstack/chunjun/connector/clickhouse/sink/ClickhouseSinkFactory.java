@@ -19,8 +19,10 @@
 package com.dtstack.chunjun.connector.clickhouse.sink;
 
 import com.dtstack.chunjun.config.SyncConfig;
+import com.dtstack.chunjun.connector.clickhouse.config.ClickhouseConfig;
 import com.dtstack.chunjun.connector.clickhouse.dialect.ClickhouseDialect;
 import com.dtstack.chunjun.connector.clickhouse.util.ClickhouseUtil;
+import com.dtstack.chunjun.connector.jdbc.config.JdbcConfig;
 import com.dtstack.chunjun.connector.jdbc.sink.JdbcOutputFormatBuilder;
 import com.dtstack.chunjun.connector.jdbc.sink.JdbcSinkFactory;
 import com.dtstack.chunjun.throwable.ChunJunRuntimeException;
@@ -52,4 +54,9 @@ public class ClickhouseSinkFactory extends JdbcSinkFactory {
                     e);
         }
     }
+
+    @Override
+    protected Class<? extends JdbcConfig> getConfClass() {
+        return ClickhouseConfig.class;
+    }
 }
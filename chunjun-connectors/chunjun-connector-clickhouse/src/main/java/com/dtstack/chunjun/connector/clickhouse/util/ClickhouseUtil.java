@@ -33,7 +33,13 @@ public class ClickhouseUtil {
 
     public static Connection getConnection(String url, String username, String password)
             throws SQLException {
-        Properties properties = new Properties();
+        return getConnection(url, username, password, new Properties());
+    }
+
+    /** @param properties 额外的连接参数，如decompress */
+    public static Connection getConnection(
+            String url, String username, String password, Properties properties)
+            throws SQLException {
         if (null != username) {
             properties.put(ClickHouseQueryParam.USER.getKey(), username);
         }
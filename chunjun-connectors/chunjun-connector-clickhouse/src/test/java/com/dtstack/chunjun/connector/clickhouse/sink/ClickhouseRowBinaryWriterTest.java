@@ -0,0 +1,373 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.clickhouse.sink;
+
+import com.dtstack.chunjun.element.AbstractBaseColumn;
+import com.dtstack.chunjun.element.ColumnRowData;
+import com.dtstack.chunjun.element.column.BigDecimalColumn;
+import com.dtstack.chunjun.element.column.BooleanColumn;
+import com.dtstack.chunjun.element.column.BytesColumn;
+import com.dtstack.chunjun.element.column.NullColumn;
+import com.dtstack.chunjun.element.column.SqlDateColumn;
+import com.dtstack.chunjun.element.column.StringColumn;
+import com.dtstack.chunjun.element.column.TimestampColumn;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import ru.yandex.clickhouse.ClickHouseStatement;
+import ru.yandex.clickhouse.Writer;
+import ru.yandex.clickhouse.domain.ClickHouseCompression;
+import ru.yandex.clickhouse.domain.ClickHouseFormat;
+import ru.yandex.clickhouse.settings.ClickHouseProperties;
+import ru.yandex.clickhouse.util.ClickHouseRowBinaryStream;
+import ru.yandex.clickhouse.util.ClickHouseStreamCallback;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TimeZone;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+public class ClickhouseRowBinaryWriterTest {
+
+    private static final String INSERT_SQL = "INSERT INTO t (c) FORMAT RowBinary";
+
+    private ClickHouseStatement statement;
+    private Writer writer;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        statement = Mockito.mock(ClickHouseStatement.class);
+        writer = Mockito.mock(Writer.class);
+        Mockito.when(statement.write()).thenReturn(writer);
+        Mockito.when(writer.sql(any())).thenReturn(writer);
+        Mockito.when(writer.data(any(InputStream.class), any(), any())).thenReturn(writer);
+        // like the driver, the callback writes the request body before send returns
+        Mockito.doAnswer(
+                        invocation -> {
+                            ClickHouseStreamCallback callback = invocation.getArgument(1);
+                            callback.writeTo(
+                                    new ClickHouseRowBinaryStream(
+                                            body,
+                                            TimeZone.getDefault(),
+                                            new ClickHouseProperties()));
+                            return null;
+                        })
+                .when(writer)
+                .send(any(String.class), any(ClickHouseStreamCallback.class), any());
+    }
+
+    @Test
+    public void testStringLength() throws Exception {
+        assertArrayEquals(bytes(3, 'a', 'b', 'c'), encode("String", new StringColumn("abc")));
+        assertArrayEquals(bytes(0), encode("String", new StringColumn("")));
+        // the length is unsigned LEB128, the value is utf-8
+        byte[] utf8 = "中".getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(concat(bytes(3), utf8), encode("String", new StringColumn("中")));
+        assertArrayEquals(
+                concat(bytes(0xac, 0x02), repeat('x', 300)),
+                encode("String", new StringColumn(new String(repeat('x', 300), "UTF-8"))));
+        assertArrayEquals(
+                concat(bytes(0x80, 0x80, 0x01), repeat('y', 16384)),
+                encode("String", new StringColumn(new String(repeat('y', 16384), "UTF-8"))));
+        assertArrayEquals(
+                bytes(2, 0, 0xff), encode("String", new BytesColumn(new byte[] {0, (byte) 0xff})));
+        assertArrayEquals(
+                bytes('a', 'b', 0, 0, 0), encode("FixedString(5)", new StringColumn("ab")));
+    }
+
+    @Test
+    public void testNullable() throws Exception {
+        assertArrayEquals(bytes(1), encode("Nullable(String)", new NullColumn()));
+        assertArrayEquals(bytes(1), encode("Nullable(Int32)", null));
+        assertArrayEquals(bytes(0, 1, 'a'), encode("Nullable(String)", new StringColumn("a")));
+        assertArrayEquals(bytes(0, 7, 0, 0, 0), encode("Nullable(Int32)", new BigDecimalColumn(7)));
+        assertArrayEquals(bytes(1), encode("LowCardinality(Nullable(String))", new NullColumn()));
+        // LowCardinality alone is not nullable
+        assertArrayEquals(bytes(1, 'a'), encode("LowCardinality(String)", new StringColumn("a")));
+    }
+
+    @Test
+    public void testNullInNotNullableColumnIsRolledBack() throws Exception {
+        ClickhouseRowBinaryWriter rowWriter =
+                new ClickhouseRowBinaryWriter(
+                        INSERT_SQL,
+                        Arrays.asList("a", "b"),
+                        Arrays.asList("Int32", "String"),
+                        ClickHouseCompression.none);
+        rowWriter.writeRow(row(new BigDecimalColumn(1), new StringColumn("x")));
+        int bytes = rowWriter.bytes();
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> rowWriter.writeRow(row(new BigDecimalColumn(2), new NullColumn())));
+        // the part of the failed row already written is dropped
+        assertEquals(bytes, rowWriter.bytes());
+        assertEquals(1, rowWriter.rowCount());
+        assertArrayEquals(bytes(1, 0, 0, 0, 1, 'x'), send(rowWriter));
+    }
+
+    @Test
+    public void testIntegerWidths() throws Exception {
+        assertArrayEquals(bytes(1), encode("Bool", new BooleanColumn(true)));
+        assertArrayEquals(bytes(0xff), encode("Int8", new BigDecimalColumn(-1)));
+        assertArrayEquals(bytes(200), encode("UInt8", new BigDecimalColumn(200)));
+        assertArrayEquals(bytes(0xfe, 0xff), encode("Int16", new BigDecimalColumn(-2)));
+        assertArrayEquals(bytes(0xff, 0xff), encode("UInt16", new BigDecimalColumn(65535)));
+        assertArrayEquals(
+                bytes(0x78, 0x56, 0x34, 0x12), encode("Int32", new BigDecimalColumn(0x12345678)));
+        assertArrayEquals(
+                bytes(0xff, 0xff, 0xff, 0xff), encode("UInt32", new BigDecimalColumn(4294967295L)));
+        assertArrayEquals(
+                littleEndian(8, Long.MIN_VALUE),
+                encode("Int64", new BigDecimalColumn(Long.MIN_VALUE)));
+        assertArrayEquals(
+                bytes(0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff),
+                encode(
+                        "UInt64",
+                        new BigDecimalColumn(
+                                new BigDecimal(
+                                        BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE)))));
+        assertArrayEquals(
+                ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putFloat(1.5f).array(),
+                encode("Float32", new BigDecimalColumn(1.5f)));
+        assertArrayEquals(
+                ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putDouble(-0.25d).array(),
+                encode("Float64", new BigDecimalColumn(-0.25d)));
+    }
+
+    @Test
+    public void testDecimalWidths() throws Exception {
+        // the unscaled value, rounded half up to the scale, in 4, 8, 16 or 32 bytes
+        assertArrayEquals(
+                littleEndian(4, 101), encode("Decimal(9, 2)", new BigDecimalColumn("1.005")));
+        assertArrayEquals(
+                littleEndian(8, -15), encode("Decimal(10,1)", new BigDecimalColumn("-1.5")));
+        assertArrayEquals(
+                littleEndian(8, 123_450_000L),
+                encode("Decimal(18, 4)", new BigDecimalColumn("12345")));
+        assertArrayEquals(
+                littleEndian(16, -1), encode("Decimal(38, 2)", new BigDecimalColumn("-0.01")));
+        assertArrayEquals(
+                littleEndian(32, 42), encode("Decimal(76, 0)", new BigDecimalColumn("42")));
+        assertArrayEquals(
+                littleEndian(4, 1_500), encode("Decimal32(3)", new BigDecimalColumn("1.5")));
+        assertArrayEquals(
+                littleEndian(8, 1_500), encode("Decimal64(3)", new BigDecimalColumn("1.5")));
+        BigInteger large = new BigInteger("12345678901234567890123456789");
+        assertArrayEquals(
+                littleEndian(16, large.multiply(BigInteger.TEN.pow(9))),
+                encode("Decimal128(9)", new BigDecimalColumn(new BigDecimal(large))));
+        assertArrayEquals(
+                concat(bytes(0), littleEndian(32, -7)),
+                encode("Nullable(Decimal256(0))", new BigDecimalColumn("-7")));
+    }
+
+    @Test
+    public void testDateTimeWidths() throws Exception {
+        Timestamp timestamp = Timestamp.from(Instant.parse("2021-06-01T00:00:01.123456789Z"));
+        long seconds = timestamp.getTime() / 1000;
+        assertArrayEquals(
+                littleEndian(4, seconds), encode("DateTime", new TimestampColumn(timestamp, 9)));
+        assertArrayEquals(
+                littleEndian(4, seconds),
+                encode("DateTime('Asia/Shanghai')", new TimestampColumn(timestamp, 9)));
+        assertArrayEquals(
+                littleEndian(8, seconds * 1_000 + 123),
+                encode("DateTime64(3)", new TimestampColumn(timestamp, 9)));
+        assertArrayEquals(
+                littleEndian(8, seconds * 1_000_000 + 123_456),
+                encode("DateTime64(6, 'UTC')", new TimestampColumn(timestamp, 9)));
+        assertArrayEquals(
+                littleEndian(8, seconds * 1_000_000_000 + 123_456_789),
+                encode("DateTime64(9)", new TimestampColumn(timestamp, 9)));
+        // before 1970 the seconds are rounded down, the fraction stays positive
+        Timestamp before = Timestamp.from(Instant.parse("1969-12-31T23:59:59.5Z"));
+        assertArrayEquals(
+                littleEndian(8, -500), encode("DateTime64(3)", new TimestampColumn(before, 3)));
+
+        assertArrayEquals(
+                littleEndian(2, 1), encode("Date", new SqlDateColumn(Date.valueOf("1970-01-02"))));
+        assertArrayEquals(
+                littleEndian(4, -1),
+                encode("Date32", new SqlDateColumn(Date.valueOf("1969-12-31"))));
+    }
+
+    @Test
+    public void testUuid() throws Exception {
+        // two little endian UInt64, the high bits first
+        assertArrayEquals(
+                bytes(8, 7, 6, 5, 4, 3, 2, 1, 0x10, 0x0f, 0x0e, 0x0d, 0x0c, 0x0b, 0x0a, 9),
+                encode("UUID", new StringColumn("01020304-0506-0708-090a-0b0c0d0e0f10")));
+    }
+
+    @Test
+    public void testSupportedTypes() {
+        assertTrue(ClickhouseRowBinaryWriter.isSupported("LowCardinality(Nullable(String))"));
+        assertTrue(ClickhouseRowBinaryWriter.isSupported("DateTime64(3, 'Asia/Shanghai')"));
+        assertFalse(ClickhouseRowBinaryWriter.isSupported("Array(String)"));
+        assertFalse(ClickhouseRowBinaryWriter.isSupported(null));
+        assertThrows(
+                IllegalArgumentException.class,
+                () ->
+                        new ClickhouseRowBinaryWriter(
+                                INSERT_SQL,
+                                Collections.singletonList("c"),
+                                Collections.singletonList("Map(String, String)"),
+                                ClickHouseCompression.none));
+    }
+
+    @Test
+    public void testSendGzip() throws Exception {
+        ClickhouseRowBinaryWriter rowWriter =
+                new ClickhouseRowBinaryWriter(
+                        INSERT_SQL,
+                        Collections.singletonList("c"),
+                        Collections.singletonList("String"),
+                        ClickHouseCompression.gzip);
+        rowWriter.writeRow(row(new StringColumn("a")));
+        rowWriter.writeRow(row(new StringColumn("bc")));
+
+        ArgumentCaptor<InputStream> data = ArgumentCaptor.forClass(InputStream.class);
+        rowWriter.send(statement);
+
+        Mockito.verify(writer).sql(INSERT_SQL);
+        Mockito.verify(writer)
+                .data(
+                        data.capture(),
+                        Mockito.eq(ClickHouseFormat.RowBinary),
+                        Mockito.eq(ClickHouseCompression.gzip));
+        Mockito.verify(writer).send();
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        try (GZIPInputStream gzip = new GZIPInputStream(data.getValue())) {
+            byte[] buf = new byte[1024];
+            int read;
+            while ((read = gzip.read(buf)) > 0) {
+                decompressed.write(buf, 0, read);
+            }
+        }
+        assertArrayEquals(bytes(1, 'a', 2, 'b', 'c'), decompressed.toByteArray());
+        assertEquals(0, rowWriter.rowCount());
+        assertEquals(0, rowWriter.bytes());
+    }
+
+    @Test
+    public void testSendNothing() throws Exception {
+        ClickhouseRowBinaryWriter rowWriter =
+                new ClickhouseRowBinaryWriter(
+                        INSERT_SQL,
+                        Collections.singletonList("c"),
+                        Collections.singletonList("String"),
+                        ClickHouseCompression.none);
+        rowWriter.send(statement);
+        Mockito.verifyNoInteractions(statement);
+    }
+
+    /** Encodes one value, sends it and returns the request body. */
+    private byte[] encode(String type, AbstractBaseColumn column) throws Exception {
+        ClickhouseRowBinaryWriter rowWriter =
+                new ClickhouseRowBinaryWriter(
+                        INSERT_SQL,
+                        Collections.singletonList("c"),
+                        Collections.singletonList(type),
+                        ClickHouseCompression.none);
+        rowWriter.writeRow(row(column));
+        assertEquals(1, rowWriter.rowCount());
+        return send(rowWriter);
+    }
+
+    private byte[] send(ClickhouseRowBinaryWriter rowWriter) throws Exception {
+        int bytes = rowWriter.bytes();
+        body.reset();
+        Mockito.clearInvocations(writer);
+        rowWriter.send(statement);
+
+        Mockito.verify(writer)
+                .send(
+                        Mockito.eq(INSERT_SQL),
+                        any(ClickHouseStreamCallback.class),
+                        Mockito.eq(ClickHouseFormat.RowBinary));
+        assertEquals(bytes, body.size());
+        assertEquals(0, rowWriter.rowCount());
+        assertEquals(0, rowWriter.bytes());
+        return body.toByteArray();
+    }
+
+    private static ColumnRowData row(AbstractBaseColumn... columns) {
+        ColumnRowData row = new ColumnRowData(columns.length);
+        for (AbstractBaseColumn column : columns) {
+            row.addField(column);
+        }
+        return row;
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] repeat(char c, int count) {
+        byte[] bytes = new byte[count];
+        Arrays.fill(bytes, (byte) c);
+        return bytes;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] bytes = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+        return bytes;
+    }
+
+    private static byte[] littleEndian(int width, long value) {
+        return littleEndian(width, BigInteger.valueOf(value));
+    }
+
+    /** Two's complement of the value in width bytes, least significant byte first. */
+    private static byte[] littleEndian(int width, BigInteger value) {
+        byte[] bigEndian = value.toByteArray();
+        byte[] bytes = new byte[width];
+        Arrays.fill(bytes, value.signum() < 0 ? (byte) 0xff : 0);
+        for (int i = 0; i < Math.min(width, bigEndian.length); i++) {
+            bytes[i] = bigEndian[bigEndian.length - 1 - i];
+        }
+        return bytes;
+    }
+}
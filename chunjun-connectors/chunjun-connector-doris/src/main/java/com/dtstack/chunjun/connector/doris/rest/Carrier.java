@@ -19,23 +19,24 @@
 package com.dtstack.chunjun.connector.doris.rest;
 
 import lombok.Data;
-import org.apache.commons.lang3.StringUtils;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.StringJoiner;
-import java.util.stream.IntStream;
 
 @Data
 public class Carrier implements Serializable {
     private static final long serialVersionUID = 1L;
-    private final List<Map<String, Object>> insertContent = new ArrayList<>();
-    private final StringJoiner deleteContent = new StringJoiner(" OR ");
+    /** 待写入的数据，每行的值与columns一一对应 */
+    private final List<String[]> rows = new ArrayList<>();
+    /** 需要删除的行，写入时通过__DORIS_DELETE_SIGN__标记 */
+    private final BitSet deleteRows = new BitSet();
+
     private int batch = 0;
     private String database;
     private String table;
@@ -46,68 +47,52 @@ public class Carrier implements Serializable {
         return database;
     }
 
-    public String getDeleteContent() {
-        return deleteContent.toString();
-    }
-
     public void addRowDataIndex(int index) {
         rowDataIndexes.add(index);
     }
 
-    public void addInsertContent(List<String> insertV) {
-        if (!insertV.isEmpty()) {
-            if (insertV.size() > columns.size()) {
-                // It is certain that in this case, the size
-                // of insertV is twice the size of column
-                List<String> forward = insertV.subList(0, columns.size());
-                final Map<String, Object> forwardV = new HashMap<>(columns.size());
-                IntStream.range(0, columns.size())
-                        .forEach(i -> forwardV.put(columns.get(i), forward.get(i)));
-                insertContent.add(forwardV);
-                List<String> behind = insertV.subList(columns.size(), insertV.size());
-                final Map<String, Object> behindV = new HashMap<>(columns.size());
-                IntStream.range(0, columns.size())
-                        .forEach(i -> behindV.put(columns.get(i), behind.get(i)));
-                insertContent.add(behindV);
-            } else {
-                final Map<String, Object> values = new HashMap<>(columns.size());
-                IntStream.range(0, columns.size())
-                        .forEach(i -> values.put(columns.get(i), insertV.get(i)));
-                insertContent.add(values);
+    /**
+     * Add the values of one RowData.
+     *
+     * @param insertV values of the row, or the before values followed by the after values
+     * @param deleteV values that need to be deleted, empty when the row is not a deletion
+     */
+    public void addContent(List<String> insertV, List<String> deleteV) {
+        if (insertV.isEmpty()) {
+            return;
+        }
+        int size = columns.size();
+        if (insertV.size() > size) {
+            // It is certain that in this case, the size
+            // of insertV is twice the size of column
+            String[] before = insertV.subList(0, size).toArray(new String[0]);
+            // the before values of an insert are all null, there is nothing to delete
+            if (!deleteV.isEmpty() && !Arrays.stream(before).allMatch(Objects::isNull)) {
+                addRow(before, true);
             }
+            addRow(insertV.subList(size, insertV.size()).toArray(new String[0]), false);
+        } else {
+            addRow(insertV.toArray(new String[0]), !deleteV.isEmpty());
         }
     }
 
-    public void addDeleteContent(List<String> deleteV) {
-        if (!deleteV.isEmpty()) {
-            String s = buildMergeOnConditions(columns, deleteV);
-            deleteContent.add(s);
+    private void addRow(String[] values, boolean delete) {
+        if (delete) {
+            deleteRows.set(rows.size());
         }
+        rows.add(values);
     }
 
-    public void updateBatch() {
-        batch++;
+    public boolean isDelete(int row) {
+        return deleteRows.get(row);
     }
 
-    /**
-     * Construct the Doris delete on condition, which only takes effect in the merge http request.
-     *
-     * @return delete on condition
-     */
-    private String buildMergeOnConditions(List<String> columns, List<String> values) {
-        List<String> deleteOnStr = new ArrayList<>();
-        for (int i = 0, size = columns.size(); i < size; i++) {
-            String s =
-                    "`"
-                            + columns.get(i)
-                            + "`"
-                            + "<=>"
-                            + "'"
-                            + ((values.get(i)) == null ? "" : values.get(i))
-                            + "'";
-            deleteOnStr.add(s);
-        }
-        return StringUtils.join(deleteOnStr, " AND ");
+    public boolean hasDelete() {
+        return !deleteRows.isEmpty();
+    }
+
+    public void updateBatch() {
+        batch++;
     }
 
     @Override
@@ -124,11 +109,14 @@ public class Carrier implements Serializable {
             }
             sb.append(columns.get(i));
         }
-        sb.append("], insert_value:");
-        sb.append(insertContent);
-        sb.append(", delete_value:");
-        sb.append(deleteContent);
-        sb.append(", batch:");
+        sb.append("], values:[");
+        for (int i = 0; i < rows.size(); i++) {
+            if (i != 0) {
+                sb.append(",");
+            }
+            sb.append(isDelete(i) ? "-" : "+").append(Arrays.toString(rows.get(i)));
+        }
+        sb.append("], batch:");
         sb.append(batch);
         sb.append("}");
         return sb.toString();
@@ -147,8 +147,7 @@ public class DorisLoadClient implements Serializable {
         String key = schema + KEY_POINT + table;
         if (carrierMap.containsKey(key)) {
             Carrier carrier = carrierMap.get(key);
-            carrier.addInsertContent(insertV);
-            carrier.addDeleteContent(deleteV);
+            carrier.addContent(insertV, deleteV);
             carrier.addRowDataIndex(index);
             carrier.updateBatch();
         } else {
@@ -178,8 +177,7 @@ public class DorisLoadClient implements Serializable {
         String key = schema + KEY_POINT + table;
         if (carrierMap.containsKey(key)) {
             Carrier carrier = carrierMap.get(key);
-            carrier.addInsertContent(insertV);
-            carrier.addDeleteContent(deleteV);
+            carrier.addContent(insertV, deleteV);
             carrier.addRowDataIndex(index);
             carrier.updateBatch();
         } else {
@@ -344,8 +342,7 @@ public class DorisLoadClient implements Serializable {
         carrier.setColumns(columns);
         carrier.setDatabase(schema);
         carrier.setTable(table);
-        carrier.addInsertContent(insertV);
-        carrier.addDeleteContent(deleteV);
+        carrier.addContent(insertV, deleteV);
         carrier.updateBatch();
         return carrier;
     }
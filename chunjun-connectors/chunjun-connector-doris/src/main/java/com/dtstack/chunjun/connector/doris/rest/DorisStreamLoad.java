@@ -19,6 +19,7 @@
 package com.dtstack.chunjun.connector.doris.rest;
 
 import com.dtstack.chunjun.connector.doris.options.DorisConfig;
+import com.dtstack.chunjun.connector.doris.options.DorisKeys;
 import com.dtstack.chunjun.connector.doris.rest.module.RespContent;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -30,7 +31,6 @@ import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.config.ConnectionConfig;
-import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.util.EntityUtils;
@@ -60,6 +60,15 @@ public class DorisStreamLoad implements Serializable {
     private static final List<String> DORIS_SUCCESS_STATUS =
             new ArrayList<>(Arrays.asList("Success", "Publish Timeout"));
     private static final String LOAD_URL_PATTERN = "http://%s/api/%s/%s/_stream_load?";
+    private static final String FORMAT = "format";
+    private static final String FORMAT_CSV = "csv";
+    private static final String FORMAT_JSON = "json";
+    private static final String COLUMN_SEPARATOR = "column_separator";
+    private static final String LINE_DELIMITER = "line_delimiter";
+    private static final String STRIP_OUTER_ARRAY = "strip_outer_array";
+    /** jackson escapes line breaks inside values, so json lines are always split by \n */
+    private static final String JSON_LINE_DELIMITER = "\n";
+
     private final String authEncoding;
     private final Properties streamLoadProp;
     private String hostPort;
@@ -86,44 +95,86 @@ public class DorisStreamLoad implements Serializable {
     /**
      * Generate Http Put request.
      *
-     * @param columnNames doris table column names.
+     * @param carrier data carrier.
      * @param urlStr doris put url.
      * @param label the label of doris stream load.
-     * @param mergeConditions the merge conditions of doris stream load.
      * @return http put request of doris stream load.
      */
-    private HttpPut generatePut(
-            List<String> columnNames, String urlStr, String label, String mergeConditions) {
+    private HttpPut generatePut(Carrier carrier, String urlStr, String label) {
 
         HttpPut httpPut = new HttpPut(urlStr);
         httpPut.setHeader("Authorization", "Basic " + authEncoding);
         httpPut.setHeader("Expect", "100-continue");
         httpPut.setHeader("Content-Type", "text/plain; charset=UTF-8");
         httpPut.setHeader("label", label);
-        httpPut.setHeader("format", "json");
-        // if body is list type ,strip_outer_array should be true
-        httpPut.setHeader("strip_outer_array", "true");
         List<String> columns =
-                columnNames.stream()
+                carrier.getColumns().stream()
                         .map(this::quoteColumn)
                         .collect(Collectors.toCollection(LinkedList::new));
+        // deleted rows are marked by the hidden delete sign column in the same load
+        if (carrier.hasDelete()) {
+            columns.add(StreamLoadEntity.DELETE_SIGN);
+        }
         httpPut.setHeader("columns", StringUtils.join(columns, ","));
-        if (StringUtils.isNotBlank(mergeConditions)) {
-            httpPut.setHeader("merge_type", "MERGE");
-            httpPut.setHeader("delete", mergeConditions);
+        boolean csv = isCsv() && !containsDelimiter(carrier);
+        String lineDelimiter = csv ? getLineDelimiter() : JSON_LINE_DELIMITER;
+        if (csv) {
+            httpPut.setHeader(FORMAT, FORMAT_CSV);
+            httpPut.setHeader(COLUMN_SEPARATOR, getColumnSeparator());
         } else {
-            httpPut.setHeader("merge_type", "APPEND");
+            httpPut.setHeader(FORMAT, FORMAT_JSON);
+            httpPut.setHeader("read_json_by_line", "true");
         }
-        // httpPut.setHeader("column_separator", fieldDelimiter);
-        // if (!"\n".equals(lineDelimiter)) {
-        //    httpPut.setHeader("line_delimiter", lineDelimiter);
-        // }
+        httpPut.setHeader(LINE_DELIMITER, lineDelimiter);
         for (Map.Entry<Object, Object> entry : streamLoadProp.entrySet()) {
-            httpPut.setHeader(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+            String key = String.valueOf(entry.getKey());
+            // the body is written as json lines instead of an array, the format headers are set
+            // above
+            if (!STRIP_OUTER_ARRAY.equalsIgnoreCase(key)
+                    && !FORMAT.equalsIgnoreCase(key)
+                    && !COLUMN_SEPARATOR.equalsIgnoreCase(key)
+                    && !LINE_DELIMITER.equalsIgnoreCase(key)) {
+                httpPut.setHeader(key, String.valueOf(entry.getValue()));
+            }
         }
+        httpPut.setEntity(new StreamLoadEntity(carrier, csv, getColumnSeparator(), lineDelimiter));
         return httpPut;
     }
 
+    /**
+     * Stream load csv has no escaping, a batch with a value containing the column separator or the
+     * line delimiter is sent as json lines instead.
+     */
+    private boolean containsDelimiter(Carrier carrier) {
+        String columnSeparator = getColumnSeparator();
+        String lineDelimiter = getLineDelimiter();
+        for (String[] values : carrier.getRows()) {
+            for (String value : values) {
+                if (value != null
+                        && (value.contains(columnSeparator) || value.contains(lineDelimiter))) {
+                    log.warn(
+                            "value of {}.{} contains the csv column separator or line delimiter, the batch is loaded as json",
+                            carrier.getDatabase(),
+                            carrier.getTable());
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isCsv() {
+        return FORMAT_CSV.equalsIgnoreCase(streamLoadProp.getProperty(FORMAT, FORMAT_JSON));
+    }
+
+    private String getColumnSeparator() {
+        return streamLoadProp.getProperty(COLUMN_SEPARATOR, DorisKeys.FIELD_DELIMITER);
+    }
+
+    private String getLineDelimiter() {
+        return streamLoadProp.getProperty(LINE_DELIMITER, DorisKeys.LINE_DELIMITER);
+    }
+
     private String quoteColumn(String column) {
         return "`" + column + "`";
     }
@@ -169,13 +220,10 @@ public class DorisStreamLoad implements Serializable {
      * @throws IOException io exception.
      */
     public void load(Carrier carrier) throws IOException {
-        List<String> columnNames = carrier.getColumns();
         String loadUrlStr =
                 String.format(
                         LOAD_URL_PATTERN, hostPort, carrier.getDatabase(), carrier.getTable());
-        String json = OM.writeValueAsString(carrier.getInsertContent());
-        String mergeConditions = carrier.getDeleteContent();
-        LoadResponse loadResponse = loadBatch(columnNames, json, mergeConditions, loadUrlStr);
+        LoadResponse loadResponse = loadBatch(carrier, loadUrlStr);
         log.debug("StreamLoad Response:{}", loadResponse);
         if (loadResponse.status != 200) {
             throw new ConnectException("stream load error, detail : " + loadResponse);
@@ -187,8 +235,7 @@ public class DorisStreamLoad implements Serializable {
         }
     }
 
-    private LoadResponse loadBatch(
-            List<String> columnNames, String value, String mergeConditions, String loadUrlStr) {
+    private LoadResponse loadBatch(Carrier carrier, String loadUrlStr) {
         String label = generateLabel();
 
         final ConnectionConfig connectionConfig =
@@ -196,8 +243,7 @@ public class DorisStreamLoad implements Serializable {
         try (CloseableHttpClient httpclient =
                 HttpClientBuilder.create().setDefaultConnectionConfig(connectionConfig).build()) {
             // build request and send to new be location
-            HttpPut httpPut = generatePut(columnNames, loadUrlStr, label, mergeConditions);
-            httpPut.setEntity(new ByteArrayEntity(value.getBytes()));
+            HttpPut httpPut = generatePut(carrier, loadUrlStr, label);
 
             HttpResponse response = httpclient.execute(httpPut);
             int status = response.getStatusLine().getStatusCode();
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.doris.rest;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Stream load request body, the rows of the carrier are encoded as csv or json lines while the
+ * request is being sent.
+ *
+ * <p>The rows are kept in the carrier, so the entity is repeatable and can be sent again on retry.
+ */
+public class StreamLoadEntity extends AbstractHttpEntity {
+
+    public static final String DELETE_SIGN = "__DORIS_DELETE_SIGN__";
+
+    private static final byte[] NULL_VALUE = "\\N".getBytes(StandardCharsets.UTF_8);
+    private static final JsonFactory JSON_FACTORY =
+            new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final Carrier carrier;
+    private final boolean csv;
+    private final byte[] columnSeparator;
+    private final byte[] lineDelimiter;
+
+    /**
+     * @param carrier data carrier
+     * @param csv true for csv, false for json lines
+     * @param columnSeparator column separator of csv
+     * @param lineDelimiter line delimiter
+     */
+    public StreamLoadEntity(
+            Carrier carrier, boolean csv, String columnSeparator, String lineDelimiter) {
+        this.carrier = carrier;
+        this.csv = csv;
+        this.columnSeparator = columnSeparator.getBytes(StandardCharsets.UTF_8);
+        this.lineDelimiter = lineDelimiter.getBytes(StandardCharsets.UTF_8);
+        setContentType(ContentType.TEXT_PLAIN.withCharset(StandardCharsets.UTF_8).toString());
+        setChunked(true);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTo(out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        List<String> columns = carrier.getColumns();
+        List<String[]> rows = carrier.getRows();
+        boolean withDeleteSign = carrier.hasDelete();
+        if (csv) {
+            for (int i = 0; i < rows.size(); i++) {
+                String[] values = rows.get(i);
+                for (int j = 0; j < values.length; j++) {
+                    if (j > 0) {
+                        out.write(columnSeparator);
+                    }
+                    out.write(
+                            values[j] == null
+                                    ? NULL_VALUE
+                                    : values[j].getBytes(StandardCharsets.UTF_8));
+                }
+                if (withDeleteSign) {
+                    out.write(columnSeparator);
+                    out.write(carrier.isDelete(i) ? '1' : '0');
+                }
+                out.write(lineDelimiter);
+            }
+        } else {
+            JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+            // one object per line, without the default space between root values
+            generator.setRootValueSeparator(null);
+            for (int i = 0; i < rows.size(); i++) {
+                String[] values = rows.get(i);
+                generator.writeStartObject();
+                for (int j = 0; j < values.length; j++) {
+                    generator.writeStringField(columns.get(j), values[j]);
+                }
+                if (withDeleteSign) {
+                    generator.writeNumberField(DELETE_SIGN, carrier.isDelete(i) ? 1 : 0);
+                }
+                generator.writeEndObject();
+                generator.flush();
+                out.write(lineDelimiter);
+            }
+            generator.close();
+        }
+        out.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.doris.rest;
+
+import com.dtstack.chunjun.connector.doris.options.DorisConfig;
+
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class DorisStreamLoadTest {
+
+    private Properties loadProperties;
+    private DorisStreamLoad streamLoad;
+
+    @BeforeEach
+    public void setUp() {
+        loadProperties = new Properties();
+        loadProperties.setProperty("format", "csv");
+        loadProperties.setProperty("column_separator", "|");
+        loadProperties.setProperty("strip_outer_array", "true");
+        DorisConfig dorisConfig = new DorisConfig();
+        dorisConfig.setUsername("root");
+        dorisConfig.setPassword("");
+        dorisConfig.setLoadProperties(loadProperties);
+        streamLoad = new DorisStreamLoad(dorisConfig);
+    }
+
+    @Test
+    public void testCsv() throws Exception {
+        Carrier carrier = carrier();
+        carrier.addContent(Arrays.asList("1", null), Arrays.asList());
+        carrier.addContent(Arrays.asList("2", "b"), Arrays.asList("2", "b"));
+
+        HttpPut put = generatePut(carrier);
+
+        assertEquals("csv", put.getFirstHeader("format").getValue());
+        assertEquals("|", put.getFirstHeader("column_separator").getValue());
+        assertEquals("`id`,`name`,__DORIS_DELETE_SIGN__", put.getFirstHeader("columns").getValue());
+        assertFalse(put.containsHeader("strip_outer_array"));
+        assertEquals("1|\\N|0\n2|b|1\n", EntityUtils.toString(put.getEntity()));
+    }
+
+    @Test
+    public void testCsvWithDelimiterInValueFallsBackToJson() throws Exception {
+        Carrier carrier = carrier();
+        carrier.addContent(Arrays.asList("1", "a|b"), Arrays.asList());
+        carrier.addContent(Arrays.asList("2", "c\nd"), Arrays.asList());
+
+        HttpPut put = generatePut(carrier);
+
+        assertEquals("json", put.getFirstHeader("format").getValue());
+        assertEquals("true", put.getFirstHeader("read_json_by_line").getValue());
+        assertEquals("\n", put.getFirstHeader("line_delimiter").getValue());
+        assertFalse(put.containsHeader("column_separator"));
+        assertEquals(
+                "{\"id\":\"1\",\"name\":\"a|b\"}\n{\"id\":\"2\",\"name\":\"c\\nd\"}\n",
+                EntityUtils.toString(put.getEntity()));
+    }
+
+    private HttpPut generatePut(Carrier carrier) throws Exception {
+        return Whitebox.invokeMethod(streamLoad, "generatePut", carrier, "http://be/load", "l1");
+    }
+
+    private static Carrier carrier() {
+        Carrier carrier = new Carrier();
+        carrier.setDatabase("db");
+        carrier.setTable("tb");
+        carrier.setColumns(Arrays.asList("id", "name"));
+        return carrier;
+    }
+}
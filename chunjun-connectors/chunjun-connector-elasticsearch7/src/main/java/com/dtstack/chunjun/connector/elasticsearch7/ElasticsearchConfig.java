@@ -68,6 +68,28 @@ public class ElasticsearchConfig extends CommonConfig implements Serializable {
     /** Assigns maximum connection per route value. */
     private int maxConnPerRoute = 10;
 
+    /** max bytes of the documents in one bulk request */
+    private long bulkMaxBytes = 2 * 1024 * 1024L;
+
+    /** max number of bulk requests waiting for their responses */
+    private int bulkConcurrentRequests = 2;
+
+    /** max number of retries of the bulk items rejected with 429 */
+    private int bulkMaxRetries = 3;
+
+    /** delay before the first retry of rejected bulk items, doubled for each further retry */
+    private long bulkBackoffDelay = 50L;
+
+    /**
+     * how the source reads the index: scroll, or pit which pages a point in time with search_after
+     * (Elasticsearch 7.15+ for sliced point in time). In pit mode the point in time is opened once
+     * when the splits are created and every slice reads it.
+     */
+    private String readMode = "scroll";
+
+    /** sort field used as the search_after tiebreaker in pit read mode */
+    private String pitTiebreaker = "_shard_doc";
+
     /** table field names */
     private String[] fieldNames;
 
@@ -23,11 +23,15 @@ import com.dtstack.chunjun.connector.elasticsearch.table.IndexGenerator;
 import com.dtstack.chunjun.connector.elasticsearch7.Elasticsearch7ClientFactory;
 import com.dtstack.chunjun.connector.elasticsearch7.Elasticsearch7RequestFactory;
 import com.dtstack.chunjun.connector.elasticsearch7.ElasticsearchConfig;
+import com.dtstack.chunjun.factory.ChunJunThreadFactory;
 import com.dtstack.chunjun.sink.format.BaseRichOutputFormat;
 import com.dtstack.chunjun.throwable.WriteRecordException;
 
+import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.table.data.RowData;
 
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
@@ -37,10 +41,19 @@ import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.rest.RestStatus;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 public class ElasticsearchOutputFormat extends BaseRichOutputFormat {
 
@@ -54,6 +67,19 @@ public class ElasticsearchOutputFormat extends BaseRichOutputFormat {
 
     private final IndexGenerator indexGenerator;
 
+    /**
+     * Bounds the bulk requests in flight, a permit is held until the request and its retries end
+     */
+    private transient Semaphore bulkPermits;
+
+    private transient ScheduledExecutorService retryScheduler;
+
+    /** Failed items of the bulk requests since the last flush, with their own item error */
+    private transient Queue<Tuple2<RowData, Exception>> failedItems;
+
+    /** Bulk requests failed as a whole since the last flush */
+    private transient Queue<BulkJob> failedJobs;
+
     public ElasticsearchOutputFormat(
             ElasticsearchConfig elasticsearchConfig, IndexGenerator indexGenerator) {
         this.elasticsearchConfig = elasticsearchConfig;
@@ -88,50 +114,140 @@ public class ElasticsearchOutputFormat extends BaseRichOutputFormat {
         }
     }
 
+    /**
+     * Split the rows into bulk requests of at most bulkMaxBytes and send them without waiting for
+     * the previous responses, at most bulkConcurrentRequests at a time. Items rejected with 429 are
+     * sent again with backoff, the other failed items are collected as dirty data with their own
+     * item error.
+     */
     @Override
     protected void writeMultipleRecordsInternal() throws Exception {
-        BulkRequest bulkRequest = new BulkRequest();
+        BulkJob job = new BulkJob();
         for (RowData rowData : rows) {
-            DocWriteRequest docWriteRequest;
-            switch (rowData.getRowKind()) {
-                case INSERT:
-                case UPDATE_AFTER:
-                    docWriteRequest = processUpsert(rowData);
-                    bulkRequest.add(docWriteRequest);
-                    break;
-                case DELETE:
-                case UPDATE_BEFORE:
-                    docWriteRequest = processDelete(rowData);
-                    bulkRequest.add(docWriteRequest);
-                    break;
-                default:
-                    throw new RuntimeException("Unsupported row kind.");
+            DocWriteRequest<?> docWriteRequest;
+            try {
+                docWriteRequest = toDocWriteRequest(rowData);
+            } catch (Exception e) {
+                dirtyManager.collect(rowData, new WriteRecordException("", e, 0, rowData), null);
+                continue;
             }
+            job.add(docWriteRequest, rowData);
+            if (job.request.estimatedSizeInBytes() >= elasticsearchConfig.getBulkMaxBytes()) {
+                submit(job);
+                job = new BulkJob();
+            }
+        }
+        if (job.request.numberOfActions() > 0) {
+            submit(job);
+        }
+
+        // 等待所有bulk请求及其重试结束
+        bulkPermits.acquireUninterruptibly(elasticsearchConfig.getBulkConcurrentRequests());
+        bulkPermits.release(elasticsearchConfig.getBulkConcurrentRequests());
+
+        Tuple2<RowData, Exception> failure;
+        while ((failure = failedItems.poll()) != null) {
+            dirtyManager.collect(
+                    failure.f0,
+                    new WriteRecordException(
+                            failure.f1.getMessage(), failure.f1.getCause(), 0, failure.f0),
+                    null);
+        }
+        BulkJob failedJob;
+        while ((failedJob = failedJobs.poll()) != null) {
+            // 整个bulk请求失败，逐条重写以找出脏数据
+            failedJob.rows.forEach(this::writeSingleRecordAfterBulkFailure);
+        }
+    }
+
+    private void writeSingleRecordAfterBulkFailure(RowData rowData) {
+        try {
+            writeSingleRecordInternal(rowData);
+        } catch (WriteRecordException e) {
+            dirtyManager.collect(rowData, e, null);
         }
-        BulkResponse response = rhlClient.bulk(bulkRequest, RequestOptions.DEFAULT);
-        if (response.hasFailures()) {
-            processFailResponse(response);
+    }
+
+    private void submit(BulkJob job) {
+        bulkPermits.acquireUninterruptibly();
+        send(job);
+    }
+
+    /** send a bulk request, the permit of the job is released once it is done with */
+    private void send(BulkJob job) {
+        try {
+            rhlClient.bulkAsync(
+                    job.request,
+                    RequestOptions.DEFAULT,
+                    new ActionListener<BulkResponse>() {
+                        @Override
+                        public void onResponse(BulkResponse response) {
+                            onBulkResponse(job, response);
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            if (e instanceof ElasticsearchStatusException
+                                    && ((ElasticsearchStatusException) e).status()
+                                            == RestStatus.TOO_MANY_REQUESTS
+                                    && retry(job)) {
+                                return;
+                            }
+                            failedJobs.add(job);
+                            bulkPermits.release();
+                        }
+                    });
+        } catch (Exception e) {
+            failedJobs.add(job);
+            bulkPermits.release();
         }
     }
 
-    private void processFailResponse(BulkResponse response) {
-        BulkItemResponse[] itemResponses = response.getItems();
-        WriteRecordException exception;
-        for (BulkItemResponse itemResponds : itemResponses) {
-            if (itemResponds.isFailed()) {
-                if (dirtyManager != null) {
-                    exception =
-                            new WriteRecordException(
-                                    itemResponds.getFailureMessage(),
-                                    itemResponds.getFailure().getCause());
-                    dirtyManager.collect(response, exception, null);
-                }
-
-                if (errCounter != null) {
-                    errCounter.add(1);
-                }
+    private void onBulkResponse(BulkJob job, BulkResponse response) {
+        if (!response.hasFailures()) {
+            bulkPermits.release();
+            return;
+        }
+        BulkJob rejected = new BulkJob();
+        rejected.attempt = job.attempt;
+        List<Tuple2<RowData, Exception>> rejectedItems = new ArrayList<>();
+        for (BulkItemResponse item : response.getItems()) {
+            if (!item.isFailed()) {
+                continue;
+            }
+            RowData rowData = job.rows.get(item.getItemId());
+            Tuple2<RowData, Exception> failure =
+                    Tuple2.of(
+                            rowData,
+                            new Exception(item.getFailureMessage(), item.getFailure().getCause()));
+            if (item.status() == RestStatus.TOO_MANY_REQUESTS) {
+                rejected.add(job.request.requests().get(item.getItemId()), rowData);
+                rejectedItems.add(failure);
+            } else {
+                failedItems.add(failure);
             }
         }
+        if (rejected.request.numberOfActions() > 0 && retry(rejected)) {
+            return;
+        }
+        failedItems.addAll(rejectedItems);
+        bulkPermits.release();
+    }
+
+    /**
+     * send the job again after the backoff delay, keeping its permit. The only place the attempt of
+     * a job is counted, for whole requests and rejected items alike.
+     *
+     * @return false if the job has run out of retries
+     */
+    private boolean retry(BulkJob job) {
+        if (job.attempt >= elasticsearchConfig.getBulkMaxRetries()) {
+            return false;
+        }
+        job.attempt++;
+        long delay = elasticsearchConfig.getBulkBackoffDelay() << (job.attempt - 1);
+        retryScheduler.schedule(() -> send(job), delay, TimeUnit.MILLISECONDS);
+        return true;
     }
 
     @Override
@@ -140,15 +256,37 @@ public class ElasticsearchOutputFormat extends BaseRichOutputFormat {
                 Elasticsearch7ClientFactory.createClient(
                         elasticsearchConfig, getRuntimeContext().getDistributedCache());
         indexGenerator.open();
+        bulkPermits = new Semaphore(elasticsearchConfig.getBulkConcurrentRequests());
+        failedItems = new ConcurrentLinkedQueue<>();
+        failedJobs = new ConcurrentLinkedQueue<>();
+        retryScheduler =
+                Executors.newSingleThreadScheduledExecutor(
+                        new ChunJunThreadFactory("es-bulk-retry"));
     }
 
     @Override
     protected void closeInternal() throws IOException {
+        if (retryScheduler != null) {
+            retryScheduler.shutdownNow();
+        }
         if (rhlClient != null) {
             rhlClient.close();
         }
     }
 
+    private DocWriteRequest<?> toDocWriteRequest(RowData rowData) throws Exception {
+        switch (rowData.getRowKind()) {
+            case INSERT:
+            case UPDATE_AFTER:
+                return processUpsert(rowData);
+            case DELETE:
+            case UPDATE_BEFORE:
+                return processDelete(rowData);
+            default:
+                throw new RuntimeException("Unsupported row kind.");
+        }
+    }
+
     private DocWriteRequest processUpsert(RowData rowData) throws Exception {
         Map<String, Object> message =
                 (Map<String, Object>)
@@ -183,4 +321,20 @@ public class ElasticsearchOutputFormat extends BaseRichOutputFormat {
         return Elasticsearch7RequestFactory.createDeleteRequest(
                 elasticsearchConfig.getIndex(), key);
     }
+
+    /** A bulk request and the rows of its items, in the same order. */
+    private static class BulkJob {
+
+        private final BulkRequest request = new BulkRequest();
+
+        private final List<RowData> rows = new ArrayList<>();
+
+        /** number of times the request has been retried */
+        private int attempt;
+
+        private void add(DocWriteRequest<?> docWriteRequest, RowData rowData) {
+            request.add(docWriteRequest);
+            rows.add(rowData);
+        }
+    }
 }
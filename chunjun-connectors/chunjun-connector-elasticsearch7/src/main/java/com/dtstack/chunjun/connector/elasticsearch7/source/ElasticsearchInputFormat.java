@@ -25,6 +25,7 @@ import com.dtstack.chunjun.source.format.BaseRichInputFormat;
 import com.dtstack.chunjun.throwable.ReadRecordException;
 import com.dtstack.chunjun.util.JsonUtil;
 
+import org.apache.flink.api.common.functions.AggregateFunction;
 import org.apache.flink.core.io.GenericInputSplit;
 import org.apache.flink.core.io.InputSplit;
 import org.apache.flink.table.data.RowData;
@@ -32,12 +33,17 @@ import org.apache.flink.table.data.RowData;
 import com.google.common.collect.Lists;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.MapUtils;
+import org.apache.http.util.EntityUtils;
 import org.elasticsearch.action.search.ClearScrollRequest;
 import org.elasticsearch.action.search.ClearScrollResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.Request;
 import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
+import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -47,15 +53,26 @@ import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.slice.SliceBuilder;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 @Slf4j
 public class ElasticsearchInputFormat extends BaseRichInputFormat {
 
     private static final long serialVersionUID = -2961994135280004118L;
 
+    private static final String READ_MODE_PIT = "pit";
+
+    private static final String PIT_SLICES_AGGREGATE = "elasticsearch-pit-slices-";
+
     protected long keepAlive = 1;
     /** Elasticsearch Configuration */
     private ElasticsearchConfig elasticsearchConfig;
@@ -70,9 +87,33 @@ public class ElasticsearchInputFormat extends BaseRichInputFormat {
 
     private String scrollId;
 
+    /** id of the point in time read in pit mode, it may change with each search response */
+    private transient String pitId;
+
+    /** split of pit mode, null once its slice is drained */
+    private transient ElasticsearchPitInputSplit pitSplit;
+
+    /** search body of pit mode without the pit and search_after parts */
+    private transient Map<String, Object> pitSearchBody;
+
+    /** the page requested while the current one is emitted, null after the last page */
+    private transient CompletableFuture<PitPage> nextPage;
+
     @Override
-    protected InputSplit[] createInputSplitsInternal(int minNumSplits) {
+    protected InputSplit[] createInputSplitsInternal(int minNumSplits) throws IOException {
         InputSplit[] splits = new InputSplit[minNumSplits];
+        if (isPitMode()) {
+            // all slices must read the same snapshot, so the point in time is opened only once
+            String openedPitId;
+            try (RestHighLevelClient client =
+                    Elasticsearch7ClientFactory.createClient(elasticsearchConfig, null)) {
+                openedPitId = openPointInTime(client.getLowLevelClient());
+            }
+            for (int i = 0; i < minNumSplits; i++) {
+                splits[i] = new ElasticsearchPitInputSplit(i, minNumSplits, openedPitId);
+            }
+            return splits;
+        }
         for (int i = 0; i < minNumSplits; i++) {
             splits[i] = new GenericInputSplit(i, minNumSplits);
         }
@@ -89,6 +130,22 @@ public class ElasticsearchInputFormat extends BaseRichInputFormat {
                         elasticsearchConfig, getRuntimeContext().getDistributedCache());
         scroll = new Scroll(TimeValue.timeValueMinutes(keepAlive));
 
+        SearchSourceBuilder searchSourceBuilder = createSearchSourceBuilder(genericInputSplit);
+
+        if (isPitMode()) {
+            pitSplit = (ElasticsearchPitInputSplit) genericInputSplit;
+            pitId = pitSplit.getPitId();
+            pitSearchBody = createPitSearchBody(searchSourceBuilder);
+            nextPage = searchPitAsync(null);
+            return;
+        }
+
+        searchRequest =
+                Elasticsearch7RequestFactory.createSearchRequest(
+                        elasticsearchConfig.getIndex(), scroll, searchSourceBuilder);
+    }
+
+    SearchSourceBuilder createSearchSourceBuilder(GenericInputSplit split) {
         String[] fieldsNames = elasticsearchConfig.getFieldNames();
         SearchSourceBuilder searchSourceBuilder =
                 Elasticsearch7RequestFactory.createSourceBuilder(fieldsNames, null, null);
@@ -99,16 +156,28 @@ public class ElasticsearchInputFormat extends BaseRichInputFormat {
                     QueryBuilders.wrapperQuery(JsonUtil.toJson(elasticsearchConfig.getQuery())));
         }
 
-        if (genericInputSplit.getTotalNumberOfSplits() > 1) {
+        if (split.getTotalNumberOfSplits() > 1) {
             searchSourceBuilder.slice(
-                    new SliceBuilder(
-                            genericInputSplit.getSplitNumber(),
-                            genericInputSplit.getTotalNumberOfSplits()));
+                    new SliceBuilder(split.getSplitNumber(), split.getTotalNumberOfSplits()));
         }
+        return searchSourceBuilder;
+    }
 
-        searchRequest =
-                Elasticsearch7RequestFactory.createSearchRequest(
-                        elasticsearchConfig.getIndex(), scroll, searchSourceBuilder);
+    /** search body of pit mode without the pit and search_after parts */
+    Map<String, Object> createPitSearchBody(SearchSourceBuilder searchSourceBuilder) {
+        Map<String, Object> body =
+                JsonUtil.toObject(searchSourceBuilder.toString(), JsonUtil.MAP_TYPE_REFERENCE);
+        Object slice = body.get("slice");
+        if (slice instanceof Map) {
+            // SliceBuilder always names _id, a sliced point in time splits by shard and doc instead
+            ((Map<?, ?>) slice).remove("field");
+        }
+        body.put(
+                "sort",
+                Collections.singletonList(
+                        Collections.singletonMap(elasticsearchConfig.getPitTiebreaker(), "asc")));
+        body.put("track_total_hits", false);
+        return body;
     }
 
     @Override
@@ -125,6 +194,11 @@ public class ElasticsearchInputFormat extends BaseRichInputFormat {
     protected void closeInternal() throws IOException {
         if (rhlClient != null) {
             clearScroll();
+            // the point in time is shared by all slices, it is deleted by the last slice to finish
+            if (nextPage != null) {
+                nextPage.cancel(true);
+                nextPage = null;
+            }
 
             rhlClient.close();
             rhlClient = null;
@@ -148,11 +222,155 @@ public class ElasticsearchInputFormat extends BaseRichInputFormat {
     public boolean reachedEnd() throws IOException {
         if (iterator != null && iterator.hasNext()) {
             return false;
+        } else if (isPitMode()) {
+            return searchPit();
         } else {
             return searchScroll();
         }
     }
 
+    private boolean isPitMode() {
+        return READ_MODE_PIT.equalsIgnoreCase(elasticsearchConfig.getReadMode());
+    }
+
+    String openPointInTime(RestClient client) throws IOException {
+        Request request = new Request("POST", "/" + elasticsearchConfig.getIndex() + "/_pit");
+        request.addParameter("keep_alive", keepAlive + "m");
+        Response response = client.performRequest(request);
+        Map<String, Object> body =
+                JsonUtil.toObject(
+                        EntityUtils.toString(response.getEntity()), JsonUtil.MAP_TYPE_REFERENCE);
+        log.info("open point in time of index {}", elasticsearchConfig.getIndex());
+        return (String) body.get("id");
+    }
+
+    /**
+     * The slice of this split is drained. Every slice records itself in a global aggregate of the
+     * job, the one that completes the set deletes the point in time. If that fails, or the job
+     * fails before all slices are read, the point in time expires after keepAlive.
+     */
+    void finishSlice() {
+        if (pitSplit == null) {
+            return;
+        }
+        ElasticsearchPitInputSplit split = pitSplit;
+        pitSplit = null;
+        int finished;
+        try {
+            finished =
+                    context.getGlobalAggregateManager()
+                            .updateGlobalAggregate(
+                                    PIT_SLICES_AGGREGATE + split.getPitId(),
+                                    split.getSplitNumber(),
+                                    new FinishedSlices());
+        } catch (Exception e) {
+            log.warn("record finished slice failed, the point in time expires after keepAlive", e);
+            return;
+        }
+        if (finished >= split.getTotalNumberOfSplits()) {
+            closePointInTime(pitId);
+        }
+    }
+
+    private void closePointInTime(String id) {
+        try {
+            Request request = new Request("DELETE", "/_pit");
+            request.setJsonEntity(JsonUtil.toJson(Collections.singletonMap("id", id)));
+            rhlClient.getLowLevelClient().performRequest(request);
+            log.info("close point in time of index {}", elasticsearchConfig.getIndex());
+        } catch (Exception e) {
+            log.warn("close point in time failed", e);
+        }
+    }
+
+    /**
+     * take the page requested before and request the one after it at once, so the next round trip
+     * overlaps with emitting the current page
+     */
+    private boolean searchPit() throws IOException {
+        while (nextPage != null) {
+            PitPage page;
+            try {
+                page = nextPage.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+            if (page.pitId != null) {
+                pitId = page.pitId;
+            }
+            nextPage =
+                    page.sources.size() < elasticsearchConfig.getBatchSize()
+                            ? null
+                            : searchPitAsync(page.lastSort);
+            iterator = page.sources.iterator();
+            if (iterator.hasNext()) {
+                return false;
+            }
+        }
+        finishSlice();
+        return true;
+    }
+
+    /** a search with a point in time must not name the index, it is part of the point in time */
+    Request createPitSearchRequest(List<Object> searchAfter) {
+        Map<String, Object> pit = new HashMap<>();
+        pit.put("id", pitId);
+        pit.put("keep_alive", keepAlive + "m");
+        Map<String, Object> body = new HashMap<>(pitSearchBody);
+        body.put("pit", pit);
+        if (searchAfter != null) {
+            body.put("search_after", searchAfter);
+        }
+        Request request = new Request("POST", "/_search");
+        request.setJsonEntity(JsonUtil.toJson(body));
+        return request;
+    }
+
+    private CompletableFuture<PitPage> searchPitAsync(List<Object> searchAfter) {
+        Request request = createPitSearchRequest(searchAfter);
+
+        CompletableFuture<PitPage> future = new CompletableFuture<>();
+        rhlClient
+                .getLowLevelClient()
+                .performRequestAsync(
+                        request,
+                        new ResponseListener() {
+                            @Override
+                            public void onSuccess(Response response) {
+                                try {
+                                    future.complete(parsePitPage(response));
+                                } catch (Exception e) {
+                                    future.completeExceptionally(e);
+                                }
+                            }
+
+                            @Override
+                            public void onFailure(Exception e) {
+                                future.completeExceptionally(e);
+                            }
+                        });
+        return future;
+    }
+
+    @SuppressWarnings("unchecked")
+    private PitPage parsePitPage(Response response) throws IOException {
+        Map<String, Object> body =
+                JsonUtil.toObject(
+                        EntityUtils.toString(response.getEntity()), JsonUtil.MAP_TYPE_REFERENCE);
+        PitPage page = new PitPage();
+        page.pitId = (String) body.get("pit_id");
+        List<Map<String, Object>> hits =
+                (List<Map<String, Object>>) ((Map<String, Object>) body.get("hits")).get("hits");
+        for (Map<String, Object> hit : hits) {
+            page.sources.add((Map<String, Object>) hit.get("_source"));
+            page.lastSort = (List<Object>) hit.get("sort");
+        }
+        return page;
+    }
+
     private boolean searchScroll() throws IOException {
         SearchHit[] searchHits;
         if (scrollId == null) {
@@ -185,4 +403,43 @@ public class ElasticsearchInputFormat extends BaseRichInputFormat {
     public void setElasticsearchConf(ElasticsearchConfig elasticsearchConfig) {
         this.elasticsearchConfig = elasticsearchConfig;
     }
+
+    /** Numbers of the slices that finished reading a point in time. */
+    static class FinishedSlices implements AggregateFunction<Integer, Set<Integer>, Integer> {
+
+        private static final long serialVersionUID = 5513826414427069371L;
+
+        @Override
+        public Set<Integer> createAccumulator() {
+            return new HashSet<>();
+        }
+
+        @Override
+        public Set<Integer> add(Integer splitNumber, Set<Integer> finished) {
+            finished.add(splitNumber);
+            return finished;
+        }
+
+        @Override
+        public Integer getResult(Set<Integer> finished) {
+            return finished.size();
+        }
+
+        @Override
+        public Set<Integer> merge(Set<Integer> a, Set<Integer> b) {
+            a.addAll(b);
+            return a;
+        }
+    }
+
+    /** A page of a point in time search. */
+    private static class PitPage {
+
+        private final List<Map<String, Object>> sources = new ArrayList<>();
+
+        /** sort values of the last hit, where the next page starts after */
+        private List<Object> lastSort;
+
+        private String pitId;
+    }
 }
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.elasticsearch7.source;
+
+import org.apache.flink.core.io.GenericInputSplit;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/** A slice of a point in time read, all slices of a job share the point in time opened once. */
+@Getter
+@ToString(callSuper = true)
+public class ElasticsearchPitInputSplit extends GenericInputSplit {
+
+    private static final long serialVersionUID = 3297108245127631954L;
+
+    /** id of the point in time opened when the splits were created */
+    private final String pitId;
+
+    public ElasticsearchPitInputSplit(
+            int partitionNumber, int totalNumberOfPartitions, String pitId) {
+        super(partitionNumber, totalNumberOfPartitions);
+        this.pitId = pitId;
+    }
+}
@@ -38,11 +38,14 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static com.dtstack.chunjun.connector.elasticsearch7.table.Elasticsearch7Options.BULK_FLUSH_CONCURRENT_REQUESTS_OPTION;
 import static com.dtstack.chunjun.connector.elasticsearch7.table.Elasticsearch7Options.CLIENT_CONNECT_TIMEOUT_OPTION;
 import static com.dtstack.chunjun.connector.elasticsearch7.table.Elasticsearch7Options.CLIENT_KEEPALIVE_TIME_OPTION;
 import static com.dtstack.chunjun.connector.elasticsearch7.table.Elasticsearch7Options.CLIENT_MAX_CONNECTION_PER_ROUTE_OPTION;
 import static com.dtstack.chunjun.connector.elasticsearch7.table.Elasticsearch7Options.CLIENT_REQUEST_TIMEOUT_OPTION;
 import static com.dtstack.chunjun.connector.elasticsearch7.table.Elasticsearch7Options.CLIENT_SOCKET_TIMEOUT_OPTION;
+import static com.dtstack.chunjun.connector.elasticsearch7.table.Elasticsearch7Options.SCAN_PIT_TIEBREAKER_OPTION;
+import static com.dtstack.chunjun.connector.elasticsearch7.table.Elasticsearch7Options.SCAN_READ_MODE_OPTION;
 import static com.dtstack.chunjun.lookup.options.LookupOptions.LOOKUP_ASYNC_TIMEOUT;
 import static com.dtstack.chunjun.lookup.options.LookupOptions.LOOKUP_CACHE_MAX_ROWS;
 import static com.dtstack.chunjun.lookup.options.LookupOptions.LOOKUP_CACHE_PERIOD;
@@ -128,6 +131,18 @@ public class Elasticsearch7DynamicTableFactory extends ElasticsearchDynamicTable
         elasticsearchConfig.setType(readableConfig.get(DOCUMENT_TYPE_OPTION));
         elasticsearchConfig.setKeyDelimiter(readableConfig.get(KEY_DELIMITER_OPTION));
         elasticsearchConfig.setBatchSize(readableConfig.get(BULK_FLUSH_MAX_ACTIONS_OPTION));
+        elasticsearchConfig.setReadMode(readableConfig.get(SCAN_READ_MODE_OPTION));
+        elasticsearchConfig.setPitTiebreaker(readableConfig.get(SCAN_PIT_TIEBREAKER_OPTION));
+        elasticsearchConfig.setBulkMaxBytes(
+                readableConfig.get(BULK_FLASH_MAX_SIZE_OPTION).getBytes());
+        elasticsearchConfig.setBulkConcurrentRequests(
+                readableConfig.get(BULK_FLUSH_CONCURRENT_REQUESTS_OPTION));
+        readableConfig
+                .getOptional(BULK_FLUSH_BACKOFF_MAX_RETRIES_OPTION)
+                .ifPresent(elasticsearchConfig::setBulkMaxRetries);
+        readableConfig
+                .getOptional(BULK_FLUSH_BACKOFF_DELAY_OPTION)
+                .ifPresent(delay -> elasticsearchConfig.setBulkBackoffDelay(delay.toMillis()));
         elasticsearchConfig.setParallelism(readableConfig.get(SINK_PARALLELISM));
 
         elasticsearchConfig.setUsername(readableConfig.get(USERNAME_OPTION));
@@ -179,6 +194,9 @@ public class Elasticsearch7DynamicTableFactory extends ElasticsearchDynamicTable
                         BULK_FLUSH_BACKOFF_TYPE_OPTION,
                         BULK_FLUSH_BACKOFF_MAX_RETRIES_OPTION,
                         BULK_FLUSH_BACKOFF_DELAY_OPTION,
+                        BULK_FLUSH_CONCURRENT_REQUESTS_OPTION,
+                        SCAN_READ_MODE_OPTION,
+                        SCAN_PIT_TIEBREAKER_OPTION,
                         CONNECTION_PATH_PREFIX,
                         FORMAT_OPTION,
                         PASSWORD_OPTION,
@@ -56,4 +56,25 @@ public class Elasticsearch7Options {
                     .defaultValue(10)
                     .withDescription(
                             "Elasticsearch client connection assigns maximum connection per route value. default:10");
+
+    public static final ConfigOption<Integer> BULK_FLUSH_CONCURRENT_REQUESTS_OPTION =
+            ConfigOptions.key("sink.bulk-flush.concurrent-requests")
+                    .intType()
+                    .defaultValue(2)
+                    .withDescription(
+                            "Maximum number of bulk requests waiting for their responses. default:2");
+
+    public static final ConfigOption<String> SCAN_READ_MODE_OPTION =
+            ConfigOptions.key("scan.read-mode")
+                    .stringType()
+                    .defaultValue("scroll")
+                    .withDescription(
+                            "How the source reads the index, scroll or pit (point in time with search_after). default:scroll");
+
+    public static final ConfigOption<String> SCAN_PIT_TIEBREAKER_OPTION =
+            ConfigOptions.key("scan.pit.tiebreaker")
+                    .stringType()
+                    .defaultValue("_shard_doc")
+                    .withDescription(
+                            "Sort field used as the search_after tiebreaker in pit read mode. default:_shard_doc");
 }
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.elasticsearch7.sink;
+
+import com.dtstack.chunjun.connector.elasticsearch.table.IndexGenerator;
+import com.dtstack.chunjun.connector.elasticsearch7.ElasticsearchConfig;
+import com.dtstack.chunjun.converter.AbstractRowConverter;
+import com.dtstack.chunjun.dirty.manager.DirtyManager;
+import com.dtstack.chunjun.throwable.WriteRecordException;
+
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.powermock.reflect.Whitebox;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ElasticsearchOutputFormatTest {
+
+    private static final int MAX_RETRIES = 3;
+
+    private RestHighLevelClient client;
+    private DirtyManager dirtyManager;
+    private ScheduledExecutorService retryScheduler;
+    private ElasticsearchOutputFormat format;
+
+    /** sizes of the bulk requests sent, in order */
+    private final List<Integer> sentBulkSizes = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ElasticsearchConfig config = new ElasticsearchConfig();
+        config.setIndex("idx");
+        config.setBulkMaxRetries(MAX_RETRIES);
+        config.setBulkBackoffDelay(0L);
+        config.setBulkConcurrentRequests(2);
+
+        IndexGenerator indexGenerator = mock(IndexGenerator.class);
+        when(indexGenerator.generate(any())).thenReturn("idx");
+        AbstractRowConverter<?, ?, ?, ?> rowConverter = mock(AbstractRowConverter.class);
+        when(rowConverter.toExternal(any(), any()))
+                .thenAnswer(
+                        invocation ->
+                                Collections.singletonMap(
+                                        "id", ((RowData) invocation.getArgument(0)).getInt(0)));
+
+        client = mock(RestHighLevelClient.class);
+        dirtyManager = mock(DirtyManager.class);
+        retryScheduler = Executors.newSingleThreadScheduledExecutor();
+
+        format = new ElasticsearchOutputFormat(config, indexGenerator);
+        Whitebox.setInternalState(format, "rhlClient", client);
+        Whitebox.setInternalState(format, "rowConverter", rowConverter);
+        Whitebox.setInternalState(format, "dirtyManager", dirtyManager);
+        Whitebox.setInternalState(format, "bulkPermits", new Semaphore(2));
+        Whitebox.setInternalState(format, "retryScheduler", retryScheduler);
+        Whitebox.setInternalState(format, "failedItems", (Queue<?>) new ConcurrentLinkedQueue<>());
+        Whitebox.setInternalState(format, "failedJobs", (Queue<?>) new ConcurrentLinkedQueue<>());
+    }
+
+    @AfterEach
+    void tearDown() {
+        retryScheduler.shutdownNow();
+    }
+
+    @Test
+    void rejectedRequestShouldBeRetriedMaxRetriesTimesThenWrittenOneByOne() throws Exception {
+        answerBulk(
+                request -> new ElasticsearchStatusException("busy", RestStatus.TOO_MANY_REQUESTS));
+        when(client.index(any(IndexRequest.class), any(RequestOptions.class)))
+                .thenThrow(new IOException("down"));
+
+        write(row(1), row(2));
+
+        assertEquals(Arrays.asList(2, 2, 2, 2), sentBulkSizes);
+        verify(client, times(2)).index(any(IndexRequest.class), any(RequestOptions.class));
+        verify(dirtyManager, times(2)).collect(any(), any(WriteRecordException.class), isNull());
+    }
+
+    @Test
+    void rejectedRequestShouldSucceedOnRetry() throws Exception {
+        List<Object> answers =
+                new ArrayList<>(
+                        Arrays.asList(
+                                new ElasticsearchStatusException(
+                                        "busy", RestStatus.TOO_MANY_REQUESTS),
+                                null));
+        answerBulk(request -> answers.isEmpty() ? null : answers.remove(0));
+
+        write(row(1), row(2));
+
+        assertEquals(Arrays.asList(2, 2), sentBulkSizes);
+        verify(client, never()).index(any(IndexRequest.class), any(RequestOptions.class));
+        verify(dirtyManager, never()).collect(any(), any(), any());
+    }
+
+    @Test
+    void otherRequestFailureShouldNotBeRetried() throws Exception {
+        answerBulk(request -> new ElasticsearchStatusException("bad", RestStatus.BAD_REQUEST));
+        when(client.index(any(IndexRequest.class), any(RequestOptions.class)))
+                .thenReturn(mock(IndexResponse.class));
+
+        write(row(1));
+
+        assertEquals(Collections.singletonList(1), sentBulkSizes);
+        verify(client).index(any(IndexRequest.class), any(RequestOptions.class));
+        verify(dirtyManager, never()).collect(any(), any(), any());
+    }
+
+    @Test
+    void rejectedItemsShouldBeRetriedMaxRetriesTimesThenCollected() throws Exception {
+        // row 1 is always rejected, row 2 is written at once, row 3 fails for good
+        answerBulk(
+                request -> {
+                    BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+                    for (int i = 0; i < items.length; i++) {
+                        String id = String.valueOf(idOf(request.requests().get(i)));
+                        items[i] =
+                                "1".equals(id)
+                                        ? failedItem(i, RestStatus.TOO_MANY_REQUESTS)
+                                        : "3".equals(id)
+                                                ? failedItem(i, RestStatus.BAD_REQUEST)
+                                                : successfulItem(i);
+                    }
+                    return new BulkResponse(items, 1L);
+                });
+
+        write(row(1), row(2), row(3));
+
+        // the first request and MAX_RETRIES retries of the rejected item only
+        assertEquals(Arrays.asList(3, 1, 1, 1), sentBulkSizes);
+        ArgumentCaptor<Object> rows = ArgumentCaptor.forClass(Object.class);
+        ArgumentCaptor<Throwable> errors = ArgumentCaptor.forClass(Throwable.class);
+        verify(dirtyManager, times(2)).collect(rows.capture(), errors.capture(), isNull());
+        assertTrue(rows.getAllValues().containsAll(Arrays.asList(row(1), row(3))));
+        verify(client, never()).index(any(IndexRequest.class), any(RequestOptions.class));
+    }
+
+    @Test
+    void rejectedItemShouldSucceedOnLastRetry() throws Exception {
+        answerBulk(
+                request ->
+                        new BulkResponse(
+                                new BulkItemResponse[] {
+                                    sentBulkSizes.size() <= MAX_RETRIES
+                                            ? failedItem(0, RestStatus.TOO_MANY_REQUESTS)
+                                            : successfulItem(0)
+                                },
+                                1L));
+
+        write(row(1));
+
+        assertEquals(Arrays.asList(1, 1, 1, 1), sentBulkSizes);
+        verify(dirtyManager, never()).collect(any(), any(), any());
+    }
+
+    /**
+     * answer each bulk request with the result of the function: a BulkResponse, an exception, or
+     * null for a response without failures
+     */
+    @SuppressWarnings("unchecked")
+    private void answerBulk(Function<BulkRequest, Object> result) {
+        doAnswer(
+                        invocation -> {
+                            BulkRequest request = invocation.getArgument(0);
+                            sentBulkSizes.add(request.numberOfActions());
+                            ActionListener<BulkResponse> listener = invocation.getArgument(2);
+                            Object answer = result.apply(request);
+                            if (answer instanceof Exception) {
+                                listener.onFailure((Exception) answer);
+                            } else if (answer == null) {
+                                listener.onResponse(
+                                        new BulkResponse(
+                                                successfulItems(request.numberOfActions()), 1L));
+                            } else {
+                                listener.onResponse((BulkResponse) answer);
+                            }
+                            return null;
+                        })
+                .when(client)
+                .bulkAsync(any(BulkRequest.class), eq(RequestOptions.DEFAULT), any());
+    }
+
+    private void write(RowData... rows) throws Exception {
+        Whitebox.setInternalState(format, "rows", new ArrayList<>(Arrays.asList(rows)));
+        format.writeMultipleRecordsInternal();
+    }
+
+    private static RowData row(int id) {
+        return GenericRowData.of(id);
+    }
+
+    private static Object idOf(DocWriteRequest<?> request) {
+        return ((IndexRequest) request).sourceAsMap().get("id");
+    }
+
+    private static BulkItemResponse[] successfulItems(int size) {
+        BulkItemResponse[] items = new BulkItemResponse[size];
+        for (int i = 0; i < size; i++) {
+            items[i] = successfulItem(i);
+        }
+        return items;
+    }
+
+    private static BulkItemResponse successfulItem(int itemId) {
+        return new BulkItemResponse(itemId, DocWriteRequest.OpType.INDEX, (IndexResponse) null);
+    }
+
+    private static BulkItemResponse failedItem(int itemId, RestStatus status) {
+        return new BulkItemResponse(
+                itemId,
+                DocWriteRequest.OpType.INDEX,
+                new BulkItemResponse.Failure(
+                        "idx", "_doc", null, new Exception(status.name()), status));
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.elasticsearch7.source;
+
+import com.dtstack.chunjun.connector.elasticsearch7.Elasticsearch7ClientFactory;
+import com.dtstack.chunjun.connector.elasticsearch7.ElasticsearchConfig;
+import com.dtstack.chunjun.util.JsonUtil;
+
+import org.apache.flink.api.common.functions.AggregateFunction;
+import org.apache.flink.core.io.GenericInputSplit;
+import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.runtime.taskexecutor.GlobalAggregateManager;
+import org.apache.flink.streaming.api.operators.StreamingRuntimeContext;
+
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.powermock.reflect.Whitebox;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ElasticsearchInputFormatTest {
+
+    private ElasticsearchConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new ElasticsearchConfig();
+        config.setIndex("idx");
+        config.setReadMode("pit");
+        config.setBatchSize(100);
+        config.setFieldNames(new String[] {"id", "name"});
+        config.setQuery(Collections.singletonMap("term", Collections.singletonMap("id", 1)));
+    }
+
+    @Test
+    void pitSearchRequestShouldCarrySliceSortAndPit() throws Exception {
+        ElasticsearchInputFormat format = newFormat();
+        Map<String, Object> pitSearchBody =
+                format.createPitSearchBody(
+                        format.createSearchSourceBuilder(new GenericInputSplit(1, 3)));
+        Whitebox.setInternalState(format, "pitSearchBody", pitSearchBody);
+        Whitebox.setInternalState(format, "pitId", "pit-1");
+
+        Request request = format.createPitSearchRequest(Arrays.asList(5, "doc-7"));
+
+        assertEquals("POST", request.getMethod());
+        assertEquals("/_search", request.getEndpoint());
+        Map<String, Object> body = readBody(request);
+
+        Map<String, Object> slice = new HashMap<>();
+        slice.put("id", 1);
+        slice.put("max", 3);
+        assertEquals(slice, body.get("slice"));
+        assertEquals(
+                Collections.singletonList(Collections.singletonMap("_shard_doc", "asc")),
+                body.get("sort"));
+        assertEquals(false, body.get("track_total_hits"));
+        assertEquals(100, body.get("size"));
+        assertEquals(
+                Arrays.asList("id", "name"), ((Map<?, ?>) body.get("_source")).get("includes"));
+        assertTrue(String.valueOf(body.get("query")).contains("wrapper"));
+
+        Map<String, Object> pit = new HashMap<>();
+        pit.put("id", "pit-1");
+        pit.put("keep_alive", "1m");
+        assertEquals(pit, body.get("pit"));
+        assertEquals(Arrays.asList(5, "doc-7"), body.get("search_after"));
+        assertFalse(body.containsKey("index"));
+    }
+
+    @Test
+    void firstPitSearchShouldNotSearchAfterAndSingleSplitShouldNotSlice() throws Exception {
+        ElasticsearchInputFormat format = newFormat();
+        Map<String, Object> pitSearchBody =
+                format.createPitSearchBody(
+                        format.createSearchSourceBuilder(new GenericInputSplit(0, 1)));
+        Whitebox.setInternalState(format, "pitSearchBody", pitSearchBody);
+        Whitebox.setInternalState(format, "pitId", "pit-1");
+
+        Map<String, Object> body = readBody(format.createPitSearchRequest(null));
+
+        assertFalse(body.containsKey("slice"));
+        assertFalse(body.containsKey("search_after"));
+        assertEquals("pit-1", ((Map<?, ?>) body.get("pit")).get("id"));
+    }
+
+    @Test
+    void createInputSplitsShouldOpenOnePitForAllSlices() throws Exception {
+        RestClient restClient = mock(RestClient.class);
+        Response response = mock(Response.class);
+        when(response.getEntity()).thenReturn(new StringEntity("{\"id\":\"pit-1\"}"));
+        when(restClient.performRequest(any(Request.class))).thenReturn(response);
+        RestHighLevelClient client = mock(RestHighLevelClient.class);
+        when(client.getLowLevelClient()).thenReturn(restClient);
+
+        InputSplit[] splits;
+        try (MockedStatic<Elasticsearch7ClientFactory> factory =
+                mockStatic(Elasticsearch7ClientFactory.class)) {
+            factory.when(() -> Elasticsearch7ClientFactory.createClient(any(), isNull()))
+                    .thenReturn(client);
+            splits = newFormat().createInputSplitsInternal(3);
+        }
+
+        ArgumentCaptor<Request> captor = ArgumentCaptor.forClass(Request.class);
+        verify(restClient, times(1)).performRequest(captor.capture());
+        assertEquals("POST", captor.getValue().getMethod());
+        assertEquals("/idx/_pit", captor.getValue().getEndpoint());
+        assertEquals("1m", captor.getValue().getParameters().get("keep_alive"));
+        verify(client).close();
+
+        assertEquals(3, splits.length);
+        for (int i = 0; i < splits.length; i++) {
+            ElasticsearchPitInputSplit split = (ElasticsearchPitInputSplit) splits[i];
+            assertEquals(i, split.getSplitNumber());
+            assertEquals(3, split.getTotalNumberOfSplits());
+            assertEquals("pit-1", split.getPitId());
+        }
+    }
+
+    @Test
+    void scrollModeShouldNotOpenPit() throws Exception {
+        config.setReadMode("scroll");
+        try (MockedStatic<Elasticsearch7ClientFactory> factory =
+                mockStatic(Elasticsearch7ClientFactory.class)) {
+            InputSplit[] splits = newFormat().createInputSplitsInternal(2);
+            factory.verifyNoInteractions();
+            assertEquals(2, splits.length);
+            assertFalse(splits[0] instanceof ElasticsearchPitInputSplit);
+        }
+    }
+
+    @Test
+    void onlyTheLastFinishedSliceShouldClosePit() throws Exception {
+        GlobalAggregateManager aggregateManager = new LocalAggregateManager();
+        RestClient first = mock(RestClient.class);
+        RestClient second = mock(RestClient.class);
+        RestClient third = mock(RestClient.class);
+        ElasticsearchInputFormat slice0 = newSliceFormat(0, aggregateManager, first);
+        ElasticsearchInputFormat slice1 = newSliceFormat(1, aggregateManager, second);
+        ElasticsearchInputFormat slice2 = newSliceFormat(2, aggregateManager, third);
+
+        slice1.finishSlice();
+        slice0.finishSlice();
+        // a drained slice does not count twice
+        slice0.finishSlice();
+        verify(first, never()).performRequest(any(Request.class));
+        verify(second, never()).performRequest(any(Request.class));
+
+        slice2.finishSlice();
+        ArgumentCaptor<Request> captor = ArgumentCaptor.forClass(Request.class);
+        verify(third, times(1)).performRequest(captor.capture());
+        assertEquals("DELETE", captor.getValue().getMethod());
+        assertEquals("/_pit", captor.getValue().getEndpoint());
+        assertEquals(Collections.singletonMap("id", "pit-1"), readBody(captor.getValue()));
+        verify(first, never()).performRequest(any(Request.class));
+        verify(second, never()).performRequest(any(Request.class));
+    }
+
+    @Test
+    void finishedSlicesShouldCountDistinctSlices() {
+        ElasticsearchInputFormat.FinishedSlices function =
+                new ElasticsearchInputFormat.FinishedSlices();
+        assertEquals(
+                2,
+                function.getResult(
+                        function.add(
+                                1,
+                                function.add(0, function.add(0, function.createAccumulator())))));
+        assertEquals(
+                3,
+                function.getResult(
+                        function.merge(
+                                function.add(0, function.createAccumulator()),
+                                function.add(2, function.add(1, function.createAccumulator())))));
+    }
+
+    private ElasticsearchInputFormat newFormat() {
+        ElasticsearchInputFormat format = new ElasticsearchInputFormat();
+        format.setElasticsearchConf(config);
+        return format;
+    }
+
+    private ElasticsearchInputFormat newSliceFormat(
+            int splitNumber, GlobalAggregateManager aggregateManager, RestClient restClient) {
+        StreamingRuntimeContext context = mock(StreamingRuntimeContext.class);
+        when(context.getGlobalAggregateManager()).thenReturn(aggregateManager);
+        RestHighLevelClient client = mock(RestHighLevelClient.class);
+        when(client.getLowLevelClient()).thenReturn(restClient);
+
+        ElasticsearchInputFormat format = newFormat();
+        Whitebox.setInternalState(format, "context", context);
+        Whitebox.setInternalState(format, "rhlClient", client);
+        Whitebox.setInternalState(format, "pitId", "pit-1");
+        Whitebox.setInternalState(
+                format, "pitSplit", new ElasticsearchPitInputSplit(splitNumber, 3, "pit-1"));
+        return format;
+    }
+
+    private static Map<String, Object> readBody(Request request) throws Exception {
+        return JsonUtil.toObject(
+                EntityUtils.toString(request.getEntity()), JsonUtil.MAP_TYPE_REFERENCE);
+    }
+
+    /** aggregates in memory like the job master does for all subtasks of a job */
+    private static class LocalAggregateManager implements GlobalAggregateManager {
+
+        private final Map<String, Object> accumulators = new HashMap<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public synchronized <IN, ACC, OUT> OUT updateGlobalAggregate(
+                String aggregateName,
+                Object aggregand,
+                AggregateFunction<IN, ACC, OUT> aggregateFunction) {
+            ACC accumulator =
+                    (ACC)
+                            accumulators.computeIfAbsent(
+                                    aggregateName, name -> aggregateFunction.createAccumulator());
+            accumulator = aggregateFunction.add((IN) aggregand, accumulator);
+            accumulators.put(aggregateName, accumulator);
+            return aggregateFunction.getResult(accumulator);
+        }
+    }
+}
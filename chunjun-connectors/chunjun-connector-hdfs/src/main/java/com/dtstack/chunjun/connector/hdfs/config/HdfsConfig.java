@@ -39,6 +39,9 @@ public class HdfsConfig extends BaseFileConfig {
     private Map<String, Object> hadoopConfig = new HashMap<>(16);
 
     private String filterRegex = "";
+    /** orc、parquet读取时下推的过滤条件，多个条件之间为AND关系 */
+    private List<HdfsFilterConfig> filters;
+
     private String fieldDelimiter = "\001";
     private int rowGroupSize = ParquetWriter.DEFAULT_BLOCK_SIZE;
     private boolean enableDictionary = true;
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.chunjun.connector.hdfs.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * orc、parquet读取时的过滤条件，多个条件之间为AND关系。条件会转换为parquet的FilterPredicate与orc的SearchArgument， 统计信息不满足条件的row
+ * group、stripe将被整体跳过
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HdfsFilterConfig implements Serializable {
+
+    private static final long serialVersionUID = -2403856326530719834L;
+
+    /** 字段名称，不区分大小写 */
+    private String name;
+    /** 比较符：=、!=、<、<=、>、>=、is null、is not null */
+    private String operator;
+    /** 比较值，is null、is not null时忽略 */
+    private String value;
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.chunjun.connector.hdfs.enums;
+
+import com.dtstack.chunjun.throwable.UnsupportedTypeException;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Locale;
+
+/** 下推到orc、parquet读取的过滤条件的比较符 */
+public enum FilterOperator {
+    EQ("="),
+    NOT_EQ("!="),
+    LT("<"),
+    LT_EQ("<="),
+    GT(">"),
+    GT_EQ(">="),
+    IS_NULL("is null"),
+    IS_NOT_NULL("is not null");
+
+    private final String symbol;
+
+    FilterOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public static FilterOperator getBySymbol(String symbol) {
+        if (StringUtils.isBlank(symbol)) {
+            throw new IllegalArgumentException("filter operator cannot be null or empty.");
+        }
+        String normalized = StringUtils.normalizeSpace(symbol).toLowerCase(Locale.ENGLISH);
+        if ("<>".equals(normalized)) {
+            return NOT_EQ;
+        }
+        for (FilterOperator operator : values()) {
+            if (operator.symbol.equals(normalized)) {
+                return operator;
+            }
+        }
+        throw new UnsupportedTypeException(symbol);
+    }
+}
@@ -19,10 +19,12 @@ package com.dtstack.chunjun.connector.hdfs.source;
 
 import com.dtstack.chunjun.config.FieldConfig;
 import com.dtstack.chunjun.connector.hdfs.config.HdfsConfig;
+import com.dtstack.chunjun.connector.hdfs.config.HdfsFilterConfig;
 import com.dtstack.chunjun.connector.hdfs.converter.HdfsOrcRowConverter;
 import com.dtstack.chunjun.connector.hdfs.converter.HdfsParquetRowConverter;
 import com.dtstack.chunjun.connector.hdfs.converter.HdfsTextRowConverter;
 import com.dtstack.chunjun.connector.hdfs.enums.FileType;
+import com.dtstack.chunjun.connector.hdfs.enums.FilterOperator;
 import com.dtstack.chunjun.converter.AbstractRowConverter;
 import com.dtstack.chunjun.source.DtInputFormatSourceFunction;
 import com.dtstack.chunjun.table.connector.source.ParallelSourceFunctionProvider;
@@ -33,17 +35,63 @@ import org.apache.flink.table.catalog.ResolvedSchema;
 import org.apache.flink.table.connector.ChangelogMode;
 import org.apache.flink.table.connector.source.DynamicTableSource;
 import org.apache.flink.table.connector.source.ScanTableSource;
+import org.apache.flink.table.connector.source.abilities.SupportsFilterPushDown;
 import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.expressions.CallExpression;
+import org.apache.flink.table.expressions.FieldReferenceExpression;
+import org.apache.flink.table.expressions.ResolvedExpression;
+import org.apache.flink.table.expressions.ValueLiteralExpression;
+import org.apache.flink.table.functions.BuiltInFunctionDefinitions;
+import org.apache.flink.table.functions.FunctionDefinition;
 import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.LogicalTypeRoot;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-public class HdfsDynamicTableSource implements ScanTableSource {
+public class HdfsDynamicTableSource implements ScanTableSource, SupportsFilterPushDown {
+
+    private static final Map<FunctionDefinition, FilterOperator> COMPARISONS = new HashMap<>();
+    /** 字面量在左侧时交换比较符 */
+    private static final Map<FilterOperator, FilterOperator> REVERSED = new HashMap<>();
+    /** orc、parquet均能基于统计信息过滤的字段类型 */
+    private static final Set<LogicalTypeRoot> SUPPORTED_TYPES =
+            EnumSet.of(
+                    LogicalTypeRoot.TINYINT,
+                    LogicalTypeRoot.SMALLINT,
+                    LogicalTypeRoot.INTEGER,
+                    LogicalTypeRoot.BIGINT,
+                    LogicalTypeRoot.FLOAT,
+                    LogicalTypeRoot.DOUBLE,
+                    LogicalTypeRoot.BOOLEAN,
+                    LogicalTypeRoot.CHAR,
+                    LogicalTypeRoot.VARCHAR);
+
+    static {
+        COMPARISONS.put(BuiltInFunctionDefinitions.EQUALS, FilterOperator.EQ);
+        COMPARISONS.put(BuiltInFunctionDefinitions.NOT_EQUALS, FilterOperator.NOT_EQ);
+        COMPARISONS.put(BuiltInFunctionDefinitions.LESS_THAN, FilterOperator.LT);
+        COMPARISONS.put(BuiltInFunctionDefinitions.LESS_THAN_OR_EQUAL, FilterOperator.LT_EQ);
+        COMPARISONS.put(BuiltInFunctionDefinitions.GREATER_THAN, FilterOperator.GT);
+        COMPARISONS.put(BuiltInFunctionDefinitions.GREATER_THAN_OR_EQUAL, FilterOperator.GT_EQ);
+
+        REVERSED.put(FilterOperator.EQ, FilterOperator.EQ);
+        REVERSED.put(FilterOperator.NOT_EQ, FilterOperator.NOT_EQ);
+        REVERSED.put(FilterOperator.LT, FilterOperator.GT);
+        REVERSED.put(FilterOperator.LT_EQ, FilterOperator.GT_EQ);
+        REVERSED.put(FilterOperator.GT, FilterOperator.LT);
+        REVERSED.put(FilterOperator.GT_EQ, FilterOperator.LT_EQ);
+    }
 
     private final HdfsConfig hdfsConfig;
     private final ResolvedSchema tableSchema;
     private final List<String> partitionKeyList;
+    /** flink sql下推的过滤条件 */
+    private final List<HdfsFilterConfig> pushedFilters = new ArrayList<>();
 
     public HdfsDynamicTableSource(HdfsConfig hdfsConfig, ResolvedSchema tableSchema) {
         this(hdfsConfig, tableSchema, new ArrayList<>());
@@ -75,6 +123,9 @@ public class HdfsDynamicTableSource implements ScanTableSource {
             columnList.add(field);
         }
         hdfsConfig.setColumn(columnList);
+        if (!pushedFilters.isEmpty()) {
+            hdfsConfig.setFilters(pushedFilters);
+        }
         HdfsInputFormatBuilder builder = HdfsInputFormatBuilder.newBuild(hdfsConfig.getFileType());
         builder.setHdfsConf(hdfsConfig);
         AbstractRowConverter rowConverter;
@@ -113,9 +164,89 @@ public class HdfsDynamicTableSource implements ScanTableSource {
                 hdfsConfig.getParallelism());
     }
 
+    /**
+     * 过滤条件仅用于跳过row group、stripe，不改变结果，所有条件仍由flink过滤
+     *
+     * @param filters flink下推的过滤条件，多个条件之间为AND关系
+     */
+    @Override
+    public Result applyFilters(List<ResolvedExpression> filters) {
+        List<ResolvedExpression> acceptedFilters = new ArrayList<>();
+        FileType fileType = FileType.getByName(hdfsConfig.getFileType());
+        if (fileType == FileType.ORC || fileType == FileType.PARQUET) {
+            for (ResolvedExpression filter : filters) {
+                HdfsFilterConfig filterConfig = toFilterConfig(filter);
+                if (filterConfig != null) {
+                    pushedFilters.add(filterConfig);
+                    acceptedFilters.add(filter);
+                }
+            }
+        }
+        return Result.of(acceptedFilters, filters);
+    }
+
+    private HdfsFilterConfig toFilterConfig(ResolvedExpression filter) {
+        if (!(filter instanceof CallExpression)) {
+            return null;
+        }
+        CallExpression call = (CallExpression) filter;
+        FunctionDefinition function = call.getFunctionDefinition();
+        List<ResolvedExpression> args = call.getResolvedChildren();
+        if (args.size() == 1
+                && (function == BuiltInFunctionDefinitions.IS_NULL
+                        || function == BuiltInFunctionDefinitions.IS_NOT_NULL)) {
+            FilterOperator operator =
+                    function == BuiltInFunctionDefinitions.IS_NULL
+                            ? FilterOperator.IS_NULL
+                            : FilterOperator.IS_NOT_NULL;
+            String name = getFilterField(args.get(0));
+            return name == null ? null : new HdfsFilterConfig(name, operator.getSymbol(), null);
+        }
+        if (args.size() != 2 || !COMPARISONS.containsKey(function)) {
+            return null;
+        }
+        ResolvedExpression field = args.get(0);
+        ResolvedExpression literal = args.get(1);
+        boolean reversed = field instanceof ValueLiteralExpression;
+        if (reversed) {
+            field = args.get(1);
+            literal = args.get(0);
+        }
+        FilterOperator operator =
+                reversed ? REVERSED.get(COMPARISONS.get(function)) : COMPARISONS.get(function);
+        String name = getFilterField(field);
+        if (name == null || !(literal instanceof ValueLiteralExpression)) {
+            return null;
+        }
+        ValueLiteralExpression value = (ValueLiteralExpression) literal;
+        if (value.isNull()) {
+            return null;
+        }
+        return value.getValueAs(value.getOutputDataType().getConversionClass())
+                .map(v -> new HdfsFilterConfig(name, operator.getSymbol(), v.toString()))
+                .orElse(null);
+    }
+
+    /** 返回可下推的文件字段名称，分区字段不在文件中 */
+    private String getFilterField(ResolvedExpression expression) {
+        if (!(expression instanceof FieldReferenceExpression)) {
+            return null;
+        }
+        FieldReferenceExpression field = (FieldReferenceExpression) expression;
+        if (partitionKeyList.contains(field.getName())
+                || !SUPPORTED_TYPES.contains(
+                        field.getOutputDataType().getLogicalType().getTypeRoot())) {
+            return null;
+        }
+        return field.getName();
+    }
+
     @Override
     public DynamicTableSource copy() {
-        return new HdfsDynamicTableSource(this.hdfsConfig, this.tableSchema);
+        HdfsDynamicTableSource source =
+                new HdfsDynamicTableSource(this.hdfsConfig, this.tableSchema, partitionKeyList);
+        source.pushedFilters.addAll(pushedFilters);
+        return source;
     }
 
     @Override
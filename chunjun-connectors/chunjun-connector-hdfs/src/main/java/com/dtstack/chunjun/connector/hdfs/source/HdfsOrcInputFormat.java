@@ -19,6 +19,9 @@ package com.dtstack.chunjun.connector.hdfs.source;
 
 import com.dtstack.chunjun.config.FieldConfig;
 import com.dtstack.chunjun.connector.hdfs.InputSplit.HdfsOrcInputSplit;
+import com.dtstack.chunjun.connector.hdfs.config.HdfsFilterConfig;
+import com.dtstack.chunjun.connector.hdfs.enums.FilterOperator;
+import com.dtstack.chunjun.connector.hdfs.util.HdfsFilterUtil;
 import com.dtstack.chunjun.connector.hdfs.util.HdfsUtil;
 import com.dtstack.chunjun.constants.ConstantValue;
 import com.dtstack.chunjun.throwable.ChunJunRuntimeException;
@@ -29,12 +32,17 @@ import org.apache.flink.table.data.GenericRowData;
 import org.apache.flink.table.data.RowData;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.ql.io.orc.OrcFile;
 import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
 import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
 import org.apache.hadoop.hive.ql.io.orc.OrcSplit;
+import org.apache.hadoop.hive.ql.io.sarg.ConvertAstToSearchArg;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
+import org.apache.hadoop.hive.serde.serdeConstants;
 import org.apache.hadoop.hive.serde2.objectinspector.StructField;
 import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.mapred.InputFormat;
@@ -56,8 +64,14 @@ public class HdfsOrcInputFormat extends BaseHdfsInputFormat {
     private static final long serialVersionUID = 5825411463826640071L;
     private final AtomicBoolean isInit = new AtomicBoolean(false);
     private transient String[] fullColNames;
+    private transient String[] fullColTypes;
     private transient StructObjectInspector inspector;
     private transient List<? extends StructField> fields;
+    /** 过滤条件对应的文件字段下标、比较符与比较值，用于行级判断 */
+    private transient int[] filterIndexes;
+
+    private transient FilterOperator[] filterOperators;
+    private transient String[] filterValues;
 
     @Override
     public HdfsOrcInputSplit[] createHdfsSplit(int minNumSplits) throws IOException {
@@ -138,6 +152,7 @@ public class HdfsOrcInputFormat extends BaseHdfsInputFormat {
         HdfsOrcInputSplit hdfsOrcInputSplit = (HdfsOrcInputSplit) inputSplit;
         OrcSplit orcSplit = hdfsOrcInputSplit.getOrcSplit();
         findCurrentPartition(orcSplit.getPath());
+        initFilter();
         recordReader = inputFormat.getRecordReader(orcSplit, hadoopJobConf, Reporter.NULL);
         key = recordReader.createKey();
         value = recordReader.createValue();
@@ -169,7 +184,7 @@ public class HdfsOrcInputFormat extends BaseHdfsInputFormat {
             List<String> columnList = parseColumnAndType(typeStruct);
 
             fullColNames = new String[columnList.size()];
-            String[] fullColTypes = new String[columnList.size()];
+            fullColTypes = new String[columnList.size()];
 
             for (int i = 0; i < columnList.size(); ++i) {
                 String[] temp = columnList.get(i).split(ConstantValue.COLON_SYMBOL);
@@ -189,6 +204,62 @@ public class HdfsOrcInputFormat extends BaseHdfsInputFormat {
         }
     }
 
+    /**
+     * 将过滤条件转换为SearchArgument设置到job conf中，orc reader据此利用row index统计信息与bloom filter跳过不满足条件的row
+     * group，所有row group都不满足时整个stripe不会被读取
+     */
+    private void initFilter() {
+        List<HdfsFilterConfig> filters = hdfsConfig.getFilters();
+        if (CollectionUtils.isEmpty(filters) || filterIndexes != null) {
+            return;
+        }
+        SearchArgument sarg = HdfsFilterUtil.toSearchArgument(filters, fullColNames, fullColTypes);
+        log.info("orc search argument = {}", sarg);
+        if (sarg != null) {
+            hadoopJobConf.set(ConvertAstToSearchArg.SARG_PUSHDOWN, HdfsFilterUtil.toKryo(sarg));
+            hadoopJobConf.set(
+                    serdeConstants.LIST_COLUMNS,
+                    StringUtils.join(fullColNames, ConstantValue.COMMA_SYMBOL));
+            hadoopJobConf.setBoolean(HiveConf.ConfVars.HIVEOPTINDEXFILTER.varname, true);
+        }
+
+        filterIndexes = new int[filters.size()];
+        filterOperators = new FilterOperator[filters.size()];
+        filterValues = new String[filters.size()];
+        for (int i = 0; i < filters.size(); i++) {
+            HdfsFilterConfig filter = filters.get(i);
+            filterIndexes[i] = HdfsFilterUtil.indexOfIgnoreCase(fullColNames, filter.getName());
+            filterOperators[i] = FilterOperator.getBySymbol(filter.getOperator());
+            filterValues[i] = filter.getValue();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean reachedEnd() throws IOException {
+        while (recordReader.next(key, value)) {
+            if (filterIndexes == null || matchFilter()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchFilter() {
+        for (int i = 0; i < filterIndexes.length; i++) {
+            // 文件中不存在的字段读出的值均为null
+            Object obj =
+                    filterIndexes[i] < 0
+                            ? null
+                            : inspector.getStructFieldData(value, fields.get(filterIndexes[i]));
+            if (!HdfsFilterUtil.test(
+                    filterOperators[i], filterValues[i], HdfsUtil.getWritableValue(obj))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private List<String> parseColumnAndType(String typeStruct) {
         List<String> columnList = new ArrayList<>();
         List<String> splitList = Arrays.asList(typeStruct.split(ConstantValue.COMMA_SYMBOL));
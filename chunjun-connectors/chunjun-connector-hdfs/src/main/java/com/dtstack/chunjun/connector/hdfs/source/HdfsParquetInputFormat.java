@@ -19,6 +19,7 @@ package com.dtstack.chunjun.connector.hdfs.source;
 
 import com.dtstack.chunjun.config.FieldConfig;
 import com.dtstack.chunjun.connector.hdfs.InputSplit.HdfsParquetSplit;
+import com.dtstack.chunjun.connector.hdfs.util.HdfsFilterUtil;
 import com.dtstack.chunjun.constants.ConstantValue;
 import com.dtstack.chunjun.enums.ColumnType;
 import com.dtstack.chunjun.throwable.ChunJunRuntimeException;
@@ -34,6 +35,7 @@ import com.google.common.collect.Lists;
 import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
@@ -41,6 +43,8 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.PathFilter;
 import org.apache.hadoop.mapred.InputFormat;
 import parquet.example.data.Group;
+import parquet.filter2.compat.FilterCompat;
+import parquet.hadoop.ParquetFileReader;
 import parquet.hadoop.ParquetReader;
 import parquet.hadoop.example.GroupReadSupport;
 import parquet.io.api.Binary;
@@ -218,11 +222,29 @@ public class HdfsParquetInputFormat extends BaseHdfsInputFormat {
 
     private void nextFile() throws IOException {
         Path path = new Path(currentSplitFilePaths.get(currentFileIndex));
+        currentFileIndex++;
+        if (currentFileReader != null) {
+            currentFileReader.close();
+            currentFileReader = null;
+        }
         findCurrentPartition(path);
         ParquetReader.Builder<Group> reader =
                 ParquetReader.builder(new GroupReadSupport(), path).withConf(hadoopJobConf);
+        if (CollectionUtils.isNotEmpty(hdfsConfig.getFilters())) {
+            // 过滤条件转换为FilterPredicate，统计信息不满足条件的row group整体跳过
+            FilterCompat.Filter filter =
+                    HdfsFilterUtil.toParquetFilter(
+                            hdfsConfig.getFilters(),
+                            ParquetFileReader.readFooter(hadoopJobConf, path)
+                                    .getFileMetaData()
+                                    .getSchema());
+            if (filter == null) {
+                log.info("skip parquet file {} as no row can match the filters", path);
+                return;
+            }
+            reader.withFilter(filter);
+        }
         currentFileReader = reader.build();
-        currentFileIndex++;
     }
 
     @Override
@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.chunjun.connector.hdfs.util;
+
+import com.dtstack.chunjun.connector.hdfs.config.HdfsFilterConfig;
+import com.dtstack.chunjun.connector.hdfs.enums.FilterOperator;
+import com.dtstack.chunjun.throwable.ChunJunRuntimeException;
+
+import org.apache.hadoop.hive.ql.io.sarg.ConvertAstToSearchArg;
+import org.apache.hadoop.hive.ql.io.sarg.PredicateLeaf;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgumentFactory;
+import org.apache.hive.com.esotericsoftware.kryo.Kryo;
+import org.apache.hive.com.esotericsoftware.kryo.io.Output;
+import parquet.filter2.compat.FilterCompat;
+import parquet.filter2.predicate.FilterApi;
+import parquet.filter2.predicate.FilterPredicate;
+import parquet.filter2.predicate.Operators;
+import parquet.io.api.Binary;
+import parquet.schema.MessageType;
+import parquet.schema.OriginalType;
+import parquet.schema.Type;
+
+import java.math.BigDecimal;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/** 将{@link HdfsFilterConfig}转换为parquet的FilterPredicate、orc的SearchArgument，并提供行级判断 */
+public class HdfsFilterUtil {
+
+    private HdfsFilterUtil() {}
+
+    /**
+     * 根据parquet文件的schema构建过滤器
+     *
+     * @return 文件中不可能存在满足条件的数据时返回null，整个文件可以跳过
+     */
+    public static FilterCompat.Filter toParquetFilter(
+            List<HdfsFilterConfig> filters, MessageType schema) {
+        FilterPredicate predicate = null;
+        for (HdfsFilterConfig filter : filters) {
+            FilterOperator operator = FilterOperator.getBySymbol(filter.getOperator());
+            Type field = findParquetField(schema, filter.getName());
+            if (field == null) {
+                // 文件中不存在的字段读出的值均为null
+                if (operator == FilterOperator.IS_NULL) {
+                    continue;
+                }
+                return null;
+            }
+            FilterPredicate leaf = toParquetPredicate(field, operator, filter.getValue());
+            predicate = predicate == null ? leaf : FilterApi.and(predicate, leaf);
+        }
+        return predicate == null ? FilterCompat.NOOP : FilterCompat.get(predicate);
+    }
+
+    /**
+     * 根据orc文件的字段构建SearchArgument，字段名称与类型来自文件的type struct。文件中不存在的字段及不支持下推的类型不生成条件，由行级判断过滤
+     *
+     * @param names 文件中的字段名称
+     * @param types 文件中的字段类型，如int、varchar(10)
+     * @return 没有可下推的条件时返回null
+     */
+    public static SearchArgument toSearchArgument(
+            List<HdfsFilterConfig> filters, String[] names, String[] types) {
+        SearchArgument.Builder builder = SearchArgumentFactory.newBuilder().startAnd();
+        int leaves = 0;
+        for (HdfsFilterConfig filter : filters) {
+            FilterOperator operator = FilterOperator.getBySymbol(filter.getOperator());
+            int index = indexOfIgnoreCase(names, filter.getName());
+            if (index < 0) {
+                continue;
+            }
+            String name = names[index];
+            String type = types[index].toLowerCase(Locale.ENGLISH);
+            PredicateLeaf.Type sargType;
+            Object literal;
+            if (type.startsWith("tinyint")
+                    || type.startsWith("smallint")
+                    || type.startsWith("int")
+                    || type.startsWith("bigint")) {
+                sargType = PredicateLeaf.Type.LONG;
+                literal = parseLiteral(filter, operator, v -> Long.valueOf(v.trim()));
+            } else if (type.startsWith("float") || type.startsWith("double")) {
+                sargType = PredicateLeaf.Type.FLOAT;
+                literal = parseLiteral(filter, operator, v -> Double.valueOf(v.trim()));
+            } else if (type.startsWith("string")
+                    || type.startsWith("varchar")
+                    || type.startsWith("char")) {
+                sargType = PredicateLeaf.Type.STRING;
+                literal = parseLiteral(filter, operator, Function.identity());
+            } else if (type.startsWith("boolean")) {
+                sargType = PredicateLeaf.Type.BOOLEAN;
+                literal = parseLiteral(filter, operator, v -> Boolean.valueOf(v.trim()));
+            } else {
+                continue;
+            }
+
+            switch (operator) {
+                case EQ:
+                    builder.equals(name, sargType, literal);
+                    break;
+                case NOT_EQ:
+                    builder.startNot().equals(name, sargType, literal).end();
+                    break;
+                case LT:
+                    builder.lessThan(name, sargType, literal);
+                    break;
+                case LT_EQ:
+                    builder.lessThanEquals(name, sargType, literal);
+                    break;
+                case GT:
+                    builder.startNot().lessThanEquals(name, sargType, literal).end();
+                    break;
+                case GT_EQ:
+                    builder.startNot().lessThan(name, sargType, literal).end();
+                    break;
+                case IS_NULL:
+                    builder.isNull(name, sargType);
+                    break;
+                case IS_NOT_NULL:
+                    builder.startNot().isNull(name, sargType).end();
+                    break;
+                default:
+                    throw new UnsupportedOperationException(operator.getSymbol());
+            }
+            leaves++;
+        }
+        return leaves == 0 ? null : builder.end().build();
+    }
+
+    /** 序列化为{@link ConvertAstToSearchArg#SARG_PUSHDOWN}的值，与hive读取时使用的kryo保持一致 */
+    public static String toKryo(SearchArgument sarg) {
+        Output output = new Output(4 * 1024, 10 * 1024 * 1024);
+        new Kryo().writeObject(output, sarg);
+        output.close();
+        return Base64.getEncoder().encodeToString(output.toBytes());
+    }
+
+    /**
+     * 行级判断，orc的SearchArgument只能跳过row group与stripe，剩余数据仍需逐行判断
+     *
+     * @param value 字段值，为{@link HdfsUtil#getWritableValue(Object)}转换后的java对象
+     */
+    public static boolean test(FilterOperator operator, String literal, Object value) {
+        if (operator == FilterOperator.IS_NULL) {
+            return value == null;
+        }
+        if (operator == FilterOperator.IS_NOT_NULL) {
+            return value != null;
+        }
+        if (value == null) {
+            return false;
+        }
+
+        int cmp;
+        if (value instanceof Number) {
+            if (value instanceof Double && ((Double) value).isNaN()
+                    || value instanceof Float && ((Float) value).isNaN()) {
+                return false;
+            }
+            cmp = new BigDecimal(value.toString()).compareTo(new BigDecimal(literal.trim()));
+        } else if (value instanceof Boolean) {
+            cmp = ((Boolean) value).compareTo(Boolean.valueOf(literal.trim()));
+        } else {
+            cmp = value.toString().compareTo(literal);
+        }
+
+        switch (operator) {
+            case EQ:
+                return cmp == 0;
+            case NOT_EQ:
+                return cmp != 0;
+            case LT:
+                return cmp < 0;
+            case LT_EQ:
+                return cmp <= 0;
+            case GT:
+                return cmp > 0;
+            case GT_EQ:
+                return cmp >= 0;
+            default:
+                throw new UnsupportedOperationException(operator.getSymbol());
+        }
+    }
+
+    public static int indexOfIgnoreCase(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Type findParquetField(MessageType schema, String name) {
+        for (Type field : schema.getFields()) {
+            if (field.getName().equalsIgnoreCase(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static FilterPredicate toParquetPredicate(
+            Type field, FilterOperator operator, String value) {
+        String name = field.getName();
+        OriginalType originalType = field.getOriginalType();
+        if (field.isPrimitive()) {
+            switch (field.asPrimitiveType().getPrimitiveTypeName()) {
+                case INT32:
+                    if (originalType == null
+                            || originalType == OriginalType.INT_8
+                            || originalType == OriginalType.INT_16
+                            || originalType == OriginalType.INT_32) {
+                        return compare(
+                                FilterApi.intColumn(name),
+                                operator,
+                                parseLiteral(
+                                        name, operator, value, v -> Integer.valueOf(v.trim())));
+                    }
+                    break;
+                case INT64:
+                    if (originalType == null || originalType == OriginalType.INT_64) {
+                        return compare(
+                                FilterApi.longColumn(name),
+                                operator,
+                                parseLiteral(name, operator, value, v -> Long.valueOf(v.trim())));
+                    }
+                    break;
+                case FLOAT:
+                    return compare(
+                            FilterApi.floatColumn(name),
+                            operator,
+                            parseLiteral(name, operator, value, v -> Float.valueOf(v.trim())));
+                case DOUBLE:
+                    return compare(
+                            FilterApi.doubleColumn(name),
+                            operator,
+                            parseLiteral(name, operator, value, v -> Double.valueOf(v.trim())));
+                case BINARY:
+                    if (originalType == null || originalType == OriginalType.UTF8) {
+                        return compare(
+                                FilterApi.binaryColumn(name),
+                                operator,
+                                parseLiteral(name, operator, value, Binary::fromString));
+                    }
+                    break;
+                case BOOLEAN:
+                    Operators.BooleanColumn column = FilterApi.booleanColumn(name);
+                    Boolean literal =
+                            parseLiteral(name, operator, value, v -> Boolean.valueOf(v.trim()));
+                    switch (operator) {
+                        case EQ:
+                        case IS_NULL:
+                            return FilterApi.eq(column, literal);
+                        case NOT_EQ:
+                            return FilterApi.and(
+                                    FilterApi.notEq(column, literal),
+                                    FilterApi.notEq(column, null));
+                        case IS_NOT_NULL:
+                            return FilterApi.notEq(column, null);
+                        default:
+                            break;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        throw new ChunJunRuntimeException(
+                "filter ["
+                        + operator.getSymbol()
+                        + "] on parquet column ["
+                        + field
+                        + "] is not supported");
+    }
+
+    private static <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsLtGt>
+            FilterPredicate compare(C column, FilterOperator operator, T value) {
+        switch (operator) {
+            case EQ:
+            case IS_NULL:
+                return FilterApi.eq(column, value);
+            case NOT_EQ:
+                // parquet的notEq会保留null，与sql语义不同
+                return FilterApi.and(FilterApi.notEq(column, value), FilterApi.notEq(column, null));
+            case IS_NOT_NULL:
+                return FilterApi.notEq(column, null);
+            case LT:
+                return FilterApi.lt(column, value);
+            case LT_EQ:
+                return FilterApi.ltEq(column, value);
+            case GT:
+                return FilterApi.gt(column, value);
+            case GT_EQ:
+                return FilterApi.gtEq(column, value);
+            default:
+                throw new UnsupportedOperationException(operator.getSymbol());
+        }
+    }
+
+    private static <T> T parseLiteral(
+            HdfsFilterConfig filter, FilterOperator operator, Function<String, T> parser) {
+        return parseLiteral(filter.getName(), operator, filter.getValue(), parser);
+    }
+
+    /** is null、is not null时比较值为null */
+    private static <T> T parseLiteral(
+            String name, FilterOperator operator, String value, Function<String, T> parser) {
+        if (operator == FilterOperator.IS_NULL || operator == FilterOperator.IS_NOT_NULL) {
+            return null;
+        }
+        if (value == null) {
+            throw new ChunJunRuntimeException("filter value of column [" + name + "] is null");
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new ChunJunRuntimeException(
+                    "invalid filter value [" + value + "] of column [" + name + "]", e);
+        }
+    }
+}
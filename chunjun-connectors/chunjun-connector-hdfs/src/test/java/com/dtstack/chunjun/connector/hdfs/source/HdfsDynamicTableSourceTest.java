@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.chunjun.connector.hdfs.source;
+
+import com.dtstack.chunjun.connector.hdfs.config.HdfsConfig;
+import com.dtstack.chunjun.connector.hdfs.config.HdfsFilterConfig;
+
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.catalog.Column;
+import org.apache.flink.table.catalog.ResolvedSchema;
+import org.apache.flink.table.connector.source.abilities.SupportsFilterPushDown;
+import org.apache.flink.table.expressions.CallExpression;
+import org.apache.flink.table.expressions.FieldReferenceExpression;
+import org.apache.flink.table.expressions.ResolvedExpression;
+import org.apache.flink.table.expressions.ValueLiteralExpression;
+import org.apache.flink.table.functions.BuiltInFunctionDefinition;
+import org.apache.flink.table.functions.BuiltInFunctionDefinitions;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HdfsDynamicTableSourceTest {
+
+    private final FieldReferenceExpression id =
+            new FieldReferenceExpression("id", DataTypes.BIGINT(), 0, 0);
+    private final FieldReferenceExpression name =
+            new FieldReferenceExpression("name", DataTypes.STRING(), 0, 1);
+    private final FieldReferenceExpression amount =
+            new FieldReferenceExpression("amount", DataTypes.DECIMAL(10, 2), 0, 2);
+
+    private HdfsDynamicTableSource source;
+
+    @BeforeEach
+    void setUp() {
+        HdfsConfig config = new HdfsConfig();
+        config.setFileType("orc");
+        ResolvedSchema schema =
+                ResolvedSchema.of(
+                        Column.physical("id", DataTypes.BIGINT()),
+                        Column.physical("name", DataTypes.STRING()),
+                        Column.physical("amount", DataTypes.DECIMAL(10, 2)));
+        source = new HdfsDynamicTableSource(config, schema);
+    }
+
+    @Test
+    void testPushComparisonsAndNullChecks() {
+        ResolvedExpression gt = call(BuiltInFunctionDefinitions.GREATER_THAN, id, literal(10L));
+        ResolvedExpression reversed = call(BuiltInFunctionDefinitions.LESS_THAN, literal(20L), id);
+        ResolvedExpression isNull = call(BuiltInFunctionDefinitions.IS_NULL, name);
+
+        SupportsFilterPushDown.Result result =
+                source.applyFilters(Arrays.asList(gt, reversed, isNull));
+
+        assertEquals(Arrays.asList(gt, reversed, isNull), result.getAcceptedFilters());
+        // 下推的条件只用于跳过数据块，仍全部交由flink过滤
+        assertEquals(Arrays.asList(gt, reversed, isNull), result.getRemainingFilters());
+        assertEquals(
+                Arrays.asList(
+                        new HdfsFilterConfig("id", ">", "10"),
+                        new HdfsFilterConfig("id", ">", "20"),
+                        new HdfsFilterConfig("name", "is null", null)),
+                pushedFilters());
+    }
+
+    @Test
+    void testOrAndInAreNotPushed() {
+        ResolvedExpression or =
+                call(
+                        BuiltInFunctionDefinitions.OR,
+                        call(BuiltInFunctionDefinitions.EQUALS, id, literal(1L)),
+                        call(BuiltInFunctionDefinitions.EQUALS, id, literal(2L)));
+        ResolvedExpression in = call(BuiltInFunctionDefinitions.IN, id, literal(1L), literal(2L));
+
+        SupportsFilterPushDown.Result result = source.applyFilters(Arrays.asList(or, in));
+
+        assertEquals(Collections.emptyList(), result.getAcceptedFilters());
+        assertEquals(Arrays.asList(or, in), result.getRemainingFilters());
+        assertEquals(Collections.emptyList(), pushedFilters());
+    }
+
+    @Test
+    void testUnsupportedTypeIsNotPushed() {
+        ResolvedExpression eq =
+                call(
+                        BuiltInFunctionDefinitions.EQUALS,
+                        amount,
+                        new ValueLiteralExpression(new BigDecimal("1.50")));
+
+        SupportsFilterPushDown.Result result = source.applyFilters(Collections.singletonList(eq));
+
+        assertEquals(Collections.emptyList(), result.getAcceptedFilters());
+        assertEquals(Collections.emptyList(), pushedFilters());
+    }
+
+    private List<HdfsFilterConfig> pushedFilters() {
+        return Whitebox.getInternalState(source, "pushedFilters");
+    }
+
+    private static ValueLiteralExpression literal(Object value) {
+        return new ValueLiteralExpression(value);
+    }
+
+    private static CallExpression call(
+            BuiltInFunctionDefinition function, ResolvedExpression... args) {
+        return CallExpression.permanent(function, Arrays.asList(args), DataTypes.BOOLEAN());
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.chunjun.connector.hdfs.util;
+
+import com.dtstack.chunjun.connector.hdfs.config.HdfsFilterConfig;
+import com.dtstack.chunjun.connector.hdfs.enums.FilterOperator;
+
+import org.apache.hadoop.hive.ql.io.sarg.ConvertAstToSearchArg;
+import org.apache.hadoop.hive.ql.io.sarg.PredicateLeaf;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgumentFactory;
+import org.junit.jupiter.api.Test;
+import parquet.filter2.compat.FilterCompat;
+import parquet.filter2.predicate.FilterApi;
+import parquet.filter2.predicate.FilterPredicate;
+import parquet.io.api.Binary;
+import parquet.schema.MessageType;
+import parquet.schema.MessageTypeParser;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HdfsFilterUtilTest {
+
+    private static final String[] ORC_NAMES = {"id", "name", "score", "flag", "amount"};
+    private static final String[] ORC_TYPES = {
+        "bigint", "varchar(10)", "double", "boolean", "decimal(10,2)"
+    };
+
+    private static final MessageType PARQUET_SCHEMA =
+            MessageTypeParser.parseMessageType(
+                    "message m {"
+                            + " optional int32 id;"
+                            + " optional binary name (UTF8);"
+                            + " optional double score;"
+                            + " optional boolean flag;"
+                            + " }");
+
+    @Test
+    void testOrcComparisons() {
+        SearchArgument sarg =
+                HdfsFilterUtil.toSearchArgument(
+                        Arrays.asList(
+                                new HdfsFilterConfig("ID", ">", "10"),
+                                new HdfsFilterConfig("name", "=", "a"),
+                                new HdfsFilterConfig("score", "<=", "1.5"),
+                                new HdfsFilterConfig("flag", "!=", "true")),
+                        ORC_NAMES,
+                        ORC_TYPES);
+
+        SearchArgument expected =
+                SearchArgumentFactory.newBuilder()
+                        .startAnd()
+                        .startNot()
+                        .lessThanEquals("id", PredicateLeaf.Type.LONG, 10L)
+                        .end()
+                        .equals("name", PredicateLeaf.Type.STRING, "a")
+                        .lessThanEquals("score", PredicateLeaf.Type.FLOAT, 1.5d)
+                        .startNot()
+                        .equals("flag", PredicateLeaf.Type.BOOLEAN, true)
+                        .end()
+                        .end()
+                        .build();
+        assertEquals(expected.toString(), sarg.toString());
+    }
+
+    @Test
+    void testOrcNullChecks() {
+        SearchArgument sarg =
+                HdfsFilterUtil.toSearchArgument(
+                        Arrays.asList(
+                                new HdfsFilterConfig("id", "is null", null),
+                                new HdfsFilterConfig("name", "is not null", null)),
+                        ORC_NAMES,
+                        ORC_TYPES);
+
+        SearchArgument expected =
+                SearchArgumentFactory.newBuilder()
+                        .startAnd()
+                        .isNull("id", PredicateLeaf.Type.LONG)
+                        .startNot()
+                        .isNull("name", PredicateLeaf.Type.STRING)
+                        .end()
+                        .end()
+                        .build();
+        assertEquals(expected.toString(), sarg.toString());
+    }
+
+    @Test
+    void testOrcDropsMissingColumnAndUnsupportedType() {
+        SearchArgument sarg =
+                HdfsFilterUtil.toSearchArgument(
+                        Arrays.asList(
+                                new HdfsFilterConfig("missing", "=", "1"),
+                                new HdfsFilterConfig("amount", ">", "1.5"),
+                                new HdfsFilterConfig("id", "<", "3")),
+                        ORC_NAMES,
+                        ORC_TYPES);
+
+        SearchArgument expected =
+                SearchArgumentFactory.newBuilder()
+                        .startAnd()
+                        .lessThan("id", PredicateLeaf.Type.LONG, 3L)
+                        .end()
+                        .build();
+        assertEquals(expected.toString(), sarg.toString());
+
+        assertNull(
+                HdfsFilterUtil.toSearchArgument(
+                        Arrays.asList(
+                                new HdfsFilterConfig("missing", "is null", null),
+                                new HdfsFilterConfig("amount", "=", "1")),
+                        ORC_NAMES,
+                        ORC_TYPES));
+    }
+
+    @Test
+    void testKryoIsReadableByHive() {
+        SearchArgument sarg =
+                HdfsFilterUtil.toSearchArgument(
+                        Arrays.asList(
+                                new HdfsFilterConfig("id", ">=", "10"),
+                                new HdfsFilterConfig("name", "is not null", null)),
+                        ORC_NAMES,
+                        ORC_TYPES);
+
+        SearchArgument read = ConvertAstToSearchArg.create(HdfsFilterUtil.toKryo(sarg));
+        assertEquals(sarg.toString(), read.toString());
+    }
+
+    @Test
+    void testParquetComparisons() {
+        FilterCompat.Filter filter =
+                HdfsFilterUtil.toParquetFilter(
+                        Arrays.asList(
+                                new HdfsFilterConfig("id", ">=", "10"),
+                                new HdfsFilterConfig("NAME", "=", "a"),
+                                new HdfsFilterConfig("score", "is not null", null)),
+                        PARQUET_SCHEMA);
+
+        FilterPredicate expected =
+                FilterApi.and(
+                        FilterApi.and(
+                                FilterApi.gtEq(FilterApi.intColumn("id"), 10),
+                                FilterApi.eq(
+                                        FilterApi.binaryColumn("name"), Binary.fromString("a"))),
+                        FilterApi.notEq(FilterApi.doubleColumn("score"), null));
+        assertEquals(expected, ((FilterCompat.FilterPredicateCompat) filter).getFilterPredicate());
+    }
+
+    @Test
+    void testParquetMissingColumn() {
+        assertNull(
+                HdfsFilterUtil.toParquetFilter(
+                        Collections.singletonList(new HdfsFilterConfig("missing", "=", "1")),
+                        PARQUET_SCHEMA));
+        assertSame(
+                FilterCompat.NOOP,
+                HdfsFilterUtil.toParquetFilter(
+                        Collections.singletonList(new HdfsFilterConfig("missing", "is null", null)),
+                        PARQUET_SCHEMA));
+    }
+
+    @Test
+    void testRowLevel() {
+        assertTrue(HdfsFilterUtil.test(FilterOperator.GT, "10", 11L));
+        assertFalse(HdfsFilterUtil.test(FilterOperator.GT, "10", 10L));
+        assertTrue(HdfsFilterUtil.test(FilterOperator.LT_EQ, "1.5", 1.5d));
+        assertFalse(HdfsFilterUtil.test(FilterOperator.EQ, "1", Double.NaN));
+        assertTrue(HdfsFilterUtil.test(FilterOperator.NOT_EQ, "a", "b"));
+        assertTrue(HdfsFilterUtil.test(FilterOperator.EQ, "true", Boolean.TRUE));
+        assertFalse(HdfsFilterUtil.test(FilterOperator.NOT_EQ, "a", null));
+        assertTrue(HdfsFilterUtil.test(FilterOperator.IS_NULL, null, null));
+        assertFalse(HdfsFilterUtil.test(FilterOperator.IS_NOT_NULL, null, null));
+    }
+}
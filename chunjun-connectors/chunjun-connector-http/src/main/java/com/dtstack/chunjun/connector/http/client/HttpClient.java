@@ -21,7 +21,9 @@ import com.dtstack.chunjun.connector.http.common.ConstantValue;
 import com.dtstack.chunjun.connector.http.common.HttpRestConfig;
 import com.dtstack.chunjun.connector.http.common.HttpUtil;
 import com.dtstack.chunjun.connector.http.common.MetaParam;
+import com.dtstack.chunjun.connector.http.common.ParamType;
 import com.dtstack.chunjun.converter.AbstractRowConverter;
+import com.dtstack.chunjun.factory.ChunJunThreadFactory;
 import com.dtstack.chunjun.util.ExceptionUtil;
 import com.dtstack.chunjun.util.GsonUtil;
 
@@ -32,14 +34,18 @@ import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
 
 import static com.dtstack.chunjun.connector.http.common.ConstantValue.CSV_DECODE;
 import static com.dtstack.chunjun.connector.http.common.ConstantValue.TEXT_DECODE;
@@ -54,6 +60,9 @@ public class HttpClient {
 
     private final BlockingQueue<ResponseValue> queue;
 
+    /** 并发请求后续页的线程池，只有fetchConcurrency大于1且请求参数不依赖返回值时才会创建 */
+    private final ScheduledExecutorService fetchExecutorService;
+
     private static final String THREAD_NAME = "restApiReader-thread";
 
     protected HttpRestConfig restConfig;
@@ -88,7 +97,9 @@ public class HttpClient {
 
     private boolean reachEnd;
 
-    private boolean running;
+    private volatile boolean running;
+
+    private volatile boolean closed;
 
     protected long requestNumber;
 
@@ -106,7 +117,7 @@ public class HttpClient {
         allMetaParam.addAll(originalBodyList);
         allMetaParam.addAll(originalParamList);
 
-        this.queue = new LinkedBlockingQueue<>();
+        this.queue = new LinkedBlockingQueue<>(restConfig.getQueueCapacity());
         this.scheduledExecutorService =
                 new ScheduledThreadPoolExecutor(1, r -> new Thread(r, THREAD_NAME));
         this.httpClient = HttpUtil.getHttpsClient((int) restConfig.getTimeOut());
@@ -119,6 +130,22 @@ public class HttpClient {
         this.reachEnd = false;
         this.requestRetryTime = 2;
         this.requestNumber = 1;
+
+        if (restConfig.getFetchConcurrency() > 1) {
+            if (dependOnResponse()) {
+                log.warn(
+                        "request params depend on ${response.}, the next page can only be built after the previous response, ignore fetchConcurrency {}",
+                        restConfig.getFetchConcurrency());
+                this.fetchExecutorService = null;
+            } else {
+                this.fetchExecutorService =
+                        new ScheduledThreadPoolExecutor(
+                                restConfig.getFetchConcurrency(),
+                                new ChunJunThreadFactory("restApiFetch", true));
+            }
+        } else {
+            this.fetchExecutorService = null;
+        }
     }
 
     public void start() {
@@ -178,13 +205,82 @@ public class HttpClient {
         }
 
         log.debug("currentParam is {}", currentParam);
+        if (fetchExecutorService != null) {
+            executeConcurrently();
+            return;
+        }
         doExecute(ConstantValue.REQUEST_RETRY_TIME);
         first = false;
         requestRetryTime = 3;
         requestNumber++;
     }
 
+    /**
+     * 请求参数不依赖返回值时，后续几页的参数可以提前依次构建出来，这几页同时请求，返回结果仍按页的顺序逐个处理。
+     * 每一页的请求仍比上一页晚intervalTime发出，所以对服务端的请求频率和顺序请求时一样，并发只是让慢请求的耗时互相重叠。
+     * 某一页触发了stop策略、达到了cycles或者出现异常时，之后已经请求的页直接丢弃。
+     */
+    private void executeConcurrently() {
+        int pageNum = restConfig.getFetchConcurrency();
+        if (-1 != restConfig.getCycles()) {
+            pageNum = (int) Math.min(pageNum, restConfig.getCycles() - requestNumber + 1);
+        }
+
+        List<HttpRequestParam> pageParams = new ArrayList<>(pageNum);
+        pageParams.add(currentParam);
+        try {
+            HttpRequestParam prev = currentParam;
+            for (int i = 1; i < pageNum; i++) {
+                prev =
+                        restHandler.buildRequestParam(
+                                originalParamList,
+                                originalBodyList,
+                                originalHeaderList,
+                                prev,
+                                null,
+                                restConfig,
+                                false);
+                pageParams.add(prev);
+            }
+        } catch (Exception e) {
+            // 只请求已经构建成功的页，构建失败的那一页在下一轮请求时会再次构建并结束任务
+            log.warn(
+                    "build request param of next page failed, error info is {}",
+                    ExceptionUtil.getErrorMessage(e));
+        }
+
+        List<Future<String>> futures = new ArrayList<>(pageParams.size());
+        for (int i = 0; i < pageParams.size(); i++) {
+            HttpRequestParam pageParam = pageParams.get(i);
+            futures.add(
+                    fetchExecutorService.schedule(
+                            () -> request(pageParam),
+                            i * restConfig.getIntervalTime(),
+                            TimeUnit.MILLISECONDS));
+        }
+        try {
+            for (int i = 0; i < futures.size() && running; i++) {
+                currentParam = pageParams.get(i);
+                log.debug("currentParam is {}", currentParam);
+                doExecute(ConstantValue.REQUEST_RETRY_TIME, futures.get(i));
+                first = false;
+                requestRetryTime = 3;
+                requestNumber++;
+            }
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
     public void doExecute(int retryTime) {
+        doExecute(retryTime, null);
+    }
+
+    /**
+     * @param retryTime 剩余的重试次数
+     * @param prefetched 已经提交的当前页请求，为null或者需要重试时在当前线程发起请求
+     */
+    private void doExecute(int retryTime, Future<String> prefetched) {
 
         // 重试次数到了 就直接任务结束
         if (retryTime < 0) {
@@ -205,25 +301,12 @@ public class HttpClient {
         int responseStatus;
         try {
 
-            HttpUriRequest request =
-                    HttpUtil.getRequest(
-                            restConfig.getRequestMode(),
-                            currentParam.getBody(),
-                            currentParam.getParam(),
-                            currentParam.getHeader(),
-                            restConfig.getUrl());
-            CloseableHttpResponse httpResponse = httpClient.execute(request);
-            if (httpResponse.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
-                log.warn(
-                        "httpStatus is {} and is not 200 ,try retry",
-                        httpResponse.getStatusLine().getStatusCode());
-                doExecute(--requestRetryTime);
+            responseValue = prefetched != null ? prefetched.get() : request(currentParam);
+            responseStatus = HttpStatus.SC_OK;
+        } catch (Throwable e) {
+            if (closed) {
                 return;
             }
-
-            responseValue = EntityUtils.toString(httpResponse.getEntity());
-            responseStatus = httpResponse.getStatusLine().getStatusCode();
-        } catch (Throwable e) {
             // 只要本次请求中出现了异常 都会进行重试，如果重试次数达到了就真正结束任务
             log.warn(
                     "httpClient value is {}, error info is {}",
@@ -302,10 +385,57 @@ public class HttpClient {
         }
     }
 
+    /**
+     * 发起一次请求
+     *
+     * @return 返回的body，httpStatus不是200时抛出异常
+     */
+    private String request(HttpRequestParam requestParam) throws IOException {
+        HttpUriRequest request =
+                HttpUtil.getRequest(
+                        restConfig.getRequestMode(),
+                        requestParam.getBody(),
+                        requestParam.getParam(),
+                        requestParam.getHeader(),
+                        restConfig.getUrl());
+        try (CloseableHttpResponse httpResponse = httpClient.execute(request)) {
+            int statusCode = httpResponse.getStatusLine().getStatusCode();
+            if (statusCode != HttpStatus.SC_OK) {
+                throw new IOException("httpStatus is " + statusCode + " and is not 200");
+            }
+            return EntityUtils.toString(httpResponse.getEntity());
+        }
+    }
+
+    /** 请求参数里是否有${response.}变量，有的话下一页的参数只能等上一页返回后才能构建 */
+    private boolean dependOnResponse() {
+        String responseType = ParamType.RESPONSE.name().toLowerCase(Locale.ENGLISH);
+        for (MetaParam metaParam : allMetaParam) {
+            for (String value : new String[] {metaParam.getValue(), metaParam.getNextValue()}) {
+                if (value == null) {
+                    continue;
+                }
+                Matcher matcher = MetaparamUtils.valueExpression.matcher(value);
+                while (matcher.find()) {
+                    if (responseType.equals(matcher.group("paramType"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /** 队列有界，下游消费不及时会在这里等待，关闭后直接丢弃 */
     public void processData(ResponseValue value) {
         try {
-            queue.put(value);
+            while (!queue.offer(value, 100, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    return;
+                }
+            }
         } catch (InterruptedException e1) {
+            Thread.currentThread().interrupt();
             log.warn(
                     "put value error,value is {},currentParam is {} ,errorInfo is {}",
                     value,
@@ -326,9 +456,15 @@ public class HttpClient {
     }
 
     public void close() {
+        closed = true;
+        running = false;
         try {
+            // 读取线程可能在等待队列或者等待并发请求的结果
+            scheduledExecutorService.shutdownNow();
+            if (fetchExecutorService != null) {
+                fetchExecutorService.shutdownNow();
+            }
             HttpUtil.closeClient(httpClient);
-            scheduledExecutorService.shutdown();
         } catch (Exception e) {
             log.warn("close resource error,msg is " + ExceptionUtil.getErrorMessage(e));
         }
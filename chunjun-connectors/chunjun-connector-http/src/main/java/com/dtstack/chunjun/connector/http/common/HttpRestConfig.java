@@ -83,6 +83,12 @@ public class HttpRestConfig extends CommonConfig {
     /** 请求的超时时间 单位毫秒 */
     private long timeOut = 10000;
 
+    /** 同时请求的页数，大于1时请求参数不能依赖${response.}，每页仍间隔intervalTime发出，返回结果按请求顺序处理 */
+    private int fetchConcurrency = 1;
+
+    /** 缓存的数据条数上限，下游消费不及时请求线程会等待 */
+    private int queueCapacity = 10000;
+
     public String getFieldTypes() {
         return fieldTypes;
     }
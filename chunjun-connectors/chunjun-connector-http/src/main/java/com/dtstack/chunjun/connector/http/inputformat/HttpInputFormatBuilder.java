@@ -97,6 +97,12 @@ public class HttpInputFormatBuilder extends BaseRichInputFormatBuilder<HttpInput
         } else if (format.httpRestConfig.getIntervalTime() <= 0) {
             errorMsg.append("param 【intervalTime" + "】must more than 0 \n");
         }
+        if (format.httpRestConfig.getFetchConcurrency() <= 0) {
+            errorMsg.append("param 【fetchConcurrency" + "】must more than 0 \n");
+        }
+        if (format.httpRestConfig.getQueueCapacity() <= 0) {
+            errorMsg.append("param 【queueCapacity" + "】must more than 0 \n");
+        }
 
         if (StringUtils.isEmpty(format.httpRestConfig.getFieldDelimiter())
                 || !ConstantValue.FIELD_DELIMITER.contains(
@@ -69,6 +69,8 @@ public class HttpDynamicTableFactory implements DynamicTableSourceFactory, Dynam
         options.add(HttpOptions.DELAY);
         options.add(HttpOptions.DATA_SUBJECT);
         options.add(HttpOptions.CYCLES);
+        options.add(HttpOptions.FETCH_CONCURRENCY);
+        options.add(HttpOptions.QUEUE_CAPACITY);
 
         return options;
     }
@@ -141,6 +143,8 @@ public class HttpDynamicTableFactory implements DynamicTableSourceFactory, Dynam
         httpRestConfig.setRequestMode(config.get(HttpOptions.METHOD));
         httpRestConfig.setDataSubject(config.get(HttpOptions.DATA_SUBJECT));
         httpRestConfig.setCycles(config.get(HttpOptions.CYCLES));
+        httpRestConfig.setFetchConcurrency(config.get(HttpOptions.FETCH_CONCURRENCY));
+        httpRestConfig.setQueueCapacity(config.get(HttpOptions.QUEUE_CAPACITY));
         httpRestConfig.setParam(
                 gson.fromJson(
                         config.get(HttpOptions.PARAMS),
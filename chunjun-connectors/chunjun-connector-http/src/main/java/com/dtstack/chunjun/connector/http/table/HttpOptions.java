@@ -76,4 +76,17 @@ public class HttpOptions {
                     .longType()
                     .defaultValue(1L)
                     .withDescription("request cycle");
+
+    public static final ConfigOption<Integer> FETCH_CONCURRENCY =
+            ConfigOptions.key("fetchConcurrency")
+                    .intType()
+                    .defaultValue(1)
+                    .withDescription(
+                            "number of pages requested concurrently, the requests still start intervalTime apart");
+
+    public static final ConfigOption<Integer> QUEUE_CAPACITY =
+            ConfigOptions.key("queueCapacity")
+                    .intType()
+                    .defaultValue(10000)
+                    .withDescription("max number of rows buffered before the reader waits");
 }
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.http.client;
+
+import com.dtstack.chunjun.connector.http.common.HttpRestConfig;
+import com.dtstack.chunjun.connector.http.common.MetaParam;
+import com.dtstack.chunjun.connector.http.common.ParamType;
+import com.dtstack.chunjun.element.ColumnRowData;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpClientTest {
+
+    private static final long INTERVAL_TIME = 200L;
+
+    private HttpServer server;
+    private HttpClient httpClient;
+    /** page -> time the server received its request */
+    private final Map<Integer, Long> requestTimes = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (httpClient != null) {
+            httpClient.close();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    public void testPagesInOrderAndDiscardedAfterStop() throws Exception {
+        HttpRestConfig config = newConfig(4);
+        Strategy stop = new Strategy();
+        stop.setKey("${param.page}");
+        stop.setValue("3");
+        stop.setHandle("stop");
+        config.getStrategy().add(stop);
+        httpClient = newClient(config);
+
+        long startTime = System.nanoTime();
+        httpClient.start();
+        List<ResponseValue> values = takeUntil(0);
+        // the rows of the stopping page are still emitted, later pages are dropped
+        values.addAll(drain());
+
+        assertEquals(
+                Collections.singletonList(0),
+                statusesOf(values, 0),
+                "exactly one stop event is expected");
+        assertEquals(Arrays.asList("page-1", "page-2", "page-3"), rowsOf(values));
+        assertRequestsSpaced(startTime);
+    }
+
+    @Test
+    public void testCyclesLimitConcurrentPages() throws Exception {
+        HttpRestConfig config = newConfig(4);
+        config.setCycles(2);
+        httpClient = newClient(config);
+
+        long startTime = System.nanoTime();
+        httpClient.start();
+        List<ResponseValue> values = takeUntil(2);
+        values.addAll(drain());
+
+        assertEquals(Arrays.asList("page-1", "page-2"), rowsOf(values));
+        // pages beyond the cycles are not requested at all
+        assertEquals(2, requestTimes.size());
+        assertRequestsSpaced(startTime);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        int page = Integer.parseInt(query.substring(query.indexOf('=') + 1));
+        requestTimes.put(page, System.nanoTime());
+        try {
+            // the first pages answer last, responses complete out of order
+            TimeUnit.MILLISECONDS.sleep(Math.max(0, 700 - page * 300L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = ("page-" + page).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private HttpRestConfig newConfig(int fetchConcurrency) {
+        HttpRestConfig config = new HttpRestConfig();
+        config.setProtocol("http");
+        config.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+        config.setRequestMode("get");
+        config.setDecode("text");
+        config.setIntervalTime(INTERVAL_TIME);
+        config.setFetchConcurrency(fetchConcurrency);
+        MetaParam page = new MetaParam("page", "1", ParamType.PARAM);
+        page.setNextValue("${param.page}+1");
+        config.getParam().add(page);
+        return config;
+    }
+
+    private static HttpClient newClient(HttpRestConfig config) {
+        return new HttpClient(
+                config, config.getBody(), config.getParam(), config.getHeader(), null);
+    }
+
+    /** Takes the events until one with the given status arrives. */
+    private List<ResponseValue> takeUntil(int status) throws InterruptedException {
+        List<ResponseValue> values = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            ResponseValue value = httpClient.takeEvent();
+            if (value == null) {
+                TimeUnit.MILLISECONDS.sleep(10);
+                continue;
+            }
+            values.add(value);
+            if (value.getStatus() == status) {
+                return values;
+            }
+        }
+        throw new AssertionError("no event with status " + status + ", got " + values);
+    }
+
+    /** Waits longer than the remaining pages take and returns whatever arrived. */
+    private List<ResponseValue> drain() throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(INTERVAL_TIME * 5);
+        List<ResponseValue> values = new ArrayList<>();
+        ResponseValue value;
+        while ((value = httpClient.takeEvent()) != null) {
+            values.add(value);
+        }
+        return values;
+    }
+
+    private static List<String> rowsOf(List<ResponseValue> values) {
+        List<String> rows = new ArrayList<>();
+        for (ResponseValue value : values) {
+            if (value.getStatus() == 1) {
+                rows.add(((ColumnRowData) value.getData()).getField(0).asString());
+            }
+        }
+        return rows;
+    }
+
+    private static List<Integer> statusesOf(List<ResponseValue> values, int status) {
+        List<Integer> statuses = new ArrayList<>();
+        for (ResponseValue value : values) {
+            if (value.getStatus() == status) {
+                statuses.add(value.getStatus());
+            }
+        }
+        return statuses;
+    }
+
+    /** The concurrent pages are still sent at least intervalTime apart. */
+    private void assertRequestsSpaced(long startTime) {
+        for (Map.Entry<Integer, Long> request : requestTimes.entrySet()) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(request.getValue() - startTime);
+            assertTrue(
+                    elapsed >= (request.getKey() - 1) * INTERVAL_TIME,
+                    "page " + request.getKey() + " requested after " + elapsed);
+        }
+    }
+}
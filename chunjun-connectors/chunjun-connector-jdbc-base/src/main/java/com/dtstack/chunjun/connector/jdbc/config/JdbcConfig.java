@@ -50,6 +50,11 @@ public class JdbcConfig extends CommonConfig implements Serializable {
     protected String password;
     protected List<ConnectionConfig> connection;
     protected String where;
+    /** flink sql下推的过滤条件，与where一起拼接到查询语句中 */
+    protected String pushedFilter;
+    /** flink sql下推的limit，小于0表示不限制 */
+    protected long pushedLimit = -1;
+
     protected String customSql;
     protected String orderByColumn;
     protected String querySql;
@@ -106,6 +111,9 @@ public class JdbcConfig extends CommonConfig implements Serializable {
 
     protected boolean isAutoCommit = false;
 
+    /** 是否按表和唯一键合并一个批次内的变更，只写出每个键的最终结果 */
+    protected boolean compactChangelog = false;
+
     private boolean defineColumnTypeForStatement = false;
 
     public Boolean getInitReporter() {
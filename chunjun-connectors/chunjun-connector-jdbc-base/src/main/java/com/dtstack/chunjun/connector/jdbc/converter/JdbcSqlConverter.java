@@ -96,15 +96,20 @@ public class JdbcSqlConverter
             log.warn(e.getMessage());
         }
         int finalSqlType = sqlType;
-        return (val, index, statement) -> {
-            if (val == null
-                    || val.isNullAt(index)
-                    || LogicalTypeRoot.NULL.equals(type.getTypeRoot())) {
-                statement.setNull(index, finalSqlType);
-            } else {
-                serializationConverter.serialize(val, index, statement);
-            }
-        };
+        ISerializationConverter<FieldNamedPreparedStatement> wrapped =
+                (val, index, statement) -> {
+                    if (val == null
+                            || val.isNullAt(index)
+                            || LogicalTypeRoot.NULL.equals(type.getTypeRoot())) {
+                        statement.setNull(index, finalSqlType);
+                    } else {
+                        serializationConverter.serialize(val, index, statement);
+                    }
+                };
+        if (LogicalTypeRoot.NULL.equals(type.getTypeRoot())) {
+            return wrapped;
+        }
+        return registerUnwrapped(wrapped, serializationConverter);
     }
 
     @Override
@@ -112,7 +117,7 @@ public class JdbcSqlConverter
         GenericRowData genericRowData = new GenericRowData(rowType.getFieldCount());
         for (int pos = 0; pos < rowType.getFieldCount(); pos++) {
             Object field = resultSet.getObject(pos + 1);
-            genericRowData.setField(pos, toInternalConverters.get(pos).deserialize(field));
+            genericRowData.setField(pos, deserializeField(pos, field));
         }
         return genericRowData;
     }
@@ -122,7 +127,7 @@ public class JdbcSqlConverter
         GenericRowData genericRowData = new GenericRowData(rowType.getFieldCount());
         for (int pos = 0; pos < rowType.getFieldCount(); pos++) {
             Object field = jsonArray.getValue(pos);
-            genericRowData.setField(pos, toInternalConverters.get(pos).deserialize(field));
+            genericRowData.setField(pos, deserializeField(pos, field));
         }
         return genericRowData;
     }
@@ -130,9 +135,7 @@ public class JdbcSqlConverter
     @Override
     public FieldNamedPreparedStatement toExternal(
             RowData rowData, FieldNamedPreparedStatement statement) throws Exception {
-        for (int index = 0; index < fieldTypes.length; index++) {
-            toExternalConverters.get(index).serialize(rowData, index, statement);
-        }
+        serializeFields(rowData, statement);
         return statement;
     }
 
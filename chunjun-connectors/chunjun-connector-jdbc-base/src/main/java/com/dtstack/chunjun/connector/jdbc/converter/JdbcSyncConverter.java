@@ -82,14 +82,16 @@ public class JdbcSyncConverter
             wrapIntoNullableExternalConverter(
                     ISerializationConverter<FieldNamedPreparedStatement> serializationConverter,
                     LogicalType type) {
-        return (val, index, statement) -> {
-            if (((ColumnRowData) val).getField(index) == null
-                    || ((ColumnRowData) val).getField(index) instanceof NullColumn) {
-                statement.setObject(index, null);
-            } else {
-                serializationConverter.serialize(val, index, statement);
-            }
-        };
+        ISerializationConverter<FieldNamedPreparedStatement> wrapped =
+                (val, index, statement) -> {
+                    if (((ColumnRowData) val).getField(index) == null
+                            || ((ColumnRowData) val).getField(index) instanceof NullColumn) {
+                        statement.setObject(index, null);
+                    } else {
+                        serializationConverter.serialize(val, index, statement);
+                    }
+                };
+        return registerUnwrapped(wrapped, serializationConverter);
     }
 
     @Override
@@ -102,8 +104,7 @@ public class JdbcSyncConverter
             result = new ColumnRowData(fieldTypes.length);
             for (int index = 0; index < fieldTypes.length; index++) {
                 Object field = resultSet.getObject(index + 1);
-                AbstractBaseColumn baseColumn =
-                        (AbstractBaseColumn) toInternalConverters.get(index).deserialize(field);
+                AbstractBaseColumn baseColumn = (AbstractBaseColumn) deserializeField(index, field);
                 result.addField(baseColumn);
             }
             return result;
@@ -115,9 +116,7 @@ public class JdbcSyncConverter
             if (StringUtils.isBlank(fieldConfig.getValue())) {
                 Object field = resultSet.getObject(converterIndex + 1);
 
-                baseColumn =
-                        (AbstractBaseColumn)
-                                toInternalConverters.get(converterIndex).deserialize(field);
+                baseColumn = (AbstractBaseColumn) deserializeField(converterIndex, field);
                 converterIndex++;
             }
             result.addField(assembleFieldProps(fieldConfig, baseColumn));
@@ -128,9 +127,7 @@ public class JdbcSyncConverter
     @Override
     public FieldNamedPreparedStatement toExternal(
             RowData rowData, FieldNamedPreparedStatement statement) throws Exception {
-        for (int index = 0; index < fieldTypes.length; index++) {
-            toExternalConverters.get(index).serialize(rowData, index, statement);
-        }
+        serializeFields(rowData, statement);
         return statement;
     }
 
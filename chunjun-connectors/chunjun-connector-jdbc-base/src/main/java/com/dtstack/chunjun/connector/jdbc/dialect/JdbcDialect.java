@@ -44,6 +44,7 @@ import io.vertx.core.json.JsonArray;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.ResultSet;
 import java.util.Arrays;
@@ -157,6 +158,43 @@ public interface JdbcDialect extends Serializable {
         return Optional.empty();
     }
 
+    /**
+     * Get the clause appended to a scan query to limit the number of rows it returns, such as
+     * {@code LIMIT 10}.
+     *
+     * @param limit max number of rows
+     * @return None if dialect does not support limit push down, the limit is then only applied by
+     *     flink.
+     */
+    default Optional<String> getLimitClause(long limit) {
+        return Optional.empty();
+    }
+
+    /**
+     * Format the literal of a filter pushed down from flink sql into a sql literal. Default
+     * supports exact numeric and character types, character literals are quoted by {@code '}.
+     *
+     * @param value literal value in its default conversion class
+     * @param type logical type of the literal
+     * @return None if the literal can not be expressed, the filter is then evaluated by flink.
+     */
+    default Optional<String> formatFilterLiteral(Object value, LogicalType type) {
+        switch (type.getTypeRoot()) {
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+                return Optional.of(value.toString());
+            case DECIMAL:
+                return Optional.of(((BigDecimal) value).toPlainString());
+            case CHAR:
+            case VARCHAR:
+                return Optional.of("'" + value.toString().replace("'", "''") + "'");
+            default:
+                return Optional.empty();
+        }
+    }
+
     /** 构造查询表结构的sql语句 */
     default String getSqlQueryFields(String schema, String tableName) {
         return "SELECT * FROM " + buildTableInfoWithSchema(schema, tableName) + " LIMIT 0";
@@ -40,4 +40,11 @@ public class JdbcSinkOptions {
                     .stringType()
                     .defaultValue("at-least-once")
                     .withDescription("sink.semantic.");
+
+    public static final ConfigOption<Boolean> SINK_COMPACT_CHANGELOG =
+            ConfigOptions.key("sink.compact-changelog")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "whether to collapse the changes of a batch into one delete and one write per unique key.");
 }
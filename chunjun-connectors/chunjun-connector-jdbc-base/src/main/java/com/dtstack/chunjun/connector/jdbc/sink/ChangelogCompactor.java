@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.jdbc.sink;
+
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.types.RowKind;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Collapses the changelog of a batch into its net effect per key. DELETE and UPDATE_BEFORE are
+ * written as a delete of their image, INSERT and UPDATE_AFTER as a write of their image, so for
+ * each key only two events matter: the first one if it is a delete, since it removes the row that
+ * existed before the batch, and the last one if it is a write, since it is the row left after the
+ * batch. Every event in between writes and then deletes a row of the batch itself.
+ */
+public class ChangelogCompactor {
+
+    private ChangelogCompactor() {}
+
+    /**
+     * @param rows the batch, in changelog order
+     * @param keyExtractor the table and unique key of a row, null if it has none
+     * @return the deletes followed by the writes left, or null if some row has no key
+     */
+    public static List<RowData> compact(
+            List<RowData> rows, Function<RowData, Object> keyExtractor) {
+        Set<Object> seenKeys = new HashSet<>();
+        Map<Object, RowData> deletes = new LinkedHashMap<>();
+        Map<Object, RowData> writes = new LinkedHashMap<>();
+        for (RowData row : rows) {
+            Object key = keyExtractor.apply(row);
+            if (key == null) {
+                return null;
+            }
+            boolean isDelete =
+                    row.getRowKind() == RowKind.DELETE || row.getRowKind() == RowKind.UPDATE_BEFORE;
+            if (seenKeys.add(key) && isDelete) {
+                deletes.put(key, row);
+            }
+            if (isDelete) {
+                writes.remove(key);
+            } else {
+                writes.put(key, row);
+            }
+        }
+
+        List<RowData> compacted = new ArrayList<>(deletes.size() + writes.size());
+        compacted.addAll(deletes.values());
+        compacted.addAll(writes.values());
+        return compacted;
+    }
+}
@@ -25,6 +25,8 @@ import com.dtstack.chunjun.connector.jdbc.config.JdbcConfig;
 import com.dtstack.chunjun.connector.jdbc.dialect.JdbcDialect;
 import com.dtstack.chunjun.connector.jdbc.statement.FieldNamedPreparedStatement;
 import com.dtstack.chunjun.connector.jdbc.util.JdbcUtil;
+import com.dtstack.chunjun.constants.CDCConstantValue;
+import com.dtstack.chunjun.element.AbstractBaseColumn;
 import com.dtstack.chunjun.element.ColumnRowData;
 import com.dtstack.chunjun.enums.EWriteMode;
 import com.dtstack.chunjun.enums.Semantic;
@@ -39,13 +41,18 @@ import org.apache.flink.table.data.RowData;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /** OutputFormat for writing data to relational database. */
@@ -63,6 +70,9 @@ public class JdbcOutputFormat extends BaseRichOutputFormat {
 
     protected Set<TableIdentifier> createTableOnSnapShot = new HashSet<>();
 
+    /** 合并变更时每张表使用的唯一键，key: schema.table */
+    protected transient Map<String, List<String>> tableKeyColumns;
+
     @Override
     public void initializeGlobal(int parallelism) {
         executeBatch(jdbcConfig.getPreSql());
@@ -148,7 +158,14 @@ public class JdbcOutputFormat extends BaseRichOutputFormat {
     @Override
     protected void writeMultipleRecordsInternal() throws Exception {
         try {
-            for (RowData row : rows) {
+            List<RowData> batch = rows;
+            if (jdbcConfig.isCompactChangelog()) {
+                List<RowData> compacted = ChangelogCompactor.compact(rows, this::getChangelogKey);
+                if (compacted != null) {
+                    batch = compacted;
+                }
+            }
+            for (RowData row : batch) {
                 stmtProxy.convertToExternal(row);
                 stmtProxy.addBatch();
             }
@@ -173,6 +190,79 @@ public class JdbcOutputFormat extends BaseRichOutputFormat {
         }
     }
 
+    /**
+     * 获取数据所在的表及其唯一键的值，用于合并同一批次内同一条记录的变更
+     *
+     * @param row 数据
+     * @return 表及唯一键的值，无法确定唯一键时返回null
+     */
+    protected Object getChangelogKey(RowData row) {
+        List<Object> key = new ArrayList<>();
+        if (row instanceof ColumnRowData
+                && MapUtils.isNotEmpty(((ColumnRowData) row).getHeaderInfo())) {
+            ColumnRowData columnRowData = (ColumnRowData) row;
+            Map<String, Integer> head = columnRowData.getHeaderInfo();
+            String schema = row.getString(head.get(CDCConstantValue.SCHEMA)).toString();
+            String table = row.getString(head.get(CDCConstantValue.TABLE)).toString();
+            List<String> keyColumns = getKeyColumns(schema, table);
+            if (keyColumns.isEmpty()) {
+                return null;
+            }
+            key.add(schema);
+            key.add(table);
+            for (String keyColumn : keyColumns) {
+                Integer index = head.get(keyColumn);
+                if (index == null) {
+                    return null;
+                }
+                AbstractBaseColumn column = columnRowData.getField(index);
+                key.add(column == null ? null : column.asString());
+            }
+            return key;
+        }
+
+        List<String> keyColumns = getKeyColumns(jdbcConfig.getSchema(), jdbcConfig.getTable());
+        if (keyColumns.isEmpty()) {
+            return null;
+        }
+        for (String keyColumn : keyColumns) {
+            int index = columnNameList.indexOf(keyColumn);
+            if (index < 0) {
+                return null;
+            }
+            if (row instanceof ColumnRowData) {
+                AbstractBaseColumn column = ((ColumnRowData) row).getField(index);
+                key.add(column == null ? null : column.asString());
+            } else if (row instanceof GenericRowData) {
+                key.add(((GenericRowData) row).getField(index));
+            } else {
+                return null;
+            }
+        }
+        return key;
+    }
+
+    private List<String> getKeyColumns(String schema, String table) {
+        if (tableKeyColumns == null) {
+            tableKeyColumns = new HashMap<>();
+        }
+        return tableKeyColumns.computeIfAbsent(
+                schema + "." + table,
+                k -> {
+                    if (!"*".equals(jdbcConfig.getTable())
+                            && CollectionUtils.isNotEmpty(jdbcConfig.getUniqueKey())
+                            && columnNameList.containsAll(jdbcConfig.getUniqueKey())) {
+                        return jdbcConfig.getUniqueKey();
+                    }
+                    try {
+                        return JdbcUtil.getTableUniqueIndex(schema, table, dbConn);
+                    } catch (SQLException e) {
+                        log.warn("get unique key of {}.{} failed", schema, table, e);
+                        return Collections.emptyList();
+                    }
+                });
+    }
+
     @Override
     public void preCommit() throws Exception {
         if (jdbcConfig.getRestoreColumnIndex() > -1) {
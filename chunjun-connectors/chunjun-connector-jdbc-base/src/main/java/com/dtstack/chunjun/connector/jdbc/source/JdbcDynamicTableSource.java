@@ -38,8 +38,11 @@ import org.apache.flink.table.connector.ChangelogMode;
 import org.apache.flink.table.connector.source.DynamicTableSource;
 import org.apache.flink.table.connector.source.LookupTableSource;
 import org.apache.flink.table.connector.source.ScanTableSource;
+import org.apache.flink.table.connector.source.abilities.SupportsFilterPushDown;
+import org.apache.flink.table.connector.source.abilities.SupportsLimitPushDown;
 import org.apache.flink.table.connector.source.abilities.SupportsProjectionPushDown;
 import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.expressions.ResolvedExpression;
 import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
 import org.apache.flink.table.types.logical.RowType;
 import org.apache.flink.util.Preconditions;
@@ -50,11 +53,16 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /** A {@link DynamicTableSource} for JDBC. */
 public class JdbcDynamicTableSource
-        implements ScanTableSource, LookupTableSource, SupportsProjectionPushDown {
+        implements ScanTableSource,
+                LookupTableSource,
+                SupportsProjectionPushDown,
+                SupportsFilterPushDown,
+                SupportsLimitPushDown {
 
     protected final JdbcConfig jdbcConfig;
     protected final LookupConfig lookupConfig;
@@ -62,6 +70,10 @@ public class JdbcDynamicTableSource
     protected final JdbcDialect jdbcDialect;
     protected final JdbcInputFormatBuilder builder;
     protected ResolvedSchema resolvedSchema;
+    /** 下推到数据库的过滤条件 */
+    protected String pushedFilter;
+    /** 下推到数据库的limit，小于0表示未下推 */
+    protected long pushedLimit = -1;
 
     public JdbcDynamicTableSource(
             JdbcConfig jdbcConfig,
@@ -130,6 +142,9 @@ public class JdbcDynamicTableSource
         }
         jdbcConfig.setColumn(columnList);
 
+        jdbcConfig.setPushedFilter(pushedFilter);
+        jdbcConfig.setPushedLimit(pushedLimit);
+
         // TODO sql任务使用增量同步或者间隔轮询时暂不支持增量指标写入外部存储，暂时设置为false
         jdbcConfig.setInitReporter(false);
 
@@ -229,10 +244,49 @@ public class JdbcDynamicTableSource
         return false;
     }
 
+    @Override
+    public Result applyFilters(List<ResolvedExpression> filters) {
+        List<ResolvedExpression> acceptedFilters = new ArrayList<>();
+        List<ResolvedExpression> remainingFilters = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (StringUtils.isNotBlank(pushedFilter)) {
+            conditions.add(pushedFilter);
+        }
+        for (ResolvedExpression filter : filters) {
+            JdbcFilterTranslator translator = new JdbcFilterTranslator(jdbcDialect);
+            Optional<String> condition = translator.translate(filter);
+            if (condition.isPresent()) {
+                acceptedFilters.add(filter);
+                conditions.add("(" + condition.get() + ")");
+                if (!translator.isExact()) {
+                    remainingFilters.add(filter);
+                }
+            } else {
+                remainingFilters.add(filter);
+            }
+        }
+        if (!conditions.isEmpty()) {
+            pushedFilter = String.join(" AND ", conditions);
+        }
+        return Result.of(acceptedFilters, remainingFilters);
+    }
+
+    @Override
+    public void applyLimit(long limit) {
+        // 不支持limit的方言及轮询任务仍由flink限制条数
+        if (jdbcDialect.getLimitClause(limit).isPresent()) {
+            this.pushedLimit = limit;
+        }
+    }
+
     @Override
     public DynamicTableSource copy() {
-        return new JdbcDynamicTableSource(
-                jdbcConfig, lookupConfig, resolvedSchema, jdbcDialect, builder);
+        JdbcDynamicTableSource source =
+                new JdbcDynamicTableSource(
+                        jdbcConfig, lookupConfig, resolvedSchema, jdbcDialect, builder);
+        source.pushedFilter = pushedFilter;
+        source.pushedLimit = pushedLimit;
+        return source;
     }
 
     @Override
@@ -252,11 +306,14 @@ public class JdbcDynamicTableSource
         return Objects.equals(jdbcConfig, that.jdbcConfig)
                 && Objects.equals(lookupConfig, that.lookupConfig)
                 && Objects.equals(resolvedSchema, that.resolvedSchema)
-                && Objects.equals(dialectName, that.dialectName);
+                && Objects.equals(dialectName, that.dialectName)
+                && Objects.equals(pushedFilter, that.pushedFilter)
+                && pushedLimit == that.pushedLimit;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(jdbcConfig, lookupConfig, resolvedSchema, dialectName);
+        return Objects.hash(
+                jdbcConfig, lookupConfig, resolvedSchema, dialectName, pushedFilter, pushedLimit);
     }
 }
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.jdbc.source;
+
+import com.dtstack.chunjun.connector.jdbc.dialect.JdbcDialect;
+
+import org.apache.flink.table.expressions.CallExpression;
+import org.apache.flink.table.expressions.FieldReferenceExpression;
+import org.apache.flink.table.expressions.ResolvedExpression;
+import org.apache.flink.table.expressions.ValueLiteralExpression;
+import org.apache.flink.table.functions.BuiltInFunctionDefinitions;
+import org.apache.flink.table.functions.FunctionDefinition;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.LogicalTypeFamily;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 将flink sql下推的过滤条件翻译为对应数据库方言的where条件，支持字段与字面量的比较、IS [NOT] NULL及其AND/OR组合
+ *
+ * <p>字符类型的比较受数据库排序规则（大小写、尾部空格）影响，结果可能与flink不一致，因此这类条件在下推的同时仍由flink再次过滤
+ */
+public class JdbcFilterTranslator {
+
+    private static final Map<FunctionDefinition, String> COMPARISONS = new HashMap<>();
+    /** 字面量在左侧时交换比较符 */
+    private static final Map<FunctionDefinition, FunctionDefinition> REVERSED = new HashMap<>();
+
+    static {
+        COMPARISONS.put(BuiltInFunctionDefinitions.EQUALS, "=");
+        COMPARISONS.put(BuiltInFunctionDefinitions.NOT_EQUALS, "<>");
+        COMPARISONS.put(BuiltInFunctionDefinitions.GREATER_THAN, ">");
+        COMPARISONS.put(BuiltInFunctionDefinitions.GREATER_THAN_OR_EQUAL, ">=");
+        COMPARISONS.put(BuiltInFunctionDefinitions.LESS_THAN, "<");
+        COMPARISONS.put(BuiltInFunctionDefinitions.LESS_THAN_OR_EQUAL, "<=");
+
+        REVERSED.put(BuiltInFunctionDefinitions.EQUALS, BuiltInFunctionDefinitions.EQUALS);
+        REVERSED.put(BuiltInFunctionDefinitions.NOT_EQUALS, BuiltInFunctionDefinitions.NOT_EQUALS);
+        REVERSED.put(BuiltInFunctionDefinitions.GREATER_THAN, BuiltInFunctionDefinitions.LESS_THAN);
+        REVERSED.put(
+                BuiltInFunctionDefinitions.GREATER_THAN_OR_EQUAL,
+                BuiltInFunctionDefinitions.LESS_THAN_OR_EQUAL);
+        REVERSED.put(BuiltInFunctionDefinitions.LESS_THAN, BuiltInFunctionDefinitions.GREATER_THAN);
+        REVERSED.put(
+                BuiltInFunctionDefinitions.LESS_THAN_OR_EQUAL,
+                BuiltInFunctionDefinitions.GREATER_THAN_OR_EQUAL);
+    }
+
+    private final JdbcDialect jdbcDialect;
+    /** 翻译后的条件与flink语义是否完全一致，不一致时需由flink再次过滤 */
+    private boolean exact = true;
+
+    public JdbcFilterTranslator(JdbcDialect jdbcDialect) {
+        this.jdbcDialect = jdbcDialect;
+    }
+
+    /**
+     * 翻译过滤条件
+     *
+     * @param filter flink下推的过滤条件
+     * @return 无法翻译时返回None，条件由flink过滤
+     */
+    public Optional<String> translate(ResolvedExpression filter) {
+        if (!(filter instanceof CallExpression)) {
+            return Optional.empty();
+        }
+        CallExpression call = (CallExpression) filter;
+        FunctionDefinition function = call.getFunctionDefinition();
+        List<ResolvedExpression> args = call.getResolvedChildren();
+
+        if (COMPARISONS.containsKey(function) && args.size() == 2) {
+            return translateComparison(function, args.get(0), args.get(1));
+        }
+        if (function == BuiltInFunctionDefinitions.IS_NULL && args.size() == 1) {
+            return translateField(args.get(0)).map(field -> field + " IS NULL");
+        }
+        if (function == BuiltInFunctionDefinitions.IS_NOT_NULL && args.size() == 1) {
+            return translateField(args.get(0)).map(field -> field + " IS NOT NULL");
+        }
+        if (function == BuiltInFunctionDefinitions.AND
+                || function == BuiltInFunctionDefinitions.OR) {
+            String operator = function == BuiltInFunctionDefinitions.AND ? " AND " : " OR ";
+            StringBuilder sb = new StringBuilder(64);
+            for (ResolvedExpression arg : args) {
+                Optional<String> sql = translate(arg);
+                if (!sql.isPresent()) {
+                    return Optional.empty();
+                }
+                if (sb.length() > 0) {
+                    sb.append(operator);
+                }
+                sb.append('(').append(sql.get()).append(')');
+            }
+            return Optional.of(sb.toString());
+        }
+        return Optional.empty();
+    }
+
+    /** 翻译后的条件是否可以完全替代flink的过滤 */
+    public boolean isExact() {
+        return exact;
+    }
+
+    private Optional<String> translateComparison(
+            FunctionDefinition function, ResolvedExpression left, ResolvedExpression right) {
+        if (left instanceof ValueLiteralExpression && right instanceof FieldReferenceExpression) {
+            return translateComparison(REVERSED.get(function), right, left);
+        }
+        if (!(right instanceof ValueLiteralExpression)) {
+            return Optional.empty();
+        }
+        Optional<String> field = translateField(left);
+        Optional<String> literal = translateLiteral((ValueLiteralExpression) right);
+        if (!field.isPresent() || !literal.isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(field.get() + " " + COMPARISONS.get(function) + " " + literal.get());
+    }
+
+    private Optional<String> translateField(ResolvedExpression expression) {
+        if (!(expression instanceof FieldReferenceExpression)) {
+            return Optional.empty();
+        }
+        FieldReferenceExpression field = (FieldReferenceExpression) expression;
+        if (field.getOutputDataType().getLogicalType().is(LogicalTypeFamily.CHARACTER_STRING)) {
+            exact = false;
+        }
+        return Optional.of(jdbcDialect.quoteIdentifier(field.getName()));
+    }
+
+    private Optional<String> translateLiteral(ValueLiteralExpression literal) {
+        if (literal.isNull()) {
+            return Optional.empty();
+        }
+        LogicalType type = literal.getOutputDataType().getLogicalType();
+        if (type.is(LogicalTypeFamily.CHARACTER_STRING)) {
+            exact = false;
+        }
+        return literal.getValueAs(literal.getOutputDataType().getConversionClass())
+                .flatMap(value -> jdbcDialect.formatFilterLiteral(value, type));
+    }
+}
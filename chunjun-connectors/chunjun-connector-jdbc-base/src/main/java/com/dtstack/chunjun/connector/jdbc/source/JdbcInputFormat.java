@@ -455,12 +455,22 @@ public class JdbcInputFormat extends BaseRichInputFormat {
         if (StringUtils.isNotBlank(jdbcConfig.getWhere())) {
             whereList.add(jdbcConfig.getWhere());
         }
+        if (StringUtils.isNotBlank(jdbcConfig.getPushedFilter())) {
+            whereList.add(jdbcConfig.getPushedFilter());
+        }
         String querySql;
 
         querySql = buildQuerySqlBySplit(jdbcInputSplit, whereList);
 
         if (!jdbcConfig.isPolling()) {
             querySql = querySql + SqlUtil.buildOrderSql(jdbcConfig, jdbcDialect, "ASC");
+            if (jdbcConfig.getPushedLimit() >= 0) {
+                querySql =
+                        querySql
+                                + jdbcDialect
+                                        .getLimitClause(jdbcConfig.getPushedLimit())
+                                        .orElse("");
+            }
         }
         log.info("Executing sql is: '{}'", querySql);
         return querySql;
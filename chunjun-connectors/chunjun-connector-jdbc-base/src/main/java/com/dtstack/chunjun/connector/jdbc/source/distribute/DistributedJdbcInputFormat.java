@@ -19,20 +19,37 @@ package com.dtstack.chunjun.connector.jdbc.source.distribute;
 
 import com.dtstack.chunjun.connector.jdbc.config.DataSourceConfig;
 import com.dtstack.chunjun.connector.jdbc.source.JdbcInputFormat;
+import com.dtstack.chunjun.connector.jdbc.source.JdbcInputSplit;
 import com.dtstack.chunjun.connector.jdbc.util.JdbcUtil;
+import com.dtstack.chunjun.connector.jdbc.util.SqlUtil;
 import com.dtstack.chunjun.throwable.ChunJunRuntimeException;
 import com.dtstack.chunjun.util.GsonUtil;
-import com.dtstack.chunjun.util.RangeSplitUtil;
 
 import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.runtime.jobgraph.tasks.InputSplitProviderException;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * 分库分表读取，每张表(分片)一个InputSplit。
+ *
+ * <p>分片不在生成时按并行度静态分配：子任务读完手上的分片后，再通过InputSplitProvider领取下一个，大表不会拖住其他子任务。 同一实例(jdbcUrl +
+ * 用户名)上的分片复用连接，切换分片时不需要重新建立连接。
+ *
+ * <p>下一个分片只在当前分片读完时才领取和查询：提前领取会让正在读大表的子任务占住其他空闲子任务能读的分片，
+ * 而mysql等流式读取(fetchSize为Integer.MIN_VALUE)的结果集在读完之前会一直占用服务端资源。
+ */
 @Slf4j
 public class DistributedJdbcInputFormat extends JdbcInputFormat {
 
@@ -42,15 +59,21 @@ public class DistributedJdbcInputFormat extends JdbcInputFormat {
     protected DistributedJdbcInputSplit inputSplit;
     protected int sourceIndex = 0;
     protected boolean noDataSource = false;
+    /** 没有可领取的分片了 */
+    protected boolean splitExhausted = false;
+
+    /** 空闲连接，key为jdbcUrl + 用户名 */
+    private transient Map<String, Deque<Connection>> idleConnections;
 
     @Override
     public void openInternal(InputSplit inputSplit) {
         this.inputSplit = (DistributedJdbcInputSplit) inputSplit;
-        this.sourceList = this.inputSplit.getSourceList();
-        if (CollectionUtils.isEmpty(this.sourceList)) {
+        if (CollectionUtils.isEmpty(this.inputSplit.getSourceList())) {
             noDataSource = true;
             return;
         }
+        // 之后领取的分片追加到这里
+        this.sourceList = new ArrayList<>(this.inputSplit.getSourceList());
         log.info("DistributedJdbcInputFormat[{}]open: end", inputSplit);
     }
 
@@ -62,19 +85,25 @@ public class DistributedJdbcInputFormat extends JdbcInputFormat {
                             "numTaskVertices is [%s], but parallelism in jdbcConfig is [%s]",
                             minNumSplits, jdbcConfig.getParallelism()));
         }
-        DistributedJdbcInputSplit[] inputSplits = new DistributedJdbcInputSplit[minNumSplits];
-        List<List<DataSourceConfig>> subList =
-                RangeSplitUtil.subListBySegment(sourceList, minNumSplits);
-
-        for (int i = 0; i < subList.size(); i++) {
-            DistributedJdbcInputSplit split =
+        if (CollectionUtils.isEmpty(sourceList)) {
+            return new DistributedJdbcInputSplit[] {
+                new DistributedJdbcInputSplit(
+                        0,
+                        1,
+                        Collections.emptyList(),
+                        jdbcConfig.getSplitStrategy(),
+                        jdbcConfig.isPolling())
+            };
+        }
+        DistributedJdbcInputSplit[] inputSplits = new DistributedJdbcInputSplit[sourceList.size()];
+        for (int i = 0; i < sourceList.size(); i++) {
+            inputSplits[i] =
                     new DistributedJdbcInputSplit(
                             i,
-                            minNumSplits,
-                            subList.get(i),
+                            sourceList.size(),
+                            Collections.singletonList(sourceList.get(i)),
                             jdbcConfig.getSplitStrategy(),
                             jdbcConfig.isPolling());
-            inputSplits[i] = split;
         }
 
         log.info(
@@ -93,12 +122,10 @@ public class DistributedJdbcInputFormat extends JdbcInputFormat {
                 openNextSource();
             }
 
-            if (!hasNext) {
-                if (sourceIndex + 1 < sourceList.size()) {
-                    closeInternal();
-                    sourceIndex++;
-                    return reachedEnd();
-                }
+            while (!hasNext && (sourceIndex + 1 < sourceList.size() || claimNextSplit())) {
+                releaseCurrentSource();
+                sourceIndex++;
+                openNextSource();
             }
 
             return !hasNext;
@@ -111,7 +138,8 @@ public class DistributedJdbcInputFormat extends JdbcInputFormat {
 
     protected void openNextSource() throws SQLException {
         DataSourceConfig currentSource = sourceList.get(sourceIndex);
-        dbConn = getConnection();
+        applySource(currentSource);
+        dbConn = borrowConnection(currentSource);
         dbConn.setAutoCommit(false);
         statement = dbConn.createStatement(resultSetType, resultSetConcurrency);
 
@@ -127,25 +155,102 @@ public class DistributedJdbcInputFormat extends JdbcInputFormat {
                 "open source: {}, table: {}", currentSource.getJdbcUrl(), currentSource.getTable());
     }
 
+    /** 从InputSplitProvider领取下一个分片，领到后追加到sourceList */
+    protected boolean claimNextSplit() {
+        if (splitExhausted) {
+            return false;
+        }
+        InputSplit split;
+        try {
+            split =
+                    context.getInputSplitProvider()
+                            .getNextInputSplit(context.getUserCodeClassLoader());
+        } catch (InputSplitProviderException e) {
+            throw new ChunJunRuntimeException("Could not retrieve next input split.", e);
+        }
+        if (split == null) {
+            splitExhausted = true;
+            return false;
+        }
+        log.info("claim next inputSplit: {}", split);
+        sourceList.addAll(((DistributedJdbcInputSplit) split).getSourceList());
+        return true;
+    }
+
+    private Connection borrowConnection(DataSourceConfig source) throws SQLException {
+        if (idleConnections == null) {
+            idleConnections = new HashMap<>();
+        }
+        Deque<Connection> idle = idleConnections.get(connectionKey(source));
+        while (idle != null && !idle.isEmpty()) {
+            Connection connection = idle.poll();
+            if (connection.isValid(3)) {
+                return connection;
+            }
+            JdbcUtil.closeDbResources(null, null, connection, false);
+        }
+        return JdbcUtil.getConnection(jdbcConfig, this.jdbcDialect);
+    }
+
+    /** 当前分片读完，连接留给同一实例上的后续分片 */
+    private void releaseCurrentSource() {
+        JdbcUtil.closeDbResources(resultSet, statement, null, true);
+        if (dbConn != null) {
+            JdbcUtil.commit(dbConn);
+            idleConnections
+                    .computeIfAbsent(
+                            connectionKey(sourceList.get(sourceIndex)), k -> new ArrayDeque<>())
+                    .push(dbConn);
+        }
+        dbConn = null;
+        statement = null;
+        resultSet = null;
+    }
+
     @Override
     public void closeInternal() {
         JdbcUtil.closeDbResources(resultSet, statement, dbConn, true);
         dbConn = null;
         statement = null;
         resultSet = null;
+        if (idleConnections != null) {
+            for (Deque<Connection> connections : idleConnections.values()) {
+                for (Connection connection : connections) {
+                    JdbcUtil.closeDbResources(null, null, connection, true);
+                }
+            }
+            idleConnections = null;
+        }
+    }
+
+    /** 每个分片读整张表，不按splitPk取模过滤 */
+    @Override
+    protected String buildQuerySqlBySplit(JdbcInputSplit jdbcInputSplit, List<String> whereList) {
+        JdbcInputSplit wholeTableSplit =
+                new JdbcInputSplit(
+                        0, 1, 0, jdbcInputSplit.getSplitStrategy(), jdbcInputSplit.isPolling());
+        return SqlUtil.buildQuerySqlBySplit(
+                jdbcConfig, jdbcDialect, whereList, columnNameList, wholeTableSplit);
     }
 
     @Override
     protected Connection getConnection() throws SQLException {
-        DataSourceConfig currentSource = sourceList.get(sourceIndex);
-        jdbcConfig.setJdbcUrl(currentSource.getJdbcUrl());
-        jdbcConfig.setUsername(currentSource.getUserName());
-        jdbcConfig.setPassword(currentSource.getPassword());
-        jdbcConfig.setTable(currentSource.getTable());
-        jdbcConfig.setSchema(currentSource.getSchema());
+        applySource(sourceList.get(sourceIndex));
         return JdbcUtil.getConnection(jdbcConfig, this.jdbcDialect);
     }
 
+    private void applySource(DataSourceConfig source) {
+        jdbcConfig.setJdbcUrl(source.getJdbcUrl());
+        jdbcConfig.setUsername(source.getUserName());
+        jdbcConfig.setPassword(source.getPassword());
+        jdbcConfig.setTable(source.getTable());
+        jdbcConfig.setSchema(source.getSchema());
+    }
+
+    private static String connectionKey(DataSourceConfig source) {
+        return source.getJdbcUrl() + "|" + source.getUserName();
+    }
+
     public void setSourceList(List<DataSourceConfig> sourceList) {
         this.sourceList = sourceList;
     }
@@ -65,6 +65,7 @@ import static com.dtstack.chunjun.connector.jdbc.options.JdbcLookupOptions.VERTX
 import static com.dtstack.chunjun.connector.jdbc.options.JdbcLookupOptions.VERTX_WORKER_POOL_SIZE;
 import static com.dtstack.chunjun.connector.jdbc.options.JdbcLookupOptions.getLibConfMap;
 import static com.dtstack.chunjun.connector.jdbc.options.JdbcSinkOptions.SINK_ALL_REPLACE;
+import static com.dtstack.chunjun.connector.jdbc.options.JdbcSinkOptions.SINK_COMPACT_CHANGELOG;
 import static com.dtstack.chunjun.connector.jdbc.options.JdbcSinkOptions.SINK_PARALLELISM;
 import static com.dtstack.chunjun.connector.jdbc.options.JdbcSinkOptions.SINK_SEMANTIC;
 import static com.dtstack.chunjun.lookup.options.LookupOptions.LOOKUP_ASYNC_TIMEOUT;
@@ -167,6 +168,7 @@ public abstract class JdbcDynamicTableFactory
         jdbcConfig.setFlushIntervalMills(readableConfig.get(SINK_BUFFER_FLUSH_INTERVAL));
         jdbcConfig.setParallelism(readableConfig.get(SINK_PARALLELISM));
         jdbcConfig.setSemantic(readableConfig.get(SINK_SEMANTIC));
+        jdbcConfig.setCompactChangelog(readableConfig.get(SINK_COMPACT_CHANGELOG));
 
         List<String> keyFields = new ArrayList<>();
         schema.getPrimaryKey().ifPresent(item -> keyFields.add(item.getName()));
@@ -288,6 +290,7 @@ public abstract class JdbcDynamicTableFactory
         optionalOptions.add(SINK_ALL_REPLACE);
         optionalOptions.add(SINK_PARALLELISM);
         optionalOptions.add(SINK_SEMANTIC);
+        optionalOptions.add(SINK_COMPACT_CHANGELOG);
         return optionalOptions;
     }
 
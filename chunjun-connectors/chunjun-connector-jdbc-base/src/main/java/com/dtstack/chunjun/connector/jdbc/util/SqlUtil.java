@@ -26,15 +26,23 @@ import com.dtstack.chunjun.constants.ConstantValue;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class SqlUtil {
 
     public static String buildQuerySplitRangeSql(JdbcConfig jdbcConfig, JdbcDialect jdbcDialect) {
         // 构建where条件
-        String whereFilter = "";
+        List<String> whereList = new ArrayList<>(2);
         if (StringUtils.isNotBlank(jdbcConfig.getWhere())) {
-            whereFilter = " WHERE " + jdbcConfig.getWhere();
+            whereList.add(jdbcConfig.getWhere());
+        }
+        if (StringUtils.isNotBlank(jdbcConfig.getPushedFilter())) {
+            whereList.add(jdbcConfig.getPushedFilter());
+        }
+        String whereFilter = "";
+        if (!whereList.isEmpty()) {
+            whereFilter = " WHERE " + String.join(" AND ", whereList);
         }
 
         String querySplitRangeSql;
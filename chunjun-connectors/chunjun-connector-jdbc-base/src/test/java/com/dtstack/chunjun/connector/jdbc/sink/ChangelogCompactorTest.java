@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.jdbc.sink;
+
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.types.RowKind;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class ChangelogCompactorTest {
+
+    private static RowData row(RowKind kind, int key, int value) {
+        return GenericRowData.ofKind(kind, key, value);
+    }
+
+    private static Object key(RowData row) {
+        return row.getInt(0);
+    }
+
+    @Test
+    public void testUpdatesOfNewRowCollapseToLastWrite() {
+        RowData last = row(RowKind.UPDATE_AFTER, 1, 3);
+        List<RowData> compacted =
+                ChangelogCompactor.compact(
+                        Arrays.asList(
+                                row(RowKind.INSERT, 1, 1),
+                                row(RowKind.UPDATE_BEFORE, 1, 1),
+                                row(RowKind.UPDATE_AFTER, 1, 2),
+                                row(RowKind.UPDATE_BEFORE, 1, 2),
+                                last),
+                        ChangelogCompactorTest::key);
+        Assert.assertEquals(Arrays.asList(last), compacted);
+    }
+
+    @Test
+    public void testUpdateOfExistingRowKeepsFirstDelete() {
+        RowData before = row(RowKind.UPDATE_BEFORE, 1, 0);
+        RowData after = row(RowKind.UPDATE_AFTER, 1, 2);
+        List<RowData> compacted =
+                ChangelogCompactor.compact(
+                        Arrays.asList(
+                                before,
+                                row(RowKind.UPDATE_AFTER, 1, 1),
+                                row(RowKind.UPDATE_BEFORE, 1, 1),
+                                after),
+                        ChangelogCompactorTest::key);
+        Assert.assertEquals(Arrays.asList(before, after), compacted);
+    }
+
+    @Test
+    public void testInsertThenDeleteLeavesNothing() {
+        RowData other = row(RowKind.INSERT, 2, 1);
+        List<RowData> compacted =
+                ChangelogCompactor.compact(
+                        Arrays.asList(row(RowKind.INSERT, 1, 1), other, row(RowKind.DELETE, 1, 1)),
+                        ChangelogCompactorTest::key);
+        Assert.assertEquals(Arrays.asList(other), compacted);
+    }
+
+    @Test
+    public void testDeletesAreWrittenBeforeWrites() {
+        RowData insert = row(RowKind.INSERT, 1, 1);
+        RowData delete = row(RowKind.DELETE, 2, 1);
+        List<RowData> compacted =
+                ChangelogCompactor.compact(
+                        Arrays.asList(insert, delete), ChangelogCompactorTest::key);
+        Assert.assertEquals(Arrays.asList(delete, insert), compacted);
+    }
+
+    @Test
+    public void testRowWithoutKeyDisablesCompaction() {
+        List<RowData> compacted =
+                ChangelogCompactor.compact(
+                        Arrays.asList(row(RowKind.INSERT, 1, 1), row(RowKind.INSERT, 2, 1)),
+                        row -> row.getInt(0) == 2 ? null : row.getInt(0));
+        Assert.assertNull(compacted);
+    }
+}
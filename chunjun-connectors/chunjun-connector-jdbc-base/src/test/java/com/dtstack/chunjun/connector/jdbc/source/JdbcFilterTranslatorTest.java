@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.jdbc.source;
+
+import com.dtstack.chunjun.connector.jdbc.dialect.JdbcDialect;
+
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.expressions.CallExpression;
+import org.apache.flink.table.expressions.FieldReferenceExpression;
+import org.apache.flink.table.expressions.ResolvedExpression;
+import org.apache.flink.table.expressions.ValueLiteralExpression;
+import org.apache.flink.table.functions.BuiltInFunctionDefinition;
+import org.apache.flink.table.functions.BuiltInFunctionDefinitions;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+public class JdbcFilterTranslatorTest {
+
+    private JdbcDialect jdbcDialect;
+
+    private final FieldReferenceExpression id =
+            new FieldReferenceExpression("id", DataTypes.INT(), 0, 0);
+    private final FieldReferenceExpression name =
+            new FieldReferenceExpression("name", DataTypes.STRING(), 0, 1);
+    private final FieldReferenceExpression score =
+            new FieldReferenceExpression("score", DataTypes.DOUBLE(), 0, 2);
+
+    @Before
+    public void setup() {
+        jdbcDialect = Mockito.mock(JdbcDialect.class, Mockito.CALLS_REAL_METHODS);
+    }
+
+    @Test
+    public void translateComparisonTest() {
+        JdbcFilterTranslator translator = new JdbcFilterTranslator(jdbcDialect);
+        Assert.assertEquals(
+                Optional.of("\"id\" >= 10"),
+                translator.translate(
+                        call(
+                                BuiltInFunctionDefinitions.GREATER_THAN_OR_EQUAL,
+                                id,
+                                new ValueLiteralExpression(10))));
+        Assert.assertTrue(translator.isExact());
+
+        // literal on the left side
+        Assert.assertEquals(
+                Optional.of("\"id\" < 10"),
+                new JdbcFilterTranslator(jdbcDialect)
+                        .translate(
+                                call(
+                                        BuiltInFunctionDefinitions.GREATER_THAN,
+                                        new ValueLiteralExpression(10),
+                                        id)));
+    }
+
+    @Test
+    public void translateStringTest() {
+        JdbcFilterTranslator translator = new JdbcFilterTranslator(jdbcDialect);
+        Assert.assertEquals(
+                Optional.of("\"name\" = 'o''neil'"),
+                translator.translate(
+                        call(
+                                BuiltInFunctionDefinitions.EQUALS,
+                                name,
+                                new ValueLiteralExpression("o'neil"))));
+        // character comparison depends on collation, keep it in flink as well
+        Assert.assertFalse(translator.isExact());
+    }
+
+    @Test
+    public void translateLogicalTest() {
+        ResolvedExpression filter =
+                call(
+                        BuiltInFunctionDefinitions.OR,
+                        call(BuiltInFunctionDefinitions.IS_NULL, id),
+                        call(
+                                BuiltInFunctionDefinitions.NOT_EQUALS,
+                                id,
+                                new ValueLiteralExpression(1L)));
+        Assert.assertEquals(
+                Optional.of("(\"id\" IS NULL) OR (\"id\" <> 1)"),
+                new JdbcFilterTranslator(jdbcDialect).translate(filter));
+    }
+
+    @Test
+    public void translateUnsupportedTest() {
+        // double literal is not supported by default dialect
+        ResolvedExpression doubleFilter =
+                call(BuiltInFunctionDefinitions.LESS_THAN, score, new ValueLiteralExpression(1.5D));
+        Assert.assertFalse(
+                new JdbcFilterTranslator(jdbcDialect).translate(doubleFilter).isPresent());
+
+        // one unsupported child makes the whole AND unsupported
+        ResolvedExpression andFilter =
+                call(
+                        BuiltInFunctionDefinitions.AND,
+                        call(BuiltInFunctionDefinitions.IS_NOT_NULL, id),
+                        doubleFilter);
+        Assert.assertFalse(new JdbcFilterTranslator(jdbcDialect).translate(andFilter).isPresent());
+    }
+
+    private static CallExpression call(
+            BuiltInFunctionDefinition function, ResolvedExpression... args) {
+        return CallExpression.permanent(function, Arrays.asList(args), DataTypes.BOOLEAN());
+    }
+}
@@ -35,6 +35,8 @@ import com.dtstack.chunjun.util.RangeSplitUtil;
 import com.dtstack.chunjun.util.TableUtil;
 
 import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.runtime.jobgraph.tasks.InputSplitProvider;
+import org.apache.flink.streaming.api.operators.StreamingRuntimeContext;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -46,22 +48,25 @@ import org.junit.runner.RunWith;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
 import org.slf4j.Logger;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
 
 import static com.dtstack.chunjun.connector.jdbc.util.JdbcUtilTest.readFile;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.doCallRealMethod;
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
@@ -151,11 +156,16 @@ public class DistributeJdbcInputFormatTest {
         Assert.assertThrows(
                 ChunJunRuntimeException.class, () -> inputFormat.createInputSplitsInternal(2));
 
+        // one split for each table, handed out to the subtasks as they become idle
         when(jdbcConfig.getParallelism()).thenReturn(2);
         setInternalState(inputFormat, "sourceList", dataSourceConfigList);
-        when(RangeSplitUtil.subListBySegment(dataSourceConfigList, 2)).thenCallRealMethod();
         InputSplit[] inputSplitsInternal = inputFormat.createInputSplitsInternal(2);
-        Assert.assertEquals(2, inputSplitsInternal.length);
+        Assert.assertEquals(dataSourceConfigList.size(), inputSplitsInternal.length);
+        for (int i = 0; i < inputSplitsInternal.length; i++) {
+            Assert.assertEquals(
+                    Collections.singletonList(dataSourceConfigList.get(i)),
+                    ((DistributedJdbcInputSplit) inputSplitsInternal[i]).getSourceList());
+        }
     }
 
     @Test
@@ -174,51 +184,166 @@ public class DistributeJdbcInputFormatTest {
     }
 
     @Test
-    public void reachedEndTest()
-            throws SQLException, InvocationTargetException, IllegalAccessException {
-        when(inputFormat.reachedEnd()).thenCallRealMethod();
-        when(inputFormat.getConnection()).thenCallRealMethod();
-        doCallRealMethod().when(inputFormat).openNextSource();
+    public void reachedEndTest() throws Exception {
+        DistributedJdbcInputFormat format = PowerMockito.spy(new DistributedJdbcInputFormat());
+        setInternalState(format, "jdbcConfig", jdbcConfig);
+        setInternalState(format, "jdbcDialect", jdbcDialect);
         Connection connection = mock(Connection.class);
         Statement statement = mock(Statement.class);
         ResultSet resultSet = mock(ResultSet.class);
-        ResultSetMetaData resultSetMetaData = mock(ResultSetMetaData.class);
         String sql = "select id,name from table";
 
-        setInternalState(inputFormat, "noDataSource", true);
-        Assert.assertTrue(inputFormat.reachedEnd());
+        setInternalState(format, "noDataSource", true);
+        Assert.assertTrue(format.reachedEnd());
 
-        setInternalState(inputFormat, "noDataSource", false);
-        setInternalState(inputFormat, "sourceList", dataSourceConfigList);
-        setInternalState(inputFormat, "inputSplit", inputSplit);
+        setInternalState(format, "noDataSource", false);
+        setInternalState(format, "sourceList", new ArrayList<>(dataSourceConfigList));
+        setInternalState(format, "inputSplit", inputSplit);
+        StreamingRuntimeContext context = mock(StreamingRuntimeContext.class);
+        InputSplitProvider provider = mock(InputSplitProvider.class);
+        setInternalState(format, "context", context);
+        when(context.getInputSplitProvider()).thenReturn(provider);
+        when(provider.getNextInputSplit(any())).thenReturn(null);
         when(JdbcUtil.getConnection(any(JdbcConfig.class), any(JdbcDialect.class)))
                 .thenAnswer(invocation -> connection);
         when(connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
                 .thenReturn(statement);
         when(jdbcConfig.getFetchSize()).thenReturn(100);
         when(jdbcConfig.getQueryTimeOut()).thenReturn(100);
-        Method getSplitRangeFromDb =
-                PowerMockito.method(
-                        DistributedJdbcInputFormat.class,
-                        "buildQuerySql",
-                        DistributedJdbcInputSplit.class);
-        when(getSplitRangeFromDb.invoke(inputFormat, any(DistributedJdbcInputSplit.class)))
-                .thenReturn(sql);
+        PowerMockito.doReturn(sql).when(format, "buildQuerySql", any(InputSplit.class));
         when(statement.executeQuery(sql)).thenReturn(resultSet);
-        when(resultSet.getMetaData()).thenReturn(resultSetMetaData);
-        when(resultSetMetaData.getColumnCount()).thenReturn(2);
+        // the first table is empty, the second one is queried once the first one is drained
         when(resultSet.next()).thenReturn(false, true);
 
-        setInternalState(inputFormat, "sourceIndex", 1);
-        Assert.assertTrue(inputFormat.reachedEnd());
+        Assert.assertFalse(format.reachedEnd());
+        Assert.assertEquals(1, (int) Whitebox.getInternalState(format, "sourceIndex"));
+        // nothing is claimed while the second table is being read
+        verify(provider, times(0)).getNextInputSplit(any());
 
-        setInternalState(inputFormat, "sourceIndex", 0);
-        doCallRealMethod().when(inputFormat).closeInternal();
-        Assert.assertFalse(inputFormat.reachedEnd());
+        setInternalState(format, "hasNext", false);
+        Assert.assertTrue(format.reachedEnd());
+        // the provider is asked once the list is used up
+        verify(provider).getNextInputSplit(any());
+        format.closeInternal();
 
-        setInternalState(inputFormat, "dbConn", (Object) null);
+        setInternalState(format, "sourceIndex", 0);
         when(connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
                 .thenThrow(new SQLException(""));
-        Assert.assertThrows(ChunJunRuntimeException.class, () -> inputFormat.reachedEnd());
+        Assert.assertThrows(ChunJunRuntimeException.class, format::reachedEnd);
+    }
+
+    @Test
+    public void longTableDoesNotHoldOtherShardsTest() throws Exception {
+        List<DataSourceConfig> sources = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            DataSourceConfig source = new DataSourceConfig();
+            source.setJdbcUrl("jdbc:mysql://localhost:3306/db" + i);
+            source.setUserName("user");
+            source.setTable("table" + i);
+            sources.add(source);
+        }
+        // the first table of every subtask comes with its split, the rest are handed out on demand
+        Queue<InputSplit> splitQueue = new ArrayDeque<>();
+        for (int i = 2; i < sources.size(); i++) {
+            splitQueue.add(
+                    new DistributedJdbcInputSplit(
+                            i,
+                            sources.size(),
+                            Collections.singletonList(sources.get(i)),
+                            null,
+                            false));
+        }
+        InputSplitProvider provider = mock(InputSplitProvider.class);
+        when(provider.getNextInputSplit(any())).thenAnswer(invocation -> splitQueue.poll());
+
+        ResultSet longTable = mock(ResultSet.class);
+        when(longTable.next()).thenReturn(true);
+        ResultSet emptyTable = mock(ResultSet.class);
+        when(emptyTable.next()).thenReturn(false);
+        JdbcConfig longConfig = mock(JdbcConfig.class);
+        JdbcConfig shortConfig = mock(JdbcConfig.class);
+        Connection longConnection = mockConnection(longTable);
+        Connection shortConnection = mockConnection(emptyTable);
+        when(JdbcUtil.getConnection(any(JdbcConfig.class), any(JdbcDialect.class)))
+                .thenAnswer(
+                        invocation ->
+                                invocation.getArgument(0) == longConfig
+                                        ? longConnection
+                                        : shortConnection);
+
+        DistributedJdbcInputFormat longReader =
+                newReader(longConfig, provider, Collections.singletonList(sources.get(0)));
+        DistributedJdbcInputFormat shortReader =
+                newReader(shortConfig, provider, Collections.singletonList(sources.get(1)));
+
+        Assert.assertFalse(longReader.reachedEnd());
+        // the subtask reading the long table does not claim anything while it is reading
+        verify(provider, times(0)).getNextInputSplit(any());
+
+        Assert.assertTrue(shortReader.reachedEnd());
+        Assert.assertEquals(
+                sources.subList(1, 4), Whitebox.getInternalState(shortReader, "sourceList"));
+
+        setInternalState(longReader, "hasNext", false);
+        Assert.assertTrue(longReader.reachedEnd());
+        Assert.assertEquals(
+                sources.subList(0, 1), Whitebox.getInternalState(longReader, "sourceList"));
+        Statement longStatement =
+                longConnection.createStatement(
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        verify(longStatement, times(1)).executeQuery(any());
+    }
+
+    private static Connection mockConnection(ResultSet resultSet) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+                .thenReturn(statement);
+        when(statement.executeQuery(any())).thenReturn(resultSet);
+        return connection;
+    }
+
+    private static DistributedJdbcInputFormat newReader(
+            JdbcConfig config, InputSplitProvider provider, List<DataSourceConfig> sources)
+            throws Exception {
+        DistributedJdbcInputFormat format = PowerMockito.spy(new DistributedJdbcInputFormat());
+        setInternalState(format, "jdbcConfig", config);
+        setInternalState(format, "jdbcDialect", jdbcDialect);
+        setInternalState(format, "sourceList", new ArrayList<>(sources));
+        setInternalState(format, "inputSplit", inputSplit);
+        StreamingRuntimeContext context = mock(StreamingRuntimeContext.class);
+        when(context.getInputSplitProvider()).thenReturn(provider);
+        setInternalState(format, "context", context);
+        PowerMockito.doReturn("select id from table")
+                .when(format, "buildQuerySql", any(InputSplit.class));
+        return format;
+    }
+
+    @Test
+    public void claimNextSplitTest() throws Exception {
+        DistributedJdbcInputFormat format = new DistributedJdbcInputFormat();
+        StreamingRuntimeContext context = mock(StreamingRuntimeContext.class);
+        InputSplitProvider provider = mock(InputSplitProvider.class);
+        setInternalState(format, "context", context);
+        setInternalState(format, "sourceList", new ArrayList<>());
+        when(context.getInputSplitProvider()).thenReturn(provider);
+        when(provider.getNextInputSplit(any()))
+                .thenReturn(
+                        new DistributedJdbcInputSplit(
+                                1,
+                                2,
+                                Collections.singletonList(dataSourceConfigList.get(1)),
+                                null,
+                                false),
+                        (InputSplit) null);
+
+        Assert.assertTrue(format.claimNextSplit());
+        Assert.assertEquals(
+                Collections.singletonList(dataSourceConfigList.get(1)),
+                Whitebox.getInternalState(format, "sourceList"));
+        Assert.assertFalse(format.claimNextSplit());
+        // the provider is not asked again once it ran out of splits
+        Assert.assertFalse(format.claimNextSplit());
+        verify(provider, times(2)).getNextInputSplit(any());
     }
 }
@@ -52,10 +52,19 @@ public class MongodbDataSyncConfig extends CommonConfig implements Serializable
 
     private int fetchSize;
 
+    /**
+     * The field used to divide the collection into ranges, it must be indexed. Restoring from a
+     * checkpoint resumes after the last value read, so the values should be unique.
+     */
+    private String splitKey = "_id";
+
     private String writeMode;
 
     private String replaceKey;
 
+    /** Whether batches are written with ordered bulk writes */
+    private boolean ordered = true;
+
     private List<String> monitorDatabases;
 
     private List<String> monitorCollections;
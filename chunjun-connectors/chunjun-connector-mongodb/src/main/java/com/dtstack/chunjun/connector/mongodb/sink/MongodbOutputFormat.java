@@ -21,20 +21,29 @@ package com.dtstack.chunjun.connector.mongodb.sink;
 import com.dtstack.chunjun.connector.mongodb.MongoClientFactory;
 import com.dtstack.chunjun.connector.mongodb.config.MongoClientConfig;
 import com.dtstack.chunjun.sink.format.BaseRichOutputFormat;
-import com.dtstack.chunjun.throwable.ChunJunRuntimeException;
 import com.dtstack.chunjun.throwable.WriteRecordException;
 
 import org.apache.flink.table.data.RowData;
+import org.apache.flink.types.RowKind;
 
+import com.mongodb.MongoBulkWriteException;
 import com.mongodb.MongoClient;
+import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
 import com.mongodb.client.model.FindOneAndReplaceOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.Document;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 @Slf4j
 public class MongodbOutputFormat extends BaseRichOutputFormat {
@@ -45,9 +54,17 @@ public class MongodbOutputFormat extends BaseRichOutputFormat {
     private final String key;
     private final WriteMode writeMode;
 
+    /**
+     * Ordered bulk writes stop at the first failed document and keep the order of the changes to
+     * one key, unordered bulk writes let the server apply the batch in parallel.
+     */
+    private boolean ordered = true;
+
     private transient MongoClient mongoClient;
-    private transient MongoCollection mongoCollection;
+    private transient MongoCollection<Document> mongoCollection;
     private transient FindOneAndReplaceOptions options;
+    private transient ReplaceOptions replaceOptions;
+    private transient BulkWriteOptions bulkWriteOptions;
 
     public MongodbOutputFormat(
             MongoClientConfig mongoClientConfig, String key, WriteMode writeMode) {
@@ -63,7 +80,15 @@ public class MongodbOutputFormat extends BaseRichOutputFormat {
             rowConverter.toExternal(rowData, document);
             if (writeMode == WriteMode.UPSERT) {
                 Document filter = new Document(key, document.get(key));
-                mongoCollection.findOneAndReplace(filter, document, options);
+                switch (rowData.getRowKind()) {
+                    case DELETE:
+                    case UPDATE_BEFORE:
+                        // the key may change, the following UPDATE_AFTER upserts the new document
+                        mongoCollection.deleteOne(filter);
+                        break;
+                    default:
+                        mongoCollection.findOneAndReplace(filter, document, options);
+                }
             } else {
                 mongoCollection.insertOne(document);
             }
@@ -80,10 +105,80 @@ public class MongodbOutputFormat extends BaseRichOutputFormat {
             rowConverter.toExternal(row, document);
             documents.add(document);
         }
+
+        List<WriteModel<Document>> requests = new ArrayList<>(rows.size());
+        // the row of each request, to map bulk write errors back to dirty data
+        List<RowData> requestRows = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            RowData row = rows.get(i);
+            if (isReplacedByNext(i, documents)) {
+                continue;
+            }
+            requests.add(createWriteModel(row.getRowKind(), documents.get(i)));
+            requestRows.add(row);
+        }
+
+        int offset = 0;
+        while (offset < requests.size()) {
+            offset = bulkWrite(requests, requestRows, offset);
+        }
+    }
+
+    /**
+     * An UPDATE_BEFORE directly followed by the UPDATE_AFTER of the same key needs no request, the
+     * upsert replaces the document. Otherwise the key changed, or the UPDATE_AFTER is in the next
+     * batch, and the document of the old key is deleted.
+     */
+    private boolean isReplacedByNext(int index, List<Document> documents) {
+        if (writeMode != WriteMode.UPSERT
+                || rows.get(index).getRowKind() != RowKind.UPDATE_BEFORE
+                || index + 1 >= rows.size()
+                || rows.get(index + 1).getRowKind() != RowKind.UPDATE_AFTER) {
+            return false;
+        }
+        return Objects.equals(documents.get(index).get(key), documents.get(index + 1).get(key));
+    }
+
+    private WriteModel<Document> createWriteModel(RowKind rowKind, Document document) {
         if (writeMode == WriteMode.INSERT) {
-            mongoCollection.insertMany(documents);
-        } else {
-            throw new ChunJunRuntimeException("Does not support batch upsert documents");
+            return new InsertOneModel<>(document);
+        }
+        Document filter = new Document(key, document.get(key));
+        switch (rowKind) {
+            case DELETE:
+            case UPDATE_BEFORE:
+                return new DeleteOneModel<>(filter);
+            default:
+                return new ReplaceOneModel<>(filter, document, replaceOptions);
+        }
+    }
+
+    /**
+     * Write the requests starting at offset in one bulk write, the failed documents are collected
+     * as dirty data.
+     *
+     * @return the offset of the first request not executed yet, an ordered bulk write skips the
+     *     requests after the failed one
+     */
+    private int bulkWrite(
+            List<WriteModel<Document>> requests, List<RowData> requestRows, int offset) {
+        List<WriteModel<Document>> batch =
+                offset == 0 ? requests : requests.subList(offset, requests.size());
+        try {
+            mongoCollection.bulkWrite(batch, bulkWriteOptions);
+            return requests.size();
+        } catch (MongoBulkWriteException e) {
+            int lastErrorIndex = -1;
+            for (BulkWriteError error : e.getWriteErrors()) {
+                RowData row = requestRows.get(offset + error.getIndex());
+                dirtyManager.collect(
+                        row,
+                        new WriteRecordException(
+                                "Writer data to mongodb error: " + error.getMessage(), e, 0, row),
+                        null);
+                lastErrorIndex = Math.max(lastErrorIndex, error.getIndex());
+            }
+            return ordered ? offset + lastErrorIndex + 1 : requests.size();
         }
     }
 
@@ -96,6 +191,8 @@ public class MongodbOutputFormat extends BaseRichOutputFormat {
                         mongoClientConfig.getDatabase(),
                         mongoClientConfig.getCollection());
         options = new FindOneAndReplaceOptions().upsert(true);
+        replaceOptions = new ReplaceOptions().upsert(true);
+        bulkWriteOptions = new BulkWriteOptions().ordered(ordered);
     }
 
     @Override
@@ -107,6 +204,10 @@ public class MongodbOutputFormat extends BaseRichOutputFormat {
         }
     }
 
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
     public enum WriteMode {
         INSERT,
         UPSERT
@@ -40,8 +40,11 @@ public class MongodbOutputFormatBuilder extends BaseRichOutputFormatBuilder<Mong
                 MongoClientConfFactory.createMongoClientConf(mongodbDataSyncConfig);
         MongodbOutputFormat.WriteMode writeMode =
                 parseWriteMode(mongodbDataSyncConfig.getWriteMode());
-        return new MongodbOutputFormatBuilder(
-                mongodbDataSyncConfig, mongoClientConfig, upsertKey, writeMode);
+        MongodbOutputFormatBuilder builder =
+                new MongodbOutputFormatBuilder(
+                        mongodbDataSyncConfig, mongoClientConfig, upsertKey, writeMode);
+        builder.setOrdered(mongodbDataSyncConfig.isOrdered());
+        return builder;
     }
 
     public MongodbOutputFormatBuilder(
@@ -54,6 +57,10 @@ public class MongodbOutputFormatBuilder extends BaseRichOutputFormatBuilder<Mong
         this.mongodbDataSyncConfig = mongodbDataSyncConfig;
     }
 
+    public void setOrdered(boolean ordered) {
+        format.setOrdered(ordered);
+    }
+
     @Override
     protected void checkFormat() {
         if (!StringUtils.isBlank(upsertKey)) {
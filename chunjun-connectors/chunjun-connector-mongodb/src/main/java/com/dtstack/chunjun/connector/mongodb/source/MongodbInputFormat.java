@@ -20,10 +20,12 @@ package com.dtstack.chunjun.connector.mongodb.source;
 
 import com.dtstack.chunjun.connector.mongodb.MongoClientFactory;
 import com.dtstack.chunjun.connector.mongodb.config.MongoClientConfig;
+import com.dtstack.chunjun.restore.FormatState;
 import com.dtstack.chunjun.source.format.BaseRichInputFormat;
 import com.dtstack.chunjun.throwable.ReadRecordException;
 import com.dtstack.chunjun.util.ExceptionUtil;
 
+import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.core.io.InputSplit;
 import org.apache.flink.table.data.RowData;
 
@@ -31,33 +33,64 @@ import com.mongodb.MongoClient;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.Document;
 import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Slf4j
 public class MongodbInputFormat extends BaseRichInputFormat {
 
     private static final long serialVersionUID = -7227110247051876081L;
 
+    /** Number of documents sampled per split when splitVector is not available */
+    private static final int SAMPLES_PER_SPLIT = 10;
+
+    private static final long BYTES_PER_MB = 1024 * 1024L;
+
+    private static final String ID = "_id";
+
     private final MongoClientConfig mongoClientConfig;
     private final Bson filter;
     private final int fetchSize;
+    private final String splitKey;
 
     private transient MongoCursor<Document> cursor;
     private transient MongoClient mongoClient;
 
-    public MongodbInputFormat(MongoClientConfig mongoClientConfig, Bson filter, int fetchSize) {
+    private transient MongodbInputSplit currentSplit;
+    /** The field the current split is read in order of, split key or _id */
+    private transient String sortKey;
+    /** The sort key of the last document read from the current split */
+    private transient Object lastSplitKey;
+
+    public MongodbInputFormat(
+            MongoClientConfig mongoClientConfig, Bson filter, int fetchSize, String splitKey) {
         this.mongoClientConfig = mongoClientConfig;
         this.filter = filter;
         this.fetchSize = fetchSize;
+        this.splitKey = splitKey;
     }
 
     @Override
     protected InputSplit[] createInputSplitsInternal(int minNumSplits) {
-        ArrayList<MongodbInputSplit> splits = new ArrayList<>();
+        List<MongodbInputSplit> splits = new ArrayList<>();
 
         MongoClient client = null;
         try {
@@ -70,20 +103,22 @@ public class MongodbInputFormat extends BaseRichInputFormat {
 
             // 不使用 collection.countDocuments() 获取总数是因为这个方法在大数据量时超时，导致出现超时异常结束任务
             long docNum = collection.estimatedDocumentCount();
-            if (docNum <= minNumSplits) {
-                splits.add(new MongodbInputSplit(0, (int) docNum));
-                return splits.toArray(new MongodbInputSplit[0]);
-            }
-
-            long size = Math.floorDiv(docNum, minNumSplits);
-            for (int i = 0; i < minNumSplits; i++) {
-                splits.add(new MongodbInputSplit((int) (i * size), (int) size));
+            List<Object> boundaries = new ArrayList<>();
+            if (docNum > minNumSplits && minNumSplits > 1) {
+                boundaries = createSplitBoundaries(client, collection, minNumSplits);
             }
+            String keyType = boundaries.isEmpty() ? null : keyTypeOf(boundaries.get(0));
 
-            if (size * minNumSplits < docNum) {
-                splits.add(
-                        new MongodbInputSplit(
-                                (int) (size * minNumSplits), (int) (docNum - size * minNumSplits)));
+            // documents outside the ranges, read first and on their own so that every range
+            // split only holds split keys of one type and resumes over the index
+            splits.add(new MongodbInputSplit(0, null, null, keyType));
+            if (!boundaries.isEmpty()) {
+                Object lowerBound = null;
+                for (Object boundary : boundaries) {
+                    splits.add(new MongodbInputSplit(splits.size(), lowerBound, boundary, keyType));
+                    lowerBound = boundary;
+                }
+                splits.add(new MongodbInputSplit(splits.size(), lowerBound, null, keyType));
             }
         } catch (Exception e) {
             log.error("error to create inputSplits, e = {}", ExceptionUtil.getErrorMessage(e));
@@ -92,14 +127,127 @@ public class MongodbInputFormat extends BaseRichInputFormat {
             closeMongo(client, null);
         }
 
+        log.info("create {} inputSplits on split key [{}]", splits.size(), splitKey);
         return splits.toArray(new MongodbInputSplit[0]);
     }
 
+    /**
+     * Find at most numSplits - 1 ascending, distinct split key values that divide the collection
+     * into ranges of similar size. splitVector walks the index of the split key, it is not
+     * available through mongos or without the privilege, then random sampling is used instead.
+     */
+    private List<Object> createSplitBoundaries(
+            MongoClient client, MongoCollection<Document> collection, int numSplits) {
+        List<Object> candidates;
+        try {
+            candidates = splitVector(client, numSplits);
+        } catch (Exception e) {
+            log.warn(
+                    "splitVector on [{}] failed, fall back to $sample, e = {}",
+                    splitKey,
+                    ExceptionUtil.getErrorMessage(e));
+            candidates = sample(collection, numSplits);
+        }
+        return pickBoundaries(candidates, numSplits);
+    }
+
+    private List<Object> splitVector(MongoClient client, int numSplits) {
+        MongoDatabase database = client.getDatabase(mongoClientConfig.getDatabase());
+        Document stats =
+                database.runCommand(new Document("collStats", mongoClientConfig.getCollection()));
+        long size = ((Number) stats.get("size")).longValue();
+        long maxChunkSizeMb = Math.max(1L, size / numSplits / BYTES_PER_MB);
+
+        Document result =
+                database.runCommand(
+                        new Document(
+                                        "splitVector",
+                                        mongoClientConfig.getDatabase()
+                                                + "."
+                                                + mongoClientConfig.getCollection())
+                                .append("keyPattern", new Document(splitKey, 1))
+                                .append("maxChunkSize", maxChunkSizeMb));
+
+        List<Object> candidates = new ArrayList<>();
+        for (Object splitPoint : result.get("splitKeys", List.class)) {
+            candidates.add(((Document) splitPoint).get(splitKey));
+        }
+        return candidates;
+    }
+
+    private List<Object> sample(MongoCollection<Document> collection, int numSplits) {
+        List<Object> candidates = new ArrayList<>();
+        for (Document document :
+                collection
+                        .aggregate(
+                                Arrays.asList(
+                                        Aggregates.sample(numSplits * SAMPLES_PER_SPLIT),
+                                        Aggregates.project(Projections.include(splitKey)),
+                                        Aggregates.sort(Sorts.ascending(splitKey))))
+                        .allowDiskUse(true)) {
+            Object value = document.get(splitKey);
+            if (value != null) {
+                candidates.add(value);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Pick evenly spaced values out of the sorted candidates of the most common type, dropping
+     * duplicates.
+     */
+    List<Object> pickBoundaries(List<Object> candidates, int numSplits) {
+        List<Object> boundaries = new ArrayList<>();
+        Map<String, Integer> typeCounts = new HashMap<>();
+        for (Object candidate : candidates) {
+            String type = keyTypeOf(candidate);
+            if (type != null) {
+                typeCounts.merge(type, 1, Integer::sum);
+            }
+        }
+        if (typeCounts.isEmpty()) {
+            return boundaries;
+        }
+        String keyType =
+                Collections.max(typeCounts.entrySet(), Map.Entry.comparingByValue()).getKey();
+        candidates =
+                candidates.stream()
+                        .filter(candidate -> keyType.equals(keyTypeOf(candidate)))
+                        .collect(Collectors.toList());
+        int count = Math.min(numSplits - 1, candidates.size());
+        for (int i = 1; i <= count; i++) {
+            Object boundary = candidates.get((int) ((long) i * candidates.size() / (count + 1)));
+            if (boundaries.isEmpty()
+                    || !Objects.equals(boundaries.get(boundaries.size() - 1), boundary)) {
+                boundaries.add(boundary);
+            }
+        }
+        return boundaries;
+    }
+
+    /**
+     * The $type alias of a split key value, values of one alias compare with each other in $gte and
+     * $lt. Null for types that are not split into ranges.
+     */
+    static String keyTypeOf(Object value) {
+        if (value instanceof Number || value instanceof Decimal128) {
+            return "number";
+        } else if (value instanceof String) {
+            return "string";
+        } else if (value instanceof ObjectId) {
+            return "objectId";
+        } else if (value instanceof Date) {
+            return "date";
+        }
+        return null;
+    }
+
     @Override
     protected void openInternal(InputSplit inputSplit) {
         log.info("inputSplit = {}", inputSplit);
-        MongodbInputSplit split = (MongodbInputSplit) inputSplit;
-        FindIterable<Document> findIterable;
+        currentSplit = (MongodbInputSplit) inputSplit;
+        lastSplitKey = null;
 
         mongoClient = MongoClientFactory.createClient(mongoClientConfig);
         MongoCollection<Document> collection =
@@ -108,20 +256,63 @@ public class MongodbInputFormat extends BaseRichInputFormat {
                         mongoClientConfig.getDatabase(),
                         mongoClientConfig.getCollection());
 
-        if (filter == null) {
+        List<Bson> conditions = new ArrayList<>();
+        if (filter != null) {
+            conditions.add(filter);
+        }
+
+        // $gte/$lt only match values of the same BSON type as the bound, so the ranges only
+        // hold split keys of keyType. The other split takes the documents whose split key is
+        // missing, null or of another type, it is read in _id order to resume over the _id index
+        sortKey = currentSplit.isRangeSplit() ? splitKey : ID;
+        Object restoredSplitKey = getRestoredSplitKey();
+        if (restoredSplitKey != null) {
+            log.info("resume split {} after {} = {}", currentSplit, sortKey, restoredSplitKey);
+            lastSplitKey = restoredSplitKey;
+            conditions.add(Filters.gt(sortKey, restoredSplitKey));
+        } else if (currentSplit.getLowerBound() != null) {
+            conditions.add(Filters.gte(splitKey, currentSplit.getLowerBound()));
+        }
+        if (currentSplit.getUpperBound() != null) {
+            conditions.add(Filters.lt(splitKey, currentSplit.getUpperBound()));
+        }
+        if (!currentSplit.isRangeSplit() && currentSplit.getKeyType() != null) {
+            conditions.add(Filters.not(Filters.type(splitKey, currentSplit.getKeyType())));
+        }
+
+        FindIterable<Document> findIterable;
+        if (conditions.isEmpty()) {
             findIterable = collection.find();
+        } else if (conditions.size() == 1) {
+            findIterable = collection.find(conditions.get(0));
         } else {
-            findIterable = collection.find(filter);
+            findIterable = collection.find(Filters.and(conditions));
         }
 
-        findIterable =
-                findIterable.skip(split.getSkip()).limit(split.getLimit()).batchSize(fetchSize);
+        // reading in sort key order over the index makes the last key a valid resume point
+        findIterable = findIterable.sort(Sorts.ascending(sortKey));
+        if (fetchSize > 0) {
+            findIterable = findIterable.batchSize(fetchSize);
+        }
         cursor = findIterable.iterator();
     }
 
+    /** The split key checkpointed for the current split, if the job is restored. */
+    @SuppressWarnings("unchecked")
+    private Object getRestoredSplitKey() {
+        if (formatState != null && formatState.getState() instanceof Tuple2) {
+            Tuple2<Integer, Object> state = (Tuple2<Integer, Object>) formatState.getState();
+            if (state.f0 != null && state.f0 == currentSplit.getSplitNumber()) {
+                return state.f1;
+            }
+        }
+        return null;
+    }
+
     @Override
     protected RowData nextRecordInternal(RowData rowData) throws ReadRecordException {
         Document document = cursor.next();
+        lastSplitKey = document.get(sortKey);
         try {
             return rowConverter.toInternal(document);
         } catch (Exception e) {
@@ -129,6 +320,15 @@ public class MongodbInputFormat extends BaseRichInputFormat {
         }
     }
 
+    @Override
+    public FormatState getFormatState() {
+        super.getFormatState();
+        if (formatState != null && currentSplit != null && lastSplitKey != null) {
+            formatState.setState(new Tuple2<>(currentSplit.getSplitNumber(), lastSplitKey));
+        }
+        return formatState;
+    }
+
     @Override
     protected void closeInternal() {
         closeMongo(mongoClient, cursor);
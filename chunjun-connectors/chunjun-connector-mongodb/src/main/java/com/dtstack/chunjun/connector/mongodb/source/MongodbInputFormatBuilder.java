@@ -33,12 +33,17 @@ public class MongodbInputFormatBuilder extends BaseRichInputFormatBuilder<Mongod
         MongoClientConfig clientConf =
                 MongoClientConfFactory.createMongoClientConf(mongodbDataSyncConfig);
         Bson filter = parseFilter(mongodbDataSyncConfig.getFilter());
-        return newBuild(clientConf, filter, mongodbDataSyncConfig.getFetchSize());
+        return newBuild(
+                clientConf,
+                filter,
+                mongodbDataSyncConfig.getFetchSize(),
+                mongodbDataSyncConfig.getSplitKey());
     }
 
     public static MongodbInputFormatBuilder newBuild(
-            MongoClientConfig mongoClientConfig, Bson filter, int fetchSize) {
-        MongodbInputFormat format = new MongodbInputFormat(mongoClientConfig, filter, fetchSize);
+            MongoClientConfig mongoClientConfig, Bson filter, int fetchSize, String splitKey) {
+        MongodbInputFormat format =
+                new MongodbInputFormat(mongoClientConfig, filter, fetchSize, splitKey);
         return new MongodbInputFormatBuilder(format);
     }
 
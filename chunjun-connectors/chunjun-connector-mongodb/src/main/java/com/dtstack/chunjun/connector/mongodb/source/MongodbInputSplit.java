@@ -23,18 +23,34 @@ import org.apache.flink.core.io.InputSplit;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+/**
+ * A range of the split key, the lower bound is inclusive and the upper bound is exclusive. A null
+ * bound means the range is open on that side. The ranges only hold split keys of the BSON type
+ * alias keyType, the split without bounds holds all other documents, including those whose split
+ * key is null or missing.
+ */
 @AllArgsConstructor
 @Data
 public class MongodbInputSplit implements InputSplit {
 
     private static final long serialVersionUID = 7803273215947823806L;
 
-    private int skip;
+    private int splitNumber;
+
+    private Object lowerBound;
+
+    private Object upperBound;
 
-    private int limit;
+    /** $type alias of the bounds, null when the collection is not split by key ranges */
+    private String keyType;
+
+    /** a range split is read in split key order, the other split in _id order */
+    public boolean isRangeSplit() {
+        return lowerBound != null || upperBound != null;
+    }
 
     @Override
     public int getSplitNumber() {
-        return 0;
+        return splitNumber;
     }
 }
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.mongodb.sink;
+
+import com.dtstack.chunjun.connector.mongodb.config.MongoClientConfig;
+import com.dtstack.chunjun.connector.mongodb.converter.MongodbRowConverter;
+
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.types.logical.IntType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.VarCharType;
+import org.apache.flink.types.RowKind;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.FindOneAndReplaceOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.powermock.reflect.Whitebox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class MongodbOutputFormatTest {
+
+    private MongoCollection<Document> collection;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        collection = mock(MongoCollection.class);
+    }
+
+    @Test
+    void insertShouldUpsertByKey() throws Exception {
+        List<WriteModel<Document>> requests =
+                writeBatch(MongodbOutputFormat.WriteMode.UPSERT, row(RowKind.INSERT, 1, "a"));
+
+        assertEquals(1, requests.size());
+        assertReplace(requests.get(0), 1, "a");
+    }
+
+    @Test
+    void keyChangingUpdateShouldDeleteOldKeyAndUpsertNewKey() throws Exception {
+        List<WriteModel<Document>> requests =
+                writeBatch(
+                        MongodbOutputFormat.WriteMode.UPSERT,
+                        row(RowKind.UPDATE_BEFORE, 1, "a"),
+                        row(RowKind.UPDATE_AFTER, 2, "a"));
+
+        assertEquals(2, requests.size());
+        assertDelete(requests.get(0), 1);
+        assertReplace(requests.get(1), 2, "a");
+    }
+
+    @Test
+    void sameKeyUpdateShouldOnlyUpsert() throws Exception {
+        List<WriteModel<Document>> requests =
+                writeBatch(
+                        MongodbOutputFormat.WriteMode.UPSERT,
+                        row(RowKind.UPDATE_BEFORE, 1, "a"),
+                        row(RowKind.UPDATE_AFTER, 1, "b"));
+
+        assertEquals(1, requests.size());
+        assertReplace(requests.get(0), 1, "b");
+    }
+
+    @Test
+    void updateBeforeAtTheEndOfBatchShouldDelete() throws Exception {
+        List<WriteModel<Document>> requests =
+                writeBatch(
+                        MongodbOutputFormat.WriteMode.UPSERT,
+                        row(RowKind.INSERT, 3, "c"),
+                        row(RowKind.UPDATE_BEFORE, 1, "a"));
+
+        assertEquals(2, requests.size());
+        assertReplace(requests.get(0), 3, "c");
+        assertDelete(requests.get(1), 1);
+    }
+
+    @Test
+    void deleteShouldDeleteByKey() throws Exception {
+        List<WriteModel<Document>> requests =
+                writeBatch(MongodbOutputFormat.WriteMode.UPSERT, row(RowKind.DELETE, 1, "a"));
+
+        assertEquals(1, requests.size());
+        assertDelete(requests.get(0), 1);
+    }
+
+    @Test
+    void insertModeShouldInsertEveryRow() throws Exception {
+        List<WriteModel<Document>> requests =
+                writeBatch(
+                        MongodbOutputFormat.WriteMode.INSERT,
+                        row(RowKind.INSERT, 1, "a"),
+                        row(RowKind.UPDATE_AFTER, 1, "b"));
+
+        assertEquals(2, requests.size());
+        assertTrue(requests.get(0) instanceof InsertOneModel);
+        assertTrue(requests.get(1) instanceof InsertOneModel);
+    }
+
+    @Test
+    void singleRecordKeyChangingUpdateShouldDeleteOldKey() throws Exception {
+        MongodbOutputFormat format = newFormat(MongodbOutputFormat.WriteMode.UPSERT);
+
+        format.writeSingleRecordInternal(row(RowKind.UPDATE_BEFORE, 1, "a"));
+        format.writeSingleRecordInternal(row(RowKind.UPDATE_AFTER, 2, "a"));
+        format.writeSingleRecordInternal(row(RowKind.DELETE, 2, "a"));
+
+        InOrder order = inOrder(collection);
+        order.verify(collection).deleteOne(new Document("id", 1));
+        order.verify(collection)
+                .findOneAndReplace(
+                        eq(new Document("id", 2)),
+                        eq(new Document("id", 2).append("name", "a")),
+                        any(FindOneAndReplaceOptions.class));
+        order.verify(collection).deleteOne(new Document("id", 2));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<WriteModel<Document>> writeBatch(
+            MongodbOutputFormat.WriteMode writeMode, RowData... rows) throws Exception {
+        MongodbOutputFormat format = newFormat(writeMode);
+        Whitebox.setInternalState(format, "rows", new ArrayList<>(Arrays.asList(rows)));
+
+        format.writeMultipleRecordsInternal();
+
+        ArgumentCaptor<List<WriteModel<Document>>> captor = ArgumentCaptor.forClass(List.class);
+        verify(collection).bulkWrite(captor.capture(), any(BulkWriteOptions.class));
+        return captor.getValue();
+    }
+
+    private MongodbOutputFormat newFormat(MongodbOutputFormat.WriteMode writeMode) {
+        MongodbOutputFormat format =
+                new MongodbOutputFormat(new MongoClientConfig(), "id", writeMode);
+        RowType rowType = RowType.of(new IntType(), new VarCharType(VarCharType.MAX_LENGTH));
+        Whitebox.setInternalState(
+                format,
+                "rowConverter",
+                new MongodbRowConverter(rowType, new String[] {"id", "name"}));
+        Whitebox.setInternalState(format, "mongoCollection", collection);
+        Whitebox.setInternalState(format, "options", new FindOneAndReplaceOptions().upsert(true));
+        Whitebox.setInternalState(format, "replaceOptions", new ReplaceOptions().upsert(true));
+        Whitebox.setInternalState(format, "bulkWriteOptions", new BulkWriteOptions().ordered(true));
+        return format;
+    }
+
+    private static RowData row(RowKind rowKind, int id, String name) {
+        return GenericRowData.ofKind(rowKind, id, StringData.fromString(name));
+    }
+
+    private static void assertReplace(WriteModel<Document> request, int id, String name) {
+        assertTrue(request instanceof ReplaceOneModel);
+        ReplaceOneModel<Document> replace = (ReplaceOneModel<Document>) request;
+        assertEquals(new Document("id", id), replace.getFilter());
+        assertEquals(new Document("id", id).append("name", name), replace.getReplacement());
+        assertTrue(replace.getReplaceOptions().isUpsert());
+    }
+
+    private static void assertDelete(WriteModel<Document> request, int id) {
+        assertTrue(request instanceof DeleteOneModel);
+        assertEquals(new Document("id", id), ((DeleteOneModel<Document>) request).getFilter());
+    }
+}
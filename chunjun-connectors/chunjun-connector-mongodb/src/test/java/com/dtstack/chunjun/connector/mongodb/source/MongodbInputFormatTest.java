@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.mongodb.source;
+
+import com.dtstack.chunjun.connector.mongodb.MongoClientFactory;
+import com.dtstack.chunjun.connector.mongodb.config.MongoClientConfig;
+import com.dtstack.chunjun.restore.FormatState;
+
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.core.io.InputSplit;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.powermock.reflect.Whitebox;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MongodbInputFormatTest {
+
+    private MongoClient client;
+    private MongoCollection<Document> collection;
+    private FindIterable<Document> findIterable;
+    private MongoClientConfig config;
+    private MockedStatic<MongoClientFactory> factory;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        client = mock(MongoClient.class);
+        collection = mock(MongoCollection.class);
+        findIterable = mock(FindIterable.class);
+        when(collection.find()).thenReturn(findIterable);
+        when(collection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.sort(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.batchSize(anyInt())).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(mock(MongoCursor.class));
+
+        config = new MongoClientConfig();
+        config.setDatabase("db");
+        config.setCollection("users");
+        factory = mockStatic(MongoClientFactory.class);
+        factory.when(() -> MongoClientFactory.createClient(any())).thenReturn(client);
+        factory.when(() -> MongoClientFactory.createCollection(any(), anyString(), anyString()))
+                .thenReturn(collection);
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.close();
+    }
+
+    @Test
+    void splitsShouldHoldOneKeyTypeAndReadOtherDocumentsFirst() {
+        when(collection.estimatedDocumentCount()).thenReturn(1000L);
+        MongoDatabase database = mock(MongoDatabase.class);
+        when(client.getDatabase("db")).thenReturn(database);
+        when(database.runCommand(any(Bson.class)))
+                .thenAnswer(
+                        invocation -> {
+                            Document command = invocation.getArgument(0);
+                            if (command.containsKey("collStats")) {
+                                return new Document("size", 1024L);
+                            }
+                            return new Document(
+                                    "splitKeys",
+                                    Arrays.asList(
+                                            new Document("age", 10),
+                                            new Document("age", "x"),
+                                            new Document("age", 20L),
+                                            new Document("age", 30)));
+                        });
+
+        InputSplit[] splits = newFormat().createInputSplitsInternal(4);
+
+        assertEquals(5, splits.length);
+        assertSplit(splits[0], 0, null, null);
+        assertSplit(splits[1], 1, null, 10);
+        assertSplit(splits[2], 2, 10, 20L);
+        assertSplit(splits[3], 3, 20L, 30);
+        assertSplit(splits[4], 4, 30, null);
+        for (InputSplit split : splits) {
+            assertEquals("number", ((MongodbInputSplit) split).getKeyType());
+        }
+        assertFalse(((MongodbInputSplit) splits[0]).isRangeSplit());
+    }
+
+    @Test
+    void smallCollectionShouldBeOneSplitOfAllDocuments() {
+        when(collection.estimatedDocumentCount()).thenReturn(2L);
+
+        InputSplit[] splits = newFormat().createInputSplitsInternal(4);
+
+        assertEquals(1, splits.length);
+        assertSplit(splits[0], 0, null, null);
+        assertNull(((MongodbInputSplit) splits[0]).getKeyType());
+
+        newFormat().openInternal(splits[0]);
+        verify(collection).find();
+        assertSort("_id");
+    }
+
+    @Test
+    void rangeSplitShouldReadOverTheIndexInKeyOrder() {
+        assertEquals(
+                "{\"age\": {\"$gte\": 10, \"$lt\": 20}}",
+                openAndCaptureFilter(new MongodbInputSplit(2, 10, 20, "number"), null));
+        assertSort("age");
+    }
+
+    @Test
+    void restoredRangeSplitShouldResumeWithGt() {
+        String filter =
+                openAndCaptureFilter(new MongodbInputSplit(2, 10, 20, "number"), Tuple2.of(2, 15));
+
+        assertEquals("{\"age\": {\"$gt\": 15, \"$lt\": 20}}", filter);
+        assertSort("age");
+    }
+
+    @Test
+    void otherSplitShouldTakeNullMissingAndOtherTypedKeysInIdOrder() {
+        assertEquals(
+                "{\"age\": {\"$not\": {\"$type\": \"number\"}}}",
+                openAndCaptureFilter(new MongodbInputSplit(0, null, null, "number"), null));
+        assertSort("_id");
+    }
+
+    @Test
+    void restoredOtherSplitShouldResumeAfterLastId() {
+        ObjectId lastId = new ObjectId("5f1d7a8e9b1e8a3c4d5e6f70");
+        String filter =
+                openAndCaptureFilter(
+                        new MongodbInputSplit(0, null, null, "number"), Tuple2.of(0, lastId));
+
+        assertEquals(
+                "{\"_id\": {\"$gt\": {\"$oid\": \""
+                        + lastId.toHexString()
+                        + "\"}}, \"age\": {\"$not\": {\"$type\": \"number\"}}}",
+                filter);
+        assertSort("_id");
+    }
+
+    @Test
+    void stateOfOtherSplitShouldNotResumeRangeSplit() {
+        String filter =
+                openAndCaptureFilter(
+                        new MongodbInputSplit(1, null, 10, "number"),
+                        Tuple2.of(0, new ObjectId("5f1d7a8e9b1e8a3c4d5e6f70")));
+
+        assertEquals("{\"age\": {\"$lt\": 10}}", filter);
+    }
+
+    @Test
+    void boundariesShouldKeepTheMostCommonType() {
+        MongodbInputFormat format = newFormat();
+        assertEquals(
+                Arrays.asList("b", "d"),
+                format.pickBoundaries(Arrays.asList(1, "a", "b", "c", "d", "e", true), 3));
+        assertEquals(
+                Collections.emptyList(),
+                format.pickBoundaries(Arrays.asList(true, new Document("a", 1)), 3));
+    }
+
+    private String openAndCaptureFilter(MongodbInputSplit split, Tuple2<Integer, Object> state) {
+        MongodbInputFormat format = newFormat();
+        if (state != null) {
+            Whitebox.setInternalState(format, "formatState", new FormatState(0, state));
+        }
+        format.openInternal(split);
+
+        ArgumentCaptor<Bson> captor = ArgumentCaptor.forClass(Bson.class);
+        verify(collection).find(captor.capture());
+        return render(captor.getValue()).toJson();
+    }
+
+    private void assertSort(String sortKey) {
+        ArgumentCaptor<Bson> captor = ArgumentCaptor.forClass(Bson.class);
+        verify(findIterable).sort(captor.capture());
+        assertEquals(new BsonDocument(sortKey, new BsonInt32(1)), render(captor.getValue()));
+    }
+
+    private static BsonDocument render(Bson bson) {
+        return bson.toBsonDocument(
+                BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    private MongodbInputFormat newFormat() {
+        return new MongodbInputFormat(config, null, 100, "age");
+    }
+
+    private static void assertSplit(
+            InputSplit split, int splitNumber, Object lowerBound, Object upperBound) {
+        MongodbInputSplit mongodbSplit = (MongodbInputSplit) split;
+        assertEquals(splitNumber, mongodbSplit.getSplitNumber());
+        assertEquals(lowerBound, mongodbSplit.getLowerBound());
+        assertEquals(upperBound, mongodbSplit.getUpperBound());
+    }
+}
@@ -24,6 +24,8 @@ import com.dtstack.chunjun.connector.mysql.converter.MysqlRawTypeConverter;
 import com.dtstack.chunjun.converter.RawTypeConverter;
 
 import org.apache.flink.api.java.tuple.Tuple3;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.LogicalTypeFamily;
 
 import java.util.Arrays;
 import java.util.Optional;
@@ -123,4 +125,19 @@ public class MysqlDialect implements JdbcDialect {
     public Function<JdbcConfig, Tuple3<String, String, String>> getTableIdentify() {
         return conf -> Tuple3.of(conf.getSchema(), null, conf.getTable());
     }
+
+    @Override
+    public Optional<String> getLimitClause(long limit) {
+        return Optional.of(" LIMIT " + limit);
+    }
+
+    /** Mysql treats backslash in string literals as an escape character. */
+    @Override
+    public Optional<String> formatFilterLiteral(Object value, LogicalType type) {
+        if (type.is(LogicalTypeFamily.CHARACTER_STRING)) {
+            return Optional.of(
+                    "'" + value.toString().replace("\\", "\\\\").replace("'", "''") + "'");
+        }
+        return JdbcDialect.super.formatFilterLiteral(value, type);
+    }
 }
@@ -49,6 +49,8 @@ public class PostgresqlDialect implements JdbcDialect {
     protected static final String COPY_SQL_TEMPL =
             "copy %s(%s) from stdin DELIMITER '%s' NULL as '%s'";
 
+    protected static final String COPY_BINARY_SQL_TEMPL = "copy %s(%s) from stdin with binary";
+
     @Override
     public String dialectName() {
         return DIALECT_NAME;
@@ -142,17 +144,35 @@ public class PostgresqlDialect implements JdbcDialect {
             String[] fields,
             String fieldDelimiter,
             String nullVal) {
-        String fieldsExpression =
-                Arrays.stream(fields).map(this::quoteIdentifier).collect(Collectors.joining(", "));
+        return String.format(
+                COPY_SQL_TEMPL,
+                getCopyTableLocation(schemaName, tableName),
+                getCopyFieldsExpression(fields),
+                fieldDelimiter,
+                nullVal);
+    }
+
+    /** 二进制格式的copy语句，数据需按PostgreSQL的二进制COPY格式编码 */
+    public String getCopyBinaryStatement(String schemaName, String tableName, String[] fields) {
+        return String.format(
+                COPY_BINARY_SQL_TEMPL,
+                getCopyTableLocation(schemaName, tableName),
+                getCopyFieldsExpression(fields));
+    }
 
-        String tableLocation;
+    private String getCopyTableLocation(String schemaName, String tableName) {
         if (schemaName != null && !"".equals(schemaName.trim())) {
-            tableLocation = quoteIdentifier(schemaName) + "." + quoteIdentifier(tableName);
-        } else {
-            tableLocation = quoteIdentifier(tableName);
+            return quoteIdentifier(schemaName) + "." + quoteIdentifier(tableName);
         }
+        return quoteIdentifier(tableName);
+    }
 
-        return String.format(
-                COPY_SQL_TEMPL, tableLocation, fieldsExpression, fieldDelimiter, nullVal);
+    private String getCopyFieldsExpression(String[] fields) {
+        return Arrays.stream(fields).map(this::quoteIdentifier).collect(Collectors.joining(", "));
+    }
+
+    @Override
+    public Optional<String> getLimitClause(long limit) {
+        return Optional.of(" LIMIT " + limit);
     }
 }
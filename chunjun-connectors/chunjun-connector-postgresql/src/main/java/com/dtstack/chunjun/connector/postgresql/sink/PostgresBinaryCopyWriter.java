@@ -0,0 +1,356 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.postgresql.sink;
+
+import com.dtstack.chunjun.element.AbstractBaseColumn;
+import com.dtstack.chunjun.element.ColumnRowData;
+import com.dtstack.chunjun.element.column.NullColumn;
+
+import org.apache.flink.core.memory.DataOutputSerializer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * 按PostgreSQL二进制COPY格式写数据，数据到达时编码并写入CopyIn流，flush时结束COPY。
+ *
+ * <p>二进制格式按目标字段的实际类型编码，不需要文本转义，数据库端也省去了文本解析。
+ */
+@Slf4j
+public class PostgresBinaryCopyWriter {
+
+    private static final byte[] HEADER = {
+        'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0, 0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    /** 2000-01-01与1970-01-01相差的天数和秒数 */
+    private static final long PG_EPOCH_DAYS = 10957L;
+
+    private static final long PG_EPOCH_SECONDS = PG_EPOCH_DAYS * 86400L;
+
+    private static final short NUMERIC_POS = 0x0000;
+    private static final short NUMERIC_NEG = 0x4000;
+
+    /** 攒够后再写入CopyIn，减少与驱动的交互次数 */
+    private static final int FLUSH_BYTES = 64 * 1024;
+
+    private final CopyManager copyManager;
+    private final String copySql;
+    private final FieldEncoder[] encoders;
+    private final DataOutputSerializer buffer = new DataOutputSerializer(FLUSH_BYTES * 2);
+
+    private CopyIn copyIn;
+
+    /**
+     * @param copyManager copy manager
+     * @param copySql 二进制格式的copy语句
+     * @param columnTypes 目标字段在数据库中的类型，与copy语句中的字段一一对应
+     */
+    public PostgresBinaryCopyWriter(
+            CopyManager copyManager, String copySql, List<String> columnTypes) {
+        this.copyManager = copyManager;
+        this.copySql = copySql;
+        this.encoders = new FieldEncoder[columnTypes.size()];
+        for (int i = 0; i < encoders.length; i++) {
+            encoders[i] = createEncoder(columnTypes.get(i));
+            if (encoders[i] == null) {
+                throw new IllegalArgumentException(
+                        "binary copy does not support type " + columnTypes.get(i));
+            }
+        }
+    }
+
+    /** 类型是否支持二进制编码 */
+    public static boolean isSupported(String columnType) {
+        return createEncoder(columnType) != null;
+    }
+
+    public boolean isActive() {
+        return copyIn != null;
+    }
+
+    /** 编码一行数据并写入COPY流，第一行写入时开始COPY */
+    public void writeRow(ColumnRowData row) throws IOException, SQLException {
+        if (copyIn == null) {
+            copyIn = copyManager.copyIn(copySql);
+            buffer.clear();
+            buffer.write(HEADER);
+        }
+        buffer.writeShort(encoders.length);
+        for (int i = 0; i < encoders.length; i++) {
+            AbstractBaseColumn column = row.getField(i);
+            if (column == null || column instanceof NullColumn) {
+                buffer.writeInt(-1);
+            } else {
+                encoders[i].encode(column, buffer);
+            }
+        }
+        if (buffer.length() >= FLUSH_BYTES) {
+            copyIn.writeToCopy(buffer.getSharedBuffer(), 0, buffer.length());
+            buffer.clear();
+        }
+    }
+
+    /**
+     * 结束COPY，提交本批数据
+     *
+     * @return 数据库写入的行数
+     */
+    public long endCopy() throws IOException, SQLException {
+        if (copyIn == null) {
+            return 0;
+        }
+        try {
+            buffer.writeShort(-1);
+            copyIn.writeToCopy(buffer.getSharedBuffer(), 0, buffer.length());
+            return copyIn.endCopy();
+        } finally {
+            buffer.clear();
+            copyIn = null;
+        }
+    }
+
+    /** 放弃当前COPY，已写入的数据不会生效 */
+    public void cancel() {
+        if (copyIn == null) {
+            return;
+        }
+        try {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        } catch (SQLException e) {
+            log.warn("cancel copy failed", e);
+        } finally {
+            buffer.clear();
+            copyIn = null;
+        }
+    }
+
+    private static FieldEncoder createEncoder(String columnType) {
+        if (columnType == null) {
+            return null;
+        }
+        switch (columnType.toLowerCase(Locale.ENGLISH)) {
+            case "bool":
+            case "boolean":
+                return (column, out) -> {
+                    out.writeInt(1);
+                    out.writeBoolean(column.asBoolean());
+                };
+            case "int2":
+            case "smallint":
+            case "smallserial":
+                return (column, out) -> {
+                    out.writeInt(2);
+                    out.writeShort(column.asShort());
+                };
+            case "int4":
+            case "integer":
+            case "serial":
+                return (column, out) -> {
+                    out.writeInt(4);
+                    out.writeInt(column.asInt());
+                };
+            case "int8":
+            case "bigint":
+            case "bigserial":
+                return (column, out) -> {
+                    out.writeInt(8);
+                    out.writeLong(column.asLong());
+                };
+            case "float4":
+            case "real":
+                return (column, out) -> {
+                    out.writeInt(4);
+                    out.writeFloat(column.asFloat());
+                };
+            case "float8":
+            case "double precision":
+                return (column, out) -> {
+                    out.writeInt(8);
+                    out.writeDouble(column.asDouble());
+                };
+            case "numeric":
+            case "decimal":
+                return (column, out) -> writeNumeric(column.asBigDecimal(), out);
+            case "varchar":
+            case "text":
+            case "bpchar":
+            case "char":
+            case "name":
+            case "json":
+                return (column, out) -> writeText(column.asString(), out, false);
+            case "jsonb":
+                return (column, out) -> writeText(column.asString(), out, true);
+            case "bytea":
+                return (column, out) -> {
+                    byte[] bytes = column.asBytes();
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                };
+            case "uuid":
+                return (column, out) -> {
+                    UUID uuid = UUID.fromString(column.asString());
+                    out.writeInt(16);
+                    out.writeLong(uuid.getMostSignificantBits());
+                    out.writeLong(uuid.getLeastSignificantBits());
+                };
+            case "date":
+                return (column, out) -> {
+                    out.writeInt(4);
+                    out.writeInt(
+                            (int) (column.asSqlDate().toLocalDate().toEpochDay() - PG_EPOCH_DAYS));
+                };
+            case "time":
+                return (column, out) -> {
+                    Time time = column.asTime();
+                    // Time#toLocalTime会丢掉毫秒
+                    long micros =
+                            time.toLocalTime().toSecondOfDay() * 1_000_000L
+                                    + Math.floorMod(time.getTime(), 1000L) * 1000L;
+                    out.writeInt(8);
+                    out.writeLong(micros);
+                };
+            case "timestamp":
+                return (column, out) -> {
+                    // 与setTimestamp一致，按JVM时区转换为本地时间
+                    LocalDateTime dateTime = column.asTimestamp().toLocalDateTime();
+                    out.writeInt(8);
+                    out.writeLong(
+                            toPgMicros(dateTime.toEpochSecond(ZoneOffset.UTC), dateTime.getNano()));
+                };
+            case "timestamptz":
+                return (column, out) -> {
+                    Timestamp timestamp = column.asTimestamp();
+                    Instant instant = timestamp.toInstant();
+                    out.writeInt(8);
+                    out.writeLong(toPgMicros(instant.getEpochSecond(), instant.getNano()));
+                };
+            default:
+                return null;
+        }
+    }
+
+    private static long toPgMicros(long epochSecond, int nano) {
+        return (epochSecond - PG_EPOCH_SECONDS) * 1_000_000L + nano / 1000;
+    }
+
+    private static void writeText(String value, DataOutputSerializer out, boolean jsonb)
+            throws IOException {
+        // pg 字符串里含有\u0000 会报错 ERROR: invalid byte sequence for encoding "UTF8": 0x00
+        if (value.indexOf('\u0000') >= 0) {
+            value = value.replace("\u0000", "");
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (jsonb) {
+            // jsonb的二进制格式以版本号1开头
+            out.writeInt(bytes.length + 1);
+            out.writeByte(1);
+        } else {
+            out.writeInt(bytes.length);
+        }
+        out.write(bytes);
+    }
+
+    /** numeric的二进制格式：ndigits、weight、sign、dscale，之后是ndigits个以10000为基数的数字，weight为第一个数字的10000次幂。 */
+    private static void writeNumeric(BigDecimal value, DataOutputSerializer out)
+            throws IOException {
+        if (value.scale() < 0) {
+            value = value.setScale(0);
+        }
+        int scale = value.scale();
+        String digits = value.unscaledValue().abs().toString();
+
+        String integerPart;
+        String fractionPart;
+        if (digits.length() > scale) {
+            integerPart = digits.substring(0, digits.length() - scale);
+            fractionPart = digits.substring(digits.length() - scale);
+        } else {
+            integerPart = "";
+            fractionPart = repeatZero(scale - digits.length()) + digits;
+        }
+        integerPart = repeatZero((4 - integerPart.length() % 4) % 4) + integerPart;
+        fractionPart = fractionPart + repeatZero((4 - fractionPart.length() % 4) % 4);
+
+        int integerGroups = integerPart.length() / 4;
+        int totalGroups = integerGroups + fractionPart.length() / 4;
+        short[] groups = new short[totalGroups];
+        for (int i = 0; i < integerGroups; i++) {
+            groups[i] = Short.parseShort(integerPart.substring(i * 4, i * 4 + 4));
+        }
+        for (int i = integerGroups; i < totalGroups; i++) {
+            int start = (i - integerGroups) * 4;
+            groups[i] = Short.parseShort(fractionPart.substring(start, start + 4));
+        }
+
+        int first = 0;
+        while (first < totalGroups && groups[first] == 0) {
+            first++;
+        }
+        int last = totalGroups;
+        while (last > first && groups[last - 1] == 0) {
+            last--;
+        }
+        int ndigits = last - first;
+        int weight = ndigits == 0 ? 0 : integerGroups - 1 - first;
+        boolean negative = value.unscaledValue().signum() < 0;
+
+        out.writeInt(8 + ndigits * 2);
+        out.writeShort(ndigits);
+        out.writeShort(weight);
+        out.writeShort(negative ? NUMERIC_NEG : NUMERIC_POS);
+        out.writeShort(scale);
+        for (int i = first; i < last; i++) {
+            out.writeShort(groups[i]);
+        }
+    }
+
+    private static String repeatZero(int count) {
+        if (count <= 0) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append('0');
+        }
+        return builder.toString();
+    }
+
+    @FunctionalInterface
+    private interface FieldEncoder {
+        /** 写入 长度 + 内容 */
+        void encode(AbstractBaseColumn column, DataOutputSerializer out) throws IOException;
+    }
+}
@@ -20,11 +20,13 @@ package com.dtstack.chunjun.connector.postgresql.sink;
 
 import com.dtstack.chunjun.connector.jdbc.converter.JdbcSyncConverter;
 import com.dtstack.chunjun.connector.jdbc.sink.JdbcOutputFormat;
+import com.dtstack.chunjun.connector.jdbc.util.JdbcUtil;
 import com.dtstack.chunjun.connector.postgresql.converter.PostgresqlSyncConverter;
 import com.dtstack.chunjun.connector.postgresql.dialect.PostgresqlDialect;
 import com.dtstack.chunjun.constants.ConstantValue;
 import com.dtstack.chunjun.element.ColumnRowData;
 import com.dtstack.chunjun.enums.EWriteMode;
+import com.dtstack.chunjun.enums.Semantic;
 import com.dtstack.chunjun.throwable.NoRestartException;
 import com.dtstack.chunjun.throwable.WriteRecordException;
 
@@ -34,6 +36,7 @@ import org.apache.flink.util.StringUtils;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.postgresql.copy.CopyManager;
 import org.postgresql.core.BaseConnection;
 
@@ -42,6 +45,8 @@ import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Slf4j
 public class PostgresOutputFormat extends JdbcOutputFormat {
@@ -56,6 +61,9 @@ public class PostgresOutputFormat extends JdbcOutputFormat {
     private boolean enableCopyMode = false;
     private String copySql = "";
     private static final String INSERT_SQL_MODE_TYPE = "copy";
+    /** 二进制格式的copy，数据到达时写入COPY流，flush时结束COPY */
+    private static final String INSERT_SQL_MODE_COPY_BINARY = "copyBinary";
+
     private static final String DEFAULT_FIELD_DELIMITER = "\001";
 
     private static final String DEFAULT_NULL_VALUE = "\002";
@@ -63,16 +71,29 @@ public class PostgresOutputFormat extends JdbcOutputFormat {
     /** 数据源类型信息 * */
     private final String dbType = DbType.POSTGRESQL.name();
 
+    private transient PostgresBinaryCopyWriter binaryCopyWriter;
+    /** rows中已写入COPY流的行数 */
+    private transient int streamedRows;
+    /** 写入COPY流失败后，本批剩余数据不再流式写入，由flush时的批量写失败转为单条写 */
+    private transient boolean streamFailed;
+
     @Override
     protected void openInternal(int taskNumber, int numTasks) {
         super.openInternal(taskNumber, numTasks);
         try {
             // check is use copy mode for insert
-            enableCopyMode = INSERT_SQL_MODE_TYPE.equalsIgnoreCase(jdbcConfig.getInsertSqlMode());
+            boolean copyBinary =
+                    INSERT_SQL_MODE_COPY_BINARY.equalsIgnoreCase(jdbcConfig.getInsertSqlMode());
+            enableCopyMode =
+                    copyBinary
+                            || INSERT_SQL_MODE_TYPE.equalsIgnoreCase(jdbcConfig.getInsertSqlMode());
             if (EWriteMode.INSERT.name().equalsIgnoreCase(jdbcConfig.getMode()) && enableCopyMode) {
                 copyManager = new CopyManager((BaseConnection) dbConn);
 
                 PostgresqlDialect pgDialect = (PostgresqlDialect) jdbcDialect;
+                if (copyBinary) {
+                    initBinaryCopyWriter(pgDialect);
+                }
                 copySql =
                         pgDialect.getCopyStatement(
                                 jdbcConfig.getSchema(),
@@ -100,9 +121,70 @@ public class PostgresOutputFormat extends JdbcOutputFormat {
         }
     }
 
+    /**
+     * 按目标表的字段类型创建二进制copy的写入器，存在不支持二进制编码的类型时使用文本格式的copy
+     *
+     * @param pgDialect dialect
+     */
+    private void initBinaryCopyWriter(PostgresqlDialect pgDialect) {
+        List<String> columnTypes;
+        try {
+            Pair<List<String>, List<String>> tableMetaData =
+                    JdbcUtil.getTableMetaData(
+                            null, jdbcConfig.getSchema(), jdbcConfig.getTable(), dbConn);
+            columnTypes = new ArrayList<>(columnNameList.size());
+            for (String columnName : columnNameList) {
+                int index = tableMetaData.getLeft().indexOf(columnName);
+                columnTypes.add(index < 0 ? null : tableMetaData.getRight().get(index));
+            }
+        } catch (Exception e) {
+            log.warn("can not get column types of target table, use text copy instead", e);
+            return;
+        }
+        for (int i = 0; i < columnTypes.size(); i++) {
+            if (!PostgresBinaryCopyWriter.isSupported(columnTypes.get(i))) {
+                log.warn(
+                        "binary copy does not support column [{}] with type [{}], use text copy instead",
+                        columnNameList.get(i),
+                        columnTypes.get(i));
+                return;
+            }
+        }
+        String copyBinarySql =
+                pgDialect.getCopyBinaryStatement(
+                        jdbcConfig.getSchema(),
+                        jdbcConfig.getTable(),
+                        columnNameList.toArray(new String[0]));
+        binaryCopyWriter = new PostgresBinaryCopyWriter(copyManager, copyBinarySql, columnTypes);
+        log.info("write sql:{}, column types:{}", copyBinarySql, columnTypes);
+    }
+
+    @Override
+    public synchronized void writeRecord(RowData rowData) {
+        // 数据到达时即写入COPY流，flush时只需结束COPY；flushEnable为false时数据需留在rows中等待checkpoint结束
+        if (binaryCopyWriter != null
+                && rowData instanceof ColumnRowData
+                && batchSize > 1
+                && flushEnable.get()
+                && !streamFailed
+                && streamedRows == rows.size()) {
+            try {
+                binaryCopyWriter.writeRow((ColumnRowData) rowData);
+                streamedRows++;
+            } catch (Exception e) {
+                log.warn("write row into binary copy failed, cancel current copy", e);
+                binaryCopyWriter.cancel();
+                streamFailed = true;
+            }
+        }
+        super.writeRecord(rowData);
+    }
+
     @Override
     protected void writeSingleRecordInternal(RowData row) throws WriteRecordException {
-        if (!enableCopyMode) {
+        if (binaryCopyWriter != null) {
+            writeSingleRecordWithBinaryCopy(row);
+        } else if (!enableCopyMode) {
             super.writeSingleRecordInternal(row);
         } else {
             if (rowConverter instanceof JdbcSyncConverter) {
@@ -128,9 +210,62 @@ public class PostgresOutputFormat extends JdbcOutputFormat {
         }
     }
 
+    private void writeSingleRecordWithBinaryCopy(RowData row) throws WriteRecordException {
+        if (!(row instanceof ColumnRowData)) {
+            throw new NoRestartException("copy mode only support data sync with out table");
+        }
+        try {
+            binaryCopyWriter.writeRow((ColumnRowData) row);
+            binaryCopyWriter.endCopy();
+            if (Semantic.EXACTLY_ONCE == semantic) {
+                rowsOfCurrentTransaction++;
+            } else {
+                JdbcUtil.commit(dbConn);
+            }
+        } catch (Exception e) {
+            binaryCopyWriter.cancel();
+            JdbcUtil.rollBack(dbConn);
+            processWriteException(e, 0, row);
+        }
+    }
+
+    private void writeMultipleRecordsWithBinaryCopy() throws Exception {
+        try {
+            if (streamFailed) {
+                throw new WriteRecordException("write rows into binary copy failed", null);
+            }
+            for (int i = streamedRows; i < rows.size(); i++) {
+                RowData row = rows.get(i);
+                if (!(row instanceof ColumnRowData)) {
+                    throw new NoRestartException("copy mode only support data sync with out table");
+                }
+                binaryCopyWriter.writeRow((ColumnRowData) row);
+            }
+            binaryCopyWriter.endCopy();
+            if (Semantic.EXACTLY_ONCE == semantic) {
+                rowsOfCurrentTransaction += rows.size();
+            } else {
+                JdbcUtil.commit(dbConn);
+            }
+        } catch (Exception e) {
+            log.warn(
+                    "write Multiple Records with binary copy error, start to rollback connection, row size = {}",
+                    rows.size(),
+                    e);
+            binaryCopyWriter.cancel();
+            JdbcUtil.rollBack(dbConn);
+            throw e;
+        } finally {
+            streamedRows = 0;
+            streamFailed = false;
+        }
+    }
+
     @Override
     protected void writeMultipleRecordsInternal() throws Exception {
-        if (!enableCopyMode) {
+        if (binaryCopyWriter != null) {
+            writeMultipleRecordsWithBinaryCopy();
+        } else if (!enableCopyMode) {
             super.writeMultipleRecordsInternal();
         } else {
             if (rowConverter instanceof JdbcSyncConverter) {
@@ -159,6 +294,14 @@ public class PostgresOutputFormat extends JdbcOutputFormat {
         }
     }
 
+    @Override
+    public void closeInternal() {
+        if (binaryCopyWriter != null) {
+            binaryCopyWriter.cancel();
+        }
+        super.closeInternal();
+    }
+
     private void appendColumn(
             ColumnRowData colRowData, int pos, StringBuilder rowStr, boolean isLast) {
         Object col = colRowData.getField(pos);
@@ -0,0 +1,349 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.postgresql.sink;
+
+import com.dtstack.chunjun.element.AbstractBaseColumn;
+import com.dtstack.chunjun.element.ColumnRowData;
+import com.dtstack.chunjun.element.column.BigDecimalColumn;
+import com.dtstack.chunjun.element.column.BooleanColumn;
+import com.dtstack.chunjun.element.column.BytesColumn;
+import com.dtstack.chunjun.element.column.NullColumn;
+import com.dtstack.chunjun.element.column.SqlDateColumn;
+import com.dtstack.chunjun.element.column.StringColumn;
+import com.dtstack.chunjun.element.column.TimeColumn;
+import com.dtstack.chunjun.element.column.TimestampColumn;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+
+public class PostgresBinaryCopyWriterTest {
+
+    private static final byte[] HEADER = {
+        'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0, 0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private final ByteArrayOutputStream copied = new ByteArrayOutputStream();
+    private CopyManager copyManager;
+    private CopyIn copyIn;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        copyManager = Mockito.mock(CopyManager.class);
+        copyIn = Mockito.mock(CopyIn.class);
+        Mockito.when(copyManager.copyIn(any(String.class))).thenReturn(copyIn);
+        Mockito.doAnswer(
+                        invocation -> {
+                            byte[] buf = invocation.getArgument(0);
+                            int off = invocation.getArgument(1);
+                            int len = invocation.getArgument(2);
+                            copied.write(buf, off, len);
+                            return null;
+                        })
+                .when(copyIn)
+                .writeToCopy(any(byte[].class), anyInt(), anyInt());
+        Mockito.when(copyIn.endCopy()).thenReturn(1L);
+    }
+
+    @Test
+    public void testStreamLayout() throws Exception {
+        PostgresBinaryCopyWriter writer =
+                new PostgresBinaryCopyWriter(
+                        copyManager, "COPY t FROM STDIN", Arrays.asList("int4", "text"));
+        assertFalse(writer.isActive());
+
+        writer.writeRow(row(new BigDecimalColumn(7), new NullColumn()));
+        assertTrue(writer.isActive());
+        assertEquals(1L, writer.endCopy());
+        assertFalse(writer.isActive());
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(expected);
+        out.write(HEADER);
+        out.writeShort(2);
+        out.writeInt(4);
+        out.writeInt(7);
+        out.writeInt(-1);
+        out.writeShort(-1);
+        assertArrayEquals(expected.toByteArray(), copied.toByteArray());
+        // nothing is copied when there are no rows
+        assertEquals(0L, writer.endCopy());
+        Mockito.verify(copyManager, Mockito.times(1)).copyIn("COPY t FROM STDIN");
+    }
+
+    @Test
+    public void testLargeBatchIsFlushedInChunks() throws Exception {
+        PostgresBinaryCopyWriter writer =
+                new PostgresBinaryCopyWriter(
+                        copyManager, "COPY t FROM STDIN", Collections.singletonList("text"));
+        char[] chars = new char[1000];
+        Arrays.fill(chars, 'x');
+        String value = new String(chars);
+        for (int i = 0; i < 200; i++) {
+            writer.writeRow(row(new StringColumn(value)));
+        }
+        writer.endCopy();
+
+        // header, 200 * (field count, length, value), trailer
+        assertEquals(HEADER.length + 200 * (2 + 4 + 1000) + 2, copied.size());
+        Mockito.verify(copyIn, Mockito.atLeast(3))
+                .writeToCopy(any(byte[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testFixedWidthTypes() throws Exception {
+        assertArrayEquals(
+                field(out -> out.writeBoolean(true)), encode("bool", new BooleanColumn(true)));
+        assertArrayEquals(
+                field(out -> out.writeShort(-2)), encode("int2", new BigDecimalColumn(-2)));
+        assertArrayEquals(
+                field(out -> out.writeInt(Integer.MIN_VALUE)),
+                encode("integer", new BigDecimalColumn(Integer.MIN_VALUE)));
+        assertArrayEquals(
+                field(out -> out.writeLong(Long.MAX_VALUE)),
+                encode("bigint", new BigDecimalColumn(Long.MAX_VALUE)));
+        assertArrayEquals(
+                field(out -> out.writeFloat(1.5f)), encode("real", new BigDecimalColumn(1.5f)));
+        assertArrayEquals(
+                field(out -> out.writeDouble(-0.25d)),
+                encode("double precision", new BigDecimalColumn(-0.25d)));
+
+        UUID uuid = UUID.randomUUID();
+        assertArrayEquals(
+                field(
+                        out -> {
+                            out.writeLong(uuid.getMostSignificantBits());
+                            out.writeLong(uuid.getLeastSignificantBits());
+                        }),
+                encode("uuid", new StringColumn(uuid.toString())));
+    }
+
+    @Test
+    public void testTextTypes() throws Exception {
+        byte[] utf8 = "中文\tok".getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(
+                field(out -> out.write(utf8)), encode("varchar", new StringColumn("中文\tok")));
+        // \u0000 is rejected by postgres, it is dropped
+        assertArrayEquals(
+                field(out -> out.write(utf8)), encode("text", new StringColumn("中\u0000文\tok")));
+        // jsonb starts with its version
+        assertArrayEquals(
+                field(
+                        out -> {
+                            out.writeByte(1);
+                            out.write("{\"a\":1}".getBytes(StandardCharsets.UTF_8));
+                        }),
+                encode("jsonb", new StringColumn("{\"a\":1}")));
+        assertArrayEquals(
+                field(out -> out.write(new byte[] {0, 1, (byte) 0xff})),
+                encode("bytea", new BytesColumn(new byte[] {0, 1, (byte) 0xff})));
+    }
+
+    @Test
+    public void testTemporalTypes() throws Exception {
+        // postgres counts from 2000-01-01
+        assertArrayEquals(
+                field(out -> out.writeInt(1)),
+                encode("date", new SqlDateColumn(Date.valueOf("2000-01-02"))));
+        assertArrayEquals(
+                field(out -> out.writeInt(-1)),
+                encode("date", new SqlDateColumn(Date.valueOf("1999-12-31"))));
+        assertArrayEquals(
+                field(out -> out.writeLong(3_723_456_000L)),
+                encode("time", new TimeColumn(new Time(Time.valueOf("01:02:03").getTime() + 456))));
+        assertArrayEquals(
+                field(out -> out.writeLong(123_456L)),
+                encode(
+                        "timestamp",
+                        new TimestampColumn(
+                                Timestamp.valueOf("2000-01-01 00:00:00.123456789"), 9)));
+        assertArrayEquals(
+                field(out -> out.writeLong(-1_000_000L)),
+                encode(
+                        "timestamp",
+                        new TimestampColumn(Timestamp.valueOf("1999-12-31 23:59:59"), 0)));
+        assertArrayEquals(
+                field(out -> out.writeLong(1_500_000L)),
+                encode(
+                        "timestamptz",
+                        new TimestampColumn(
+                                Timestamp.from(Instant.parse("2000-01-01T00:00:01.5Z")), 3)));
+    }
+
+    @Test
+    public void testNumeric() throws Exception {
+        // ndigits, weight, sign, dscale, base 10000 digits
+        assertNumeric("0", 0, 0, 0x0000, 0);
+        assertNumeric("0.000", 0, 0, 0x0000, 3);
+        assertNumeric("1", 1, 0, 0x0000, 0, 1);
+        assertNumeric("-1.5", 2, 0, 0x4000, 1, 1, 5000);
+        assertNumeric("10000", 1, 1, 0x0000, 0, 1);
+        assertNumeric("0.0001", 1, -1, 0x0000, 4, 1);
+        assertNumeric("0.00001", 1, -2, 0x0000, 5, 1000);
+        assertNumeric("-12345678.9", 3, 1, 0x4000, 1, 1234, 5678, 9000);
+        // negative scale is written with scale 0
+        assertNumeric("1.2E+5", 1, 1, 0x0000, 0, 12);
+        assertNumeric("-5E+8", 1, 2, 0x4000, 0, 5);
+        assertNumeric(
+                "123456789012345678901234567890.000000000123",
+                11,
+                7,
+                0x0000,
+                12,
+                12,
+                3456,
+                7890,
+                1234,
+                5678,
+                9012,
+                3456,
+                7890,
+                0,
+                0,
+                123);
+    }
+
+    @Test
+    public void testNumericRoundTrip() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            BigInteger unscaled = new BigInteger(1 + random.nextInt(200), random);
+            if (random.nextBoolean()) {
+                unscaled = unscaled.negate();
+            }
+            BigDecimal value = new BigDecimal(unscaled, random.nextInt(60) - 20);
+            BigDecimal decoded = decodeNumeric(encode("numeric", new BigDecimalColumn(value)));
+            assertEquals(0, value.compareTo(decoded), value.toString());
+            assertEquals(Math.max(0, value.scale()), decoded.scale(), value.toString());
+        }
+    }
+
+    @Test
+    public void testUnsupportedType() {
+        assertFalse(PostgresBinaryCopyWriter.isSupported("interval"));
+        assertFalse(PostgresBinaryCopyWriter.isSupported(null));
+        assertTrue(PostgresBinaryCopyWriter.isSupported("TIMESTAMPTZ"));
+        assertThrows(
+                IllegalArgumentException.class,
+                () ->
+                        new PostgresBinaryCopyWriter(
+                                copyManager,
+                                "COPY t FROM STDIN",
+                                Collections.singletonList("point")));
+    }
+
+    private void assertNumeric(
+            String value, int ndigits, int weight, int sign, int dscale, int... digits)
+            throws Exception {
+        byte[] expected =
+                field(
+                        out -> {
+                            out.writeShort(ndigits);
+                            out.writeShort(weight);
+                            out.writeShort(sign);
+                            out.writeShort(dscale);
+                            for (int digit : digits) {
+                                out.writeShort(digit);
+                            }
+                        });
+        assertArrayEquals(
+                expected, encode("numeric", new BigDecimalColumn(new BigDecimal(value))), value);
+    }
+
+    /** Reads a numeric field back the way postgres does. */
+    private static BigDecimal decodeNumeric(byte[] field) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(field));
+        assertEquals(field.length - 4, in.readInt());
+        int ndigits = in.readShort();
+        int weight = in.readShort();
+        int sign = in.readShort();
+        int dscale = in.readShort();
+        BigDecimal value = BigDecimal.ZERO;
+        for (int i = 0; i < ndigits; i++) {
+            int digit = in.readShort();
+            assertTrue(digit >= 0 && digit < 10000);
+            value = value.add(BigDecimal.valueOf(digit).scaleByPowerOfTen(4 * (weight - i)));
+        }
+        value = value.setScale(dscale);
+        return sign == 0x4000 ? value.negate() : value;
+    }
+
+    /** Encodes one value and returns its length-prefixed field. */
+    private byte[] encode(String type, AbstractBaseColumn column) throws Exception {
+        copied.reset();
+        PostgresBinaryCopyWriter writer =
+                new PostgresBinaryCopyWriter(
+                        copyManager, "COPY t FROM STDIN", Collections.singletonList(type));
+        writer.writeRow(row(column));
+        writer.endCopy();
+        byte[] bytes = copied.toByteArray();
+        // header, field count, ..., trailer
+        return Arrays.copyOfRange(bytes, HEADER.length + 2, bytes.length - 2);
+    }
+
+    private static byte[] field(FieldWriter writer) throws IOException {
+        ByteArrayOutputStream value = new ByteArrayOutputStream();
+        writer.write(new DataOutputStream(value));
+        ByteArrayOutputStream field = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(field);
+        out.writeInt(value.size());
+        out.write(value.toByteArray());
+        return field.toByteArray();
+    }
+
+    private static ColumnRowData row(AbstractBaseColumn... columns) {
+        ColumnRowData row = new ColumnRowData(columns.length);
+        for (AbstractBaseColumn column : columns) {
+            row.addField(column);
+        }
+        return row;
+    }
+
+    @FunctionalInterface
+    private interface FieldWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -98,4 +98,9 @@ public class RedisConfig extends CommonConfig {
     private int minIdle;
     /** primary key */
     private List<String> updateKey;
+    /**
+     * Number of keys asked for by each SCAN call of the reader, their values are read in one
+     * pipeline
+     */
+    private int scanCount = 1000;
 }
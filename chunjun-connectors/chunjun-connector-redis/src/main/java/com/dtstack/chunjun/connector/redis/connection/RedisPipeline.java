@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.redis.connection;
+
+import redis.clients.jedis.MultiNodePipelineBase;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.commands.PipelineCommands;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Queues the commands of rows into a jedis pipeline and sends them in one round trip, a cluster
+ * pipeline groups the commands by the node owning the slot of their key. The replies are kept in
+ * order so that an error can be traced back to the row that issued the command.
+ *
+ * <p>Write commands are staged until {@link #commitRow()}, so a row whose conversion fails halfway
+ * can be dropped with {@link #discardRow()} instead of being partially written.
+ */
+public class RedisPipeline implements Closeable {
+
+    private final PipelineCommands commands;
+
+    private final List<Response<?>> responses = new ArrayList<>();
+
+    /** write commands of the current row, not yet queued into the pipeline */
+    private final List<Function<PipelineCommands, Response<?>>> staged = new ArrayList<>();
+
+    public RedisPipeline(PipelineCommands commands) {
+        this.commands = commands;
+    }
+
+    public void set(String key, String value) {
+        staged.add(c -> c.set(key, value));
+    }
+
+    public void lpush(String key, String... values) {
+        staged.add(c -> c.lpush(key, values));
+    }
+
+    public void rpush(String key, String... values) {
+        staged.add(c -> c.rpush(key, values));
+    }
+
+    public void sadd(String key, String... members) {
+        staged.add(c -> c.sadd(key, members));
+    }
+
+    public void zadd(String key, double score, String member) {
+        staged.add(c -> c.zadd(key, score, member));
+    }
+
+    public void hset(String key, String field, String value) {
+        staged.add(c -> c.hset(key, field, value));
+    }
+
+    public Response<Map<String, String>> hgetAll(String key) {
+        Response<Map<String, String>> response = commands.hgetAll(key);
+        responses.add(response);
+        return response;
+    }
+
+    public void expire(String key, long seconds) {
+        staged.add(c -> c.expire(key, seconds));
+    }
+
+    public void expireAt(String key, long unixTime) {
+        staged.add(c -> c.expireAt(key, unixTime));
+    }
+
+    /** Queue the staged commands of the current row into the pipeline. */
+    public void commitRow() {
+        for (Function<PipelineCommands, Response<?>> command : staged) {
+            responses.add(command.apply(commands));
+        }
+        staged.clear();
+    }
+
+    /** Drop the staged commands of the current row, nothing of it is sent. */
+    public void discardRow() {
+        staged.clear();
+    }
+
+    /** The number of queued commands, which is the position of the next command. */
+    public int size() {
+        return responses.size();
+    }
+
+    /** Send the queued commands and read all replies. */
+    public void sync() {
+        if (commands instanceof Pipeline) {
+            ((Pipeline) commands).sync();
+        } else {
+            ((MultiNodePipelineBase) commands).sync();
+        }
+    }
+
+    /**
+     * Get the first error replied to the commands in [from, to), must be called after {@link
+     * #sync()}.
+     *
+     * @return the error, or null if all of these commands succeeded
+     */
+    public JedisDataException getError(int from, int to) {
+        for (int i = from; i < to; i++) {
+            try {
+                responses.get(i).get();
+            } catch (JedisDataException e) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        responses.clear();
+        staged.clear();
+        ((Closeable) commands).close();
+    }
+}
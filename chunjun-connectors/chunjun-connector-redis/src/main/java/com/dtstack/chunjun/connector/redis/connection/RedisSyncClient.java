@@ -24,20 +24,27 @@ import com.dtstack.chunjun.util.ExceptionUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.ClusterPipeline;
 import redis.clients.jedis.Connection;
+import redis.clients.jedis.DefaultJedisClientConfig;
 import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
 import redis.clients.jedis.JedisSentinelPool;
+import redis.clients.jedis.Protocol;
 import redis.clients.jedis.commands.JedisCommands;
 import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.providers.ClusterConnectionProvider;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -52,6 +59,12 @@ public class RedisSyncClient {
 
     private JedisSentinelPool jedisSentinelPool;
 
+    /**
+     * Connections to the cluster nodes used by pipelines and node scans, a pipeline routes each
+     * command to the node of its slot
+     */
+    private ClusterConnectionProvider clusterConnectionProvider;
+
     private final RedisConfig redisConfig;
 
     public RedisSyncClient(RedisConfig redisConfig) {
@@ -103,23 +116,9 @@ public class RedisSyncClient {
                 jedis = jedisSentinelPool.getResource();
                 break;
             case CLUSTER:
-                Set<HostAndPort> addresses = new HashSet<>();
-                // 对ipv6 支持
-                for (String node : nodes) {
-                    Matcher matcher = REDIS_HOST_PATTERN.defaultValue().matcher(node);
-                    if (matcher.find()) {
-                        String host = matcher.group("host").trim();
-                        String portStr = matcher.group("port").trim();
-                        if (StringUtils.isNotBlank(host) && StringUtils.isNotBlank(portStr)) {
-                            // 转化为int格式的端口
-                            int port = Integer.parseInt(portStr);
-                            addresses.add(new HostAndPort(host, port));
-                        }
-                    }
-                }
                 jedis =
                         new JedisCluster(
-                                addresses,
+                                getClusterNodes(nodes),
                                 redisConfig.getTimeout(),
                                 redisConfig.getTimeout(),
                                 10,
@@ -134,6 +133,81 @@ public class RedisSyncClient {
         return jedis;
     }
 
+    private Set<HostAndPort> getClusterNodes(String[] nodes) {
+        Set<HostAndPort> addresses = new HashSet<>();
+        // 对ipv6 支持
+        for (String node : nodes) {
+            Matcher matcher = REDIS_HOST_PATTERN.defaultValue().matcher(node);
+            if (matcher.find()) {
+                String host = matcher.group("host").trim();
+                String portStr = matcher.group("port").trim();
+                if (StringUtils.isNotBlank(host) && StringUtils.isNotBlank(portStr)) {
+                    // 转化为int格式的端口
+                    int port = Integer.parseInt(portStr);
+                    addresses.add(new HostAndPort(host, port));
+                }
+            }
+        }
+        return addresses;
+    }
+
+    /**
+     * open a pipeline for the jedis client, in cluster mode the commands are grouped by the node
+     * owning the slot of their key
+     *
+     * @param jedis
+     * @return
+     */
+    public RedisPipeline pipelined(JedisCommands jedis) {
+        if (jedis instanceof Jedis) {
+            return new RedisPipeline(((Jedis) jedis).pipelined());
+        }
+        return new RedisPipeline(new ClusterPipeline(getClusterConnectionProvider()));
+    }
+
+    /**
+     * get the master nodes serving the hash slots of the cluster
+     *
+     * @return host:port of the master nodes
+     */
+    public List<String> getClusterMasterNodes() {
+        ClusterConnectionProvider provider = getClusterConnectionProvider();
+        Set<String> masters = new LinkedHashSet<>();
+        for (int slot = 0; slot < Protocol.CLUSTER_HASHSLOTS; slot++) {
+            HostAndPort node = provider.getNode(slot);
+            if (node != null) {
+                masters.add(node.toString());
+            }
+        }
+        return new ArrayList<>(masters);
+    }
+
+    /**
+     * get a client connected to one node of the cluster, SCAN and pipelines of this client only
+     * cover the keys stored on that node
+     *
+     * @param node host:port of the node
+     * @return
+     */
+    public Jedis getClusterNodeJedis(String node) {
+        return new Jedis(getClusterConnectionProvider().getConnection(HostAndPort.from(node)));
+    }
+
+    private ClusterConnectionProvider getClusterConnectionProvider() {
+        if (clusterConnectionProvider == null) {
+            clusterConnectionProvider =
+                    new ClusterConnectionProvider(
+                            getClusterNodes(StringUtils.split(redisConfig.getHostPort(), ",")),
+                            DefaultJedisClientConfig.builder()
+                                    .connectionTimeoutMillis(redisConfig.getTimeout())
+                                    .socketTimeoutMillis(redisConfig.getTimeout())
+                                    .password(redisConfig.getPassword())
+                                    .build(),
+                            getObjectConfig());
+        }
+        return clusterConnectionProvider;
+    }
+
     /**
      * test jedis client whether is in active or not,if not,close and get a new jedis client
      *
@@ -197,6 +271,9 @@ public class RedisSyncClient {
 
     public void close(JedisCommands jedis) {
         try {
+            if (clusterConnectionProvider != null) {
+                clusterConnectionProvider.close();
+            }
             if (jedis != null && ((Jedis) jedis).isConnected()) {
                 ((Closeable) jedis).close();
             }
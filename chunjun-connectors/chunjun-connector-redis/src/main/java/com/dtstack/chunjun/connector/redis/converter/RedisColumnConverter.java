@@ -20,6 +20,7 @@ package com.dtstack.chunjun.connector.redis.converter;
 
 import com.dtstack.chunjun.config.FieldConfig;
 import com.dtstack.chunjun.connector.redis.config.RedisConfig;
+import com.dtstack.chunjun.connector.redis.connection.RedisPipeline;
 import com.dtstack.chunjun.connector.redis.enums.RedisDataMode;
 import com.dtstack.chunjun.connector.redis.enums.RedisDataType;
 import com.dtstack.chunjun.converter.AbstractRowConverter;
@@ -34,7 +35,6 @@ import org.apache.flink.table.types.logical.LogicalType;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
-import redis.clients.jedis.Jedis;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -46,7 +46,8 @@ import java.util.Objects;
 import static com.dtstack.chunjun.connector.redis.options.RedisOptions.REDIS_CRITICAL_TIME;
 import static com.dtstack.chunjun.connector.redis.options.RedisOptions.REDIS_KEY_VALUE_SIZE;
 
-public class RedisColumnConverter extends AbstractRowConverter<Object, Object, Jedis, LogicalType> {
+public class RedisColumnConverter
+        extends AbstractRowConverter<Object, Object, RedisPipeline, LogicalType> {
 
     private static final long serialVersionUID = 3573774552923872927L;
 
@@ -91,7 +92,7 @@ public class RedisColumnConverter extends AbstractRowConverter<Object, Object, J
     }
 
     @Override
-    public Jedis toExternal(RowData rowData, Jedis jedis) {
+    public RedisPipeline toExternal(RowData rowData, RedisPipeline pipeline) {
         ColumnRowData row = (ColumnRowData) rowData;
         processTimeFormat(row);
         String key = concatKey(row);
@@ -100,31 +101,31 @@ public class RedisColumnConverter extends AbstractRowConverter<Object, Object, J
         RedisDataMode mode = redisConfig.getMode();
 
         if (type == RedisDataType.STRING) {
-            jedis.set(key, concatValues(row));
+            pipeline.set(key, concatValues(row));
         } else if (type == RedisDataType.LIST) {
             if (mode == RedisDataMode.L_PUSH) {
-                jedis.lpush(key, values);
+                pipeline.lpush(key, values);
             } else if (mode == RedisDataMode.R_PUSH) {
-                jedis.rpush(key, values);
+                pipeline.rpush(key, values);
             }
         } else if (type == RedisDataType.SET) {
-            jedis.sadd(key, values);
+            pipeline.sadd(key, values);
         } else if (type == RedisDataType.Z_SET) {
             List<Object> scoreValue = getFieldAndValue(row);
-            jedis.zadd(key, (Integer) scoreValue.get(0), String.valueOf(scoreValue.get(1)));
+            pipeline.zadd(key, (Integer) scoreValue.get(0), String.valueOf(scoreValue.get(1)));
         } else if (type == RedisDataType.HASH) {
             key = concatHashKey(row);
-            hashWrite(row, key, jedis);
+            hashWrite(row, key, pipeline);
         }
 
         if (redisConfig.getExpireTime() > 0) {
             if (redisConfig.getExpireTime() > REDIS_CRITICAL_TIME.defaultValue()) {
-                jedis.expireAt(key, redisConfig.getExpireTime());
+                pipeline.expireAt(key, redisConfig.getExpireTime());
             } else {
-                jedis.expire(key, (int) redisConfig.getExpireTime());
+                pipeline.expire(key, (int) redisConfig.getExpireTime());
             }
         }
-        return jedis;
+        return pipeline;
     }
 
     private void processTimeFormat(ColumnRowData row) {
@@ -211,18 +212,19 @@ public class RedisColumnConverter extends AbstractRowConverter<Object, Object, J
         return keyBuilder.append(concatKey(row)).toString();
     }
 
-    private void hashWrite(ColumnRowData row, String key, Jedis jedis) {
+    private void hashWrite(ColumnRowData row, String key, RedisPipeline pipeline) {
         if (CollectionUtils.isNotEmpty(redisConfig.getColumn())) {
             for (int index : fieldIndex) {
                 FieldConfig fieldConfig = redisConfig.getColumn().get(index);
                 String field = fieldConfig.getName();
                 if (row.getField(index) != null) {
-                    jedis.hset(key, field, row.getField(index).asString());
+                    pipeline.hset(key, field, row.getField(index).asString());
                 }
             }
         } else {
             List<Object> fieldValue = getFieldAndValue(row);
-            jedis.hset(key, String.valueOf(fieldValue.get(0)), String.valueOf(fieldValue.get(1)));
+            pipeline.hset(
+                    key, String.valueOf(fieldValue.get(0)), String.valueOf(fieldValue.get(1)));
         }
     }
 }
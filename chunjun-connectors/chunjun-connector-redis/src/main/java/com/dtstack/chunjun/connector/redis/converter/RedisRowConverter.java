@@ -19,6 +19,7 @@
 package com.dtstack.chunjun.connector.redis.converter;
 
 import com.dtstack.chunjun.connector.redis.config.RedisConfig;
+import com.dtstack.chunjun.connector.redis.connection.RedisPipeline;
 import com.dtstack.chunjun.converter.AbstractRowConverter;
 import com.dtstack.chunjun.converter.IDeserializationConverter;
 import com.dtstack.chunjun.converter.ISerializationConverter;
@@ -34,8 +35,6 @@ import org.apache.flink.table.types.logical.LogicalTypeRoot;
 import org.apache.flink.table.types.logical.RowType;
 import org.apache.flink.table.types.logical.TimestampType;
 
-import redis.clients.jedis.commands.JedisCommands;
-
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -52,7 +51,7 @@ import java.util.stream.Collectors;
 
 public class RedisRowConverter
         extends AbstractRowConverter<
-                Map<String, String>, Map<String, String>, JedisCommands, LogicalType> {
+                Map<String, String>, Map<String, String>, RedisPipeline, LogicalType> {
 
     private static final long serialVersionUID = -276443152802654355L;
 
@@ -125,7 +124,7 @@ public class RedisRowConverter
     }
 
     @Override
-    public JedisCommands toExternal(RowData rowData, JedisCommands jedis) throws Exception {
+    public RedisPipeline toExternal(RowData rowData, RedisPipeline pipeline) throws Exception {
         List<String> fieldNames = rowType.getFieldNames();
         List<Object> fieldValue = new ArrayList<>();
         for (int index = 0; index < fieldTypes.length; index++) {
@@ -138,12 +137,12 @@ public class RedisRowConverter
                     collect.put(key, fieldValue.get(fieldNames.indexOf(key)));
                 });
         String key = buildCacheKey(collect);
-        collect.forEach((field, value) -> jedis.hset(key, field, String.valueOf(value)));
+        collect.forEach((field, value) -> pipeline.hset(key, field, String.valueOf(value)));
 
         if (redisConfig.getExpireTime() != 0) {
-            jedis.expire(key, (int) redisConfig.getExpireTime());
+            pipeline.expire(key, (int) redisConfig.getExpireTime());
         }
-        return jedis;
+        return pipeline;
     }
 
     private String buildCacheKey(Map<String, Object> refData) {
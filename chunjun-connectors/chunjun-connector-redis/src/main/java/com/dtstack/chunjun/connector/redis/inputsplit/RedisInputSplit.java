@@ -22,22 +22,23 @@ import org.apache.flink.core.io.GenericInputSplit;
 
 import java.util.List;
 
+/**
+ * A part of the keyspace to scan: the keys stored on the given cluster nodes, or on the single node
+ * when the list is empty.
+ */
 public class RedisInputSplit extends GenericInputSplit {
 
     private static final long serialVersionUID = 5305567367658268144L;
 
-    private List<String> key;
+    /** host:port of the cluster nodes to scan, empty in standalone and sentinel mode */
+    private final List<String> nodes;
 
-    public RedisInputSplit(int partitionNumber, int totalNumberOfPartitions, List<String> key) {
+    public RedisInputSplit(int partitionNumber, int totalNumberOfPartitions, List<String> nodes) {
         super(partitionNumber, totalNumberOfPartitions);
-        this.key = key;
-    }
-
-    public List<String> getKey() {
-        return key;
+        this.nodes = nodes;
     }
 
-    public void setKey(List<String> key) {
-        this.key = key;
+    public List<String> getNodes() {
+        return nodes;
     }
 }
@@ -19,6 +19,7 @@
 package com.dtstack.chunjun.connector.redis.sink;
 
 import com.dtstack.chunjun.connector.redis.config.RedisConfig;
+import com.dtstack.chunjun.connector.redis.connection.RedisPipeline;
 import com.dtstack.chunjun.connector.redis.connection.RedisSyncClient;
 import com.dtstack.chunjun.sink.format.BaseRichOutputFormat;
 import com.dtstack.chunjun.throwable.WriteRecordException;
@@ -28,6 +29,7 @@ import org.apache.flink.table.data.RowData;
 import lombok.extern.slf4j.Slf4j;
 import redis.clients.jedis.commands.JedisCommands;
 import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
 
 @Slf4j
 public class RedisOutputFormat extends BaseRichOutputFormat {
@@ -59,19 +61,61 @@ public class RedisOutputFormat extends BaseRichOutputFormat {
 
     private void writeSingleRecordWithRetry(RowData rowData) throws Exception {
         try {
-            rowConverter.toExternal(rowData, jedis);
+            writePipelined(rowData);
         } catch (JedisConnectionException e) {
             // JedisConnectionException may be caused by jedis time out ,retry to get jedis from
             // pool
             log.error("retry get redis once");
             jedis = redisSyncClient.testTimeout(jedis, TEST_KEY);
-            rowConverter.toExternal(rowData, jedis);
+            writePipelined(rowData);
+        }
+    }
+
+    /** send the commands of one row, including the expire command, in one round trip */
+    private void writePipelined(RowData rowData) throws Exception {
+        try (RedisPipeline pipeline = redisSyncClient.pipelined(jedis)) {
+            rowConverter.toExternal(rowData, pipeline);
+            pipeline.commitRow();
+            pipeline.sync();
+            JedisDataException error = pipeline.getError(0, pipeline.size());
+            if (error != null) {
+                throw error;
+            }
         }
     }
 
     @Override
-    protected void writeMultipleRecordsInternal() {
-        throw new UnsupportedOperationException();
+    protected void writeMultipleRecordsInternal() throws Exception {
+        // the commands of row i are in [offsets[i], offsets[i + 1]) of the pipeline
+        int[] offsets = new int[rows.size() + 1];
+        try (RedisPipeline pipeline = redisSyncClient.pipelined(jedis)) {
+            for (int i = 0; i < rows.size(); i++) {
+                offsets[i] = pipeline.size();
+                try {
+                    rowConverter.toExternal(rows.get(i), pipeline);
+                    pipeline.commitRow();
+                } catch (Exception e) {
+                    // drop the commands this row staged before failing, it is not written at all
+                    pipeline.discardRow();
+                    dirtyManager.collect(
+                            rows.get(i),
+                            new WriteRecordException("writer data error", e, 0, rows.get(i)),
+                            null);
+                }
+            }
+            offsets[rows.size()] = pipeline.size();
+            pipeline.sync();
+
+            for (int i = 0; i < rows.size(); i++) {
+                JedisDataException error = pipeline.getError(offsets[i], offsets[i + 1]);
+                if (error != null) {
+                    dirtyManager.collect(
+                            rows.get(i),
+                            new WriteRecordException("writer data error", error, 0, rows.get(i)),
+                            null);
+                }
+            }
+        }
     }
 
     @Override
@@ -19,79 +19,105 @@
 package com.dtstack.chunjun.connector.redis.source;
 
 import com.dtstack.chunjun.connector.redis.config.RedisConfig;
+import com.dtstack.chunjun.connector.redis.connection.RedisPipeline;
 import com.dtstack.chunjun.connector.redis.connection.RedisSyncClient;
+import com.dtstack.chunjun.connector.redis.enums.RedisConnectType;
 import com.dtstack.chunjun.connector.redis.inputsplit.RedisInputSplit;
-import com.dtstack.chunjun.connector.redis.util.RedisUtil;
 import com.dtstack.chunjun.source.format.BaseRichInputFormat;
 import com.dtstack.chunjun.throwable.ReadRecordException;
 
 import org.apache.flink.core.io.InputSplit;
 import org.apache.flink.table.data.RowData;
 
-import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
-import org.apache.commons.lang3.StringUtils;
-import redis.clients.jedis.commands.JedisCommands;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
+/**
+ * Reads the hashes matching the key pattern by SCAN, so the keys are never listed up front. Each
+ * split scans its own cluster nodes and the values of every scanned page are read with one pipeline
+ * of HGETALL.
+ *
+ * <p>A SCAN cursor cannot be divided, splits sharing a node would each walk the whole node and drop
+ * the keys of the others. So a standalone or sentinel instance is read by a single split, and a
+ * cluster by at most one split per master node.
+ */
 public class RedisInputFormat extends BaseRichInputFormat {
     private static final long serialVersionUID = 88062910932514147L;
     private transient RedisSyncClient redisSyncClient;
 
-    private transient Iterator<String> keyIterator;
     private RedisConfig redisConfig;
-    private JedisCommands jedis;
+    private transient Jedis jedis;
+
+    private transient RedisInputSplit inputSplit;
+    private transient ScanParams scanParams;
+    /** index of the node scanned right now in the nodes of the split */
+    private transient int nodeIndex;
+    /** SCAN cursor of the current node, null when the node has been scanned through */
+    private transient String cursor;
+
+    private transient Iterator<Response<Map<String, String>>> valueIterator;
 
     @Override
     protected InputSplit[] createInputSplitsInternal(int minNumSplits) {
+        if (redisConfig.getRedisConnectType() != RedisConnectType.CLUSTER) {
+            return new RedisInputSplit[] {new RedisInputSplit(0, 1, Collections.emptyList())};
+        }
+
+        List<String> masters;
         redisSyncClient = new RedisSyncClient(redisConfig);
-        jedis = redisSyncClient.getJedis();
-        Set<String> keys = Sets.newHashSet();
-        if (StringUtils.isNotBlank(redisConfig.getKeyPrefix())) {
-            keys.addAll(
-                    RedisUtil.getRedisKeys(
-                            redisConfig.getRedisConnectType(), jedis, redisConfig.getKeyPrefix()));
+        try {
+            masters = redisSyncClient.getClusterMasterNodes();
+        } finally {
+            redisSyncClient.close(null);
         }
-        Iterator<String> iterator = keys.iterator();
-        RedisInputSplit[] inputSplits = new RedisInputSplit[minNumSplits];
-        if (keys.size() == 0) {
-            throw new RuntimeException("There is no" + redisConfig.getKeyPrefix() + "with key");
+        if (masters.isEmpty()) {
+            throw new RuntimeException(
+                    "There is no master node in redis cluster " + redisConfig.getHostPort());
         }
-        int keySplitCount = keys.size() / minNumSplits;
-        for (int i = 0; i < inputSplits.length; i++) {
-            List<String> list = Lists.newLinkedList();
-            for (int j = 0; j < keySplitCount && iterator.hasNext(); j++) {
-                list.add(iterator.next());
-            }
-            inputSplits[i] = new RedisInputSplit(i, minNumSplits, list);
+
+        // at most one split per master, a split may scan several masters
+        int numSplits = Math.max(1, Math.min(minNumSplits, masters.size()));
+        List<List<String>> nodes = new ArrayList<>(numSplits);
+        for (int i = 0; i < numSplits; i++) {
+            nodes.add(new ArrayList<>());
+        }
+        for (int i = 0; i < masters.size(); i++) {
+            nodes.get(i % numSplits).add(masters.get(i));
         }
-        while (iterator.hasNext()) {
-            inputSplits[minNumSplits - 1].getKey().add(iterator.next());
+        RedisInputSplit[] inputSplits = new RedisInputSplit[numSplits];
+        for (int i = 0; i < numSplits; i++) {
+            inputSplits[i] = new RedisInputSplit(i, numSplits, nodes.get(i));
         }
-        redisSyncClient.close(jedis);
         return inputSplits;
     }
 
     @Override
     protected void openInternal(InputSplit inputSplit) {
-        RedisInputSplit redisInputSplit = (RedisInputSplit) inputSplit;
+        this.inputSplit = (RedisInputSplit) inputSplit;
         redisSyncClient = new RedisSyncClient(redisConfig);
-        jedis = redisSyncClient.getJedis();
-        keyIterator = redisInputSplit.getKey().iterator();
+        scanParams =
+                new ScanParams()
+                        .match(redisConfig.getKeyPrefix())
+                        .count(redisConfig.getScanCount());
+        nodeIndex = -1;
+        cursor = null;
+        valueIterator = Collections.emptyIterator();
     }
 
     @Override
     protected RowData nextRecordInternal(RowData rowData) throws ReadRecordException {
-        if (!keyIterator.hasNext()) {
-            return null;
-        }
-        Map<String, String> map = jedis.hgetAll(keyIterator.next());
         try {
-            return rowConverter.toInternal(map);
+            return rowConverter.toInternal(valueIterator.next().get());
         } catch (Exception e) {
             throw new ReadRecordException("", e, 0, rowData);
         }
@@ -99,12 +125,72 @@ public class RedisInputFormat extends BaseRichInputFormat {
 
     @Override
     protected void closeInternal() {
-        redisSyncClient.close(jedis);
+        if (redisSyncClient != null) {
+            redisSyncClient.closeJedis(jedis);
+            redisSyncClient.close(null);
+            jedis = null;
+        }
     }
 
     @Override
-    public boolean reachedEnd() {
-        return !keyIterator.hasNext();
+    public boolean reachedEnd() throws IOException {
+        while (!valueIterator.hasNext()) {
+            if (!fetchNextPage()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * scan the next page of keys and read the values of the keys in this split
+     *
+     * @return false if all nodes of the split have been scanned through
+     */
+    private boolean fetchNextPage() throws IOException {
+        if (cursor == null && !nextNode()) {
+            return false;
+        }
+        ScanResult<String> scanResult = jedis.scan(cursor, scanParams);
+        cursor = scanResult.isCompleteIteration() ? null : scanResult.getCursor();
+
+        List<Response<Map<String, String>>> responses = new ArrayList<>();
+        try (RedisPipeline pipeline = redisSyncClient.pipelined(jedis)) {
+            for (String key : scanResult.getResult()) {
+                responses.add(pipeline.hgetAll(key));
+            }
+            if (!responses.isEmpty()) {
+                pipeline.sync();
+            }
+        }
+        // keys removed or expired since they were scanned come back as empty hashes
+        responses.removeIf(this::isEmpty);
+        valueIterator = responses.iterator();
+        return true;
+    }
+
+    private boolean nextNode() {
+        List<String> nodes = inputSplit.getNodes();
+        if (++nodeIndex >= Math.max(nodes.size(), 1)) {
+            return false;
+        }
+        if (nodes.isEmpty()) {
+            jedis = (Jedis) redisSyncClient.getJedis();
+        } else {
+            redisSyncClient.closeJedis(jedis);
+            jedis = redisSyncClient.getClusterNodeJedis(nodes.get(nodeIndex));
+        }
+        cursor = ScanParams.SCAN_POINTER_START;
+        return true;
+    }
+
+    private boolean isEmpty(Response<Map<String, String>> response) {
+        try {
+            return response.get().isEmpty();
+        } catch (JedisDataException e) {
+            // not a hash, leave the error to nextRecordInternal
+            return false;
+        }
     }
 
     public RedisConfig getRedisConf() {
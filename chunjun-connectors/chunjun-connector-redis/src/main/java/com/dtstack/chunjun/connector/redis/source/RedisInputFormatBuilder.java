@@ -21,6 +21,8 @@ package com.dtstack.chunjun.connector.redis.source;
 import com.dtstack.chunjun.connector.redis.config.RedisConfig;
 import com.dtstack.chunjun.source.format.BaseRichInputFormatBuilder;
 
+import org.apache.commons.lang3.StringUtils;
+
 public class RedisInputFormatBuilder extends BaseRichInputFormatBuilder<RedisInputFormat> {
     public RedisInputFormatBuilder() {
         super(new RedisInputFormat());
@@ -42,7 +44,8 @@ public class RedisInputFormatBuilder extends BaseRichInputFormatBuilder<RedisInp
             sb.append("Currently only supported hash\n");
         }
 
-        if (redisConfig.getKeyPrefix() == null) {
+        // the key prefix is the SCAN match pattern, a blank one would match no key
+        if (StringUtils.isBlank(redisConfig.getKeyPrefix())) {
             sb.append("No key prefix supplied\n");
         }
         if (sb.length() > 0) {
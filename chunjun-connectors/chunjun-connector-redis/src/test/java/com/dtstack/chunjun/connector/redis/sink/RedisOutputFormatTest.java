@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.redis.sink;
+
+import com.dtstack.chunjun.connector.redis.connection.RedisPipeline;
+import com.dtstack.chunjun.connector.redis.connection.RedisSyncClient;
+import com.dtstack.chunjun.converter.AbstractRowConverter;
+import com.dtstack.chunjun.dirty.manager.DirtyManager;
+
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.powermock.reflect.Whitebox.setInternalState;
+
+class RedisOutputFormatTest {
+
+    private Pipeline jedisPipeline;
+    private Response<String> okResponse;
+    private DirtyManager dirtyManager;
+    private RedisOutputFormat outputFormat;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        jedisPipeline = mock(Pipeline.class);
+        okResponse = mock(Response.class);
+        when(okResponse.get()).thenReturn("OK");
+        when(jedisPipeline.set(anyString(), anyString())).thenReturn(okResponse);
+        when(jedisPipeline.expire(anyString(), any(Long.class))).thenReturn(mock(Response.class));
+
+        RedisSyncClient syncClient = mock(RedisSyncClient.class);
+        when(syncClient.pipelined(any())).thenAnswer(i -> new RedisPipeline(jedisPipeline));
+
+        // every row writes "<key>:a" and "<key>:b", a row with key "bad" fails in between
+        AbstractRowConverter rowConverter = mock(AbstractRowConverter.class);
+        doAnswer(
+                        invocation -> {
+                            RowData row = invocation.getArgument(0);
+                            RedisPipeline pipeline = invocation.getArgument(1);
+                            String key = row.getString(0).toString();
+                            pipeline.set(key + ":a", "v");
+                            if ("bad".equals(key)) {
+                                throw new IllegalArgumentException("bad field");
+                            }
+                            pipeline.set(key + ":b", "v");
+                            return pipeline;
+                        })
+                .when(rowConverter)
+                .toExternal(any(), any());
+
+        dirtyManager = mock(DirtyManager.class);
+        outputFormat = new RedisOutputFormat();
+        setInternalState(outputFormat, "redisSyncClient", syncClient);
+        setInternalState(outputFormat, "rowConverter", rowConverter);
+        setInternalState(outputFormat, "dirtyManager", dirtyManager);
+    }
+
+    @Test
+    void testFailedRowIsNotPartiallyWritten() throws Exception {
+        RowData good1 = GenericRowData.of(StringData.fromString("k1"));
+        RowData bad = GenericRowData.of(StringData.fromString("bad"));
+        RowData good2 = GenericRowData.of(StringData.fromString("k2"));
+        setInternalState(outputFormat, "rows", new ArrayList<>(Arrays.asList(good1, bad, good2)));
+
+        outputFormat.writeMultipleRecordsInternal();
+
+        verify(jedisPipeline).set("k1:a", "v");
+        verify(jedisPipeline).set("k1:b", "v");
+        verify(jedisPipeline).set("k2:a", "v");
+        verify(jedisPipeline).set("k2:b", "v");
+        verify(jedisPipeline, never()).set(eq("bad:a"), anyString());
+        verify(jedisPipeline).sync();
+        // reported once, by the conversion failure and not again by the reply check
+        verify(dirtyManager, times(1)).collect(any(), any(), isNull());
+        verify(dirtyManager).collect(same(bad), any(), isNull());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testErrorReplyMarksOnlyItsRow() throws Exception {
+        Response<String> errorResponse = mock(Response.class);
+        when(errorResponse.get()).thenThrow(new JedisDataException("WRONGTYPE"));
+        when(jedisPipeline.set("k2:b", "v")).thenReturn(errorResponse);
+
+        RowData good = GenericRowData.of(StringData.fromString("k1"));
+        RowData failed = GenericRowData.of(StringData.fromString("k2"));
+        List<RowData> rows = new ArrayList<>(Arrays.asList(good, failed));
+        setInternalState(outputFormat, "rows", rows);
+
+        outputFormat.writeMultipleRecordsInternal();
+
+        verify(dirtyManager, times(1)).collect(any(), any(), isNull());
+        verify(dirtyManager).collect(same(failed), any(), isNull());
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.redis.source;
+
+import com.dtstack.chunjun.connector.redis.config.RedisConfig;
+import com.dtstack.chunjun.connector.redis.enums.RedisDataType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisInputFormatBuilderTest {
+
+    private RedisConfig redisConfig;
+    private RedisInputFormatBuilder builder;
+
+    @BeforeEach
+    void setUp() {
+        redisConfig = new RedisConfig();
+        redisConfig.setHostPort("localhost:6379");
+        redisConfig.setType(RedisDataType.HASH);
+        builder = new RedisInputFormatBuilder();
+        builder.setRedisConf(redisConfig);
+    }
+
+    @Test
+    void keyPrefixShouldBeAccepted() {
+        redisConfig.setKeyPrefix("user:*");
+        assertDoesNotThrow(() -> builder.checkFormat());
+    }
+
+    @Test
+    void missingKeyPrefixShouldBeRejected() {
+        assertKeyPrefixRejected(null);
+    }
+
+    @Test
+    void blankKeyPrefixShouldBeRejected() {
+        assertKeyPrefixRejected("");
+        assertKeyPrefixRejected("  ");
+    }
+
+    private void assertKeyPrefixRejected(String keyPrefix) {
+        redisConfig.setKeyPrefix(keyPrefix);
+        IllegalArgumentException e =
+                assertThrows(IllegalArgumentException.class, () -> builder.checkFormat());
+        assertTrue(e.getMessage().contains("No key prefix supplied"), e.getMessage());
+    }
+}
@@ -61,6 +61,9 @@ public class S3Config extends CommonConfig implements Serializable {
 
     private String Protocol = "HTTP";
 
+    /** The maximum number of parts uploaded concurrently while the writer keeps encoding rows */
+    private int uploadParallelism = 2;
+
     /**
      * Limit the number of files obtained per request. If the number of files is greater than
      * fetchSize, then read in a loop
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.s3.sink;
+
+import com.dtstack.chunjun.connector.s3.util.S3Util;
+import com.dtstack.chunjun.factory.ChunJunThreadFactory;
+import com.dtstack.chunjun.throwable.ChunJunRuntimeException;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.PartETag;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Uploads the parts of a multipart upload in the background. The number of parts being uploaded at
+ * the same time is bounded by a pool of {@link S3PartBuffer}s: the writer blocks on {@link
+ * #borrowBuffer()} when every buffer is either being filled or still in flight.
+ */
+@Slf4j
+public class S3MultipartUploader implements Closeable {
+
+    private final AmazonS3 amazonS3;
+
+    private final String bucket;
+
+    private final String object;
+
+    private final int bufferSize;
+
+    /** One buffer is being filled by the writer while the others are uploading. */
+    private final int maxBuffers;
+
+    private final BlockingQueue<S3PartBuffer> bufferPool;
+
+    private final ExecutorService uploadExecutor;
+
+    /** Parts submitted since the last {@link #awaitUploads()}, in part number order. */
+    private final List<Future<MyPartETag>> pendingParts = new ArrayList<>();
+
+    private int createdBuffers;
+
+    /** The error of the first failed part, no more parts are accepted once set. */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    public S3MultipartUploader(
+            AmazonS3 amazonS3, String bucket, String object, int parallelism, int bufferSize) {
+        this.amazonS3 = amazonS3;
+        this.bucket = bucket;
+        this.object = object;
+        this.bufferSize = bufferSize;
+        this.maxBuffers = Math.max(parallelism, 1) + 1;
+        this.bufferPool = new ArrayBlockingQueue<>(maxBuffers);
+        this.uploadExecutor =
+                Executors.newFixedThreadPool(
+                        Math.max(parallelism, 1), new ChunJunThreadFactory("s3-upload-part"));
+    }
+
+    /**
+     * Get an empty buffer to encode the next part into, blocking while the in-flight window is
+     * full.
+     */
+    public S3PartBuffer borrowBuffer() {
+        checkFailure();
+        S3PartBuffer buffer = bufferPool.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        if (createdBuffers < maxBuffers) {
+            createdBuffers++;
+            return new S3PartBuffer(bufferSize);
+        }
+        try {
+            return bufferPool.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ChunJunRuntimeException(
+                    "interrupted while waiting for a free part buffer", e);
+        }
+    }
+
+    /** Give back a buffer that will not be uploaded. */
+    public void returnBuffer(S3PartBuffer buffer) {
+        buffer.reset();
+        bufferPool.offer(buffer);
+    }
+
+    /**
+     * Upload the buffer as the given part asynchronously, the buffer returns to the pool after.
+     * Fails fast with the error of an earlier part instead of uploading after it.
+     */
+    public void uploadAsync(String uploadId, int partNumber, S3PartBuffer buffer) {
+        if (failure.get() != null) {
+            returnBuffer(buffer);
+            checkFailure();
+        }
+        pendingParts.add(
+                uploadExecutor.submit(
+                        () -> {
+                            try {
+                                log.info("Upload part {} size：{}", partNumber, buffer.size());
+                                PartETag partETag =
+                                        S3Util.uploadPart(
+                                                amazonS3,
+                                                bucket,
+                                                object,
+                                                uploadId,
+                                                partNumber,
+                                                buffer.toInputStream(),
+                                                buffer.size());
+                                return new MyPartETag(partETag);
+                            } catch (Exception e) {
+                                failure.compareAndSet(null, e);
+                                throw e;
+                            } finally {
+                                returnBuffer(buffer);
+                            }
+                        }));
+    }
+
+    /**
+     * Wait until every submitted part has been uploaded. If a part fails, the parts still in flight
+     * are cancelled.
+     *
+     * @return the etags of the parts uploaded since the last call, in submission order
+     */
+    public List<MyPartETag> awaitUploads() {
+        List<MyPartETag> partETags = new ArrayList<>(pendingParts.size());
+        try {
+            for (Future<MyPartETag> part : pendingParts) {
+                partETags.add(part.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pendingParts.forEach(part -> part.cancel(true));
+            throw new ChunJunRuntimeException("interrupted while waiting for part uploads", e);
+        } catch (ExecutionException e) {
+            pendingParts.forEach(part -> part.cancel(true));
+            throw new ChunJunRuntimeException("upload part failed", e.getCause());
+        } finally {
+            pendingParts.clear();
+        }
+        return partETags;
+    }
+
+    /** Cancel the parts in flight and rethrow the error once a part has failed. */
+    private void checkFailure() {
+        if (failure.get() != null) {
+            pendingParts.forEach(part -> part.cancel(true));
+            pendingParts.clear();
+            throw new ChunJunRuntimeException("upload part failed", failure.get());
+        }
+    }
+
+    @Override
+    public void close() {
+        uploadExecutor.shutdownNow();
+        bufferPool.clear();
+    }
+}
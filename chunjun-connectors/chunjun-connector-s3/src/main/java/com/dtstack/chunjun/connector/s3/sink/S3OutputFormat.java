@@ -36,8 +36,8 @@ import com.esotericsoftware.minlog.Log;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
-import java.io.StringWriter;
-import java.io.UnsupportedEncodingException;
+import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -58,7 +58,8 @@ public class S3OutputFormat extends BaseRichOutputFormat {
 
     private static String currentUploadId;
     private static boolean willClose = false;
-    private transient StringWriter sw;
+    private transient S3PartBuffer partBuffer;
+    private transient S3MultipartUploader uploader;
     private transient List<MyPartETag> myPartETags;
 
     private static final String OVERWRITE_MODE = "overwrite";
@@ -66,6 +67,9 @@ public class S3OutputFormat extends BaseRichOutputFormat {
 
     private static final long MIN_SIZE = 1024 * 1024 * 25L;
 
+    /** Extra capacity so that the record crossing MIN_SIZE does not grow the buffer. */
+    private static final int BUFFER_HEADROOM = 1024 * 1024;
+
     @Override
     protected void openInternal(int taskNumber, int numTasks) {
         openSource();
@@ -80,6 +84,13 @@ public class S3OutputFormat extends BaseRichOutputFormat {
 
     private void openSource() {
         this.amazonS3 = S3Util.getS3Client(s3Config);
+        this.uploader =
+                new S3MultipartUploader(
+                        amazonS3,
+                        s3Config.getBucket(),
+                        s3Config.getObject(),
+                        s3Config.getUploadParallelism(),
+                        (int) MIN_SIZE + BUFFER_HEADROOM);
         this.myPartETags = new ArrayList<>();
         this.currentPartNumber = taskNumber - numTasks + 1;
         beforeWriteRecords();
@@ -103,8 +114,16 @@ public class S3OutputFormat extends BaseRichOutputFormat {
     }
 
     private void nextBlock() {
-        sw = new StringWriter();
-        this.writerUtil = new WriterUtil(sw, s3Config.getFieldDelimiter());
+        if (partBuffer == null) {
+            partBuffer = uploader.borrowBuffer();
+        } else {
+            partBuffer.reset();
+        }
+        this.writerUtil =
+                new WriterUtil(
+                        partBuffer,
+                        s3Config.getFieldDelimiter(),
+                        Charset.forName(s3Config.getEncoding()));
         this.currentPartNumber = this.currentPartNumber + numTasks;
     }
 
@@ -132,36 +151,36 @@ public class S3OutputFormat extends BaseRichOutputFormat {
     }
 
     protected void flushDataInternal() {
-        StringBuffer sb = sw.getBuffer();
-        if (sb.length() > MIN_SIZE || willClose) {
-            byte[] byteArray;
-            try {
-                byteArray = sb.toString().getBytes(s3Config.getEncoding());
-            } catch (UnsupportedEncodingException e) {
-                throw new ChunJunRuntimeException(e);
-            }
-            log.info("Upload part size：" + byteArray.length);
-            PartETag partETag =
-                    S3Util.uploadPart(
-                            amazonS3,
-                            s3Config.getBucket(),
-                            s3Config.getObject(),
-                            this.currentUploadId,
-                            this.currentPartNumber,
-                            byteArray);
-
-            MyPartETag myPartETag = new MyPartETag(partETag);
-            myPartETags.add(myPartETag);
-
-            log.debug(
-                    "task-{} upload etag:[{}]",
-                    taskNumber,
-                    myPartETags.stream().map(Objects::toString).collect(Collectors.joining(",")));
+        if (writerUtil == null) {
+            return;
+        }
+        try {
+            // push the chars buffered by the encoder into the part buffer
+            writerUtil.flush();
+        } catch (IOException e) {
+            throw new ChunJunRuntimeException(e);
+        }
+        if (partBuffer.size() > MIN_SIZE || willClose) {
             writerUtil.close();
             writerUtil = null;
+            if (partBuffer.size() > 0) {
+                uploader.uploadAsync(currentUploadId, currentPartNumber, partBuffer);
+            } else {
+                uploader.returnBuffer(partBuffer);
+            }
+            partBuffer = null;
         }
     }
 
+    /** Wait for the parts in flight and record their etags. */
+    private void awaitUploadedParts() {
+        myPartETags.addAll(uploader.awaitUploads());
+        log.debug(
+                "task-{} upload etag:[{}]",
+                taskNumber,
+                myPartETags.stream().map(Objects::toString).collect(Collectors.joining(",")));
+    }
+
     private void completeMultipartUploadFile() {
         if (this.currentPartNumber > 10000) {
             throw new IllegalArgumentException("part can not bigger than 10000");
@@ -190,7 +209,9 @@ public class S3OutputFormat extends BaseRichOutputFormat {
         // Before closing the client, upload the remaining data smaller than 5M
         willClose = true;
         flushDataInternal();
+        awaitUploadedParts();
         completeMultipartUploadFile();
+        uploader.close();
         S3Util.closeS3(amazonS3);
         Log.info("S3Client close!");
     }
@@ -204,6 +225,8 @@ public class S3OutputFormat extends BaseRichOutputFormat {
     public FormatState getFormatState() throws Exception {
         super.getFormatState();
         if (formatState != null) {
+            // the etags in state must cover every part handed to the uploader
+            awaitUploadedParts();
             formatState.setNumOfSubTask(taskNumber);
             formatState.setState(new Tuple2<>(currentUploadId, myPartETags));
         }
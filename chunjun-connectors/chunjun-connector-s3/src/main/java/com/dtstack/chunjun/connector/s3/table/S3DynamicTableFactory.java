@@ -85,6 +85,7 @@ public class S3DynamicTableFactory implements DynamicTableSourceFactory, Dynamic
         options.add(S3Options.IS_FIRST_LINE_HEADER);
         options.add(S3Options.OBJECTS);
         options.add(S3Options.OBJECT);
+        options.add(S3Options.UPLOAD_PARALLELISM);
         return options;
     }
 
@@ -105,6 +106,7 @@ public class S3DynamicTableFactory implements DynamicTableSourceFactory, Dynamic
         s3Config.setEncoding(options.get(S3Options.ENCODING));
         s3Config.setRegion(options.get(S3Options.REGION));
         s3Config.setFirstLineHeader(options.get(S3Options.IS_FIRST_LINE_HEADER));
+        s3Config.setUploadParallelism(options.get(S3Options.UPLOAD_PARALLELISM));
 
         return new S3DynamicTableSink(context.getCatalogTable().getResolvedSchema(), s3Config);
     }
@@ -68,4 +68,11 @@ public class S3Options {
                     .defaultValue(false)
                     .withDescription(
                             "whether the first line is a header line, if so, the first line is not read");
+
+    public static final ConfigOption<Integer> UPLOAD_PARALLELISM =
+            key("uploadParallelism")
+                    .intType()
+                    .defaultValue(2)
+                    .withDescription(
+                            "the maximum number of multipart upload parts in flight at the same time");
 }
@@ -218,8 +218,24 @@ public class S3Util {
             String uploadId,
             int partNumber,
             byte[] data) {
-        InputStream inputStream = new ByteArrayInputStream(data);
+        return uploadPart(
+                s3Client,
+                bucketName,
+                object,
+                uploadId,
+                partNumber,
+                new ByteArrayInputStream(data),
+                data.length);
+    }
 
+    public static PartETag uploadPart(
+            AmazonS3 s3Client,
+            String bucketName,
+            String object,
+            String uploadId,
+            int partNumber,
+            InputStream inputStream,
+            long partSize) {
         UploadPartRequest uploadRequest =
                 new UploadPartRequest()
                         .withBucketName(bucketName)
@@ -227,7 +243,7 @@ public class S3Util {
                         .withUploadId(uploadId)
                         .withPartNumber(partNumber)
                         .withInputStream(inputStream)
-                        .withPartSize(data.length);
+                        .withPartSize(partSize);
         UploadPartResult uploadResult = s3Client.uploadPart(uploadRequest);
         return uploadResult.getPartETag();
     }
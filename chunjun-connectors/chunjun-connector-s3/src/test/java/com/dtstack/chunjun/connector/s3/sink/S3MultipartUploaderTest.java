@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.s3.sink;
+
+import com.dtstack.chunjun.connector.s3.config.S3Config;
+import com.dtstack.chunjun.connector.s3.util.WriterUtil;
+import com.dtstack.chunjun.throwable.ChunJunRuntimeException;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.powermock.reflect.Whitebox;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class S3MultipartUploaderTest {
+
+    private static final String UPLOAD_ID = "upload-1";
+
+    private AmazonS3 amazonS3;
+
+    private S3MultipartUploader uploader;
+
+    @BeforeEach
+    public void setUp() {
+        amazonS3 = mock(AmazonS3.class);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (uploader != null) {
+            uploader.close();
+        }
+        Whitebox.setInternalState(S3OutputFormat.class, "willClose", false);
+    }
+
+    @Test
+    public void testPartsKeepTheirNumbersAndSubmissionOrder() {
+        // later parts finish first
+        when(amazonS3.uploadPart(any()))
+                .thenAnswer(
+                        invocation -> {
+                            UploadPartRequest request = invocation.getArgument(0);
+                            TimeUnit.MILLISECONDS.sleep((6 - request.getPartNumber()) * 50L);
+                            return result(request);
+                        });
+        uploader = new S3MultipartUploader(amazonS3, "bucket", "object", 3, 16);
+
+        upload(1, "a");
+        upload(3, "b");
+        upload(5, "c");
+        List<MyPartETag> partETags = uploader.awaitUploads();
+
+        assertEquals(
+                Arrays.asList(1, 3, 5),
+                partETags.stream().map(MyPartETag::getPartNumber).collect(Collectors.toList()));
+        assertEquals(
+                Arrays.asList("etag-a", "etag-b", "etag-c"),
+                partETags.stream().map(MyPartETag::getETag).collect(Collectors.toList()));
+        assertTrue(uploader.awaitUploads().isEmpty());
+    }
+
+    @Test
+    public void testPartsInFlightAreBounded() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(amazonS3.uploadPart(any()))
+                .thenAnswer(
+                        invocation -> {
+                            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                            release.await();
+                            running.decrementAndGet();
+                            return result(invocation.getArgument(0));
+                        });
+        uploader = new S3MultipartUploader(amazonS3, "bucket", "object", 2, 16);
+
+        upload(1, "a");
+        upload(2, "b");
+        upload(3, "c");
+        verify(amazonS3, timeout(5000).times(2)).uploadPart(any());
+
+        // every buffer is uploading or waiting for an upload thread
+        CompletableFuture<S3PartBuffer> borrowed =
+                CompletableFuture.supplyAsync(() -> uploader.borrowBuffer());
+        assertThrows(TimeoutException.class, () -> borrowed.get(200, TimeUnit.MILLISECONDS));
+        verify(amazonS3, times(2)).uploadPart(any());
+
+        release.countDown();
+        assertNotNull(borrowed.get(5, TimeUnit.SECONDS));
+        assertEquals(3, uploader.awaitUploads().size());
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void testFailedPartCancelsTheOthersAndRejectsNewParts() throws Exception {
+        AmazonServiceException error = new AmazonServiceException("upload failed");
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        when(amazonS3.uploadPart(any()))
+                .thenAnswer(
+                        invocation -> {
+                            UploadPartRequest request = invocation.getArgument(0);
+                            if (request.getPartNumber() == 1) {
+                                throw error;
+                            }
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                interrupted.set(true);
+                                throw e;
+                            }
+                            return result(request);
+                        });
+        uploader = new S3MultipartUploader(amazonS3, "bucket", "object", 2, 16);
+
+        upload(1, "a");
+        upload(2, "b");
+        verify(amazonS3, timeout(5000).times(2)).uploadPart(any());
+
+        ChunJunRuntimeException e =
+                assertThrows(ChunJunRuntimeException.class, () -> uploader.awaitUploads());
+        assertSame(error, e.getCause());
+        verify(amazonS3, never()).abortMultipartUpload(any());
+        for (int i = 0; i < 100 && !interrupted.get(); i++) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        assertTrue(interrupted.get());
+
+        S3PartBuffer buffer = new S3PartBuffer(16);
+        e =
+                assertThrows(
+                        ChunJunRuntimeException.class,
+                        () -> uploader.uploadAsync(UPLOAD_ID, 3, buffer));
+        assertSame(error, e.getCause());
+        assertThrows(ChunJunRuntimeException.class, () -> uploader.borrowBuffer());
+        verify(amazonS3, times(2)).uploadPart(any());
+    }
+
+    @Test
+    public void testCloseUploadsTheShortLastPart() throws Exception {
+        List<String> contents = new ArrayList<>();
+        when(amazonS3.uploadPart(any()))
+                .thenAnswer(
+                        invocation -> {
+                            UploadPartRequest request = invocation.getArgument(0);
+                            String content =
+                                    IOUtils.toString(
+                                            request.getInputStream(), StandardCharsets.UTF_8);
+                            contents.add(content);
+                            UploadPartResult result = new UploadPartResult();
+                            result.setPartNumber(request.getPartNumber());
+                            result.setETag("etag-" + content);
+                            return result;
+                        });
+        S3Config s3Config = new S3Config();
+        s3Config.setBucket("bucket");
+        s3Config.setObject("object");
+        uploader = new S3MultipartUploader(amazonS3, "bucket", "object", 1, 16);
+        S3OutputFormat format = new S3OutputFormat();
+        format.setS3Conf(s3Config);
+        Whitebox.setInternalState(format, "amazonS3", amazonS3);
+        Whitebox.setInternalState(format, "uploader", uploader);
+        Whitebox.setInternalState(format, "myPartETags", new ArrayList<MyPartETag>());
+        Whitebox.setInternalState(format, "numTasks", 1);
+        Whitebox.setInternalState(S3OutputFormat.class, "currentPartNumber", 0);
+        Whitebox.setInternalState(S3OutputFormat.class, "currentUploadId", UPLOAD_ID);
+        Whitebox.setInternalState(S3OutputFormat.class, "willClose", false);
+
+        Whitebox.invokeMethod(format, "nextBlock");
+        WriterUtil writerUtil = Whitebox.getInternalState(format, "writerUtil");
+        writerUtil.write("1");
+        writerUtil.write("a");
+        writerUtil.endRecord();
+        Whitebox.invokeMethod(format, "flushDataInternal");
+        verify(amazonS3, never()).uploadPart(any());
+
+        format.closeInternal();
+
+        ArgumentCaptor<UploadPartRequest> uploadCaptor =
+                ArgumentCaptor.forClass(UploadPartRequest.class);
+        verify(amazonS3).uploadPart(uploadCaptor.capture());
+        assertEquals(1, uploadCaptor.getValue().getPartNumber());
+        assertEquals(UPLOAD_ID, uploadCaptor.getValue().getUploadId());
+        assertEquals(1, contents.size());
+        assertEquals(contents.get(0).length(), uploadCaptor.getValue().getPartSize());
+        assertTrue(contents.get(0).startsWith("1,a"));
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> completeCaptor =
+                ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(amazonS3).completeMultipartUpload(completeCaptor.capture());
+        List<PartETag> partETags = completeCaptor.getValue().getPartETags();
+        assertEquals(1, partETags.size());
+        assertEquals(1, partETags.get(0).getPartNumber());
+        assertEquals("etag-" + contents.get(0), partETags.get(0).getETag());
+        verify(amazonS3, never()).abortMultipartUpload(any());
+    }
+
+    private void upload(int partNumber, String content) {
+        S3PartBuffer buffer = uploader.borrowBuffer();
+        buffer.write(content.getBytes(StandardCharsets.UTF_8), 0, content.length());
+        uploader.uploadAsync(UPLOAD_ID, partNumber, buffer);
+    }
+
+    private static UploadPartResult result(UploadPartRequest request) throws Exception {
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag(
+                "etag-" + IOUtils.toString(request.getInputStream(), StandardCharsets.UTF_8));
+        return result;
+    }
+}
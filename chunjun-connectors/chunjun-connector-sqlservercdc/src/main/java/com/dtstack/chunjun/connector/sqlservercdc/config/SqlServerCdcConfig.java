@@ -39,6 +39,11 @@ public class SqlServerCdcConfig extends CommonConfig {
     private boolean pavingData;
     private List<String> tableList;
     private Long pollInterval = 1000L;
+    /** 连续空闲时轮询间隔倍增的上限 */
+    private Long maxPollInterval = 10000L;
+    /** 并发查询变更表的连接数 */
+    private int fetchParallelism = 4;
+
     private String lsn;
     private boolean splitUpdate;
     private String timestampFormat = "sql";
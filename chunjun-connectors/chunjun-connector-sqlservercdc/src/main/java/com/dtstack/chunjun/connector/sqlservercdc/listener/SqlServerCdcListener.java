@@ -29,23 +29,26 @@ import com.dtstack.chunjun.connector.sqlservercdc.util.SqlServerCdcUtil;
 import com.dtstack.chunjun.constants.ConstantValue;
 import com.dtstack.chunjun.converter.AbstractCDCRowConverter;
 import com.dtstack.chunjun.throwable.WriteRecordException;
-import com.dtstack.chunjun.util.Clock;
 import com.dtstack.chunjun.util.ExceptionUtil;
-import com.dtstack.chunjun.util.Metronome;
 import com.dtstack.chunjun.util.SnowflakeIdWorker;
 
 import org.apache.flink.table.data.RowData;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.time.Duration;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Slf4j
 public class SqlServerCdcListener implements Runnable {
@@ -55,7 +58,16 @@ public class SqlServerCdcListener implements Runnable {
     private final ChangeTable[] tablesSlot;
     private Connection conn;
     private final Set<Integer> cat;
-    private final Duration pollInterval;
+    private final long pollInterval;
+    private final long maxPollInterval;
+    /** 当前空闲等待时长，有变更时重置为pollInterval，空闲时倍增至maxPollInterval */
+    private long currentPollInterval;
+    /** 按连接分组的capture instance，第i组在fetchConns[i]上查询 */
+    private final ChangeTable[][] tableGroups;
+    /** fetchConns[0]即conn，其余为并发拉取变更表使用的额外连接 */
+    private final Connection[] fetchConns;
+
+    private final ExecutorService fetchExecutor;
     private final SnowflakeIdWorker idWorker;
     private final AbstractCDCRowConverter rowConverter;
 
@@ -71,140 +83,217 @@ public class SqlServerCdcListener implements Runnable {
         this.tablesSlot =
                 SqlServerCdcUtil.getCdcTablesToQuery(
                         conn, format.sqlserverCdcConfig.getDatabaseName(), tableList);
-        this.pollInterval =
-                Duration.of(format.sqlserverCdcConfig.getPollInterval(), ChronoUnit.MILLIS);
+        this.pollInterval = format.sqlserverCdcConfig.getPollInterval();
+        this.maxPollInterval =
+                Math.max(pollInterval, format.sqlserverCdcConfig.getMaxPollInterval());
+        this.currentPollInterval = pollInterval;
         idWorker = new SnowflakeIdWorker(1, 1);
         this.rowConverter = format.getCdcRowConverter();
+
+        int parallelism =
+                Math.max(
+                        1,
+                        Math.min(
+                                format.sqlserverCdcConfig.getFetchParallelism(),
+                                tablesSlot.length));
+        this.tableGroups = groupTables(tablesSlot, parallelism);
+        this.fetchConns = new Connection[parallelism];
+        this.fetchConns[0] = conn;
+        for (int i = 1; i < parallelism; i++) {
+            fetchConns[i] = openConnection();
+        }
+        this.fetchExecutor =
+                parallelism > 1
+                        ? Executors.newFixedThreadPool(
+                                parallelism - 1,
+                                new ThreadFactoryBuilder()
+                                        .setNameFormat("cdcListener-fetch-%d")
+                                        .setDaemon(true)
+                                        .build())
+                        : null;
+        log.info(
+                "SqlServerCdcListener query {} capture instances over {} connections",
+                tablesSlot.length,
+                parallelism);
     }
 
     @Override
     public void run() {
         log.info("SqlServerCdcListener start running.....");
-        Metronome metronome = Metronome.sleeper(pollInterval, Clock.system());
-        while (true) {
-            try {
-                Lsn currentMaxLsn = SqlServerCdcUtil.getMaxLsn(conn);
-
-                // Shouldn't happen if the agent is running, but it is better to guard against such
-                // situation
-                if (!currentMaxLsn.isAvailable()) {
-                    log.warn(
-                            "No maximum LSN recorded in the database; please ensure that the SQL Server Agent is running");
-                    metronome.pause();
-                    if (format.sqlserverCdcConfig.isAutoResetConnection()) {
-                        resetConnection();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Lsn currentMaxLsn = SqlServerCdcUtil.getMaxLsn(conn);
+
+                    // Shouldn't happen if the agent is running, but it is better to guard against
+                    // such situation
+                    if (!currentMaxLsn.isAvailable()) {
+                        log.warn(
+                                "No maximum LSN recorded in the database; please ensure that the SQL Server Agent is running");
+                        pause();
+                        if (format.sqlserverCdcConfig.isAutoResetConnection()) {
+                            // 空闲时只有conn在查询maxLsn，其余拉取连接不受影响
+                            resetConnection(0);
+                        }
+                        continue;
                     }
-                    continue;
-                }
 
-                // There is no change in the database
-                if (currentMaxLsn.equals(logPosition.getCommitLsn())) {
-                    metronome.pause();
-                    if (format.sqlserverCdcConfig.isAutoResetConnection()) {
-                        resetConnection();
+                    // There is no change in the database
+                    if (currentMaxLsn.equals(logPosition.getCommitLsn())) {
+                        pause();
+                        if (format.sqlserverCdcConfig.isAutoResetConnection()) {
+                            // 空闲时只有conn在查询maxLsn，其余拉取连接不受影响
+                            resetConnection(0);
+                        }
+                        continue;
                     }
-                    continue;
-                }
 
-                final ChangeTablePointer[] changeTables = getChangeTables(currentMaxLsn);
-                readData(changeTables);
+                    final ChangeTablePointer[] changeTables = getChangeTables(currentMaxLsn);
+                    int emitted = readData(changeTables);
+
+                    log.debug("currentMaxLsn = {}", logPosition);
+                    logPosition = TxLogPosition.valueOf(currentMaxLsn);
+                    if (!format.sqlserverCdcConfig.isAutoCommit()) {
+                        for (Connection fetchConn : fetchConns) {
+                            fetchConn.rollback();
+                        }
+                    }
 
-                log.debug("currentMaxLsn = {}", logPosition);
-                logPosition = TxLogPosition.valueOf(currentMaxLsn);
-                if (!format.sqlserverCdcConfig.isAutoCommit()) {
-                    conn.rollback();
+                    // 有积压时立即进入下一轮以尽快追平，maxLsn前进但未命中订阅表时按空闲处理
+                    if (emitted > 0) {
+                        currentPollInterval = pollInterval;
+                    } else {
+                        pause();
+                    }
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    String errorMessage = ExceptionUtil.getErrorMessage(e);
+                    log.error(errorMessage, e);
                 }
-            } catch (Exception e) {
-                String errorMessage = ExceptionUtil.getErrorMessage(e);
-                log.error(errorMessage, e);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("SqlServerCdcListener interrupted, stop running.");
+        } finally {
+            close();
         }
     }
 
-    private void readData(ChangeTablePointer[] changeTables) throws Exception {
-        for (; ; ) {
-            ChangeTablePointer tableWithSmallestLsn = getTableWithSmallestLsn(changeTables);
-            if (tableWithSmallestLsn == null) {
-                break;
-            }
+    /** 空闲等待，连续空闲时等待时长倍增，上限为maxPollInterval */
+    private void pause() throws InterruptedException {
+        Thread.sleep(currentPollInterval);
+        currentPollInterval = Math.min(currentPollInterval * 2, maxPollInterval);
+    }
 
-            if (!(tableWithSmallestLsn.getChangePosition().isAvailable()
-                    && tableWithSmallestLsn.getChangePosition().getInTxLsn().isAvailable())) {
-                log.error(
-                        "Skipping change {} as its LSN is NULL which is not expected",
-                        tableWithSmallestLsn);
-                tableWithSmallestLsn.next();
-                continue;
+    /**
+     * 按(commit LSN, change LSN)多路归并各变更表的结果集，同一位置时按capture instance的顺序
+     *
+     * @return 本轮发送的变更数
+     */
+    private int readData(ChangeTablePointer[] changeTables) throws Exception {
+        PriorityQueue<Integer> heap =
+                new PriorityQueue<>(
+                        Math.max(1, changeTables.length),
+                        (a, b) -> {
+                            int cmp = changeTables[a].compareTo(changeTables[b]);
+                            return cmp != 0 ? cmp : Integer.compare(a, b);
+                        });
+        for (int i = 0; i < changeTables.length; i++) {
+            if (!changeTables[i].isCompleted()) {
+                heap.add(i);
             }
+        }
 
-            // After restart for changes that were executed before the last committed offset
-            if (tableWithSmallestLsn.getChangePosition().compareTo(logPosition) < 0) {
-                log.info(
-                        "Skipping change {} as its position is smaller than the last recorded position {}",
-                        tableWithSmallestLsn,
-                        logPosition);
-                tableWithSmallestLsn.next();
-                continue;
+        int emitted = 0;
+        Integer idx;
+        while ((idx = heap.poll()) != null) {
+            ChangeTablePointer tableWithSmallestLsn = changeTables[idx];
+            if (readChange(tableWithSmallestLsn)) {
+                emitted++;
             }
-
-            ChangeTable changeTable = tableWithSmallestLsn.getChangeTable();
-            if (changeTable.getStopLsn().isAvailable()
-                    && changeTable
-                                    .getStopLsn()
-                                    .compareTo(
-                                            tableWithSmallestLsn.getChangePosition().getCommitLsn())
-                            <= 0) {
-                log.debug(
-                        "Skipping table change {} as its stop LSN is smaller than the last recorded LSN {}",
-                        tableWithSmallestLsn,
-                        tableWithSmallestLsn.getChangePosition());
-                tableWithSmallestLsn.next();
-                continue;
+            if (!tableWithSmallestLsn.isCompleted()) {
+                heap.add(idx);
             }
+        }
+        return emitted;
+    }
 
-            int operation = tableWithSmallestLsn.getOperation();
-            if (!cat.contains(operation)) {
-                tableWithSmallestLsn.next();
-                continue;
-            }
+    /**
+     * 处理指针当前所在的变更并将指针后移
+     *
+     * @return 是否发送了该变更
+     */
+    private boolean readChange(ChangeTablePointer tableWithSmallestLsn) throws Exception {
+        if (!(tableWithSmallestLsn.getChangePosition().isAvailable()
+                && tableWithSmallestLsn.getChangePosition().getInTxLsn().isAvailable())) {
+            log.error(
+                    "Skipping change {} as its LSN is NULL which is not expected",
+                    tableWithSmallestLsn);
+            tableWithSmallestLsn.next();
+            return false;
+        }
 
-            Object[] dataPrev = null;
-            TableId tableId = changeTable.getSourceTableId();
-            if (operation == SqlServerCdcEnum.UPDATE_BEFORE.code) {
-                dataPrev = tableWithSmallestLsn.getData();
-                if (!tableWithSmallestLsn.next()
-                        || tableWithSmallestLsn.getOperation()
-                                != SqlServerCdcEnum.UPDATE_AFTER.code) {
-                    throw new IllegalStateException(
-                            "The update before event at "
-                                    + tableWithSmallestLsn.getChangePosition()
-                                    + " for table "
-                                    + tableId
-                                    + " was not followed by after event");
-                }
-            }
+        // After restart for changes that were executed before the last committed offset
+        if (tableWithSmallestLsn.getChangePosition().compareTo(logPosition) < 0) {
+            log.info(
+                    "Skipping change {} as its position is smaller than the last recorded position {}",
+                    tableWithSmallestLsn,
+                    logPosition);
+            tableWithSmallestLsn.next();
+            return false;
+        }
 
-            Object[] data = tableWithSmallestLsn.getData();
-            List<String> columnTypes = tableWithSmallestLsn.getTypes();
+        ChangeTable changeTable = tableWithSmallestLsn.getChangeTable();
+        if (changeTable.getStopLsn().isAvailable()
+                && changeTable
+                                .getStopLsn()
+                                .compareTo(tableWithSmallestLsn.getChangePosition().getCommitLsn())
+                        <= 0) {
+            log.debug(
+                    "Skipping table change {} as its stop LSN is smaller than the last recorded LSN {}",
+                    tableWithSmallestLsn,
+                    tableWithSmallestLsn.getChangePosition());
+            tableWithSmallestLsn.next();
+            return false;
+        }
 
-            if (operation == SqlServerCdcEnum.DELETE.code) {
-                dataPrev = data;
-                data = new Object[dataPrev.length];
-            } else if (operation != SqlServerCdcEnum.UPDATE_BEFORE.code) {
-                dataPrev = new Object[data.length];
+        int operation = tableWithSmallestLsn.getOperation();
+        if (!cat.contains(operation)) {
+            tableWithSmallestLsn.next();
+            return false;
+        }
+
+        Object[] dataPrev = null;
+        TableId tableId = changeTable.getSourceTableId();
+        if (operation == SqlServerCdcEnum.UPDATE_BEFORE.code) {
+            dataPrev = tableWithSmallestLsn.getData();
+            if (!tableWithSmallestLsn.next()
+                    || tableWithSmallestLsn.getOperation() != SqlServerCdcEnum.UPDATE_AFTER.code) {
+                throw new IllegalStateException(
+                        "The update before event at "
+                                + tableWithSmallestLsn.getChangePosition()
+                                + " for table "
+                                + tableId
+                                + " was not followed by after event");
             }
+        }
 
-            buildResult(
-                    changeTable,
-                    tableId,
-                    data,
-                    dataPrev,
-                    operation,
-                    tableWithSmallestLsn,
-                    columnTypes);
-            format.setLogPosition(tableWithSmallestLsn.getChangePosition());
-            tableWithSmallestLsn.next();
+        Object[] data = tableWithSmallestLsn.getData();
+        List<String> columnTypes = tableWithSmallestLsn.getTypes();
+
+        if (operation == SqlServerCdcEnum.DELETE.code) {
+            dataPrev = data;
+            data = new Object[dataPrev.length];
+        } else if (operation != SqlServerCdcEnum.UPDATE_BEFORE.code) {
+            dataPrev = new Object[data.length];
         }
+
+        buildResult(
+                changeTable, tableId, data, dataPrev, operation, tableWithSmallestLsn, columnTypes);
+        format.setLogPosition(tableWithSmallestLsn.getChangePosition());
+        tableWithSmallestLsn.next();
+        return true;
     }
 
     private void buildResult(
@@ -242,36 +331,94 @@ public class SqlServerCdcListener implements Runnable {
         }
     }
 
-    private ChangeTablePointer[] getChangeTables(Lsn currentMaxLsn) throws SQLException {
+    private ChangeTablePointer[] getChangeTables(Lsn currentMaxLsn) throws Exception {
         // Reading interval is inclusive so we need to move LSN forward but not for first
         // run as TX might not be streamed completely
         Lsn fromLsn = getFromLsn();
 
-        SqlServerCdcUtil.StatementResult[] resultSets =
-                SqlServerCdcUtil.getChangesForTables(conn, tablesSlot, fromLsn, currentMaxLsn);
-        int tableCount = resultSets.length;
-        ChangeTablePointer[] changeTables = new ChangeTablePointer[tableCount];
-        for (int i = 0; i < tableCount; i++) {
-            changeTables[i] = new ChangeTablePointer(tablesSlot[i], resultSets[i]);
-            changeTables[i].next();
+        // 每组capture instance在各自的连接上并发查询，第0组在当前线程执行
+        List<Future<SqlServerCdcUtil.StatementResult[]>> futures = new ArrayList<>();
+        for (int i = 1; i < tableGroups.length; i++) {
+            Connection fetchConn = fetchConns[i];
+            ChangeTable[] group = tableGroups[i];
+            futures.add(
+                    fetchExecutor.submit(
+                            () ->
+                                    SqlServerCdcUtil.getChangesForTables(
+                                            fetchConn, group, fromLsn, currentMaxLsn)));
         }
 
-        return changeTables;
-    }
-
-    private ChangeTablePointer getTableWithSmallestLsn(ChangeTablePointer[] changeTables)
-            throws SQLException {
-        ChangeTablePointer tableWithSmallestLsn = null;
-        for (ChangeTablePointer changeTable : changeTables) {
-            if (changeTable.isCompleted()) {
-                continue;
+        List<SqlServerCdcUtil.StatementResult[]> groupResults = new ArrayList<>();
+        List<Integer> failedGroups = new ArrayList<>();
+        Exception error = null;
+        try {
+            groupResults.add(
+                    SqlServerCdcUtil.getChangesForTables(
+                            conn, tableGroups[0], fromLsn, currentMaxLsn));
+        } catch (SQLException e) {
+            error = e;
+            failedGroups.add(0);
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                groupResults.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                failedGroups.add(i + 1);
             }
-            if (tableWithSmallestLsn == null || changeTable.compareTo(tableWithSmallestLsn) < 0) {
-                tableWithSmallestLsn = changeTable;
+        }
+        if (error != null) {
+            for (SqlServerCdcUtil.StatementResult[] resultSets : groupResults) {
+                closeQuietly(resultSets);
+            }
+            if (format.sqlserverCdcConfig.isAutoResetConnection()) {
+                // 只重建查询失败的连接，下一轮从同一位置重新查询
+                for (int index : failedGroups) {
+                    try {
+                        resetConnection(index);
+                    } catch (SQLException e) {
+                        log.warn("reset fetch connection {} failed", index, e);
+                    }
+                }
+            }
+            throw error;
+        }
+
+        List<ChangeTablePointer> changeTables = new ArrayList<>(tablesSlot.length);
+        for (int i = 0; i < tableGroups.length; i++) {
+            SqlServerCdcUtil.StatementResult[] resultSets = groupResults.get(i);
+            for (int j = 0; j < resultSets.length; j++) {
+                ChangeTablePointer changeTable =
+                        new ChangeTablePointer(tableGroups[i][j], resultSets[j]);
+                changeTable.next();
+                changeTables.add(changeTable);
             }
         }
 
-        return tableWithSmallestLsn;
+        return changeTables.toArray(new ChangeTablePointer[0]);
+    }
+
+    /** 按capture instance的顺序轮询分组，组数即拉取连接数 */
+    private static ChangeTable[][] groupTables(ChangeTable[] tables, int groupCount) {
+        ChangeTable[][] groups = new ChangeTable[groupCount][];
+        for (int i = 0; i < groupCount; i++) {
+            groups[i] = new ChangeTable[(tables.length - i + groupCount - 1) / groupCount];
+        }
+        for (int i = 0; i < tables.length; i++) {
+            groups[i % groupCount][i / groupCount] = tables[i];
+        }
+        return groups;
+    }
+
+    private void closeQuietly(SqlServerCdcUtil.StatementResult[] resultSets) {
+        for (SqlServerCdcUtil.StatementResult resultSet : resultSets) {
+            try {
+                resultSet.getResultSet().close();
+                resultSet.getStatement().close();
+            } catch (SQLException e) {
+                log.warn("close change table result set failed", e);
+            }
+        }
     }
 
     private Lsn getFromLsn() throws SQLException {
@@ -282,16 +429,46 @@ public class SqlServerCdcListener implements Runnable {
         }
     }
 
-    private void resetConnection() throws SQLException {
-        if (conn != null) {
-            conn.close();
+    /** 重建第index个拉取连接，第0个即conn */
+    private void resetConnection(int index) throws SQLException {
+        if (fetchConns[index] != null) {
+            try {
+                fetchConns[index].close();
+            } catch (SQLException e) {
+                log.warn("close fetch connection {} failed", index, e);
+            }
         }
+        fetchConns[index] = openConnection();
+        if (index == 0) {
+            conn = fetchConns[0];
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
         Connection connection =
                 SqlServerCdcUtil.getConnection(
                         format.sqlserverCdcConfig.getUrl(),
                         format.sqlserverCdcConfig.getUsername(),
                         format.sqlserverCdcConfig.getPassword());
         connection.setAutoCommit(format.sqlserverCdcConfig.isAutoCommit());
-        conn = connection;
+        SqlServerCdcUtil.changeDatabase(connection, format.sqlserverCdcConfig.getDatabaseName());
+        return connection;
+    }
+
+    /** 关闭listener自己打开的连接，SqlServerCdcInputFormat持有的连接由其自身管理 */
+    private void close() {
+        if (fetchExecutor != null) {
+            fetchExecutor.shutdownNow();
+        }
+        for (int i = 0; i < fetchConns.length; i++) {
+            if (fetchConns[i] == format.getConn()) {
+                continue;
+            }
+            try {
+                fetchConns[i].close();
+            } catch (SQLException e) {
+                log.warn("close fetch connection failed", e);
+            }
+        }
     }
 }
@@ -76,6 +76,21 @@ public class SqlServerCdcOptions {
                     .longType()
                     .defaultValue(1000L)
                     .withDescription("SqlServer pollInterval.");
+
+    public static final ConfigOption<Long> MAX_POLL_INTERVAL =
+            ConfigOptions.key("max-poll-interval")
+                    .longType()
+                    .defaultValue(10000L)
+                    .withDescription(
+                            "Upper bound of the poll interval, which doubles while no change is captured.");
+
+    public static final ConfigOption<Integer> FETCH_PARALLELISM =
+            ConfigOptions.key("fetch-parallelism")
+                    .intType()
+                    .defaultValue(4)
+                    .withDescription(
+                            "Number of connections used to query change tables concurrently.");
+
     public static final ConfigOption<Boolean> AUTO_COMMIT =
             ConfigOptions.key("auto-commit")
                     .booleanType()
@@ -58,6 +58,8 @@ public class SqlservercdcDynamicTableFactory implements DynamicTableSourceFactor
         options.add(SqlServerCdcOptions.LSN);
         options.add(SqlServerCdcOptions.POLLINTERVAL);
         options.add(SqlServerCdcOptions.TIMESTAMP_FORMAT);
+        options.add(SqlServerCdcOptions.MAX_POLL_INTERVAL);
+        options.add(SqlServerCdcOptions.FETCH_PARALLELISM);
         return options;
     }
 
@@ -91,6 +93,8 @@ public class SqlservercdcDynamicTableFactory implements DynamicTableSourceFactor
         sqlServerCdcConfig.setPassword(config.get(SqlServerCdcOptions.PASSWORD));
         sqlServerCdcConfig.setUrl(config.get(SqlServerCdcOptions.JDBC_URL));
         sqlServerCdcConfig.setPollInterval(config.get(SqlServerCdcOptions.POLLINTERVAL));
+        sqlServerCdcConfig.setMaxPollInterval(config.get(SqlServerCdcOptions.MAX_POLL_INTERVAL));
+        sqlServerCdcConfig.setFetchParallelism(config.get(SqlServerCdcOptions.FETCH_PARALLELISM));
         sqlServerCdcConfig.setCat(config.get(SqlServerCdcOptions.CAT));
         sqlServerCdcConfig.setPavingData(true);
         sqlServerCdcConfig.setDatabaseName(config.get(SqlServerCdcOptions.DATABASE));
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.sqlservercdc.listener;
+
+import com.dtstack.chunjun.connector.sqlservercdc.config.SqlServerCdcConfig;
+import com.dtstack.chunjun.connector.sqlservercdc.entity.ChangeTable;
+import com.dtstack.chunjun.connector.sqlservercdc.entity.Lsn;
+import com.dtstack.chunjun.connector.sqlservercdc.entity.TxLogPosition;
+import com.dtstack.chunjun.connector.sqlservercdc.inputFormat.SqlServerCdcInputFormat;
+import com.dtstack.chunjun.connector.sqlservercdc.util.SqlServerCdcUtil;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.powermock.reflect.Whitebox;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SqlServerCdcListenerTest {
+
+    private static final Lsn MAX_LSN = Lsn.valueOf(new byte[] {0, 0, 0, 1, 0, 0, 0, 2, 0, 3});
+
+    private SqlServerCdcConfig config;
+    private SqlServerCdcInputFormat format;
+    private Connection formatConn;
+    /** connections opened by the listener, in order */
+    private final List<Connection> opened = Collections.synchronizedList(new ArrayList<>());
+
+    private MockedStatic<SqlServerCdcUtil> util;
+
+    @BeforeEach
+    void setUp() {
+        config = new SqlServerCdcConfig();
+        config.setCat("insert,update,delete");
+        config.setDatabaseName("db");
+        config.setTableList(Arrays.asList("dbo.a", "dbo.b", "dbo.c"));
+        config.setFetchParallelism(3);
+        config.setPollInterval(1L);
+        config.setMaxPollInterval(1L);
+        config.setAutoCommit(true);
+        config.setAutoResetConnection(true);
+
+        formatConn = mock(Connection.class);
+        format = mock(SqlServerCdcInputFormat.class);
+        format.sqlserverCdcConfig = config;
+        when(format.getConn()).thenReturn(formatConn);
+        when(format.getLogPosition()).thenReturn(TxLogPosition.valueOf(MAX_LSN));
+
+        util = mockStatic(SqlServerCdcUtil.class);
+        util.when(() -> SqlServerCdcUtil.getCdcTablesToQuery(any(), anyString(), any()))
+                .thenReturn(
+                        new ChangeTable[] {
+                            mock(ChangeTable.class),
+                            mock(ChangeTable.class),
+                            mock(ChangeTable.class)
+                        });
+        util.when(() -> SqlServerCdcUtil.getConnection(any(), any(), any()))
+                .thenAnswer(
+                        invocation -> {
+                            Connection connection = mock(Connection.class);
+                            opened.add(connection);
+                            return connection;
+                        });
+        util.when(() -> SqlServerCdcUtil.incrementLsn(any(), any())).thenReturn(MAX_LSN);
+    }
+
+    @AfterEach
+    void tearDown() {
+        util.close();
+    }
+
+    @Test
+    void idleCycleShouldResetOnlyTheMaxLsnConnection() throws Exception {
+        List<Connection> maxLsnConns = new ArrayList<>();
+        util.when(() -> SqlServerCdcUtil.getMaxLsn(any()))
+                .thenAnswer(
+                        invocation -> {
+                            maxLsnConns.add(invocation.getArgument(0));
+                            if (maxLsnConns.size() == 3) {
+                                // the pause of the third idle cycle stops the listener
+                                Thread.currentThread().interrupt();
+                            }
+                            return MAX_LSN;
+                        });
+        SqlServerCdcListener listener = new SqlServerCdcListener(format);
+        assertEquals(2, opened.size());
+        Connection[] fetchConns = Whitebox.getInternalState(listener, "fetchConns");
+        Connection[] extraConns = {fetchConns[1], fetchConns[2]};
+
+        listener.run();
+        assertTrue(Thread.interrupted());
+
+        // two idle cycles reset conn once each, the extra fetch connections are kept
+        assertEquals(4, opened.size());
+        assertEquals(Arrays.asList(formatConn, opened.get(2), opened.get(3)), maxLsnConns);
+        verify(formatConn).close();
+        verify(opened.get(2)).close();
+        assertArrayEquals(extraConns, new Connection[] {opened.get(0), opened.get(1)});
+    }
+
+    @Test
+    void fetchErrorShouldResetOnlyTheFailedConnection() throws Exception {
+        SqlServerCdcListener listener = newListenerFetchingInThisThread();
+        Connection[] fetchConns = Whitebox.getInternalState(listener, "fetchConns");
+        Connection failing = fetchConns[1];
+        Connection healthy = fetchConns[2];
+        List<ResultSet> resultSets = answerChanges(failing);
+
+        try {
+            assertThrows(
+                    SQLException.class,
+                    () -> Whitebox.invokeMethod(listener, "getChangeTables", MAX_LSN));
+
+            assertSame(formatConn, fetchConns[0]);
+            assertSame(opened.get(2), fetchConns[1]);
+            assertSame(healthy, fetchConns[2]);
+            assertEquals(3, opened.size());
+            verify(failing).close();
+            verify(formatConn, never()).close();
+            verify(healthy, never()).close();
+            // the result sets of the groups that succeeded are released
+            assertEquals(2, resultSets.size());
+            for (ResultSet resultSet : resultSets) {
+                verify(resultSet).close();
+            }
+        } finally {
+            Whitebox.invokeMethod(listener, "close");
+        }
+    }
+
+    @Test
+    void fetchErrorShouldKeepConnectionsWithoutAutoReset() throws Exception {
+        config.setAutoResetConnection(false);
+        SqlServerCdcListener listener = newListenerFetchingInThisThread();
+        Connection[] fetchConns = Whitebox.getInternalState(listener, "fetchConns");
+        Connection[] before = fetchConns.clone();
+        answerChanges(fetchConns[1]);
+
+        try {
+            assertThrows(
+                    SQLException.class,
+                    () -> Whitebox.invokeMethod(listener, "getChangeTables", MAX_LSN));
+
+            assertArrayEquals(before, fetchConns);
+            assertEquals(2, opened.size());
+            verify(before[1], never()).close();
+        } finally {
+            Whitebox.invokeMethod(listener, "close");
+        }
+    }
+
+    /** static mocks only apply to the thread that created them */
+    private SqlServerCdcListener newListenerFetchingInThisThread() throws SQLException {
+        SqlServerCdcListener listener = new SqlServerCdcListener(format);
+        ExecutorService fetchExecutor = Whitebox.getInternalState(listener, "fetchExecutor");
+        fetchExecutor.shutdownNow();
+        Whitebox.setInternalState(
+                listener, "fetchExecutor", MoreExecutors.newDirectExecutorService());
+        return listener;
+    }
+
+    /**
+     * answer change queries with one result per table, failing on the given connection
+     *
+     * @return the result sets handed out
+     */
+    private List<ResultSet> answerChanges(Connection failing) {
+        List<ResultSet> resultSets = Collections.synchronizedList(new ArrayList<>());
+        util.when(() -> SqlServerCdcUtil.getChangesForTables(any(), any(), any(), any()))
+                .thenAnswer(
+                        invocation -> {
+                            if (invocation.getArgument(0) == failing) {
+                                throw new SQLException("connection reset");
+                            }
+                            ChangeTable[] group = invocation.getArgument(1);
+                            SqlServerCdcUtil.StatementResult[] results =
+                                    new SqlServerCdcUtil.StatementResult[group.length];
+                            for (int i = 0; i < group.length; i++) {
+                                ResultSet resultSet = mock(ResultSet.class);
+                                resultSets.add(resultSet);
+                                results[i] =
+                                        new SqlServerCdcUtil.StatementResult(
+                                                mock(Statement.class), resultSet);
+                            }
+                            return results;
+                        });
+        return resultSets;
+    }
+}
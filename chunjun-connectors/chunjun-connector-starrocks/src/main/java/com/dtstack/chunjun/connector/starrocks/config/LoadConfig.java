@@ -41,5 +41,11 @@ public class LoadConfig implements Serializable {
 
     private Long batchMaxRows;
 
+    /** Number of threads loading buffered batches, batches of different tables load in parallel */
+    private Integer flushWorkers;
+
+    /** Upper bound of the bytes buffered or being loaded across all tables */
+    private Long maxBufferedBytes;
+
     private Map<String, String> headProperties;
 }
@@ -66,6 +66,8 @@ public class StarRocksConfig extends CommonConfig {
                     .queuePollTimeoutMs(ConstantValue.QUEUE_POLL_TIMEOUT_DEFAULT)
                     .batchMaxSize(ConstantValue.SINK_BATCH_MAX_BYTES_DEFAULT)
                     .batchMaxRows(ConstantValue.SINK_BATCH_MAX_ROWS_DEFAULT)
+                    .flushWorkers(ConstantValue.SINK_FLUSH_WORKERS_DEFAULT)
+                    .maxBufferedBytes(ConstantValue.SINK_MAX_BUFFERED_BYTES_DEFAULT)
                     .headProperties(Maps.newHashMap())
                     .build();
 
@@ -21,6 +21,7 @@ package com.dtstack.chunjun.connector.starrocks.converter;
 import com.dtstack.chunjun.config.CommonConfig;
 import com.dtstack.chunjun.config.FieldConfig;
 import com.dtstack.chunjun.connector.starrocks.streamload.StarRocksSinkOP;
+import com.dtstack.chunjun.connector.starrocks.streamload.StreamLoadRowWriter;
 import com.dtstack.chunjun.converter.AbstractRowConverter;
 import com.dtstack.chunjun.converter.IDeserializationConverter;
 import com.dtstack.chunjun.converter.ISerializationConverter;
@@ -46,13 +47,12 @@ import java.sql.Date;
 import java.sql.Timestamp;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 import static com.dtstack.chunjun.connector.starrocks.util.StarRocksUtil.addStrForNum;
 
 public class StarRocksColumnConverter
-        extends AbstractRowConverter<Object[], Object[], Map<String, Object>, LogicalType> {
+        extends AbstractRowConverter<Object[], Object[], StreamLoadRowWriter, LogicalType> {
 
     private static final long serialVersionUID = 1073658828047131297L;
 
@@ -90,20 +90,35 @@ public class StarRocksColumnConverter
         return columnRowData;
     }
 
+    /** Assembles the row from the columns the be reader built from the arrow vectors. */
+    public RowData toInternal(AbstractBaseColumn[] columns) {
+        ColumnRowData columnRowData = new ColumnRowData(rowType.getFieldCount());
+        int index = 0;
+        for (int pos = 0; pos < rowType.getFieldCount(); pos++) {
+            FieldConfig fieldConfig = commonConfig.getColumn().get(pos);
+            AbstractBaseColumn val = null;
+            if (StringUtils.isBlank(fieldConfig.getValue())) {
+                val = columns[index++];
+            }
+            columnRowData.addField(assembleFieldProps(fieldConfig, val));
+        }
+        return columnRowData;
+    }
+
     @Override
     public RowData toInternalLookup(Object[] input) throws Exception {
         return toInternal(input);
     }
 
     @Override
-    protected ISerializationConverter<Map<String, Object>> wrapIntoNullableExternalConverter(
-            ISerializationConverter<Map<String, Object>> ISerializationConverter,
+    protected ISerializationConverter<StreamLoadRowWriter> wrapIntoNullableExternalConverter(
+            ISerializationConverter<StreamLoadRowWriter> ISerializationConverter,
             LogicalType type) {
         return (rowData, index, output) -> {
             if (rowData == null
                     || rowData.isNullAt(index)
                     || LogicalTypeRoot.NULL.equals(type.getTypeRoot())) {
-                output.put(columnList.get(index), null);
+                output.writeNull(columnList.get(index));
             } else {
                 ISerializationConverter.serialize(rowData, index, output);
             }
@@ -111,13 +126,12 @@ public class StarRocksColumnConverter
     }
 
     @Override
-    public Map<String, Object> toExternal(RowData rowData, Map<String, Object> output)
+    public StreamLoadRowWriter toExternal(RowData rowData, StreamLoadRowWriter output)
             throws Exception {
         for (int index = 0; index < fieldTypes.length; index++) {
             toExternalConverters.get(index).serialize(rowData, index, output);
         }
-        output.put(
-                StarRocksSinkOP.COLUMN_KEY, StarRocksSinkOP.parse(rowData.getRowKind()).ordinal());
+        output.writeOp(StarRocksSinkOP.parse(rowData.getRowKind()));
         return output;
     }
 
@@ -159,46 +173,46 @@ public class StarRocksColumnConverter
     }
 
     @Override
-    protected ISerializationConverter<Map<String, Object>> createExternalConverter(
+    protected ISerializationConverter<StreamLoadRowWriter> createExternalConverter(
             LogicalType type) {
         switch (type.getTypeRoot()) {
             case BOOLEAN:
-                return (rowData, index, map) ->
-                        map.put(
+                return (rowData, index, writer) ->
+                        writer.writeLong(
                                 columnList.get(index),
                                 ((ColumnRowData) rowData).getField(index).asBoolean() ? 1 : 0);
             case TINYINT:
-                return (rowData, index, map) ->
-                        map.put(columnList.get(index), rowData.getByte(index));
+                return (rowData, index, writer) ->
+                        writer.writeLong(columnList.get(index), rowData.getByte(index));
             case SMALLINT:
-                return (rowData, index, map) ->
-                        map.put(columnList.get(index), rowData.getShort(index));
+                return (rowData, index, writer) ->
+                        writer.writeLong(columnList.get(index), rowData.getShort(index));
             case INTEGER:
-                return (rowData, index, map) ->
-                        map.put(columnList.get(index), rowData.getInt(index));
+                return (rowData, index, writer) ->
+                        writer.writeLong(columnList.get(index), rowData.getInt(index));
             case BIGINT:
-                return (rowData, index, map) ->
-                        map.put(columnList.get(index), rowData.getLong(index));
+                return (rowData, index, writer) ->
+                        writer.writeLong(columnList.get(index), rowData.getLong(index));
             case FLOAT:
-                return (rowData, index, map) ->
-                        map.put(columnList.get(index), rowData.getFloat(index));
+                return (rowData, index, writer) ->
+                        writer.writeFloat(columnList.get(index), rowData.getFloat(index));
             case DOUBLE:
-                return (rowData, index, map) ->
-                        map.put(columnList.get(index), rowData.getDouble(index));
+                return (rowData, index, writer) ->
+                        writer.writeDouble(columnList.get(index), rowData.getDouble(index));
             case DECIMAL:
-                return (rowData, index, map) ->
-                        map.put(
+                return (rowData, index, writer) ->
+                        writer.writeDecimal(
                                 columnList.get(index),
                                 ((ColumnRowData) rowData).getField(index).asBigDecimal());
             case CHAR:
             case VARCHAR:
-                return (rowData, index, map) ->
-                        map.put(
+                return (rowData, index, writer) ->
+                        writer.writeString(
                                 columnList.get(index),
                                 ((ColumnRowData) rowData).getField(index).asString());
             case DATE:
-                return (rowData, index, map) ->
-                        map.put(
+                return (rowData, index, writer) ->
+                        writer.writeString(
                                 columnList.get(index),
                                 ((ColumnRowData) rowData).getField(index).asSqlDate().toString());
             case TIMESTAMP_WITHOUT_TIME_ZONE:
@@ -214,16 +228,15 @@ public class StarRocksColumnConverter
                 } else {
                     formatStr = DATETIME_FORMAT_SHORT;
                 }
-                return (rowData, index, map) -> {
-                    DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern(formatStr);
-                    map.put(
-                            columnList.get(index),
-                            dateTimeFormatter.format(
-                                    ((ColumnRowData) rowData)
-                                            .getField(index)
-                                            .asTimestamp()
-                                            .toLocalDateTime()));
-                };
+                final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern(formatStr);
+                return (rowData, index, writer) ->
+                        writer.writeString(
+                                columnList.get(index),
+                                dateTimeFormatter.format(
+                                        ((ColumnRowData) rowData)
+                                                .getField(index)
+                                                .asTimestamp()
+                                                .toLocalDateTime()));
             default:
                 throw new UnsupportedOperationException("Unsupported type:" + type);
         }
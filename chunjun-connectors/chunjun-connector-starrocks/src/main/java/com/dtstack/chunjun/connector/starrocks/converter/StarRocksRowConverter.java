@@ -19,6 +19,7 @@
 package com.dtstack.chunjun.connector.starrocks.converter;
 
 import com.dtstack.chunjun.connector.starrocks.streamload.StarRocksSinkOP;
+import com.dtstack.chunjun.connector.starrocks.streamload.StreamLoadRowWriter;
 import com.dtstack.chunjun.converter.AbstractRowConverter;
 import com.dtstack.chunjun.converter.IDeserializationConverter;
 import com.dtstack.chunjun.converter.ISerializationConverter;
@@ -40,12 +41,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Map;
 
 import static com.dtstack.chunjun.connector.starrocks.util.StarRocksUtil.addStrForNum;
 
 public class StarRocksRowConverter
-        extends AbstractRowConverter<Object[], Object[], Map<String, Object>, LogicalType> {
+        extends AbstractRowConverter<Object[], Object[], StreamLoadRowWriter, LogicalType> {
 
     private static final long serialVersionUID = -176225284276566894L;
 
@@ -81,14 +81,14 @@ public class StarRocksRowConverter
     }
 
     @Override
-    protected ISerializationConverter<Map<String, Object>> wrapIntoNullableExternalConverter(
-            ISerializationConverter<Map<String, Object>> ISerializationConverter,
+    protected ISerializationConverter<StreamLoadRowWriter> wrapIntoNullableExternalConverter(
+            ISerializationConverter<StreamLoadRowWriter> ISerializationConverter,
             LogicalType type) {
         return (rowData, index, output) -> {
             if (rowData == null
                     || rowData.isNullAt(index)
                     || LogicalTypeRoot.NULL.equals(type.getTypeRoot())) {
-                output.put(columnList.get(index), null);
+                output.writeNull(columnList.get(index));
             } else {
                 ISerializationConverter.serialize(rowData, index, output);
             }
@@ -96,13 +96,12 @@ public class StarRocksRowConverter
     }
 
     @Override
-    public Map<String, Object> toExternal(RowData rowData, Map<String, Object> output)
+    public StreamLoadRowWriter toExternal(RowData rowData, StreamLoadRowWriter output)
             throws Exception {
         for (int index = 0; index < fieldTypes.length; index++) {
             toExternalConverters.get(index).serialize(rowData, index, output);
         }
-        output.put(
-                StarRocksSinkOP.COLUMN_KEY, StarRocksSinkOP.parse(rowData.getRowKind()).ordinal());
+        output.writeOp(StarRocksSinkOP.parse(rowData.getRowKind()));
         return output;
     }
 
@@ -179,65 +178,66 @@ public class StarRocksRowConverter
     }
 
     @Override
-    protected ISerializationConverter<Map<String, Object>> createExternalConverter(
+    protected ISerializationConverter<StreamLoadRowWriter> createExternalConverter(
             LogicalType type) {
         switch (type.getTypeRoot()) {
             case BOOLEAN:
-                return (rowData, index, map) ->
-                        map.put(columnList.get(index), rowData.getBoolean(index) ? 1 : 0);
+                return (rowData, index, writer) ->
+                        writer.writeLong(columnList.get(index), rowData.getBoolean(index) ? 1 : 0);
             case TINYINT:
-                return (rowData, index, map) ->
-                        map.put(columnList.get(index), rowData.getByte(index));
+                return (rowData, index, writer) ->
+                        writer.writeLong(columnList.get(index), rowData.getByte(index));
             case SMALLINT:
-                return (rowData, index, map) ->
-                        map.put(columnList.get(index), rowData.getShort(index));
+                return (rowData, index, writer) ->
+                        writer.writeLong(columnList.get(index), rowData.getShort(index));
             case INTEGER:
-                return (rowData, index, map) ->
-                        map.put(columnList.get(index), rowData.getInt(index));
+                return (rowData, index, writer) ->
+                        writer.writeLong(columnList.get(index), rowData.getInt(index));
             case BIGINT:
-                return (rowData, index, map) ->
-                        map.put(columnList.get(index), rowData.getLong(index));
+                return (rowData, index, writer) ->
+                        writer.writeLong(columnList.get(index), rowData.getLong(index));
             case FLOAT:
-                return (rowData, index, map) ->
-                        map.put(columnList.get(index), rowData.getFloat(index));
+                return (rowData, index, writer) ->
+                        writer.writeFloat(columnList.get(index), rowData.getFloat(index));
             case DOUBLE:
-                return (rowData, index, map) ->
-                        map.put(columnList.get(index), rowData.getDouble(index));
+                return (rowData, index, writer) ->
+                        writer.writeDouble(columnList.get(index), rowData.getDouble(index));
             case DECIMAL: // for both largeint and decimal
                 final int decimalPrecision = ((DecimalType) type).getPrecision();
                 final int decimalScale = ((DecimalType) type).getScale();
-                return (rowData, index, map) ->
-                        map.put(
+                return (rowData, index, writer) ->
+                        writer.writeDecimal(
                                 columnList.get(index),
                                 rowData.getDecimal(index, decimalPrecision, decimalScale)
                                         .toBigDecimal());
             case CHAR:
             case VARCHAR:
-                return (rowData, index, map) ->
-                        map.put(columnList.get(index), rowData.getString(index).toString());
+                return (rowData, index, writer) ->
+                        writer.writeString(
+                                columnList.get(index), rowData.getString(index).toString());
             case DATE:
-                return (rowData, index, map) ->
-                        map.put(
+                return (rowData, index, writer) ->
+                        writer.writeString(
                                 columnList.get(index),
                                 Date.valueOf(LocalDate.ofEpochDay(rowData.getInt(index)))
                                         .toString());
             case TIMESTAMP_WITHOUT_TIME_ZONE:
             case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
                 final int timestampPrecision = ((TimestampType) type).getPrecision();
-                return (rowData, index, map) ->
-                        map.put(
+                return (rowData, index, writer) ->
+                        writer.writeString(
                                 columnList.get(index),
                                 rowData.getTimestamp(index, timestampPrecision)
                                         .toLocalDateTime()
                                         .toString());
             case BINARY:
-                return (rowData, index, map) -> {
+                return (rowData, index, writer) -> {
                     byte[] bts = rowData.getBinary(index);
                     long value = 0;
                     for (int i = 0; i < bts.length; i++) {
                         value += (bts[bts.length - i - 1] & 0xffL) << (8 * i);
                     }
-                    map.put(columnList.get(index), value);
+                    writer.writeLong(columnList.get(index), value);
                 };
             default:
                 throw new UnsupportedOperationException("Unsupported type:" + type);
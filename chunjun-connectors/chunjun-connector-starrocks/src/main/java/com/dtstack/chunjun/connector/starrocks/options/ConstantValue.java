@@ -38,4 +38,6 @@ public class ConstantValue {
     public static final Integer QUEUE_POLL_TIMEOUT_DEFAULT = 60 * 1000;
     public static final Long SINK_BATCH_MAX_BYTES_DEFAULT = 2 * 1024 * 1024 * 1024L;
     public static final Long SINK_BATCH_MAX_ROWS_DEFAULT = 2048 * 100L;
+    public static final Integer SINK_FLUSH_WORKERS_DEFAULT = 2;
+    public static final Long SINK_MAX_BUFFERED_BYTES_DEFAULT = 1024 * 1024 * 1024L;
 }
@@ -56,6 +56,20 @@ public class StreamLoadOptions {
                     .defaultValue(ConstantValue.SINK_BATCH_MAX_ROWS_DEFAULT)
                     .withDescription("");
 
+    public static final ConfigOption<Integer> SINK_FLUSH_WORKERS =
+            ConfigOptions.key("sink.flush.workers")
+                    .intType()
+                    .defaultValue(ConstantValue.SINK_FLUSH_WORKERS_DEFAULT)
+                    .withDescription(
+                            "Number of threads doing stream load, batches of different tables are loaded in parallel.");
+
+    public static final ConfigOption<Long> SINK_MAX_BUFFERED_BYTES =
+            ConfigOptions.key("sink.max-buffered-bytes")
+                    .longType()
+                    .defaultValue(ConstantValue.SINK_MAX_BUFFERED_BYTES_DEFAULT)
+                    .withDescription(
+                            "Max bytes buffered or being loaded across all tables, writing blocks until flushed batches release memory.");
+
     public static final ConfigOption<Map<String, String>> STREAM_LOAD_HEAD_PROPERTIES =
             ConfigOptions.key("stream-load.head.properties")
                     .mapType()
@@ -20,6 +20,7 @@ package com.dtstack.chunjun.connector.starrocks.sink;
 
 import com.dtstack.chunjun.connector.starrocks.config.StarRocksConfig;
 import com.dtstack.chunjun.connector.starrocks.streamload.StreamLoadManager;
+import com.dtstack.chunjun.connector.starrocks.streamload.StreamLoadRowWriter;
 import com.dtstack.chunjun.element.ColumnRowData;
 
 import org.apache.flink.table.data.RowData;
@@ -45,34 +46,31 @@ public class MappedWriteProcessor extends StarRocksWriteProcessor {
 
     @Override
     public void write(List<RowData> rowDataList) throws Exception {
-        Map<String, List<Map<String, Object>>> identifyXValueMap = new HashMap<>();
+        Map<String, List<RowData>> identifyXRowsMap = new HashMap<>();
         for (RowData data : rowDataList) {
             ColumnRowData rowData = (ColumnRowData) data;
-            Map<String, Integer> headerInfo = rowData.getHeaderInfo();
-            String schema = starRocksConfig.getDatabase();
-            String table = starRocksConfig.getTable();
-            Map<String, Object> value = new HashMap<>();
-            for (Map.Entry<String, Integer> entry : headerInfo.entrySet()) {
-                String key = entry.getKey();
-                int index = entry.getValue();
-                switch (key) {
-                    case "schema":
-                        schema = rowData.getField(index).asString();
-                    case "table":
-                        table = rowData.getField(index).asString();
-                    default:
-                        if (!metaHeader.contains(key)) {
-                            value.put(key, rowData.getField(index).asString());
-                        }
-                }
-            }
+            String schema = getMetaValue(rowData, "schema", starRocksConfig.getDatabase());
+            String table = getMetaValue(rowData, "table", starRocksConfig.getTable());
             String identify = String.format("%s.%s", schema, table);
-            List<Map<String, Object>> valueList =
-                    identifyXValueMap.computeIfAbsent(identify, key -> new ArrayList<>());
-            valueList.add(value);
+            identifyXRowsMap.computeIfAbsent(identify, key -> new ArrayList<>()).add(rowData);
         }
-        for (Map.Entry<String, List<Map<String, Object>>> entry : identifyXValueMap.entrySet()) {
-            streamLoadManager.write(entry.getKey(), null, entry.getValue());
+        for (Map.Entry<String, List<RowData>> entry : identifyXRowsMap.entrySet()) {
+            streamLoadManager.write(entry.getKey(), null, entry.getValue(), this::writeRow);
         }
     }
+
+    private void writeRow(RowData data, StreamLoadRowWriter writer) {
+        ColumnRowData rowData = (ColumnRowData) data;
+        for (Map.Entry<String, Integer> entry : rowData.getHeaderInfo().entrySet()) {
+            String key = entry.getKey();
+            if (!metaHeader.contains(key)) {
+                writer.writeString(key, rowData.getField(entry.getValue()).asString());
+            }
+        }
+    }
+
+    private String getMetaValue(ColumnRowData rowData, String header, String defaultValue) {
+        Integer index = rowData.getHeaderInfo().get(header);
+        return index == null ? defaultValue : rowData.getField(index).asString();
+    }
 }
@@ -20,24 +20,22 @@ package com.dtstack.chunjun.connector.starrocks.sink;
 
 import com.dtstack.chunjun.connector.starrocks.config.StarRocksConfig;
 import com.dtstack.chunjun.connector.starrocks.streamload.StreamLoadManager;
+import com.dtstack.chunjun.connector.starrocks.streamload.StreamLoadRowWriter;
 import com.dtstack.chunjun.converter.AbstractRowConverter;
 
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.types.logical.LogicalType;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class NormalWriteProcessor extends StarRocksWriteProcessor {
 
-    private final AbstractRowConverter<Object[], Object[], Map<String, Object>, LogicalType>
+    private final AbstractRowConverter<Object[], Object[], StreamLoadRowWriter, LogicalType>
             rowConverter;
     private final List<String> columnNameList;
 
     public NormalWriteProcessor(
-            AbstractRowConverter<Object[], Object[], Map<String, Object>, LogicalType> converter,
+            AbstractRowConverter<Object[], Object[], StreamLoadRowWriter, LogicalType> converter,
             StreamLoadManager streamLoadManager,
             StarRocksConfig starRocksConfig,
             List<String> columnNameList) {
@@ -50,10 +48,6 @@ public class NormalWriteProcessor extends StarRocksWriteProcessor {
     public void write(List<RowData> rowDataList) throws Exception {
         String identify =
                 String.format("%s.%s", starRocksConfig.getDatabase(), starRocksConfig.getTable());
-        List<Map<String, Object>> values = new ArrayList<>(rowDataList.size());
-        for (RowData rowData : rowDataList) {
-            values.add(rowConverter.toExternal(rowData, new HashMap<>(columnNameList.size())));
-        }
-        streamLoadManager.write(identify, columnNameList, values);
+        streamLoadManager.write(identify, columnNameList, rowDataList, rowConverter::toExternal);
     }
 }
@@ -19,6 +19,7 @@
 package com.dtstack.chunjun.connector.starrocks.source;
 
 import com.dtstack.chunjun.connector.starrocks.config.StarRocksConfig;
+import com.dtstack.chunjun.connector.starrocks.converter.StarRocksColumnConverter;
 import com.dtstack.chunjun.connector.starrocks.source.be.StarRocksQueryPlanVisitor;
 import com.dtstack.chunjun.connector.starrocks.source.be.StarRocksSourceBeReader;
 import com.dtstack.chunjun.connector.starrocks.source.be.entity.QueryBeXTablets;
@@ -84,7 +85,12 @@ public class StarRocksInputFormat extends BaseRichInputFormat {
     @Override
     protected RowData nextRecordInternal(RowData rowData) throws ReadRecordException {
         try {
-            return rowConverter.toInternal(reader.getNext());
+            if (useAbstractColumn) {
+                return ((StarRocksColumnConverter) rowConverter)
+                        .toInternal(reader.getNextColumns());
+            }
+            // sql rows are written straight from the arrow vectors, no converter is needed
+            return reader.getNextRowData();
         } catch (Exception e) {
             throw new ReadRecordException("", e);
         }
@@ -20,6 +20,12 @@ package com.dtstack.chunjun.connector.starrocks.source.be;
 
 import com.dtstack.chunjun.connector.starrocks.converter.StarRocksRawTypeConverter;
 import com.dtstack.chunjun.connector.starrocks.source.be.entity.ColumnInfo;
+import com.dtstack.chunjun.element.AbstractBaseColumn;
+
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.binary.BinaryRowData;
+import org.apache.flink.table.data.writer.BinaryRowWriter;
+import org.apache.flink.table.types.logical.LogicalType;
 
 import com.starrocks.thrift.TScanBatchResult;
 import lombok.extern.slf4j.Slf4j;
@@ -27,82 +33,155 @@ import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.util.TransferPair;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
+/**
+ * Reads the rows of one {@link TScanBatchResult} straight from its arrow vectors.
+ *
+ * <p>{@link #read()} only loads the record batches, the cells are converted when a row is taken:
+ * {@link #nextRowData()} writes them into a binary row, {@link #nextColumns()} builds the columns
+ * of the sync rows, and {@link #next()} boxes them for the lookup functions. A batch is released as
+ * soon as all of its rows are taken.
+ */
 @Slf4j
 public class StarRocksArrowReader {
 
     private final List<ColumnInfo> columnInfoList;
-    private int offsetOfBatchForRead;
-    private int rowCountOfBatch;
+    private final StarRocksToJavaTrans[] transArray;
+    private final LogicalType[] logicalTypes;
+    private final List<ArrowBatch> batches = new ArrayList<>();
+    private int batchIndex;
+    private int rowIndex;
     private int flinkRowsCount;
+    private boolean closed;
+
+    private BinaryRowData binaryRow;
+    private BinaryRowWriter binaryRowWriter;
 
-    private List<Object[]> sourceJavaRows;
     private final ArrowStreamReader arrowStreamReader;
-    private final ConcurrentHashMap<String, FieldVector> fieldVectorMap;
     private final RootAllocator rootAllocator;
 
     public StarRocksArrowReader(TScanBatchResult nextResult, List<ColumnInfo> columnInfoList) {
         this.columnInfoList = columnInfoList;
+        this.transArray = new StarRocksToJavaTrans[columnInfoList.size()];
+        this.logicalTypes = new LogicalType[columnInfoList.size()];
+        for (ColumnInfo columnInfo : columnInfoList) {
+            transArray[columnInfo.getIndex()] = getStarRocksToJavaTrans(columnInfo);
+            logicalTypes[columnInfo.getIndex()] = columnInfo.getLogicalType();
+        }
         this.rootAllocator = new RootAllocator(Integer.MAX_VALUE);
         byte[] bytes = nextResult.getRows();
         ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(bytes);
         this.arrowStreamReader = new ArrowStreamReader(byteArrayInputStream, rootAllocator);
-        this.offsetOfBatchForRead = 0;
-        this.fieldVectorMap = new ConcurrentHashMap<>();
     }
 
     public StarRocksArrowReader read() throws IOException {
         VectorSchemaRoot root = arrowStreamReader.getVectorSchemaRoot();
         while (arrowStreamReader.loadNextBatch()) {
-            List<FieldVector> fieldVectors = root.getFieldVectors();
-            fieldVectors
-                    .parallelStream()
-                    .forEach(vector -> fieldVectorMap.put(vector.getName(), vector));
-            if (fieldVectors.size() == 0 || root.getRowCount() == 0) {
+            if (root.getFieldVectors().size() == 0 || root.getRowCount() == 0) {
                 continue;
             }
-            rowCountOfBatch = root.getRowCount();
-            sourceJavaRows = new ArrayList<>(rowCountOfBatch);
-            for (int i = 0; i < rowCountOfBatch; i++) {
-                sourceJavaRows.add(new Object[columnInfoList.size()]);
+            // the root is refilled by the next batch, so take over the buffers of this one
+            FieldVector[] vectors = new FieldVector[columnInfoList.size()];
+            for (ColumnInfo columnInfo : columnInfoList) {
+                FieldVector vector = root.getVector(columnInfo.getFieldName());
+                checkNotNull(
+                        vector,
+                        String.format(
+                                "Can not find StarRocks column data[%s]",
+                                columnInfo.getFieldName()));
+                TransferPair transferPair = vector.getTransferPair(rootAllocator);
+                transferPair.transfer();
+                vectors[columnInfo.getIndex()] = (FieldVector) transferPair.getTo();
             }
-            this.genData();
+            batches.add(new ArrowBatch(vectors, root.getRowCount()));
             flinkRowsCount += root.getRowCount();
         }
         return this;
     }
 
     public boolean hasNext() {
-        if (offsetOfBatchForRead < flinkRowsCount) {
-            return true;
+        while (batchIndex < batches.size()) {
+            if (rowIndex < batches.get(batchIndex).rowCount) {
+                return true;
+            }
+            batches.get(batchIndex).close();
+            batchIndex++;
+            rowIndex = 0;
         }
         this.close();
         return false;
     }
 
+    /** Boxed values of the next row, used by the lookup functions. */
     public Object[] next() {
-        if (!hasNext()) {
-            log.error("offset larger than data count");
-            throw new RuntimeException("read offset larger than data count");
+        FieldVector[] vectors = nextVectors();
+        Object[] row = new Object[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            row[i] =
+                    vectors[i].isNull(rowIndex)
+                            ? null
+                            : transArray[i].toJavaData(vectors[i], rowIndex);
+        }
+        rowIndex++;
+        return row;
+    }
+
+    /** Columns of the next row, null cells are left null. */
+    public AbstractBaseColumn[] nextColumns() {
+        FieldVector[] vectors = nextVectors();
+        AbstractBaseColumn[] columns = new AbstractBaseColumn[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            if (!vectors[i].isNull(rowIndex)) {
+                columns[i] = transArray[i].toColumn(vectors[i], rowIndex, logicalTypes[i]);
+            }
+        }
+        rowIndex++;
+        return columns;
+    }
+
+    /** The next row as a {@link BinaryRowData}, the cells are written without boxing. */
+    public RowData nextRowData() {
+        FieldVector[] vectors = nextVectors();
+        if (binaryRowWriter == null) {
+            binaryRow = new BinaryRowData(vectors.length);
+            binaryRowWriter = new BinaryRowWriter(binaryRow);
+        }
+        binaryRowWriter.reset();
+        for (int i = 0; i < vectors.length; i++) {
+            if (vectors[i].isNull(rowIndex)) {
+                StarRocksToJavaTrans.writeNull(binaryRowWriter, i, logicalTypes[i]);
+            } else {
+                transArray[i].write(vectors[i], rowIndex, binaryRowWriter, i, logicalTypes[i]);
+            }
         }
-        return sourceJavaRows.get(offsetOfBatchForRead++);
+        binaryRowWriter.complete();
+        rowIndex++;
+        // the writer reuses its segment, the emitted row needs its own copy
+        return binaryRow.copy();
     }
 
     public int getReadRowCount() {
         return flinkRowsCount;
     }
 
-    private void close() {
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
         try {
+            for (ArrowBatch batch : batches) {
+                batch.close();
+            }
             if (arrowStreamReader != null) {
                 arrowStreamReader.close();
             }
@@ -115,26 +194,12 @@ public class StarRocksArrowReader {
         }
     }
 
-    private void genData() {
-        columnInfoList
-                .parallelStream()
-                .forEach(
-                        columnInfo -> {
-                            FieldVector fieldVector = getFieldVector(columnInfo.getFieldName());
-                            getStarRocksToJavaTrans(columnInfo)
-                                    .transToJavaData(
-                                            fieldVector,
-                                            rowCountOfBatch,
-                                            columnInfo.getIndex(),
-                                            sourceJavaRows);
-                        });
-    }
-
-    public FieldVector getFieldVector(String fieldName) {
-        FieldVector fieldVector = fieldVectorMap.get(fieldName);
-        checkNotNull(
-                fieldVector, String.format("Can not find StarRocks column data[%s]", fieldName));
-        return fieldVector;
+    private FieldVector[] nextVectors() {
+        if (!hasNext()) {
+            log.error("offset larger than data count");
+            throw new RuntimeException("read offset larger than data count");
+        }
+        return batches.get(batchIndex).vectors;
     }
 
     public StarRocksToJavaTrans getStarRocksToJavaTrans(ColumnInfo columnInfo) {
@@ -153,4 +218,25 @@ public class StarRocksArrowReader {
                 columnInfo.getLogicalTypeRoot());
         return starRocksToJavaTrans;
     }
+
+    /** Vectors of one record batch, owned by this reader after the transfer. */
+    private static class ArrowBatch {
+        private final FieldVector[] vectors;
+        private final int rowCount;
+        private boolean released;
+
+        private ArrowBatch(FieldVector[] vectors, int rowCount) {
+            this.vectors = vectors;
+            this.rowCount = rowCount;
+        }
+
+        private void close() {
+            if (!released) {
+                released = true;
+                for (FieldVector vector : vectors) {
+                    vector.close();
+                }
+            }
+        }
+    }
 }
@@ -20,10 +20,13 @@ package com.dtstack.chunjun.connector.starrocks.source.be;
 
 import com.dtstack.chunjun.connector.starrocks.config.StarRocksConfig;
 import com.dtstack.chunjun.connector.starrocks.source.be.entity.ColumnInfo;
+import com.dtstack.chunjun.element.AbstractBaseColumn;
+import com.dtstack.chunjun.factory.ChunJunThreadFactory;
 import com.dtstack.chunjun.throwable.ChunJunRuntimeException;
 
+import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.types.DataType;
-import org.apache.flink.table.types.logical.LogicalTypeRoot;
+import org.apache.flink.table.types.logical.LogicalType;
 
 import com.starrocks.shade.org.apache.thrift.TException;
 import com.starrocks.shade.org.apache.thrift.protocol.TBinaryProtocol;
@@ -43,7 +46,17 @@ import lombok.extern.slf4j.Slf4j;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Scans the tablets of one BE. While the rows of a batch are taken, the next batch is fetched and
+ * decoded by a background thread, so the BE round trip overlaps with emitting the current rows.
+ */
 @Slf4j
 public class StarRocksSourceBeReader {
 
@@ -55,7 +68,10 @@ public class StarRocksSourceBeReader {
     private int readerOffset = 0;
 
     private StarRocksArrowReader curArrowReader;
-    private Object[] curData;
+    /** next batch being fetched, completes with null at the end of the scan */
+    private CompletableFuture<StarRocksArrowReader> nextArrowReader;
+
+    private ExecutorService prefetchExecutor;
     private List<ColumnInfo> columnInfoList;
 
     public StarRocksSourceBeReader(String beNode, StarRocksConfig starRocksConfig) {
@@ -133,7 +149,7 @@ public class StarRocksSourceBeReader {
 
         for (int i = 0; i < selectedColumnList.size(); i++) {
             String fieldName = fieldNames[i];
-            LogicalTypeRoot logicalTypeRoot = dataTypes[i].getLogicalType().getTypeRoot();
+            LogicalType logicalType = dataTypes[i].getLogicalType();
             String starRocksType = null;
             for (TScanColumnDesc columnDesc : selectedColumnList) {
                 if (fieldName.equalsIgnoreCase(columnDesc.getName())) {
@@ -146,11 +162,49 @@ public class StarRocksSourceBeReader {
                                 "be selected column does not contain column[%s],please check your configuration",
                                 fieldName));
             }
-            columnInfoList.add(new ColumnInfo(fieldName, logicalTypeRoot, starRocksType, i));
+            columnInfoList.add(new ColumnInfo(fieldName, logicalType, starRocksType, i));
         }
     }
 
     public void startToRead() {
+        this.curArrowReader = fetchNext();
+        prefetch();
+    }
+
+    public boolean hasNext() {
+        while (curArrowReader != null && !curArrowReader.hasNext()) {
+            curArrowReader = takePrefetched();
+            prefetch();
+        }
+        return curArrowReader != null;
+    }
+
+    /** Boxed values of the next row, used by the lookup functions. */
+    public Object[] getNext() {
+        checkHasNext();
+        return curArrowReader.next();
+    }
+
+    /** Columns of the next row for the sync rows. */
+    public AbstractBaseColumn[] getNextColumns() {
+        checkHasNext();
+        return curArrowReader.nextColumns();
+    }
+
+    /** Next row built straight from the arrow vectors. */
+    public RowData getNextRowData() {
+        checkHasNext();
+        return curArrowReader.nextRowData();
+    }
+
+    private void checkHasNext() {
+        if (!hasNext()) {
+            throw new ChunJunRuntimeException("no more data from be -> ip:[" + beHost + "]");
+        }
+    }
+
+    /** Fetches and decodes the next batch, returns null when the scan is finished. */
+    private StarRocksArrowReader fetchNext() {
         TScanNextBatchParams params = new TScanNextBatchParams();
         params.setContext_id(this.contextId);
         params.setOffset(this.readerOffset);
@@ -178,41 +232,61 @@ public class StarRocksSourceBeReader {
                 }
             }
         }
-        if (!result.eos) {
-            handleResult(result);
+        if (result.eos) {
+            return null;
         }
+        StarRocksArrowReader arrowReader = new StarRocksArrowReader(result, columnInfoList);
+        try {
+            arrowReader.read();
+        } catch (IOException e) {
+            arrowReader.close();
+            throw new RuntimeException(e.getMessage());
+        }
+        this.readerOffset = arrowReader.getReadRowCount() + this.readerOffset;
+        return arrowReader;
     }
 
-    public boolean hasNext() {
-        return this.curData != null;
-    }
-
-    public Object[] getNext() {
-        Object[] preparedData = this.curData;
-        this.curData = null;
-        if (this.curArrowReader.hasNext()) {
-            this.curData = curArrowReader.next();
+    private void prefetch() {
+        if (curArrowReader == null) {
+            // end of the scan, nothing left to fetch
+            nextArrowReader = null;
+            return;
         }
-        if (this.curData != null) {
-            return preparedData;
+        if (prefetchExecutor == null) {
+            prefetchExecutor =
+                    new ThreadPoolExecutor(
+                            1,
+                            1,
+                            0L,
+                            TimeUnit.MILLISECONDS,
+                            new LinkedBlockingQueue<>(),
+                            new ChunJunThreadFactory("starrocks-be-prefetch-" + beHost, true));
         }
-        startToRead();
-        return preparedData;
+        nextArrowReader = CompletableFuture.supplyAsync(this::fetchNext, prefetchExecutor);
     }
 
-    private void handleResult(TScanBatchResult result) {
-        StarRocksArrowReader starRocksRowData;
+    private StarRocksArrowReader takePrefetched() {
         try {
-            starRocksRowData = new StarRocksArrowReader(result, columnInfoList).read();
-        } catch (IOException e) {
-            throw new RuntimeException(e.getMessage());
+            return nextArrowReader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ChunJunRuntimeException("interrupted while fetching from be", e);
+        } catch (ExecutionException e) {
+            throw new ChunJunRuntimeException(
+                    "failed to scan from be -> ip:[" + beHost + "]", e.getCause());
+        } finally {
+            nextArrowReader = null;
         }
-        this.readerOffset = starRocksRowData.getReadRowCount() + this.readerOffset;
-        this.curArrowReader = starRocksRowData;
-        this.curData = starRocksRowData.next();
     }
 
     public void close() {
+        try {
+            closeArrowReaders();
+        } finally {
+            if (prefetchExecutor != null) {
+                prefetchExecutor.shutdownNow();
+            }
+        }
         TScanCloseParams tScanCloseParams = new TScanCloseParams();
         tScanCloseParams.setContext_id(this.contextId);
         try {
@@ -221,4 +295,26 @@ public class StarRocksSourceBeReader {
             throw new RuntimeException(e.getMessage());
         }
     }
+
+    /** The client is not thread safe, wait for the running fetch before closing the scanner. */
+    private void closeArrowReaders() {
+        if (curArrowReader != null) {
+            curArrowReader.close();
+            curArrowReader = null;
+        }
+        if (nextArrowReader != null) {
+            try {
+                StarRocksArrowReader prefetched = nextArrowReader.get();
+                if (prefetched != null) {
+                    prefetched.close();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                log.warn("prefetch from be -> ip:[{}] failed", beHost, e.getCause());
+            } finally {
+                nextArrowReader = null;
+            }
+        }
+    }
 }
@@ -18,7 +18,22 @@
 
 package com.dtstack.chunjun.connector.starrocks.source.be;
 
+import com.dtstack.chunjun.element.AbstractBaseColumn;
+import com.dtstack.chunjun.element.column.BigDecimalColumn;
+import com.dtstack.chunjun.element.column.BooleanColumn;
+import com.dtstack.chunjun.element.column.ByteColumn;
+import com.dtstack.chunjun.element.column.SqlDateColumn;
+import com.dtstack.chunjun.element.column.StringColumn;
+import com.dtstack.chunjun.element.column.TimestampColumn;
+
+import org.apache.flink.table.data.DecimalData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.data.writer.BinaryRowWriter;
+import org.apache.flink.table.types.logical.DecimalType;
+import org.apache.flink.table.types.logical.LogicalType;
 import org.apache.flink.table.types.logical.LogicalTypeRoot;
+import org.apache.flink.table.types.logical.utils.LogicalTypeChecks;
 
 import org.apache.arrow.vector.BigIntVector;
 import org.apache.arrow.vector.BitVector;
@@ -31,9 +46,18 @@ import org.apache.arrow.vector.SmallIntVector;
 import org.apache.arrow.vector.TinyIntVector;
 import org.apache.arrow.vector.VarCharVector;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 
+/**
+ * Reads the cells of an arrow vector. The reader checks {@link FieldVector#isNull} before calling,
+ * so the methods only see not null cells.
+ */
 public interface StarRocksToJavaTrans {
     // StarRocks
     String DATA_TYPE_STARROCKS_DATE = "DATE";
@@ -65,28 +89,34 @@ public interface StarRocksToJavaTrans {
                             LogicalTypeRoot.DATE,
                             new HashMap<String, StarRocksToJavaTrans>() {
                                 {
-                                    put(DATA_TYPE_STARROCKS_DATE, new VarCharVectorTrans());
+                                    put(DATA_TYPE_STARROCKS_DATE, new DateVarCharVectorTrans());
                                 }
                             });
                     put(
                             LogicalTypeRoot.TIMESTAMP_WITHOUT_TIME_ZONE,
                             new HashMap<String, StarRocksToJavaTrans>() {
                                 {
-                                    put(DATA_TYPE_STARROCKS_DATETIME, new VarCharVectorTrans());
+                                    put(
+                                            DATA_TYPE_STARROCKS_DATETIME,
+                                            new DateTimeVarCharVectorTrans());
                                 }
                             });
                     put(
                             LogicalTypeRoot.TIMESTAMP_WITH_LOCAL_TIME_ZONE,
                             new HashMap<String, StarRocksToJavaTrans>() {
                                 {
-                                    put(DATA_TYPE_STARROCKS_DATETIME, new VarCharVectorTrans());
+                                    put(
+                                            DATA_TYPE_STARROCKS_DATETIME,
+                                            new DateTimeVarCharVectorTrans());
                                 }
                             });
                     put(
                             LogicalTypeRoot.TIMESTAMP_WITH_TIME_ZONE,
                             new HashMap<String, StarRocksToJavaTrans>() {
                                 {
-                                    put(DATA_TYPE_STARROCKS_DATETIME, new VarCharVectorTrans());
+                                    put(
+                                            DATA_TYPE_STARROCKS_DATETIME,
+                                            new DateTimeVarCharVectorTrans());
                                 }
                             });
                     put(
@@ -161,124 +191,327 @@ public interface StarRocksToJavaTrans {
                 }
             };
 
-    void transToJavaData(
-            FieldVector curFieldVector, int rowCount, int colIndex, List<Object[]> res);
+    /** Boxed java value, used by the lookup functions. */
+    Object toJavaData(FieldVector vector, int rowIndex);
+
+    /** Column of the sync rows. */
+    AbstractBaseColumn toColumn(FieldVector vector, int rowIndex, LogicalType type);
+
+    /** Writes the cell into the binary row of the sql rows without boxing it. */
+    void write(FieldVector vector, int rowIndex, BinaryRowWriter writer, int pos, LogicalType type);
+
+    /** Decimals and timestamps that are not compact keep a slot in the variable part. */
+    static void writeNull(BinaryRowWriter writer, int pos, LogicalType type) {
+        switch (type.getTypeRoot()) {
+            case DECIMAL:
+                int precision = ((DecimalType) type).getPrecision();
+                if (DecimalData.isCompact(precision)) {
+                    writer.setNullAt(pos);
+                } else {
+                    writer.writeDecimal(pos, null, precision);
+                }
+                break;
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
+                int timestampPrecision = LogicalTypeChecks.getPrecision(type);
+                if (TimestampData.isCompact(timestampPrecision)) {
+                    writer.setNullAt(pos);
+                } else {
+                    writer.writeTimestamp(pos, null, timestampPrecision);
+                }
+                break;
+            default:
+                writer.setNullAt(pos);
+        }
+    }
 
-    /** StarRocks Date/Timestamp/Char/Varchar/LargeInt to java String */
+    /** StarRocks Char/Varchar/LargeInt to java String */
     class VarCharVectorTrans implements StarRocksToJavaTrans {
         @Override
-        public void transToJavaData(
-                FieldVector curFieldVector, int rowCount, int colIndex, List<Object[]> res) {
-            VarCharVector varCharVector = (VarCharVector) curFieldVector;
-            for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
-                res.get(rowIndex)[colIndex] =
-                        varCharVector.isNull(rowIndex)
-                                ? null
-                                : new String(varCharVector.get(rowIndex));
+        public Object toJavaData(FieldVector vector, int rowIndex) {
+            return new String(((VarCharVector) vector).get(rowIndex), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public AbstractBaseColumn toColumn(FieldVector vector, int rowIndex, LogicalType type) {
+            return new StringColumn((String) toJavaData(vector, rowIndex));
+        }
+
+        @Override
+        public void write(
+                FieldVector vector,
+                int rowIndex,
+                BinaryRowWriter writer,
+                int pos,
+                LogicalType type) {
+            // the bytes are utf-8 already, no need to decode them into a String
+            writer.writeString(pos, StringData.fromBytes(((VarCharVector) vector).get(rowIndex)));
+        }
+    }
+
+    /** StarRocks Date, sent as yyyy-MM-dd string */
+    class DateVarCharVectorTrans extends VarCharVectorTrans {
+        @Override
+        public AbstractBaseColumn toColumn(FieldVector vector, int rowIndex, LogicalType type) {
+            return new SqlDateColumn(Date.valueOf((String) toJavaData(vector, rowIndex)));
+        }
+
+        @Override
+        public void write(
+                FieldVector vector,
+                int rowIndex,
+                BinaryRowWriter writer,
+                int pos,
+                LogicalType type) {
+            writer.writeInt(pos, toEpochDay(((VarCharVector) vector).get(rowIndex)));
+        }
+
+        private static int toEpochDay(byte[] bytes) {
+            if (bytes.length == 10 && bytes[4] == '-' && bytes[7] == '-') {
+                return (int)
+                        LocalDate.of(toInt(bytes, 0, 4), toInt(bytes, 5, 2), toInt(bytes, 8, 2))
+                                .toEpochDay();
+            }
+            return (int)
+                    Date.valueOf(new String(bytes, StandardCharsets.UTF_8))
+                            .toLocalDate()
+                            .toEpochDay();
+        }
+
+        private static int toInt(byte[] bytes, int offset, int length) {
+            int value = 0;
+            for (int i = offset; i < offset + length; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new IllegalArgumentException(
+                            "Illegal date value: " + new String(bytes, StandardCharsets.UTF_8));
+                }
+                value = value * 10 + digit;
             }
+            return value;
+        }
+    }
+
+    /** StarRocks Datetime, sent as yyyy-MM-dd HH:mm:ss[.SSSSSS] string */
+    class DateTimeVarCharVectorTrans extends VarCharVectorTrans {
+        private static final int[] POWERS_OF_TEN = {
+            1_000_000_000, 100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10, 1
+        };
+
+        @Override
+        public AbstractBaseColumn toColumn(FieldVector vector, int rowIndex, LogicalType type) {
+            return new TimestampColumn(
+                    Timestamp.valueOf((String) toJavaData(vector, rowIndex)),
+                    LogicalTypeChecks.getPrecision(type));
+        }
+
+        @Override
+        public void write(
+                FieldVector vector,
+                int rowIndex,
+                BinaryRowWriter writer,
+                int pos,
+                LogicalType type) {
+            int precision = LogicalTypeChecks.getPrecision(type);
+            LocalDateTime dateTime =
+                    Timestamp.valueOf((String) toJavaData(vector, rowIndex)).toLocalDateTime();
+            // same as the row converter: digits beyond the precision are dropped
+            int nano = dateTime.getNano();
+            dateTime = dateTime.withNano(nano - nano % POWERS_OF_TEN[precision]);
+            writer.writeTimestamp(pos, TimestampData.fromLocalDateTime(dateTime), precision);
         }
     }
 
     /** StarRocks Boolean to java boolean */
     class BitVectorTrans implements StarRocksToJavaTrans {
         @Override
-        public void transToJavaData(
-                FieldVector curFieldVector, int rowCount, int colIndex, List<Object[]> res) {
-            BitVector bitVector = (BitVector) curFieldVector;
-            for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
-                res.get(rowIndex)[colIndex] =
-                        bitVector.isNull(rowIndex) ? null : bitVector.get(rowIndex) != 0;
-            }
+        public Object toJavaData(FieldVector vector, int rowIndex) {
+            return ((BitVector) vector).get(rowIndex) != 0;
+        }
+
+        @Override
+        public AbstractBaseColumn toColumn(FieldVector vector, int rowIndex, LogicalType type) {
+            return new BooleanColumn(((BitVector) vector).get(rowIndex) != 0);
+        }
+
+        @Override
+        public void write(
+                FieldVector vector,
+                int rowIndex,
+                BinaryRowWriter writer,
+                int pos,
+                LogicalType type) {
+            writer.writeBoolean(pos, ((BitVector) vector).get(rowIndex) != 0);
         }
     }
 
     /** StarRocks Tinyint to java byte */
     class TinyIntVectorTrans implements StarRocksToJavaTrans {
         @Override
-        public void transToJavaData(
-                FieldVector curFieldVector, int rowCount, int colIndex, List<Object[]> res) {
-            TinyIntVector tinyIntVector = (TinyIntVector) curFieldVector;
-            for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
-                res.get(rowIndex)[colIndex] =
-                        tinyIntVector.isNull(rowIndex) ? null : tinyIntVector.get(rowIndex);
-            }
+        public Object toJavaData(FieldVector vector, int rowIndex) {
+            return ((TinyIntVector) vector).get(rowIndex);
+        }
+
+        @Override
+        public AbstractBaseColumn toColumn(FieldVector vector, int rowIndex, LogicalType type) {
+            return new ByteColumn(((TinyIntVector) vector).get(rowIndex));
+        }
+
+        @Override
+        public void write(
+                FieldVector vector,
+                int rowIndex,
+                BinaryRowWriter writer,
+                int pos,
+                LogicalType type) {
+            writer.writeByte(pos, ((TinyIntVector) vector).get(rowIndex));
         }
     }
 
-    /** StarRocks Smallint to java int */
+    /** StarRocks Smallint to java short */
     class SmallIntVectorTrans implements StarRocksToJavaTrans {
         @Override
-        public void transToJavaData(
-                FieldVector curFieldVector, int rowCount, int colIndex, List<Object[]> res) {
-            SmallIntVector smallIntVector = (SmallIntVector) curFieldVector;
-            for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
-                res.get(rowIndex)[colIndex] =
-                        smallIntVector.isNull(rowIndex) ? null : smallIntVector.get(rowIndex);
-            }
+        public Object toJavaData(FieldVector vector, int rowIndex) {
+            return ((SmallIntVector) vector).get(rowIndex);
+        }
+
+        @Override
+        public AbstractBaseColumn toColumn(FieldVector vector, int rowIndex, LogicalType type) {
+            return new BigDecimalColumn(((SmallIntVector) vector).get(rowIndex));
+        }
+
+        @Override
+        public void write(
+                FieldVector vector,
+                int rowIndex,
+                BinaryRowWriter writer,
+                int pos,
+                LogicalType type) {
+            writer.writeShort(pos, ((SmallIntVector) vector).get(rowIndex));
         }
     }
 
     /** StarRocks Int to java int */
     class IntVectorTrans implements StarRocksToJavaTrans {
         @Override
-        public void transToJavaData(
-                FieldVector curFieldVector, int rowCount, int colIndex, List<Object[]> res) {
-            IntVector intVector = (IntVector) curFieldVector;
-            for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
-                res.get(rowIndex)[colIndex] =
-                        intVector.isNull(rowIndex) ? null : intVector.get(rowIndex);
-            }
+        public Object toJavaData(FieldVector vector, int rowIndex) {
+            return ((IntVector) vector).get(rowIndex);
+        }
+
+        @Override
+        public AbstractBaseColumn toColumn(FieldVector vector, int rowIndex, LogicalType type) {
+            return new BigDecimalColumn(((IntVector) vector).get(rowIndex));
+        }
+
+        @Override
+        public void write(
+                FieldVector vector,
+                int rowIndex,
+                BinaryRowWriter writer,
+                int pos,
+                LogicalType type) {
+            writer.writeInt(pos, ((IntVector) vector).get(rowIndex));
         }
     }
 
     /** StarRocks Bigint to java long */
     class BigIntVectorTrans implements StarRocksToJavaTrans {
         @Override
-        public void transToJavaData(
-                FieldVector curFieldVector, int rowCount, int colIndex, List<Object[]> res) {
-            BigIntVector bigIntVector = (BigIntVector) curFieldVector;
-            for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
-                res.get(rowIndex)[colIndex] =
-                        bigIntVector.isNull(rowIndex) ? null : bigIntVector.get(rowIndex);
-            }
+        public Object toJavaData(FieldVector vector, int rowIndex) {
+            return ((BigIntVector) vector).get(rowIndex);
+        }
+
+        @Override
+        public AbstractBaseColumn toColumn(FieldVector vector, int rowIndex, LogicalType type) {
+            return new BigDecimalColumn(((BigIntVector) vector).get(rowIndex));
+        }
+
+        @Override
+        public void write(
+                FieldVector vector,
+                int rowIndex,
+                BinaryRowWriter writer,
+                int pos,
+                LogicalType type) {
+            writer.writeLong(pos, ((BigIntVector) vector).get(rowIndex));
         }
     }
 
     /** StarRocks Float to java float */
     class Float4VectorTrans implements StarRocksToJavaTrans {
         @Override
-        public void transToJavaData(
-                FieldVector curFieldVector, int rowCount, int colIndex, List<Object[]> res) {
-            Float4Vector float4Vector = (Float4Vector) curFieldVector;
-            for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
-                res.get(rowIndex)[colIndex] =
-                        float4Vector.isNull(rowIndex) ? null : float4Vector.get(rowIndex);
-            }
+        public Object toJavaData(FieldVector vector, int rowIndex) {
+            return ((Float4Vector) vector).get(rowIndex);
+        }
+
+        @Override
+        public AbstractBaseColumn toColumn(FieldVector vector, int rowIndex, LogicalType type) {
+            return new BigDecimalColumn(((Float4Vector) vector).get(rowIndex));
+        }
+
+        @Override
+        public void write(
+                FieldVector vector,
+                int rowIndex,
+                BinaryRowWriter writer,
+                int pos,
+                LogicalType type) {
+            writer.writeFloat(pos, ((Float4Vector) vector).get(rowIndex));
         }
     }
 
     /** StarRocks Double to java double */
     class Float8VectorTrans implements StarRocksToJavaTrans {
         @Override
-        public void transToJavaData(
-                FieldVector curFieldVector, int rowCount, int colIndex, List<Object[]> res) {
-            Float8Vector float8Vector = (Float8Vector) curFieldVector;
-            for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
-                res.get(rowIndex)[colIndex] =
-                        float8Vector.isNull(rowIndex) ? null : float8Vector.get(rowIndex);
-            }
+        public Object toJavaData(FieldVector vector, int rowIndex) {
+            return ((Float8Vector) vector).get(rowIndex);
+        }
+
+        @Override
+        public AbstractBaseColumn toColumn(FieldVector vector, int rowIndex, LogicalType type) {
+            return new BigDecimalColumn(((Float8Vector) vector).get(rowIndex));
+        }
+
+        @Override
+        public void write(
+                FieldVector vector,
+                int rowIndex,
+                BinaryRowWriter writer,
+                int pos,
+                LogicalType type) {
+            writer.writeDouble(pos, ((Float8Vector) vector).get(rowIndex));
         }
     }
 
-    /** StarRocks Decimal to java double */
+    /** StarRocks Decimal to java BigDecimal */
     class DecimalVectorTrans implements StarRocksToJavaTrans {
         @Override
-        public void transToJavaData(
-                FieldVector curFieldVector, int rowCount, int colIndex, List<Object[]> res) {
-            DecimalVector decimalVector = (DecimalVector) curFieldVector;
-            for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
-                res.get(rowIndex)[colIndex] =
-                        decimalVector.isNull(rowIndex) ? null : decimalVector.getObject(rowIndex);
+        public Object toJavaData(FieldVector vector, int rowIndex) {
+            return ((DecimalVector) vector).getObject(rowIndex);
+        }
+
+        @Override
+        public AbstractBaseColumn toColumn(FieldVector vector, int rowIndex, LogicalType type) {
+            return new BigDecimalColumn(((DecimalVector) vector).getObject(rowIndex));
+        }
+
+        @Override
+        public void write(
+                FieldVector vector,
+                int rowIndex,
+                BinaryRowWriter writer,
+                int pos,
+                LogicalType type) {
+            DecimalType decimalType = (DecimalType) type;
+            BigDecimal value = ((DecimalVector) vector).getObject(rowIndex);
+            DecimalData decimalData =
+                    DecimalData.fromBigDecimal(
+                            value, decimalType.getPrecision(), decimalType.getScale());
+            if (decimalData == null) {
+                // out of the declared precision, same as the row converter
+                writeNull(writer, pos, type);
+            } else {
+                writer.writeDecimal(pos, decimalData, decimalType.getPrecision());
             }
         }
     }
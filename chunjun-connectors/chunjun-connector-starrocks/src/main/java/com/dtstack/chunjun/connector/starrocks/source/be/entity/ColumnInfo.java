@@ -18,6 +18,7 @@
 
 package com.dtstack.chunjun.connector.starrocks.source.be.entity;
 
+import org.apache.flink.table.types.logical.LogicalType;
 import org.apache.flink.table.types.logical.LogicalTypeRoot;
 
 import lombok.AllArgsConstructor;
@@ -27,7 +28,11 @@ import lombok.Data;
 @AllArgsConstructor
 public class ColumnInfo {
     private String fieldName;
-    private LogicalTypeRoot logicalTypeRoot;
+    private LogicalType logicalType;
     private String starRocksType;
     private int index;
+
+    public LogicalTypeRoot getLogicalTypeRoot() {
+        return logicalType.getTypeRoot();
+    }
 }
@@ -44,6 +44,8 @@ public class StarRocksSinkBufferEntity implements Serializable {
     private final List<String> columnList;
     boolean supportDelete;
     String httpHeadColumns;
+    /** true: rows are csv lines, false: rows are json objects */
+    private boolean csvFormat;
 
     public StarRocksSinkBufferEntity(String database, String table, List<String> columnList) {
         this.database = database;
@@ -86,6 +88,18 @@ public class StarRocksSinkBufferEntity implements Serializable {
         return httpHeadColumns;
     }
 
+    /** csv fields are positional, so the columns header is always needed. */
+    public String getCsvHeadColumns() {
+        StringJoiner joiner = new StringJoiner(",");
+        for (String columnName : columnList) {
+            joiner.add(String.format("`%s`", columnName));
+        }
+        if (supportDelete) {
+            joiner.add(StarRocksSinkOP.COLUMN_KEY);
+        }
+        return joiner.toString();
+    }
+
     public synchronized void clear() {
         buffer.clear();
         batchCount = 0;
@@ -28,19 +28,24 @@ import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPut;
-import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.DefaultRedirectStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.io.Serializable;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -81,12 +86,7 @@ public class StarRocksStreamLoadVisitor implements Serializable {
                         + bufferEntity.getTable()
                         + "/_stream_load";
         log.info(String.format("Start to join batch data: label[%s].", bufferEntity.getLabel()));
-        Map<String, Object> loadResult =
-                doHttpPut(
-                        loadUrl,
-                        bufferEntity.getLabel(),
-                        joinRows(bufferEntity.getBuffer(), (int) bufferEntity.getBatchSize()),
-                        bufferEntity.getHttpHeadColumns());
+        Map<String, Object> loadResult = doHttpPut(loadUrl, bufferEntity);
         dealStreamLoadResult(host, bufferEntity, loadResult);
     }
 
@@ -223,7 +223,7 @@ public class StarRocksStreamLoadVisitor implements Serializable {
         }
     }
 
-    private String getAvailableHost() {
+    private synchronized String getAvailableHost() {
         List<String> hostList = starRocksConfig.getFeNodes();
         long tmp = pos + hostList.size();
         for (; pos < tmp; pos++) {
@@ -249,29 +249,14 @@ public class StarRocksStreamLoadVisitor implements Serializable {
         }
     }
 
-    private byte[] joinRows(List<byte[]> rows, int totalBytes) {
-        ByteBuffer bos = ByteBuffer.allocate(totalBytes + (rows.isEmpty() ? 2 : 1 - rows.size()));
-        bos.put("[".getBytes(StandardCharsets.UTF_8));
-        byte[] jsonDelimiter = ",".getBytes(StandardCharsets.UTF_8);
-        boolean isFirstElement = true;
-        for (byte[] row : rows) {
-            if (!isFirstElement) {
-                bos.put(jsonDelimiter);
-            }
-            bos.put(row, 1, row.length - 2);
-            isFirstElement = false;
-        }
-        bos.put("]".getBytes(StandardCharsets.UTF_8));
-        return bos.array();
-    }
-
     @SuppressWarnings("unchecked")
-    private Map<String, Object> doHttpPut(
-            String loadUrl, String label, byte[] data, String httpHeadColumns) throws IOException {
+    private Map<String, Object> doHttpPut(String loadUrl, StarRocksSinkBufferEntity bufferEntity)
+            throws IOException {
+        StreamLoadEntity entity = new StreamLoadEntity(bufferEntity);
         log.info(
                 String.format(
                         "Executing stream load to: '%s', size: '%s', thread: %d",
-                        loadUrl, data.length, Thread.currentThread().getId()));
+                        loadUrl, entity.getContentLength(), Thread.currentThread().getId()));
         final HttpClientBuilder httpClientBuilder =
                 HttpClients.custom()
                         .setRedirectStrategy(
@@ -287,6 +272,10 @@ public class StarRocksStreamLoadVisitor implements Serializable {
             for (Map.Entry<String, String> entry : props.entrySet()) {
                 httpPut.setHeader(entry.getKey(), entry.getValue());
             }
+            String httpHeadColumns =
+                    bufferEntity.isCsvFormat()
+                            ? bufferEntity.getCsvHeadColumns()
+                            : bufferEntity.getHttpHeadColumns();
             if (!props.containsKey("columns") && StringUtils.isNotBlank(httpHeadColumns)) {
                 httpPut.setHeader("columns", httpHeadColumns);
             }
@@ -294,15 +283,19 @@ public class StarRocksStreamLoadVisitor implements Serializable {
                 httpPut.setHeader("timeout", "60");
             }
             httpPut.setHeader("Expect", "100-continue");
-            httpPut.setHeader("ignore_json_size", "true");
-            httpPut.setHeader("strip_outer_array", "true");
-            httpPut.setHeader("format", "json");
-            httpPut.setHeader("label", label);
+            if (bufferEntity.isCsvFormat()) {
+                httpPut.setHeader("format", "csv");
+            } else {
+                httpPut.setHeader("ignore_json_size", "true");
+                httpPut.setHeader("strip_outer_array", "true");
+                httpPut.setHeader("format", "json");
+            }
+            httpPut.setHeader("label", bufferEntity.getLabel());
             httpPut.setHeader(
                     "Authorization",
                     getBasicAuthHeader(
                             starRocksConfig.getUsername(), starRocksConfig.getPassword()));
-            httpPut.setEntity(new ByteArrayEntity(data));
+            httpPut.setEntity(entity);
             httpPut.setConfig(RequestConfig.custom().setRedirectsEnabled(true).build());
             try (CloseableHttpResponse resp = httpclient.execute(httpPut)) {
                 HttpEntity respEntity = getHttpEntity(resp);
@@ -325,4 +318,72 @@ public class StarRocksStreamLoadVisitor implements Serializable {
         }
         return respEntity;
     }
+
+    /**
+     * Sends the buffered chunks as they are: json chunks are joined into one outer array, csv
+     * chunks already end with the row delimiter. Avoids copying the whole batch into one array.
+     */
+    private static class StreamLoadEntity extends AbstractHttpEntity {
+
+        private static final byte[] ARRAY_START = "[".getBytes(StandardCharsets.UTF_8);
+        private static final byte[] ARRAY_END = "]".getBytes(StandardCharsets.UTF_8);
+        private static final byte[] JSON_DELIMITER = ",".getBytes(StandardCharsets.UTF_8);
+
+        private final List<byte[]> parts;
+        private final long contentLength;
+
+        private StreamLoadEntity(StarRocksSinkBufferEntity bufferEntity) {
+            List<byte[]> chunks = bufferEntity.getBuffer();
+            if (bufferEntity.isCsvFormat()) {
+                this.parts = chunks;
+            } else {
+                this.parts = new ArrayList<>(chunks.size() * 2 + 1);
+                parts.add(ARRAY_START);
+                for (int i = 0; i < chunks.size(); i++) {
+                    if (i > 0) {
+                        parts.add(JSON_DELIMITER);
+                    }
+                    parts.add(chunks.get(i));
+                }
+                parts.add(ARRAY_END);
+            }
+            long length = 0;
+            for (byte[] part : parts) {
+                length += part.length;
+            }
+            this.contentLength = length;
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public InputStream getContent() {
+            List<InputStream> streams = new ArrayList<>(parts.size());
+            for (byte[] part : parts) {
+                streams.add(new ByteArrayInputStream(part));
+            }
+            return new SequenceInputStream(Collections.enumeration(streams));
+        }
+
+        @Override
+        public void writeTo(OutputStream outStream) throws IOException {
+            for (byte[] part : parts) {
+                outStream.write(part);
+            }
+            outStream.flush();
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
 }
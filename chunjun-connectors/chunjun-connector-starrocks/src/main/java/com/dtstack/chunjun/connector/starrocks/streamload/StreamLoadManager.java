@@ -18,33 +18,62 @@
 
 package com.dtstack.chunjun.connector.starrocks.streamload;
 
+import com.dtstack.chunjun.connector.starrocks.config.LoadConfig;
 import com.dtstack.chunjun.connector.starrocks.config.StarRocksConfig;
+import com.dtstack.chunjun.connector.starrocks.options.ConstantValue;
+import com.dtstack.chunjun.factory.ChunJunThreadFactory;
+
+import org.apache.flink.table.data.RowData;
 
-import com.alibaba.fastjson.JSON;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Buffers encoded rows per table and loads them with a pool of flush workers.
+ *
+ * <p>Different tables are loaded concurrently, loads of the same table run one after another so
+ * that upserts and deletes are applied in order. The bytes held in memory, buffered or being
+ * loaded, are bounded across all tables by {@link LoadConfig#getMaxBufferedBytes()}.
+ *
+ * <p>Once a load fails, the loads chained after it and the buffers flushed later are dropped and
+ * the failure is thrown to the writer.
+ */
 @Slf4j
 public class StreamLoadManager {
-    final LinkedBlockingDeque<StarRocksSinkBufferEntity> flushQueue = new LinkedBlockingDeque<>(1);
     private final Map<String, StarRocksSinkBufferEntity> bufferMap = new ConcurrentHashMap<>();
+    /** The last submitted load of each table, the next load of the table is chained to it. */
+    private final Map<String, CompletableFuture<Void>> loadFutures = new ConcurrentHashMap<>();
+    /** Csv tables that had a value containing the separator or delimiter, they are sent as json. */
+    private final Set<String> jsonFallbackTables = new HashSet<>();
 
     private final StarRocksConfig starRocksConfig;
     private final boolean __opAutoProjectionInJson;
+    private final boolean csvFormat;
+    private final int flushWorkers;
+    private final long maxBufferedBytes;
+    private final StreamLoadRowWriter rowWriter;
 
     private final StarRocksQueryVisitor starrocksQueryVisitor;
     private final StarRocksStreamLoadVisitor starrocksStreamLoadVisitor;
 
+    private final Object bufferedBytesLock = new Object();
+    private long bufferedBytes;
+
+    private ExecutorService flushExecutor;
     private volatile boolean closed = false;
     private volatile Throwable flushException;
 
@@ -55,27 +84,51 @@ public class StreamLoadManager {
         String version = starrocksQueryVisitor.getStarRocksVersion();
         __opAutoProjectionInJson = version.length() > 0 && !version.trim().startsWith("1.");
         this.starrocksStreamLoadVisitor = new StarRocksStreamLoadVisitor(starRocksConfig);
+
+        LoadConfig loadConfig = starRocksConfig.getLoadConfig();
+        Map<String, String> headProperties = loadConfig.getHeadProperties();
+        this.csvFormat = "csv".equalsIgnoreCase(headProperties.get("format"));
+        this.rowWriter =
+                new StreamLoadRowWriter(
+                        headProperties.getOrDefault(
+                                "column_separator", ConstantValue.FIELD_DELIMITER),
+                        headProperties.getOrDefault("row_delimiter", ConstantValue.LINE_DELIMITER));
+        this.flushWorkers =
+                loadConfig.getFlushWorkers() == null
+                        ? ConstantValue.SINK_FLUSH_WORKERS_DEFAULT
+                        : Math.max(1, loadConfig.getFlushWorkers());
+        this.maxBufferedBytes =
+                loadConfig.getMaxBufferedBytes() == null
+                        ? ConstantValue.SINK_MAX_BUFFERED_BYTES_DEFAULT
+                        : loadConfig.getMaxBufferedBytes();
     }
 
-    public void write(String tableIdentify, List<String> columnList, List<Map<String, Object>> data)
+    /**
+     * Encodes the rows into the buffer of the table, the rows are not copied into maps or json
+     * objects before encoding.
+     */
+    public synchronized void write(
+            String tableIdentify, List<String> columnList, List<RowData> rows, RowEncoder encoder)
             throws Exception {
         try {
             checkFlushException();
-            StarRocksSinkBufferEntity bufferEntity =
-                    bufferMap.computeIfAbsent(
-                            tableIdentify,
-                            f -> {
-                                String[] databaseAndTable = tableIdentify.split("\\.");
-                                StarRocksSinkBufferEntity starRocksSinkBufferEntity =
-                                        new StarRocksSinkBufferEntity(
-                                                databaseAndTable[0],
-                                                databaseAndTable[1],
-                                                columnList);
-                                validateTableStructure(starRocksSinkBufferEntity);
-                                return starRocksSinkBufferEntity;
-                            });
-            bufferEntity.addToBuffer(
-                    JSON.toJSONString(data).getBytes(StandardCharsets.UTF_8), data.size());
+            encode(getBufferEntity(tableIdentify, columnList), rows, encoder);
+            if (rowWriter.isCsvConflict()) {
+                log.warn(
+                        "StarRocks table[{}] has values containing the csv column separator or row delimiter, it is loaded as json from now on.",
+                        tableIdentify);
+                jsonFallbackTables.add(tableIdentify);
+                // the rows buffered so far are still valid csv
+                submitLoad(tableIdentify);
+                encode(getBufferEntity(tableIdentify, columnList), rows, encoder);
+            }
+            if (rowWriter.getRowCount() == 0) {
+                return;
+            }
+            reserveBytes(rowWriter.getLength());
+            // the buffer may have been flushed to make room
+            StarRocksSinkBufferEntity bufferEntity = getBufferEntity(tableIdentify, columnList);
+            bufferEntity.addToBuffer(rowWriter.toByteArray(), rowWriter.getRowCount());
             if (bufferEntity.getBatchCount() >= starRocksConfig.getLoadConfig().getBatchMaxRows()
                     || bufferEntity.getBatchSize()
                             >= starRocksConfig.getLoadConfig().getBatchMaxSize()) {
@@ -92,6 +145,36 @@ public class StreamLoadManager {
         }
     }
 
+    private void encode(
+            StarRocksSinkBufferEntity bufferEntity, List<RowData> rows, RowEncoder encoder)
+            throws Exception {
+        rowWriter.begin(bufferEntity);
+        for (RowData rowData : rows) {
+            rowWriter.startRow();
+            encoder.encode(rowData, rowWriter);
+            rowWriter.endRow();
+        }
+    }
+
+    private StarRocksSinkBufferEntity getBufferEntity(
+            String tableIdentify, List<String> columnList) {
+        return bufferMap.computeIfAbsent(
+                tableIdentify,
+                f -> {
+                    String[] databaseAndTable = tableIdentify.split("\\.");
+                    StarRocksSinkBufferEntity starRocksSinkBufferEntity =
+                            new StarRocksSinkBufferEntity(
+                                    databaseAndTable[0], databaseAndTable[1], columnList);
+                    // csv fields are positional, rows without a fixed column list are sent as json
+                    starRocksSinkBufferEntity.setCsvFormat(
+                            csvFormat
+                                    && columnList != null
+                                    && !jsonFallbackTables.contains(tableIdentify));
+                    validateTableStructure(starRocksSinkBufferEntity);
+                    return starRocksSinkBufferEntity;
+                });
+    }
+
     public void validateTableStructure(StarRocksSinkBufferEntity entity) {
         if (starRocksConfig.getLoadConfig().getHeadProperties().containsKey("columns")) {
             return;
@@ -127,49 +210,85 @@ public class StreamLoadManager {
         }
     }
 
-    public void flush(String bufferKey, boolean waitUtilDone) throws Exception {
-        if (bufferMap.isEmpty()) {
-            flushInternal(null, waitUtilDone);
-            return;
-        }
+    public synchronized void flush(String bufferKey, boolean waitUtilDone) throws Exception {
+        checkFlushException();
         if (null == bufferKey) {
-            for (String key : bufferMap.keySet()) {
-                flushInternal(key, waitUtilDone);
+            for (String key : new ArrayList<>(bufferMap.keySet())) {
+                submitLoad(key);
             }
-            return;
+        } else {
+            submitLoad(bufferKey);
+        }
+        if (waitUtilDone) {
+            waitAsyncFlushingDone();
         }
-        flushInternal(bufferKey, waitUtilDone);
     }
 
-    private synchronized void flushInternal(String bufferKey, boolean waitUtilDone)
-            throws Exception {
-        checkFlushException();
-        if (null == bufferKey || bufferMap.isEmpty() || !bufferMap.containsKey(bufferKey)) {
-            if (waitUtilDone) {
-                waitAsyncFlushingDone();
-            }
+    private void submitLoad(String bufferKey) {
+        StarRocksSinkBufferEntity bufferEntity = bufferMap.remove(bufferKey);
+        if (bufferEntity == null || 0 == bufferEntity.getBatchCount()) {
             return;
         }
-        offer(bufferMap.get(bufferKey));
-        bufferMap.remove(bufferKey);
-        if (waitUtilDone) {
-            // wait the last flush
-            waitAsyncFlushingDone();
+        if (flushException != null) {
+            releaseBytes(bufferEntity.getBatchSize());
+            return;
         }
+        CompletableFuture<Void> future =
+                loadFutures.compute(
+                        bufferKey,
+                        (key, last) ->
+                                (last == null
+                                                ? CompletableFuture.<Void>completedFuture(null)
+                                                : last)
+                                        .handleAsync(
+                                                (ignored, error) -> load(bufferEntity, error),
+                                                flushExecutor));
+        // a finished load that is still the last one of its table has nothing to chain to
+        future.whenComplete((ignored, error) -> loadFutures.remove(bufferKey, future));
     }
 
-    private void waitAsyncFlushingDone() throws InterruptedException {
-        // wait for previous flushings
-        offer(new StarRocksSinkBufferEntity(null, null, null));
+    private void waitAsyncFlushingDone() throws Exception {
+        try {
+            CompletableFuture.allOf(loadFutures.values().toArray(new CompletableFuture[0])).get();
+        } catch (ExecutionException e) {
+            // the cause is kept in flushException
+        }
         checkFlushException();
     }
 
-    void offer(StarRocksSinkBufferEntity bufferEntity) throws InterruptedException {
-        if (!flushQueue.offer(
-                bufferEntity,
-                starRocksConfig.getLoadConfig().getQueueOfferTimeoutMs(),
-                TimeUnit.MILLISECONDS)) {
-            throw new RuntimeException("Timeout while offering data to flushQueue");
+    /**
+     * Waits until the bytes fit into {@link #maxBufferedBytes}. All buffers are handed to the flush
+     * workers first, otherwise nothing would release the bytes.
+     */
+    private void reserveBytes(long bytes) throws Exception {
+        synchronized (bufferedBytesLock) {
+            if (bufferedBytes == 0 || bufferedBytes + bytes <= maxBufferedBytes) {
+                bufferedBytes += bytes;
+                return;
+            }
+        }
+        flush(null, false);
+        long deadline =
+                System.currentTimeMillis()
+                        + starRocksConfig.getLoadConfig().getQueueOfferTimeoutMs();
+        synchronized (bufferedBytesLock) {
+            while (bufferedBytes > 0 && bufferedBytes + bytes > maxBufferedBytes) {
+                checkFlushException();
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new RuntimeException(
+                            "Timeout while waiting for buffered data to be flushed to StarRocks");
+                }
+                bufferedBytesLock.wait(remaining);
+            }
+            bufferedBytes += bytes;
+        }
+    }
+
+    private void releaseBytes(long bytes) {
+        synchronized (bufferedBytesLock) {
+            bufferedBytes -= bytes;
+            bufferedBytesLock.notifyAll();
         }
     }
 
@@ -189,43 +308,53 @@ public class StreamLoadManager {
     }
 
     public void startAsyncFlushing() {
-        // start flush thread
-        Thread flushThread =
-                new Thread(
-                        () -> {
-                            while (true) {
-                                try {
-                                    if (!asyncFlush()) {
-                                        log.info("StarRocks flush failed.");
-                                        break;
-                                    }
-                                } catch (Exception e) {
+        flushExecutor =
+                new ThreadPoolExecutor(
+                        flushWorkers,
+                        flushWorkers,
+                        0L,
+                        TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<>(),
+                        new ChunJunThreadFactory(
+                                "chunjun-starrocks-flush",
+                                true,
+                                (t, e) -> {
+                                    log.error(
+                                            "StarRocks flush thread uncaught exception occurred: "
+                                                    + e.getMessage(),
+                                            e);
                                     flushException = e;
-                                }
-                            }
-                        });
-
-        flushThread.setUncaughtExceptionHandler(
-                (t, e) -> {
-                    log.error(
-                            "StarRocks flush thread uncaught exception occurred: " + e.getMessage(),
-                            e);
-                    flushException = e;
-                });
-        flushThread.setName("chunjun-starrocks-flush");
-        flushThread.setDaemon(true);
-        flushThread.start();
+                                }));
     }
 
-    /** @return false if met eof and flush thread will exit. */
-    private boolean asyncFlush() throws Exception {
-        StarRocksSinkBufferEntity flushData =
-                flushQueue.poll(
-                        starRocksConfig.getLoadConfig().getQueuePollTimeoutMs(),
-                        TimeUnit.MILLISECONDS);
-        if (flushData == null || 0 == flushData.getBatchCount()) {
-            return true;
+    /**
+     * Loads the buffer unless the previous load of the table or any other load failed. The failure
+     * is rethrown so that the loads chained after this one are skipped as well.
+     */
+    private Void load(StarRocksSinkBufferEntity flushData, Throwable previousError) {
+        try {
+            if (previousError != null) {
+                throw previousError;
+            }
+            if (flushException != null) {
+                throw flushException;
+            }
+            doStreamLoad(flushData);
+            return null;
+        } catch (Throwable e) {
+            if (flushException == null) {
+                log.error("StarRocks flush failed.", e);
+                flushException = e;
+            }
+            throw e instanceof CompletionException
+                    ? (CompletionException) e
+                    : new CompletionException(e);
+        } finally {
+            releaseBytes(flushData.getBatchSize());
         }
+    }
+
+    private void doStreamLoad(StarRocksSinkBufferEntity flushData) throws Exception {
         log.info(
                 String.format(
                         "Async stream load: db[%s] table[%s] rows[%d] bytes[%d] label[%s].",
@@ -264,7 +393,6 @@ public class StreamLoadManager {
                 }
             }
         }
-        return true;
     }
 
     public synchronized void close() {
@@ -275,17 +403,25 @@ public class StreamLoadManager {
                 starrocksQueryVisitor.close();
             }
 
-            if (flushException != null) {
-                checkFlushException();
-                return;
-            }
             try {
-                log.info("StarRocks Sink is about to close.");
-                flush(null, true);
+                if (flushException == null) {
+                    log.info("StarRocks Sink is about to close.");
+                    flush(null, true);
+                }
             } catch (Exception e) {
                 throw new RuntimeException("Writing records to StarRocks failed.", e);
+            } finally {
+                if (flushExecutor != null) {
+                    flushExecutor.shutdownNow();
+                }
             }
         }
         checkFlushException();
     }
+
+    /** Writes the fields of one row, the row start and end are written by the manager. */
+    @FunctionalInterface
+    public interface RowEncoder {
+        void encode(RowData rowData, StreamLoadRowWriter writer) throws Exception;
+    }
 }
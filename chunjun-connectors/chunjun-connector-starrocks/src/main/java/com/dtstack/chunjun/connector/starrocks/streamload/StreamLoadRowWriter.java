@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.starrocks.streamload;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes rows straight into stream load bytes, either as json objects separated by commas (the
+ * visitor wraps the chunks into one outer array) or as csv lines.
+ *
+ * <p>Converters write every field through this writer, so no intermediate map or json tree is built
+ * per row. The writer is reused: {@link #begin} resets it for the next chunk of a table.
+ *
+ * <p>Stream load csv has no escaping, a value containing the column separator or the row delimiter
+ * would shift the columns. Such values are written as they are and reported by {@link
+ * #isCsvConflict()}, the manager then encodes the chunk again as json.
+ */
+public class StreamLoadRowWriter {
+
+    private static final byte[] NULL_JSON = "null".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NULL_CSV = "\\N".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    private final String columnSeparatorString;
+    private final String rowDelimiterString;
+    private final byte[] columnSeparator;
+    private final byte[] rowDelimiter;
+
+    private byte[] bytes = new byte[64 * 1024];
+    private int length;
+    private int rowCount;
+    private boolean firstField;
+
+    private boolean csv;
+    private boolean writeOp;
+    private boolean csvConflict;
+
+    public StreamLoadRowWriter(String columnSeparator, String rowDelimiter) {
+        this.columnSeparatorString = columnSeparator;
+        this.rowDelimiterString = rowDelimiter;
+        this.columnSeparator = columnSeparator.getBytes(StandardCharsets.UTF_8);
+        this.rowDelimiter = rowDelimiter.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Starts a new chunk for the given table buffer. */
+    public void begin(StarRocksSinkBufferEntity entity) {
+        this.csv = entity.isCsvFormat();
+        // csv columns are positional, __op can only be sent when it is in the columns header
+        this.writeOp = !csv || entity.isSupportDelete();
+        this.length = 0;
+        this.rowCount = 0;
+        this.csvConflict = false;
+    }
+
+    public void startRow() {
+        if (!csv) {
+            if (rowCount > 0) {
+                writeByte(',');
+            }
+            writeByte('{');
+        }
+        firstField = true;
+    }
+
+    public void endRow() {
+        if (csv) {
+            write(rowDelimiter);
+        } else {
+            writeByte('}');
+        }
+        rowCount++;
+    }
+
+    public void writeNull(String column) {
+        startField(column);
+        write(csv ? NULL_CSV : NULL_JSON);
+    }
+
+    public void writeLong(String column, long value) {
+        startField(column);
+        writeAscii(Long.toString(value));
+    }
+
+    public void writeDouble(String column, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeNull(column);
+            return;
+        }
+        startField(column);
+        writeAscii(Double.toString(value));
+    }
+
+    public void writeFloat(String column, float value) {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            writeNull(column);
+            return;
+        }
+        startField(column);
+        writeAscii(Float.toString(value));
+    }
+
+    public void writeDecimal(String column, BigDecimal value) {
+        startField(column);
+        writeAscii(value.toPlainString());
+    }
+
+    public void writeString(String column, String value) {
+        if (value == null) {
+            writeNull(column);
+            return;
+        }
+        startField(column);
+        if (csv) {
+            if (value.contains(columnSeparatorString) || value.contains(rowDelimiterString)) {
+                csvConflict = true;
+            }
+            writeUtf8(value, false);
+        } else {
+            writeByte('"');
+            writeUtf8(value, true);
+            writeByte('"');
+        }
+    }
+
+    /** Writes the {@link StarRocksSinkOP#COLUMN_KEY} field, skipped for csv tables without it. */
+    public void writeOp(StarRocksSinkOP op) {
+        if (writeOp) {
+            writeLong(StarRocksSinkOP.COLUMN_KEY, op.ordinal());
+        }
+    }
+
+    /** Whether a csv value of this chunk contains the column separator or the row delimiter. */
+    public boolean isCsvConflict() {
+        return csvConflict;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private void startField(String column) {
+        if (csv) {
+            if (!firstField) {
+                write(columnSeparator);
+            }
+        } else {
+            if (!firstField) {
+                writeByte(',');
+            }
+            writeByte('"');
+            writeUtf8(column, true);
+            writeByte('"');
+            writeByte(':');
+        }
+        firstField = false;
+    }
+
+    private void writeAscii(String value) {
+        int len = value.length();
+        ensureCapacity(len);
+        for (int i = 0; i < len; i++) {
+            bytes[length++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeUtf8(String value, boolean escape) {
+        int len = value.length();
+        // worst case: \\u escape for every char or 3 bytes per char
+        ensureCapacity(len * 6);
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (escape && (c < 0x20 || c == '"' || c == '\\')) {
+                    writeEscaped(c);
+                } else {
+                    bytes[length++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xc0 | (c >> 6));
+                bytes[length++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c)
+                    && i + 1 < len
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[length++] = (byte) (0xf0 | (codePoint >> 18));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                bytes[length++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate, same replacement as String#getBytes
+                bytes[length++] = '?';
+            } else {
+                bytes[length++] = (byte) (0xe0 | (c >> 12));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                bytes[length++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    private void writeEscaped(char c) {
+        bytes[length++] = '\\';
+        switch (c) {
+            case '"':
+            case '\\':
+                bytes[length++] = (byte) c;
+                break;
+            case '\n':
+                bytes[length++] = 'n';
+                break;
+            case '\r':
+                bytes[length++] = 'r';
+                break;
+            case '\t':
+                bytes[length++] = 't';
+                break;
+            case '\b':
+                bytes[length++] = 'b';
+                break;
+            case '\f':
+                bytes[length++] = 'f';
+                break;
+            default:
+                bytes[length++] = 'u';
+                bytes[length++] = '0';
+                bytes[length++] = '0';
+                bytes[length++] = HEX[c >> 4];
+                bytes[length++] = HEX[c & 0xf];
+        }
+    }
+
+    private void write(byte[] value) {
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, bytes, length, value.length);
+        length += value.length;
+    }
+
+    private void writeByte(char c) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) c;
+    }
+
+    private void ensureCapacity(int required) {
+        if (length + required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + required));
+        }
+    }
+}
@@ -61,6 +61,8 @@ import static com.dtstack.chunjun.connector.starrocks.options.StreamLoadOptions.
 import static com.dtstack.chunjun.connector.starrocks.options.StreamLoadOptions.QUEUE_POLL_TIMEOUT;
 import static com.dtstack.chunjun.connector.starrocks.options.StreamLoadOptions.SINK_BATCH_MAX_BYTES;
 import static com.dtstack.chunjun.connector.starrocks.options.StreamLoadOptions.SINK_BATCH_MAX_ROWS;
+import static com.dtstack.chunjun.connector.starrocks.options.StreamLoadOptions.SINK_FLUSH_WORKERS;
+import static com.dtstack.chunjun.connector.starrocks.options.StreamLoadOptions.SINK_MAX_BUFFERED_BYTES;
 import static com.dtstack.chunjun.connector.starrocks.options.StreamLoadOptions.STREAM_LOAD_HEAD_PROPERTIES;
 import static com.dtstack.chunjun.lookup.options.LookupOptions.LOOKUP_ASYNC_TIMEOUT;
 import static com.dtstack.chunjun.lookup.options.LookupOptions.LOOKUP_CACHE_MAX_ROWS;
@@ -155,6 +157,8 @@ public class StarRocksDynamicTableFactory
         return LoadConfig.builder()
                 .batchMaxSize(options.get(SINK_BATCH_MAX_BYTES))
                 .batchMaxRows(options.get(SINK_BATCH_MAX_ROWS))
+                .flushWorkers(options.get(SINK_FLUSH_WORKERS))
+                .maxBufferedBytes(options.get(SINK_MAX_BUFFERED_BYTES))
                 .httpCheckTimeoutMs(options.get(HTTP_CHECK_TIMEOUT))
                 .queueOfferTimeoutMs(options.get(QUEUE_OFFER_TIMEOUT))
                 .queuePollTimeoutMs(options.get(QUEUE_POLL_TIMEOUT))
@@ -231,6 +235,8 @@ public class StarRocksDynamicTableFactory
         // stream load
         optionalOptions.add(SINK_BATCH_MAX_ROWS);
         optionalOptions.add(SINK_BATCH_MAX_BYTES);
+        optionalOptions.add(SINK_FLUSH_WORKERS);
+        optionalOptions.add(SINK_MAX_BUFFERED_BYTES);
         optionalOptions.add(HTTP_CHECK_TIMEOUT);
         optionalOptions.add(QUEUE_OFFER_TIMEOUT);
         optionalOptions.add(QUEUE_POLL_TIMEOUT);
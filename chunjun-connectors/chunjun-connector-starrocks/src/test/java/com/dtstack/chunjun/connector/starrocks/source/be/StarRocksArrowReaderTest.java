@@ -0,0 +1,413 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.starrocks.source.be;
+
+import com.dtstack.chunjun.config.CommonConfig;
+import com.dtstack.chunjun.config.FieldConfig;
+import com.dtstack.chunjun.connector.starrocks.converter.StarRocksColumnConverter;
+import com.dtstack.chunjun.connector.starrocks.converter.StarRocksRowConverter;
+import com.dtstack.chunjun.connector.starrocks.source.be.entity.ColumnInfo;
+import com.dtstack.chunjun.element.AbstractBaseColumn;
+import com.dtstack.chunjun.element.ColumnRowData;
+import com.dtstack.chunjun.element.column.TimestampColumn;
+
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.types.logical.BigIntType;
+import org.apache.flink.table.types.logical.BooleanType;
+import org.apache.flink.table.types.logical.DateType;
+import org.apache.flink.table.types.logical.DecimalType;
+import org.apache.flink.table.types.logical.DoubleType;
+import org.apache.flink.table.types.logical.FloatType;
+import org.apache.flink.table.types.logical.IntType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.SmallIntType;
+import org.apache.flink.table.types.logical.TimestampType;
+import org.apache.flink.table.types.logical.TinyIntType;
+import org.apache.flink.table.types.logical.VarCharType;
+
+import com.starrocks.thrift.TScanBatchResult;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.junit.jupiter.api.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StarRocksArrowReaderTest {
+
+    /** name, flink type, StarRocks type of every test column */
+    private static final Object[][] COLUMNS = {
+        {"c_boolean", new BooleanType(), "BOOLEAN"},
+        {"c_tinyint", new TinyIntType(), "TINYINT"},
+        {"c_smallint", new SmallIntType(), "SMALLINT"},
+        {"c_int", new IntType(), "INT"},
+        {"c_bigint", new BigIntType(), "BIGINT"},
+        {"c_largeint", new VarCharType(40), "LARGEINT"},
+        {"c_float", new FloatType(), "FLOAT"},
+        {"c_double", new DoubleType(), "DOUBLE"},
+        {"c_decimal", new DecimalType(10, 2), "DECIMAL128"},
+        {"c_decimal_wide", new DecimalType(38, 9), "DECIMALV2"},
+        {"c_decimal_overflow", new DecimalType(5, 2), "DECIMAL64"},
+        {"c_varchar", new VarCharType(100), "VARCHAR"},
+        {"c_date", new DateType(), "DATE"},
+        {"c_datetime", new TimestampType(3), "DATETIME"},
+        {"c_datetime_long", new TimestampType(9), "DATETIME"},
+    };
+
+    private static final Object[][] BATCH_1 = {
+        {
+            true,
+            (byte) -1,
+            (short) 300,
+            70000,
+            Long.MAX_VALUE,
+            "170141183460469231731687303715884105727",
+            1.5f,
+            -2.25d,
+            new BigDecimal("12345678.90"),
+            new BigDecimal("12345678901234567890123456789.123456789"),
+            new BigDecimal("12345.67"),
+            "中文 text",
+            "2024-02-29",
+            "2024-01-02 03:04:05.123456",
+            // the row converter can not parse a value shorter than the precision
+            "2024-01-02 03:04:05.123456789"
+        },
+        new Object[COLUMNS.length],
+    };
+
+    private static final Object[][] BATCH_2 = {
+        {
+            false,
+            Byte.MIN_VALUE,
+            Short.MIN_VALUE,
+            Integer.MIN_VALUE,
+            Long.MIN_VALUE,
+            "-1",
+            -0.0f,
+            Double.MAX_VALUE,
+            new BigDecimal("-0.01"),
+            new BigDecimal("0.000000001"),
+            new BigDecimal("-999.99"),
+            "",
+            "1969-12-31",
+            "1999-12-31 23:59:59.999",
+            "1999-12-31 23:59:59.999999999"
+        },
+    };
+
+    @Test
+    public void testRowDataMatchesRowConverter() throws Exception {
+        byte[] bytes = arrowStream(COLUMNS, BATCH_1, BATCH_2);
+        StarRocksArrowReader reader = newReader(bytes);
+        StarRocksArrowReader boxedReader = newReader(bytes);
+        RowType rowType = rowType();
+        StarRocksRowConverter converter = new StarRocksRowConverter(rowType, columnNames());
+
+        assertEquals(3, reader.getReadRowCount());
+        int rows = 0;
+        while (reader.hasNext()) {
+            assertTrue(boxedReader.hasNext());
+            RowData actual = reader.nextRowData();
+            RowData expected = converter.toInternal(boxedReader.next());
+            for (int i = 0; i < rowType.getFieldCount(); i++) {
+                RowData.FieldGetter getter = RowData.createFieldGetter(rowType.getTypeAt(i), i);
+                assertEquals(
+                        getter.getFieldOrNull(expected),
+                        getter.getFieldOrNull(actual),
+                        "row " + rows + " column " + COLUMNS[i][0]);
+            }
+            rows++;
+        }
+        assertFalse(boxedReader.hasNext());
+        assertEquals(3, rows);
+    }
+
+    @Test
+    public void testNullsAndDecimalOverflow() throws Exception {
+        StarRocksArrowReader reader = newReader(arrowStream(COLUMNS, BATCH_1));
+
+        RowData first = reader.nextRowData();
+        // 12345.67 does not fit into DECIMAL(5, 2)
+        assertTrue(first.isNullAt(10));
+        assertEquals(new BigDecimal("12345678.90"), first.getDecimal(8, 10, 2).toBigDecimal());
+        assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), first.getInt(12));
+
+        RowData second = reader.nextRowData();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            assertTrue(second.isNullAt(i), String.valueOf(COLUMNS[i][0]));
+        }
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testColumnsMatchColumnConverter() throws Exception {
+        byte[] bytes = arrowStream(COLUMNS, BATCH_1, BATCH_2);
+        StarRocksArrowReader reader = newReader(bytes);
+        StarRocksArrowReader boxedReader = newReader(bytes);
+        CommonConfig commonConfig = new CommonConfig();
+        List<FieldConfig> fieldConfigs = new ArrayList<>();
+        for (Object[] column : COLUMNS) {
+            FieldConfig fieldConfig = new FieldConfig();
+            fieldConfig.setName((String) column[0]);
+            fieldConfigs.add(fieldConfig);
+        }
+        commonConfig.setColumn(fieldConfigs);
+        StarRocksColumnConverter converter = new StarRocksColumnConverter(rowType(), commonConfig);
+
+        int rows = 0;
+        while (reader.hasNext()) {
+            ColumnRowData actual = (ColumnRowData) converter.toInternal(reader.nextColumns());
+            ColumnRowData expected = (ColumnRowData) converter.toInternal(boxedReader.next());
+            for (int i = 0; i < COLUMNS.length; i++) {
+                AbstractBaseColumn actualField = actual.getField(i);
+                AbstractBaseColumn expectedField = expected.getField(i);
+                String message = "row " + rows + " column " + COLUMNS[i][0];
+                if (expectedField == null || expectedField.getData() == null) {
+                    assertTrue(actualField == null || actualField.getData() == null, message);
+                    continue;
+                }
+                assertEquals(expectedField.getClass(), actualField.getClass(), message);
+                assertEquals(expectedField.getData(), actualField.getData(), message);
+                if (expectedField instanceof TimestampColumn) {
+                    assertEquals(
+                            ((TimestampColumn) expectedField).getPrecision(),
+                            ((TimestampColumn) actualField).getPrecision(),
+                            message);
+                }
+            }
+            rows++;
+        }
+        assertEquals(3, rows);
+    }
+
+    @Test
+    public void testDateTimePrecision() throws Exception {
+        Object[][] columns = {
+            {"c0", new TimestampType(0), "DATETIME"},
+            {"c3", new TimestampType(3), "DATETIME"},
+            {"c6", new TimestampType(6), "DATETIME"},
+        };
+        Object[][] batch = {
+            {
+                "2024-01-02 03:04:05.987654",
+                "2024-01-02 03:04:05.987654",
+                "2024-01-02 03:04:05.987654"
+            },
+            // shorter than the declared precision
+            {"2024-01-02 03:04:05", "2024-01-02 03:04:05.9", "2024-01-02 03:04:05"},
+        };
+        StarRocksArrowReader reader = newReader(arrowStream(columns, batch), columns);
+
+        RowData first = reader.nextRowData();
+        assertEquals(timestamp(0), first.getTimestamp(0, 0));
+        assertEquals(timestamp(987_000_000), first.getTimestamp(1, 3));
+        assertEquals(timestamp(987_654_000), first.getTimestamp(2, 6));
+
+        RowData second = reader.nextRowData();
+        assertEquals(timestamp(0), second.getTimestamp(0, 0));
+        assertEquals(timestamp(900_000_000), second.getTimestamp(1, 3));
+        assertEquals(timestamp(0), second.getTimestamp(2, 6));
+    }
+
+    @Test
+    public void testToEpochDay() throws Exception {
+        assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), toEpochDay("2024-02-29"));
+        assertEquals(LocalDate.of(1970, 1, 1).toEpochDay(), toEpochDay("1970-01-01"));
+        assertEquals(LocalDate.of(1, 1, 1).toEpochDay(), toEpochDay("0001-01-01"));
+        // not zero padded, parsed by java.sql.Date
+        assertEquals(LocalDate.of(2024, 2, 9).toEpochDay(), toEpochDay("2024-2-9"));
+        assertThrows(IllegalArgumentException.class, () -> toEpochDay("2024-0a-01"));
+        assertThrows(IllegalArgumentException.class, () -> toEpochDay("20240101"));
+    }
+
+    @Test
+    public void testBoxedRows() throws Exception {
+        StarRocksArrowReader reader = newReader(arrowStream(COLUMNS, BATCH_1, BATCH_2));
+
+        assertArrayEquals(BATCH_1[0], reader.next());
+        assertArrayEquals(BATCH_1[1], reader.next());
+        assertArrayEquals(BATCH_2[0], reader.next());
+        assertFalse(reader.hasNext());
+        assertThrows(RuntimeException.class, reader::next);
+    }
+
+    private static TimestampData timestamp(int nano) {
+        return TimestampData.fromLocalDateTime(LocalDateTime.of(2024, 1, 2, 3, 4, 5, nano));
+    }
+
+    private static int toEpochDay(String date) throws Exception {
+        return Whitebox.invokeMethod(
+                StarRocksToJavaTrans.DateVarCharVectorTrans.class,
+                "toEpochDay",
+                (Object) date.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static RowType rowType() {
+        LogicalType[] types = new LogicalType[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            types[i] = (LogicalType) COLUMNS[i][1];
+        }
+        return RowType.of(types, columnNames().toArray(new String[0]));
+    }
+
+    private static List<String> columnNames() {
+        List<String> names = new ArrayList<>();
+        for (Object[] column : COLUMNS) {
+            names.add((String) column[0]);
+        }
+        return names;
+    }
+
+    static StarRocksArrowReader newReader(byte[] bytes) throws IOException {
+        return newReader(bytes, COLUMNS);
+    }
+
+    static StarRocksArrowReader newReader(byte[] bytes, Object[][] columns) throws IOException {
+        TScanBatchResult result = new TScanBatchResult();
+        result.setRows(bytes);
+        return new StarRocksArrowReader(result, columnInfos(columns)).read();
+    }
+
+    static List<ColumnInfo> columnInfos(Object[][] columns) {
+        List<ColumnInfo> columnInfos = new ArrayList<>();
+        for (int i = 0; i < columns.length; i++) {
+            columnInfos.add(
+                    new ColumnInfo(
+                            (String) columns[i][0],
+                            (LogicalType) columns[i][1],
+                            (String) columns[i][2],
+                            i));
+        }
+        return columnInfos;
+    }
+
+    /** Encodes the batches as an arrow stream the way the BE sends them, one vector per column. */
+    static byte[] arrowStream(Object[][] columns, Object[][]... batches) throws IOException {
+        try (BufferAllocator allocator = new RootAllocator(Integer.MAX_VALUE)) {
+            List<FieldVector> vectors = new ArrayList<>();
+            for (Object[] column : columns) {
+                vectors.add(vector((String) column[0], (String) column[2], allocator));
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (VectorSchemaRoot root = new VectorSchemaRoot(vectors);
+                    ArrowStreamWriter writer = new ArrowStreamWriter(root, null, out)) {
+                writer.start();
+                for (Object[][] batch : batches) {
+                    for (int i = 0; i < vectors.size(); i++) {
+                        FieldVector vector = vectors.get(i);
+                        vector.allocateNew();
+                        for (int row = 0; row < batch.length; row++) {
+                            set(vector, row, batch[row][i]);
+                        }
+                        vector.setValueCount(batch.length);
+                    }
+                    root.setRowCount(batch.length);
+                    writer.writeBatch();
+                }
+                writer.end();
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static FieldVector vector(String name, String type, BufferAllocator allocator) {
+        switch (type) {
+            case "BOOLEAN":
+                return new BitVector(name, allocator);
+            case "TINYINT":
+                return new TinyIntVector(name, allocator);
+            case "SMALLINT":
+                return new SmallIntVector(name, allocator);
+            case "INT":
+                return new IntVector(name, allocator);
+            case "BIGINT":
+                return new BigIntVector(name, allocator);
+            case "FLOAT":
+                return new Float4Vector(name, allocator);
+            case "DOUBLE":
+                return new Float8Vector(name, allocator);
+            case "DECIMAL128":
+                return new DecimalVector(name, allocator, 38, 2);
+            case "DECIMAL64":
+                return new DecimalVector(name, allocator, 18, 2);
+            case "DECIMALV2":
+                // decimal v2 is sent as decimal(27, 9)
+                return new DecimalVector(name, allocator, 38, 9);
+            default:
+                // LARGEINT, VARCHAR, DATE and DATETIME are sent as strings
+                return new VarCharVector(name, allocator);
+        }
+    }
+
+    private static void set(FieldVector vector, int row, Object value) {
+        if (value == null) {
+            // the validity buffer is zeroed by allocateNew, an unset cell is null
+            return;
+        }
+        if (vector instanceof BitVector) {
+            ((BitVector) vector).setSafe(row, (Boolean) value ? 1 : 0);
+        } else if (vector instanceof TinyIntVector) {
+            ((TinyIntVector) vector).setSafe(row, (Byte) value);
+        } else if (vector instanceof SmallIntVector) {
+            ((SmallIntVector) vector).setSafe(row, (Short) value);
+        } else if (vector instanceof IntVector) {
+            ((IntVector) vector).setSafe(row, (Integer) value);
+        } else if (vector instanceof BigIntVector) {
+            ((BigIntVector) vector).setSafe(row, (Long) value);
+        } else if (vector instanceof Float4Vector) {
+            ((Float4Vector) vector).setSafe(row, (Float) value);
+        } else if (vector instanceof Float8Vector) {
+            ((Float8Vector) vector).setSafe(row, (Double) value);
+        } else if (vector instanceof DecimalVector) {
+            DecimalVector decimalVector = (DecimalVector) vector;
+            decimalVector.setSafe(row, ((BigDecimal) value).setScale(decimalVector.getScale()));
+        } else {
+            ((VarCharVector) vector)
+                    .setSafe(row, ((String) value).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
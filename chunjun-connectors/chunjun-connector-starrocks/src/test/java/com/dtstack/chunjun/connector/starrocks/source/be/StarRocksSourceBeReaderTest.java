@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.starrocks.source.be;
+
+import com.dtstack.chunjun.connector.starrocks.config.StarRocksConfig;
+import com.dtstack.chunjun.throwable.ChunJunRuntimeException;
+
+import org.apache.flink.table.types.logical.IntType;
+
+import com.starrocks.thrift.TScanBatchResult;
+import com.starrocks.thrift.TScanCloseParams;
+import com.starrocks.thrift.TScanNextBatchParams;
+import com.starrocks.thrift.TStarrocksExternalService;
+import com.starrocks.thrift.TStatus;
+import com.starrocks.thrift.TStatusCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.powermock.reflect.Whitebox;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+public class StarRocksSourceBeReaderTest {
+
+    private static final Object[][] COLUMNS = {{"c_int", new IntType(), "INT"}};
+
+    private ServerSocket beServer;
+    private TStarrocksExternalService.Client client;
+    private final List<Long> offsets = new ArrayList<>();
+    private final Map<Long, String> fetchThreads = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        // the reader opens its socket in the constructor, the calls go to the mocked client
+        beServer = new ServerSocket(0);
+        client = Mockito.mock(TStarrocksExternalService.Client.class);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        beServer.close();
+    }
+
+    @Test
+    public void testRowsInOrderWithPrefetch() throws Exception {
+        Mockito.when(client.get_next(any()))
+                .thenAnswer(
+                        invocation -> {
+                            TScanNextBatchParams params = invocation.getArgument(0);
+                            record(params);
+                            switch ((int) params.getOffset()) {
+                                case 0:
+                                    return batch(1, 2);
+                                case 2:
+                                    return batch(3);
+                                default:
+                                    return eos();
+                            }
+                        });
+        StarRocksSourceBeReader reader = newReader(3);
+
+        reader.startToRead();
+        List<Integer> rows = new ArrayList<>();
+        while (reader.hasNext()) {
+            rows.add(reader.getNextRowData().getInt(0));
+        }
+        reader.close();
+
+        assertEquals(3, rows.size());
+        assertEquals(1, rows.get(0));
+        assertEquals(2, rows.get(1));
+        assertEquals(3, rows.get(2));
+        synchronized (offsets) {
+            assertEquals(3, offsets.size());
+            assertEquals(0L, offsets.get(0));
+            assertEquals(2L, offsets.get(1));
+            assertEquals(3L, offsets.get(2));
+        }
+        // only the first batch is fetched by the reading thread
+        assertEquals(Thread.currentThread().getName(), fetchThreads.get(0L));
+        assertTrue(fetchThreads.get(2L).startsWith("starrocks-be-prefetch-127.0.0.1"));
+        assertTrue(fetchThreads.get(3L).startsWith("starrocks-be-prefetch-127.0.0.1"));
+        assertThrows(ChunJunRuntimeException.class, reader::getNextRowData);
+        Mockito.verify(client).close_scanner(any(TScanCloseParams.class));
+    }
+
+    @Test
+    public void testPrefetchFailureSurfaces() throws Exception {
+        Mockito.when(client.get_next(any()))
+                .thenAnswer(
+                        invocation -> {
+                            TScanNextBatchParams params = invocation.getArgument(0);
+                            if (params.getOffset() == 0) {
+                                return batch(1);
+                            }
+                            throw new RuntimeException("be is gone");
+                        });
+        StarRocksSourceBeReader reader = newReader(0);
+
+        reader.startToRead();
+        assertTrue(reader.hasNext());
+        assertEquals(1, reader.getNextRowData().getInt(0));
+        ChunJunRuntimeException e = assertThrows(ChunJunRuntimeException.class, reader::hasNext);
+        assertTrue(e.getCause() instanceof ChunJunRuntimeException);
+        reader.close();
+    }
+
+    @Test
+    public void testCloseWaitsForPrefetch() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean fetchDone = new AtomicBoolean();
+        AtomicBoolean closedAfterFetch = new AtomicBoolean();
+        Mockito.when(client.get_next(any()))
+                .thenAnswer(
+                        invocation -> {
+                            TScanNextBatchParams params = invocation.getArgument(0);
+                            if (params.getOffset() == 0) {
+                                return batch(1);
+                            }
+                            fetching.countDown();
+                            release.await();
+                            Thread.sleep(100);
+                            fetchDone.set(true);
+                            return batch(2);
+                        });
+        Mockito.when(client.close_scanner(any()))
+                .thenAnswer(
+                        invocation -> {
+                            closedAfterFetch.set(fetchDone.get());
+                            return null;
+                        });
+        StarRocksSourceBeReader reader = newReader(0);
+
+        reader.startToRead();
+        assertTrue(fetching.await(10, TimeUnit.SECONDS));
+        release.countDown();
+        reader.close();
+
+        // the client is not thread safe, the scanner is closed only after the fetch returned
+        assertTrue(closedAfterFetch.get());
+        assertFalse(reader.hasNext());
+    }
+
+    private void record(TScanNextBatchParams params) {
+        synchronized (offsets) {
+            offsets.add(params.getOffset());
+        }
+        fetchThreads.put(params.getOffset(), Thread.currentThread().getName());
+    }
+
+    private StarRocksSourceBeReader newReader(int maxRetries) {
+        StarRocksConfig config = new StarRocksConfig();
+        config.setMaxRetries(maxRetries);
+        StarRocksSourceBeReader reader =
+                new StarRocksSourceBeReader("127.0.0.1:" + beServer.getLocalPort(), config);
+        Whitebox.setInternalState(reader, "client", client);
+        Whitebox.setInternalState(reader, "contextId", "context");
+        Whitebox.setInternalState(
+                reader, "columnInfoList", StarRocksArrowReaderTest.columnInfos(COLUMNS));
+        return reader;
+    }
+
+    private static TScanBatchResult batch(Integer... values) throws Exception {
+        Object[][] rows = new Object[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            rows[i] = new Object[] {values[i]};
+        }
+        TScanBatchResult result = new TScanBatchResult();
+        result.setStatus(new TStatus(TStatusCode.OK));
+        result.setEos(false);
+        result.setRows(StarRocksArrowReaderTest.arrowStream(COLUMNS, rows));
+        return result;
+    }
+
+    private static TScanBatchResult eos() {
+        TScanBatchResult result = new TScanBatchResult();
+        result.setStatus(new TStatus(TStatusCode.OK));
+        result.setEos(true);
+        return result;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.starrocks.streamload;
+
+import com.dtstack.chunjun.connector.starrocks.config.StarRocksConfig;
+
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(StreamLoadManager.class)
+@PowerMockIgnore({"javax.management.*", "javax.net.ssl.*"})
+public class StreamLoadManagerTest {
+
+    private static final List<String> COLUMNS = Collections.singletonList("name");
+    private static final StreamLoadManager.RowEncoder ENCODER =
+            (rowData, writer) -> writer.writeString("name", rowData.getString(0).toString());
+
+    private final CountDownLatch loadLatch = new CountDownLatch(1);
+    /** Copies of the buffers passed to the stream load visitor in load order, chunks split by | */
+    private final List<String> loaded = Collections.synchronizedList(new ArrayList<>());
+
+    private StarRocksConfig starRocksConfig;
+    private StarRocksStreamLoadVisitor streamLoadVisitor;
+    private StreamLoadManager manager;
+
+    @Before
+    public void setUp() throws Exception {
+        starRocksConfig = new StarRocksConfig();
+        starRocksConfig.setMaxRetries(0);
+        Map<String, String> headProperties = new HashMap<>();
+        // skips the table structure check against StarRocks
+        headProperties.put("columns", "name");
+        starRocksConfig.getLoadConfig().setHeadProperties(headProperties);
+        starRocksConfig.getLoadConfig().setMaxBufferedBytes(10L);
+        starRocksConfig.getLoadConfig().setQueueOfferTimeoutMs(10_000);
+
+        StarRocksQueryVisitor queryVisitor = mock(StarRocksQueryVisitor.class);
+        when(queryVisitor.getStarRocksVersion()).thenReturn("2.5.0");
+        PowerMockito.whenNew(StarRocksQueryVisitor.class)
+                .withAnyArguments()
+                .thenReturn(queryVisitor);
+        streamLoadVisitor = mock(StarRocksStreamLoadVisitor.class);
+        PowerMockito.whenNew(StarRocksStreamLoadVisitor.class)
+                .withAnyArguments()
+                .thenReturn(streamLoadVisitor);
+        doAnswer(
+                        invocation -> {
+                            StarRocksSinkBufferEntity entity = invocation.getArgument(0);
+                            loaded.add(content(entity));
+                            loadLatch.await();
+                            return null;
+                        })
+                .when(streamLoadVisitor)
+                .doStreamLoad(any());
+    }
+
+    @After
+    public void tearDown() {
+        loadLatch.countDown();
+        if (manager != null) {
+            try {
+                manager.close();
+            } catch (RuntimeException ignored) {
+                // failures are asserted by the tests
+            }
+        }
+    }
+
+    @Test
+    public void testByteBudgetBlocksUntilLoadReleasesMemory() throws Exception {
+        manager = newManager();
+        // the first chunk is accepted even though it is larger than the budget
+        manager.write("db.a", COLUMNS, rows("aaaaaaaa"), ENCODER);
+        Assert.assertEquals(19L, bufferedBytes());
+
+        CompletableFuture<Void> blocked =
+                CompletableFuture.runAsync(
+                        () -> {
+                            try {
+                                manager.write("db.b", COLUMNS, rows("b"), ENCODER);
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                        });
+        // the buffer of db.a is handed to a flush worker to make room
+        waitUntil(() -> loaded.size() == 1);
+        Thread.sleep(200);
+        Assert.assertFalse(blocked.isDone());
+
+        loadLatch.countDown();
+        blocked.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(12L, bufferedBytes());
+
+        manager.flush(null, true);
+        Assert.assertEquals(Arrays.asList("{\"name\":\"aaaaaaaa\"}", "{\"name\":\"b\"}"), loaded);
+        Assert.assertEquals(0L, bufferedBytes());
+        waitUntil(() -> loadFutures().isEmpty());
+    }
+
+    @Test
+    public void testByteBudgetTimeout() throws Exception {
+        starRocksConfig.getLoadConfig().setQueueOfferTimeoutMs(200);
+        manager = newManager();
+        manager.write("db.a", COLUMNS, rows("aaaaaaaa"), ENCODER);
+
+        Exception e =
+                Assert.assertThrows(
+                        Exception.class, () -> manager.write("db.b", COLUMNS, rows("b"), ENCODER));
+        Assert.assertTrue(e.getCause().getMessage().startsWith("Timeout"));
+        // the rejected chunk holds no budget
+        Assert.assertEquals(19L, bufferedBytes());
+    }
+
+    @Test
+    public void testFailedLoadSkipsChainedLoads() throws Exception {
+        starRocksConfig.getLoadConfig().setMaxBufferedBytes(1024L);
+        doAnswer(
+                        invocation -> {
+                            loaded.add(content(invocation.getArgument(0)));
+                            loadLatch.await();
+                            throw new IOException("load failed");
+                        })
+                .when(streamLoadVisitor)
+                .doStreamLoad(any());
+        manager = newManager();
+        manager.write("db.a", COLUMNS, rows("1"), ENCODER);
+        manager.flush("db.a", false);
+        // chained to the running load of the same table
+        manager.write("db.a", COLUMNS, rows("2"), ENCODER);
+        manager.flush("db.a", false);
+
+        loadLatch.countDown();
+        Assert.assertThrows(RuntimeException.class, () -> manager.flush(null, true));
+        verify(streamLoadVisitor, times(1)).doStreamLoad(any());
+        Assert.assertEquals(Collections.singletonList("{\"name\":\"1\"}"), loaded);
+        // the skipped load releases its bytes as well
+        waitUntil(() -> bufferedBytes() == 0L && loadFutures().isEmpty());
+
+        Assert.assertThrows(
+                Exception.class, () -> manager.write("db.a", COLUMNS, rows("3"), ENCODER));
+    }
+
+    @Test
+    public void testCsvFallsBackToJson() throws Exception {
+        starRocksConfig.getLoadConfig().setMaxBufferedBytes(1024L);
+        starRocksConfig.getLoadConfig().getHeadProperties().put("format", "csv");
+        loadLatch.countDown();
+        manager = newManager();
+
+        manager.write("db.a", COLUMNS, rows("x"), ENCODER);
+        manager.write("db.a", COLUMNS, rows("y", "a\tb"), ENCODER);
+        manager.write("db.a", COLUMNS, rows("z"), ENCODER);
+        manager.flush(null, true);
+
+        // rows buffered before the conflict are loaded as csv, the table is json afterwards
+        Assert.assertEquals(
+                Arrays.asList("x\n", "{\"name\":\"y\"},{\"name\":\"a\\tb\"}|{\"name\":\"z\"}"),
+                loaded);
+    }
+
+    private StreamLoadManager newManager() {
+        StreamLoadManager streamLoadManager = new StreamLoadManager(starRocksConfig);
+        streamLoadManager.startAsyncFlushing();
+        return streamLoadManager;
+    }
+
+    private long bufferedBytes() {
+        return Whitebox.getInternalState(manager, "bufferedBytes");
+    }
+
+    private Map<String, CompletableFuture<Void>> loadFutures() {
+        return Whitebox.getInternalState(manager, "loadFutures");
+    }
+
+    private static List<RowData> rows(String... values) {
+        List<RowData> rows = new ArrayList<>(values.length);
+        for (String value : values) {
+            rows.add(GenericRowData.of(StringData.fromString(value)));
+        }
+        return rows;
+    }
+
+    private static String content(StarRocksSinkBufferEntity entity) {
+        StringJoiner joiner = new StringJoiner("|");
+        for (byte[] bytes : entity.getBuffer()) {
+            joiner.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return joiner.toString();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.connector.starrocks.streamload;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamLoadRowWriterTest {
+
+    private final StreamLoadRowWriter writer = new StreamLoadRowWriter("\t", "\n");
+
+    @Test
+    public void testJsonRows() {
+        writer.begin(entity(false, false));
+        writer.startRow();
+        writer.writeLong("id", 1);
+        writer.writeString("name", "a\"b\\c\n\u0001é中😀");
+        writer.writeNull("age");
+        writer.writeDecimal("price", new BigDecimal("1E+3"));
+        writer.writeOp(StarRocksSinkOP.UPSERT);
+        writer.endRow();
+        writer.startRow();
+        writer.writeDouble("score", Double.NaN);
+        writer.writeFloat("rate", 1.5f);
+        writer.writeString("na\"me", "\ud800x");
+        writer.writeOp(StarRocksSinkOP.DELETE);
+        writer.endRow();
+
+        assertEquals(
+                "{\"id\":1,\"name\":\"a\\\"b\\\\c\\n\\u0001é中😀\",\"age\":null,\"price\":1000,\"__op\":0},"
+                        + "{\"score\":null,\"rate\":1.5,\"na\\\"me\":\"?x\",\"__op\":1}",
+                content());
+        assertEquals(2, writer.getRowCount());
+        assertEquals(content().getBytes(StandardCharsets.UTF_8).length, writer.getLength());
+    }
+
+    @Test
+    public void testCsvRows() {
+        writer.begin(entity(true, false));
+        writer.startRow();
+        writer.writeLong("id", 1);
+        writer.writeString("name", "a\"b\\é");
+        writer.writeNull("age");
+        writer.writeDouble("score", Double.POSITIVE_INFINITY);
+        // __op is not in the columns header of a table without delete support
+        writer.writeOp(StarRocksSinkOP.UPSERT);
+        writer.endRow();
+
+        assertEquals("1\ta\"b\\é\t\\N\t\\N\n", content());
+        assertFalse(writer.isCsvConflict());
+
+        writer.begin(entity(true, true));
+        writer.startRow();
+        writer.writeLong("id", 2);
+        writer.writeOp(StarRocksSinkOP.DELETE);
+        writer.endRow();
+
+        assertEquals("2\t1\n", content());
+        assertEquals(1, writer.getRowCount());
+    }
+
+    @Test
+    public void testCsvConflict() {
+        writer.begin(entity(true, false));
+        writer.startRow();
+        writer.writeString("name", "a\tb");
+        writer.endRow();
+        assertTrue(writer.isCsvConflict());
+
+        writer.begin(entity(true, false));
+        writer.startRow();
+        writer.writeString("name", "a\nb");
+        writer.endRow();
+        assertTrue(writer.isCsvConflict());
+
+        // the separators are escaped in json
+        writer.begin(entity(false, false));
+        writer.startRow();
+        writer.writeString("name", "a\tb\nc");
+        writer.endRow();
+        assertFalse(writer.isCsvConflict());
+        assertEquals("{\"name\":\"a\\tb\\nc\"}", content());
+    }
+
+    @Test
+    public void testMultiByteSeparator() {
+        StreamLoadRowWriter multiByteWriter = new StreamLoadRowWriter("|#|", "\u0001");
+        multiByteWriter.begin(entity(true, false));
+        multiByteWriter.startRow();
+        multiByteWriter.writeString("a", "x|y");
+        multiByteWriter.writeString("b", "中");
+        multiByteWriter.endRow();
+
+        assertFalse(multiByteWriter.isCsvConflict());
+        assertEquals(
+                "x|y|#|中\u0001", new String(multiByteWriter.toByteArray(), StandardCharsets.UTF_8));
+
+        multiByteWriter.startRow();
+        multiByteWriter.writeString("a", "x|#|y");
+        multiByteWriter.endRow();
+        assertTrue(multiByteWriter.isCsvConflict());
+    }
+
+    @Test
+    public void testBufferGrows() {
+        char[] chars = new char[100 * 1024];
+        Arrays.fill(chars, '中');
+        String value = new String(chars);
+
+        writer.begin(entity(true, false));
+        writer.startRow();
+        writer.writeString("name", value);
+        writer.endRow();
+
+        assertEquals(value + "\n", content());
+    }
+
+    private String content() {
+        return new String(writer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static StarRocksSinkBufferEntity entity(boolean csv, boolean supportDelete) {
+        StarRocksSinkBufferEntity entity =
+                new StarRocksSinkBufferEntity("db", "tb", Arrays.asList("id", "name"));
+        entity.setCsvFormat(csv);
+        entity.setSupportDelete(supportDelete, true);
+        return entity;
+    }
+}
@@ -18,6 +18,7 @@
 package com.dtstack.chunjun;
 
 import com.dtstack.chunjun.cdc.CdcConfig;
+import com.dtstack.chunjun.cdc.ChangelogKeySelector;
 import com.dtstack.chunjun.cdc.RestorationFlatMap;
 import com.dtstack.chunjun.cdc.ddl.DdlConvent;
 import com.dtstack.chunjun.cdc.handler.CacheHandler;
@@ -63,6 +64,7 @@ import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
 import org.apache.flink.table.api.Schema;
 import org.apache.flink.table.api.StatementSet;
 import org.apache.flink.table.api.Table;
+import org.apache.flink.table.api.TableException;
 import org.apache.flink.table.api.TableResult;
 import org.apache.flink.table.api.bridge.java.StreamTableEnvironment;
 import org.apache.flink.table.data.RowData;
@@ -183,7 +185,14 @@ public class Main {
             dataStream = dataStreamSource;
         }
 
-        if (speed.isRebalance()) {
+        if (speed.isKeyBy()) {
+            dataStream =
+                    dataStream.partitionCustom(
+                            (key, numPartitions) -> Math.floorMod(key, numPartitions),
+                            new ChangelogKeySelector(
+                                    speed.getPrimaryKeys(),
+                                    config.getWriter().getBooleanVal("executeDdlAble", false)));
+        } else if (speed.isRebalance()) {
             dataStream = dataStream.rebalance();
         }
 
@@ -221,12 +230,7 @@ public class Main {
         String transformSql = config.getJob().getTransformer().getTransformSql();
         Table adaptTable = tableEnv.sqlQuery(transformSql);
 
-        DataType[] tableDataTypes = adaptTable.getSchema().getFieldDataTypes();
-        String[] tableFieldNames = adaptTable.getSchema().getFieldNames();
-        TypeInformation<? extends RowData> typeInformation =
-                TableUtil.getTypeInformation(tableDataTypes, tableFieldNames);
-        DataStream<RowData> dataStream =
-                tableEnv.toRetractStream(adaptTable, typeInformation).map(f -> f.f1);
+        DataStream<RowData> dataStream = toRowDataStream(tableEnv, adaptTable);
 
         checkTableConfig(config.getWriter());
         tableEnv.createTemporaryView(config.getWriter().getTable().getTableName(), dataStream);
@@ -234,6 +238,29 @@ public class Main {
         return dataStream;
     }
 
+    /**
+     * 将transformer的结果表转换为RowData流。只包含insert的结果（投影、过滤等）直接输出内部RowData，
+     * 不再经过Tuple2包装与Row转换；包含更新的结果（如聚合）回退到toRetractStream
+     */
+    private static DataStream<RowData> toRowDataStream(
+            StreamTableEnvironment tableEnv, Table adaptTable) {
+        DataType rowDataType =
+                adaptTable.getResolvedSchema().toPhysicalRowDataType().bridgedTo(RowData.class);
+        try {
+            return tableEnv.toDataStream(adaptTable, rowDataType);
+        } catch (TableException e) {
+            log.info(
+                    "transformer result is not insert-only, fallback to retract stream: {}",
+                    e.getMessage());
+        }
+
+        DataType[] tableDataTypes = adaptTable.getSchema().getFieldDataTypes();
+        String[] tableFieldNames = adaptTable.getSchema().getFieldNames();
+        TypeInformation<? extends RowData> typeInformation =
+                TableUtil.getTypeInformation(tableDataTypes, tableFieldNames);
+        return tableEnv.toRetractStream(adaptTable, typeInformation).map(f -> f.f1);
+    }
+
     public static SyncConfig parseConfig(String job, Options options) {
         SyncConfig config;
         try {
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.cdc;
+
+import com.dtstack.chunjun.cdc.ddl.definition.TableIdentifier;
+import com.dtstack.chunjun.constants.CDCConstantValue;
+import com.dtstack.chunjun.element.AbstractBaseColumn;
+import com.dtstack.chunjun.element.ColumnRowData;
+import com.dtstack.chunjun.element.column.MapColumn;
+
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.types.RowKind;
+
+import org.apache.commons.collections.MapUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按库、schema、表及主键计算数据的分发key，同一主键的变更总是发往同一个sink subtask，从而sink可以多并行度写入而不打乱单条记录的变更顺序。
+ *
+ * <p>主键字段按表配置，key为schema.table或table，"*"对所有表生效；未配置主键的表按表分发，ddl数据同样按表分发。没有库表信息的数据不要求顺序，轮询分发。
+ *
+ * <p>修改主键的update拆分出的UPDATE_BEFORE和UPDATE_AFTER按主键会分到不同的subtask，sink无法将两者配对，因此UPDATE_AFTER沿用紧邻其前的同表UPDATE_BEFORE的key。
+ * 这样主键变更后的第一条数据与该主键之后的变更可能由不同的subtask处理。
+ *
+ * <p>sink需要执行ddl时，同一张表的ddl与之后的数据必须由同一个subtask按顺序处理，此时忽略主键，所有数据都只按表分发，代价是单表的写入只有一个并行度。
+ * 由restoration算子处理ddl时，该算子在ddl生效前阻塞该表的数据，数据仍按主键分发。
+ */
+public class ChangelogKeySelector implements KeySelector<RowData, Integer> {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String ALL_TABLES = "*";
+
+    private final Map<String, List<String>> primaryKeys;
+
+    /** 是否只按表分发，sink执行ddl时开启 */
+    private final boolean keyByTable;
+
+    private int roundRobin;
+
+    /** 上一条数据为UPDATE_BEFORE时其所属的表及key，供紧随其后的UPDATE_AFTER使用 */
+    private transient List<String> updateBeforeTable;
+
+    private transient Integer updateBeforeKey;
+
+    public ChangelogKeySelector(Map<String, List<String>> primaryKeys) {
+        this(primaryKeys, false);
+    }
+
+    public ChangelogKeySelector(Map<String, List<String>> primaryKeys, boolean keyByTable) {
+        this.primaryKeys = primaryKeys == null ? Collections.emptyMap() : primaryKeys;
+        this.keyByTable = keyByTable;
+    }
+
+    @Override
+    public Integer getKey(RowData value) {
+        if (value instanceof DdlRowData) {
+            TableIdentifier identifier = ((DdlRowData) value).getTableIdentifier();
+            return keyOf(identifier.getDataBase(), identifier.getSchema(), identifier.getTable())
+                    .hashCode();
+        }
+        if (!(value instanceof ColumnRowData)
+                || MapUtils.isEmpty(((ColumnRowData) value).getHeaderInfo())) {
+            return roundRobin++;
+        }
+
+        ColumnRowData row = (ColumnRowData) value;
+        String database = getString(row, CDCConstantValue.DATABASE);
+        String schema = getString(row, CDCConstantValue.SCHEMA);
+        String table = getString(row, CDCConstantValue.TABLE);
+        if (table == null) {
+            return roundRobin++;
+        }
+
+        List<String> key = keyOf(database, schema, table);
+        if (keyByTable) {
+            return key.hashCode();
+        }
+
+        List<String> tableKey = updateBeforeTable;
+        Integer beforeKey = updateBeforeKey;
+        updateBeforeTable = null;
+        updateBeforeKey = null;
+        if (row.getRowKind() == RowKind.UPDATE_AFTER && key.equals(tableKey)) {
+            return beforeKey;
+        }
+
+        List<String> primaryKeyOfTable = getPrimaryKeys(schema, table);
+        if (primaryKeyOfTable.isEmpty()) {
+            return key.hashCode();
+        }
+        boolean before =
+                row.getRowKind() == RowKind.DELETE || row.getRowKind() == RowKind.UPDATE_BEFORE;
+        List<String> rowKey = new ArrayList<>(key);
+        for (String primaryKey : primaryKeyOfTable) {
+            rowKey.add(getPrimaryKeyValue(row, primaryKey, before));
+        }
+        int hash = rowKey.hashCode();
+        if (row.getRowKind() == RowKind.UPDATE_BEFORE) {
+            updateBeforeTable = key;
+            updateBeforeKey = hash;
+        }
+        return hash;
+    }
+
+    private List<String> keyOf(String database, String schema, String table) {
+        List<String> key = new ArrayList<>();
+        key.add(database);
+        key.add(schema);
+        key.add(table);
+        return key;
+    }
+
+    private List<String> getPrimaryKeys(String schema, String table) {
+        List<String> keys = primaryKeys.get(schema + "." + table);
+        if (keys == null) {
+            keys = primaryKeys.get(table);
+        }
+        if (keys == null) {
+            keys = primaryKeys.getOrDefault(ALL_TABLES, Collections.emptyList());
+        }
+        return keys;
+    }
+
+    /** 主键值依次从同名字段、before_/after_字段以及before/after map字段中获取 */
+    @SuppressWarnings("unchecked")
+    private String getPrimaryKeyValue(ColumnRowData row, String primaryKey, boolean before) {
+        String prefix = before ? CDCConstantValue.BEFORE_ : CDCConstantValue.AFTER_;
+        AbstractBaseColumn column = row.getField(primaryKey);
+        if (column == null) {
+            column = row.getField(prefix + primaryKey);
+        }
+        if (column != null) {
+            return column.getData() == null ? null : column.asString();
+        }
+
+        AbstractBaseColumn image =
+                row.getField(before ? CDCConstantValue.BEFORE : CDCConstantValue.AFTER);
+        if (image instanceof MapColumn && image.getData() != null) {
+            Object data = ((Map<String, Object>) image.getData()).get(primaryKey);
+            return data == null ? null : String.valueOf(data);
+        }
+        return null;
+    }
+
+    private String getString(ColumnRowData row, String name) {
+        AbstractBaseColumn column = row.getField(name);
+        return column == null || column.getData() == null ? null : column.asString();
+    }
+}
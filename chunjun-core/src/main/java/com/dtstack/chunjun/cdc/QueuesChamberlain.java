@@ -23,6 +23,7 @@ import com.dtstack.chunjun.cdc.ddl.definition.TableIdentifier;
 import com.dtstack.chunjun.cdc.handler.CacheHandler;
 import com.dtstack.chunjun.cdc.handler.DDLHandler;
 
+import org.apache.flink.api.common.JobID;
 import org.apache.flink.table.data.RowData;
 
 import com.google.common.collect.Sets;
@@ -49,6 +50,10 @@ public class QueuesChamberlain implements Serializable {
         this.cacheHandler = cacheHandler;
     }
 
+    public void setRuntimeInfo(JobID jobId, int indexOfThisSubtask) {
+        cacheHandler.setRuntimeInfo(jobId, indexOfThisSubtask);
+    }
+
     public void open() throws Exception {
         ddlHandler.setChamberlain(this);
 
@@ -137,6 +142,28 @@ public class QueuesChamberlain implements Serializable {
         }
     }
 
+    public byte[] snapshotCacheState(long checkpointId) throws Exception {
+        lock.lock();
+        try {
+            return cacheHandler.snapshotState(checkpointId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void restoreCacheState(byte[] state) throws Exception {
+        cacheHandler.restoreState(state);
+    }
+
+    public void notifyCheckpointComplete(long checkpointId) throws Exception {
+        lock.lock();
+        try {
+            cacheHandler.notifyCheckpointComplete(checkpointId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public void remove(TableIdentifier tableIdentifier, RowData data) {
         cacheHandler.remove(tableIdentifier, data);
     }
@@ -26,11 +26,23 @@ import com.dtstack.chunjun.element.ColumnRowData;
 import com.dtstack.chunjun.throwable.ChunJunRuntimeException;
 
 import org.apache.flink.api.common.functions.RichFlatMapFunction;
+import org.apache.flink.api.common.state.CheckpointListener;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.typeinfo.TypeHint;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.state.FunctionInitializationContext;
+import org.apache.flink.runtime.state.FunctionSnapshotContext;
+import org.apache.flink.streaming.api.checkpoint.CheckpointedFunction;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.data.StringData;
 import org.apache.flink.util.Collector;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -38,13 +50,24 @@ import java.util.Objects;
  * 列引用交给store处理，store在拿到队列引用之后，将队列头部的ddl数据下发到外部存储中, 并监听外部存储对ddl的反馈情况（监听工作由store中额外的线程来执行），
  * 此时，队列仍然处于block状态；在收到外部存储的反馈之后，将数据队列头部的ddl数据移除，同时将队列状 态回归为unblock状态，队列引用还给worker。
  */
-public class RestorationFlatMap extends RichFlatMapFunction<RowData, RowData> {
+public class RestorationFlatMap extends RichFlatMapFunction<RowData, RowData>
+        implements CheckpointedFunction, CheckpointListener {
 
     private static final long serialVersionUID = -1936334572949200754L;
 
+    private static final String CACHE_STATE_NAME = "restoration-cache-states";
+
+    private static final String PARALLELISM_STATE_NAME = "restoration-parallelism";
+
     private final QueuesChamberlain chamberlain;
     private final WorkerManager workerManager;
 
+    /** subtask index -> cache handler state */
+    private transient ListState<Tuple2<Integer, byte[]>> cacheStates;
+
+    /** 保存cache状态时的并行度，每个subtask各写一份 */
+    private transient ListState<Integer> parallelismStates;
+
     public RestorationFlatMap(DDLHandler ddlHandler, CacheHandler cacheHandler, CdcConfig conf) {
         this.chamberlain = new QueuesChamberlain(ddlHandler, cacheHandler);
         this.workerManager = new WorkerManager(chamberlain, conf);
@@ -53,6 +76,8 @@ public class RestorationFlatMap extends RichFlatMapFunction<RowData, RowData> {
     @Override
     public void open(Configuration parameters) throws Exception {
         workerManager.open();
+        chamberlain.setRuntimeInfo(
+                getRuntimeContext().getJobId(), getRuntimeContext().getIndexOfThisSubtask());
         chamberlain.open();
     }
 
@@ -62,6 +87,76 @@ public class RestorationFlatMap extends RichFlatMapFunction<RowData, RowData> {
         chamberlain.close();
     }
 
+    @Override
+    public void snapshotState(FunctionSnapshotContext context) throws Exception {
+        byte[] state = chamberlain.snapshotCacheState(context.getCheckpointId());
+        cacheStates.clear();
+        if (state != null) {
+            cacheStates.add(Tuple2.of(getRuntimeContext().getIndexOfThisSubtask(), state));
+        }
+        parallelismStates.update(
+                Collections.singletonList(getRuntimeContext().getNumberOfParallelSubtasks()));
+    }
+
+    @Override
+    public void initializeState(FunctionInitializationContext context) throws Exception {
+        cacheStates =
+                context.getOperatorStateStore()
+                        .getUnionListState(
+                                new ListStateDescriptor<>(
+                                        CACHE_STATE_NAME,
+                                        TypeInformation.of(
+                                                new TypeHint<Tuple2<Integer, byte[]>>() {})));
+        parallelismStates =
+                context.getOperatorStateStore()
+                        .getUnionListState(
+                                new ListStateDescriptor<>(PARALLELISM_STATE_NAME, Integer.class));
+        if (context.isRestored()) {
+            List<Tuple2<Integer, byte[]>> states = new ArrayList<>();
+            cacheStates.get().forEach(states::add);
+            checkParallelism(states);
+            int indexOfThisSubtask = getRuntimeContext().getIndexOfThisSubtask();
+            for (Tuple2<Integer, byte[]> state : states) {
+                if (state.f0 == indexOfThisSubtask) {
+                    chamberlain.restoreCacheState(state.f1);
+                }
+            }
+        }
+    }
+
+    /**
+     * 缓存数据按表保存在写入它的subtask中，并行度变化后表会被路由到其他subtask，缓存数据无法跟随，且各subtask的本地日志目录不能合并，
+     * 因此存在缓存状态时不支持修改并行度。未记录并行度的旧状态只能检查出并行度变小的情况
+     */
+    private void checkParallelism(List<Tuple2<Integer, byte[]>> states) throws Exception {
+        if (states.isEmpty()) {
+            return;
+        }
+        int parallelism = getRuntimeContext().getNumberOfParallelSubtasks();
+        int restoredParallelism = -1;
+        for (Integer value : parallelismStates.get()) {
+            restoredParallelism = value;
+        }
+        int maxIndex = states.stream().mapToInt(state -> state.f0).max().getAsInt();
+        if ((restoredParallelism != -1 && restoredParallelism != parallelism)
+                || maxIndex >= parallelism) {
+            throw new ChunJunRuntimeException(
+                    String.format(
+                            "can not restore restoration cache of parallelism %s with parallelism %s, "
+                                    + "cached rows are kept by the subtask that received their table. "
+                                    + "Please restore with the original parallelism",
+                            restoredParallelism != -1
+                                    ? String.valueOf(restoredParallelism)
+                                    : "at least " + (maxIndex + 1),
+                            parallelism));
+        }
+    }
+
+    @Override
+    public void notifyCheckpointComplete(long checkpointId) throws Exception {
+        chamberlain.notifyCheckpointComplete(checkpointId);
+    }
+
     @Override
     public void flatMap(RowData value, Collector<RowData> out) {
         if (workerManager.getCollector() == null) {
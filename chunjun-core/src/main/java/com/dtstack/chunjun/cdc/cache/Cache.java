@@ -19,6 +19,8 @@ package com.dtstack.chunjun.cdc.cache;
 
 import org.apache.flink.table.data.RowData;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -90,6 +92,16 @@ public class Cache {
         }
     }
 
+    /** out队列中数据的副本，不改变缓存状态 */
+    public List<RowData> copyOfOut() {
+        return Arrays.asList(out.toArray(new RowData[0]));
+    }
+
+    /** backup队列中数据的副本，不改变缓存状态 */
+    public List<RowData> copyOfBackup() {
+        return Arrays.asList(backup.toArray(new RowData[0]));
+    }
+
     public void removeOut(RowData data) {
         out.remove(data);
     }
@@ -116,6 +128,11 @@ public class Cache {
         isFull.compareAndSet(true, false);
     }
 
+    /** 之后新增的数据先进入backup，保证排在外部缓存的数据之后 */
+    public void full() {
+        isFull.compareAndSet(false, true);
+    }
+
     public boolean isFull() {
         return isFull.get();
     }
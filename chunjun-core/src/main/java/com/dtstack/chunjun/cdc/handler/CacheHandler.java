@@ -23,6 +23,7 @@ import com.dtstack.chunjun.cdc.config.CacheConfig;
 import com.dtstack.chunjun.cdc.ddl.definition.TableIdentifier;
 import com.dtstack.chunjun.util.GsonUtil;
 
+import org.apache.flink.api.common.JobID;
 import org.apache.flink.table.data.RowData;
 
 import com.google.common.collect.Queues;
@@ -31,11 +32,15 @@ import com.google.gson.GsonBuilder;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -57,6 +62,11 @@ public abstract class CacheHandler implements Serializable {
     private final List<TableIdentifier> blockedTableIdentifiers = new CopyOnWriteArrayList<>();
     private final List<TableIdentifier> unblockedTableIdentifiers = new CopyOnWriteArrayList<>();
 
+    /** 作业id与subtask下标，由算子在{@link #open()}之前设置，未设置时jobId为null */
+    protected JobID jobId;
+
+    protected int indexOfThisSubtask;
+
     public CacheHandler(CacheConfig cacheConfig) {
         this.cacheConfig = cacheConfig;
     }
@@ -69,6 +79,11 @@ public abstract class CacheHandler implements Serializable {
         return blockedTableIdentifiers.contains(tableIdentifier);
     }
 
+    public void setRuntimeInfo(JobID jobId, int indexOfThisSubtask) {
+        this.jobId = jobId;
+        this.indexOfThisSubtask = indexOfThisSubtask;
+    }
+
     public void open() throws Exception {
         Properties properties = cacheConfig.getProperties();
         init(properties);
@@ -177,6 +192,66 @@ public abstract class CacheHandler implements Serializable {
         return unblockedTableIdentifiers;
     }
 
+    /**
+     * 任务恢复后，外部缓存中仍有数据的表需要重新登记，之后新增的数据排在外部缓存的数据之后
+     *
+     * @param tableIdentifier table identifier.
+     */
+    protected void restoreCache(TableIdentifier tableIdentifier) {
+        Cache cache = new Cache(cacheConfig.getCacheSize(), cacheConfig.getCacheTimeout());
+        cache.cached();
+        cache.full();
+        cacheMap.put(tableIdentifier, cache);
+        if (!blockedTableIdentifiers.contains(tableIdentifier)
+                && !unblockedTableIdentifiers.contains(tableIdentifier)) {
+            unblockedTableIdentifiers.add(tableIdentifier);
+        }
+    }
+
+    /**
+     * 任务恢复后重新登记表，pending中的数据先于外部缓存中的数据下发
+     *
+     * @param tableIdentifier table identifier.
+     * @param pending checkpoint时内存中排在外部缓存之前的数据
+     */
+    protected void restoreCache(TableIdentifier tableIdentifier, Collection<RowData> pending) {
+        restoreCache(tableIdentifier);
+        if (!pending.isEmpty()) {
+            temporaryQueueMap.put(tableIdentifier, Queues.newLinkedBlockingQueue(pending));
+        }
+    }
+
+    /** 内存中有缓存的表 */
+    protected Set<TableIdentifier> getCachedTableIdentifiers() {
+        return new HashSet<>(cacheMap.keySet());
+    }
+
+    /** temporary队列中数据的副本，这些数据先于out队列下发 */
+    protected List<RowData> copyOfTemporary(TableIdentifier tableIdentifier) {
+        Queue<RowData> temporaryQueue = temporaryQueueMap.get(tableIdentifier);
+        return temporaryQueue == null ? Collections.emptyList() : new ArrayList<>(temporaryQueue);
+    }
+
+    /**
+     * checkpoint时保存外部缓存的位点，内存中尚未下发的数据也需要一并保存或写入外部缓存，否则恢复后会丢失。 调用时持有{@link
+     * com.dtstack.chunjun.cdc.QueuesChamberlain}的锁，不依赖checkpoint的实现返回null
+     *
+     * @param checkpointId checkpoint id.
+     * @return 序列化后的状态
+     */
+    public byte[] snapshotState(long checkpointId) throws Exception {
+        return null;
+    }
+
+    /**
+     * 任务从checkpoint恢复时，在{@link #open()}之前调用
+     *
+     * @param state {@link #snapshotState(long)}返回的位点
+     */
+    public void restoreState(byte[] state) throws Exception {}
+
+    public void notifyCheckpointComplete(long checkpointId) throws Exception {}
+
     public abstract void init(Properties properties) throws Exception;
 
     public abstract void shutdown() throws Exception;
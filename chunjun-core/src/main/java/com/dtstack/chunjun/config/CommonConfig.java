@@ -82,4 +82,7 @@ public class CommonConfig implements Serializable {
 
     /** metrics plugin properties */
     private Map<String, Object> metricProps;
+
+    /** 是否在open时按schema生成字段转换类替代转换器列表 */
+    private boolean generatedConverter = false;
 }
@@ -20,6 +20,9 @@ package com.dtstack.chunjun.config;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Data
 public class SpeedConfig implements Serializable {
@@ -40,4 +43,14 @@ public class SpeedConfig implements Serializable {
 
     /** 是否强制进行rebalance，开启会消耗性能 */
     private boolean rebalance = false;
+
+    /**
+     * 是否按库、schema、表及主键分发数据到sink，开启后同一主键的变更有序到达同一个sink subtask，优先于rebalance。
+     * 修改主键的update，UPDATE_AFTER与UPDATE_BEFORE发往同一个subtask。 writer开启executeDdlAble时只按表分发，
+     * 保证ddl与之后的数据顺序，但单表只能由一个subtask写入；由restoration算子处理ddl时仍按主键分发
+     */
+    private boolean keyBy = false;
+
+    /** keyBy时各表的主键字段，key为schema.table或table，"*"对所有表生效 */
+    private Map<String, List<String>> primaryKeys = new HashMap<>();
 }
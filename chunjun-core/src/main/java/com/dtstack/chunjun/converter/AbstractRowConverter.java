@@ -23,6 +23,7 @@ import com.dtstack.chunjun.config.FieldConfig;
 import com.dtstack.chunjun.element.AbstractBaseColumn;
 import com.dtstack.chunjun.element.column.StringColumn;
 import com.dtstack.chunjun.enums.ColumnType;
+import com.dtstack.chunjun.util.CachedDateFormat;
 import com.dtstack.chunjun.util.DateUtil;
 
 import org.apache.flink.table.data.RowData;
@@ -34,9 +35,11 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.io.Serializable;
 import java.sql.ResultSet;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -54,6 +57,10 @@ public abstract class AbstractRowConverter<SourceT, LookupT, SinkT, T> implement
     protected ArrayList<ISerializationConverter> toExternalConverters;
     protected LogicalType[] fieldTypes;
     protected CommonConfig commonConfig;
+    /** 开启generatedConverter时在open中按schema编译生成，为null时使用转换器列表 */
+    protected transient GeneratedFieldConverter generatedConverter;
+    /** key为包装了null判断的转换器，value为包装前的转换器，生成的字段转换类据此内联null判断并直接调用包装前的转换器 */
+    protected Map<Object, Object> unwrappedConverters = new IdentityHashMap<>();
 
     public AbstractRowConverter() {}
 
@@ -87,20 +94,90 @@ public abstract class AbstractRowConverter<SourceT, LookupT, SinkT, T> implement
         this.commonConfig = commonConfig;
     }
 
+    /**
+     * 在算子open时调用，开启generatedConverter时为当前schema编译专用的字段转换类，编译失败时继续使用转换器列表
+     *
+     * @param config 任务配置，为null时使用转换器自身的commonConfig
+     * @param classLoader 用户代码的classLoader
+     */
+    public void open(CommonConfig config, ClassLoader classLoader) {
+        CommonConfig conf = config == null ? commonConfig : config;
+        if (generatedConverter != null || conf == null || !conf.isGeneratedConverter()) {
+            return;
+        }
+        generatedConverter =
+                RowConverterCodeGenerator.generate(
+                        getClass().getSimpleName(),
+                        toInternalConverters,
+                        toExternalConverters,
+                        unwrappedConverters,
+                        classLoader);
+        if (generatedConverter != null) {
+            log.info("use generated field converter for {}", getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * 使用第pos个字段的转换器将外部数据转换为flink内部类型
+     *
+     * @param pos 字段下标
+     * @param field 外部数据
+     * @return 内部数据
+     * @throws Exception Exception
+     */
+    protected Object deserializeField(int pos, Object field) throws Exception {
+        if (generatedConverter != null) {
+            return generatedConverter.deserialize(pos, field);
+        }
+        return toInternalConverters.get(pos).deserialize(field);
+    }
+
+    /**
+     * 依次使用每个字段的转换器将rowData写入output
+     *
+     * @param rowData rowData
+     * @param output output
+     * @throws Exception Exception
+     */
+    protected void serializeFields(RowData rowData, SinkT output) throws Exception {
+        if (generatedConverter != null) {
+            generatedConverter.serialize(rowData, output);
+            return;
+        }
+        for (int index = 0; index < toExternalConverters.size(); index++) {
+            toExternalConverters.get(index).serialize(rowData, index, output);
+        }
+    }
+
     protected IDeserializationConverter wrapIntoNullableInternalConverter(
             IDeserializationConverter IDeserializationConverter) {
-        return val -> {
-            if (val == null) {
-                return null;
-            } else {
-                try {
-                    return IDeserializationConverter.deserialize(val);
-                } catch (Exception e) {
-                    log.error("value [{}] convent failed ", val);
-                    throw e;
-                }
-            }
-        };
+        IDeserializationConverter wrapped =
+                val -> {
+                    if (val == null) {
+                        return null;
+                    } else {
+                        try {
+                            return IDeserializationConverter.deserialize(val);
+                        } catch (Exception e) {
+                            log.error("value [{}] convent failed ", val);
+                            throw e;
+                        }
+                    }
+                };
+        return registerUnwrapped(wrapped, IDeserializationConverter);
+    }
+
+    /**
+     * 记录包装前的转换器。反序列化时包装后的转换器需在字段为null时返回null，序列化时需在{@link RowData#isNullAt(int)}
+     * 为false时直接调用包装前的转换器，否则生成的字段转换类与转换器列表的结果不一致
+     *
+     * @param wrapped 包装了null判断的转换器
+     * @param converter 包装前的转换器
+     * @return wrapped
+     */
+    protected <C> C registerUnwrapped(C wrapped, Object converter) {
+        unwrappedConverters.put(wrapped, converter);
+        return wrapped;
     }
 
     /**
@@ -118,17 +195,16 @@ public abstract class AbstractRowConverter<SourceT, LookupT, SinkT, T> implement
             String type = fieldConfig.getType();
             if ((ColumnType.isStringType(type) || ColumnType.isTimeType(type))
                     && StringUtils.isNotBlank(format)) {
-                SimpleDateFormat parseDateFormat = null;
+                Date date = null;
                 if (StringUtils.isNotBlank(parseFormat)) {
-                    parseDateFormat = new SimpleDateFormat(parseFormat);
+                    date =
+                            CachedDateFormat.of(parseFormat, ZoneId.systemDefault())
+                                    .parse(fieldConfig.getValue());
+                }
+                if (date == null) {
+                    date = DateUtil.columnToDate(fieldConfig.getValue(), null);
                 }
-                baseColumn =
-                        new StringColumn(
-                                String.valueOf(
-                                        DateUtil.columnToDate(
-                                                        fieldConfig.getValue(), parseDateFormat)
-                                                .getTime()),
-                                format);
+                baseColumn = new StringColumn(String.valueOf(date.getTime()), format);
             } else {
                 baseColumn = new StringColumn(fieldConfig.getValue(), format);
             }
@@ -145,25 +221,22 @@ public abstract class AbstractRowConverter<SourceT, LookupT, SinkT, T> implement
     /** Convert val from timestampString to longString with parseFormat and */
     public String getMilliSecondsWithParseFormat(String val, String parseFormat, String format) {
         if (StringUtils.isNotBlank(parseFormat) && val != null) {
-            SimpleDateFormat simpleDateFormat = new SimpleDateFormat(parseFormat);
-            try {
-                return String.valueOf(simpleDateFormat.parse(val).getTime());
-            } catch (ParseException e) {
-                log.warn(
-                        String.format(
-                                "Cannot parse val %s with the given parseFormat[%s],try parsing with format[%s]",
-                                val, parseFormat, format),
-                        e);
-                try {
-                    simpleDateFormat = new SimpleDateFormat(format);
-                    return String.valueOf(simpleDateFormat.parse(val).getTime());
-                } catch (ParseException parseException) {
-                    throw new UnsupportedOperationException(
-                            String.format(
-                                    "Cannot parse val %s with the given parseFormat[%s] and format[%s]",
-                                    val, parseFormat, format));
-                }
+            Date date = CachedDateFormat.of(parseFormat, ZoneId.systemDefault()).parse(val);
+            if (date != null) {
+                return String.valueOf(date.getTime());
+            }
+            log.warn(
+                    String.format(
+                            "Cannot parse val %s with the given parseFormat[%s],try parsing with format[%s]",
+                            val, parseFormat, format));
+            date = CachedDateFormat.of(format, ZoneId.systemDefault()).parse(val);
+            if (date != null) {
+                return String.valueOf(date.getTime());
             }
+            throw new UnsupportedOperationException(
+                    String.format(
+                            "Cannot parse val %s with the given parseFormat[%s] and format[%s]",
+                            val, parseFormat, format));
         }
         return val;
     }
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.converter;
+
+import org.apache.flink.table.data.RowData;
+
+/** 由{@link RowConverterCodeGenerator}按schema生成的字段转换类，每个字段拥有独立的调用点 */
+public interface GeneratedFieldConverter {
+
+    /**
+     * 使用第pos个字段的转换器将外部数据转换为flink内部类型
+     *
+     * @param pos 字段下标
+     * @param field 外部数据
+     * @return 内部数据
+     * @throws Exception Exception
+     */
+    Object deserialize(int pos, Object field) throws Exception;
+
+    /**
+     * 依次使用每个字段的转换器将rowData写入output
+     *
+     * @param rowData rowData
+     * @param output output
+     * @throws Exception Exception
+     */
+    void serialize(RowData rowData, Object output) throws Exception;
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.converter;
+
+import org.apache.flink.table.runtime.generated.CompileUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按schema生成{@link GeneratedFieldConverter}的实现类并使用janino编译。
+ *
+ * <p>生成的类将每个字段的转换器保存在独立的final字段中，并展开字段循环：toExternal时逐个字段调用，toInternal时通过switch分发。
+ * 转换器登记了包装前的转换器时，null判断直接生成在代码中，非null时调用包装前的转换器，否则所有字段都会经过同一个包装lambda中的调用点， 该调用点看到的转换器类型过多，JIT无法内联。
+ */
+@Slf4j
+public final class RowConverterCodeGenerator {
+
+    private static final AtomicLong NAME_COUNTER = new AtomicLong();
+
+    private static final String DESERIALIZATION_CONVERTER =
+            IDeserializationConverter.class.getCanonicalName();
+    private static final String SERIALIZATION_CONVERTER =
+            ISerializationConverter.class.getCanonicalName();
+
+    private RowConverterCodeGenerator() {}
+
+    /**
+     * 生成并实例化字段转换类
+     *
+     * @param name 类名前缀，一般为转换器的类名
+     * @param toInternalConverters 外部类型到内部类型的转换器，允许为null
+     * @param toExternalConverters 内部类型到外部类型的转换器，允许为null
+     * @param unwrappedConverters 包装了null判断的转换器到包装前转换器的映射，允许为null
+     * @param classLoader 用户代码的classLoader
+     * @return 编译失败时返回null，调用方继续使用lambda列表
+     */
+    public static GeneratedFieldConverter generate(
+            String name,
+            List<IDeserializationConverter> toInternalConverters,
+            List<ISerializationConverter> toExternalConverters,
+            Map<Object, Object> unwrappedConverters,
+            ClassLoader classLoader) {
+        Object[] internal =
+                toInternalConverters == null ? new Object[0] : toInternalConverters.toArray();
+        Object[] external =
+                toExternalConverters == null ? new Object[0] : toExternalConverters.toArray();
+        Object[] rawInternal = unwrap(internal, unwrappedConverters);
+        Object[] rawExternal = unwrap(external, unwrappedConverters);
+        String className =
+                name.replaceAll("[^A-Za-z0-9_]", "_") + "$" + NAME_COUNTER.getAndIncrement();
+        String code = generateCode(className, rawInternal, rawExternal);
+        try {
+            Class<GeneratedFieldConverter> clazz =
+                    CompileUtils.compile(classLoader, className, code);
+            return clazz.getConstructor(
+                            Object[].class, Object[].class, Object[].class, Object[].class)
+                    .newInstance(internal, rawInternal, external, rawExternal);
+        } catch (Throwable e) {
+            log.warn(
+                    "generate row converter [{}] failed, fallback to converter list, code:\n{}",
+                    className,
+                    code,
+                    e);
+            return null;
+        }
+    }
+
+    private static Object[] unwrap(Object[] converters, Map<Object, Object> unwrappedConverters) {
+        Object[] raw = new Object[converters.length];
+        if (unwrappedConverters != null) {
+            for (int i = 0; i < converters.length; i++) {
+                raw[i] = unwrappedConverters.get(converters[i]);
+            }
+        }
+        return raw;
+    }
+
+    /**
+     * @param rawInternal 与反序列化转换器一一对应的包装前转换器，为null的字段调用包装后的转换器
+     * @param rawExternal 与序列化转换器一一对应的包装前转换器，为null的字段调用包装后的转换器
+     */
+    static String generateCode(String className, Object[] rawInternal, Object[] rawExternal) {
+        int internalSize = rawInternal.length;
+        int externalSize = rawExternal.length;
+        StringBuilder code = new StringBuilder(1024 + 256 * (internalSize + externalSize));
+        code.append("public final class ")
+                .append(className)
+                .append(" implements ")
+                .append(GeneratedFieldConverter.class.getCanonicalName())
+                .append(" {\n");
+
+        for (int i = 0; i < internalSize; i++) {
+            appendField(code, DESERIALIZATION_CONVERTER, "in", i);
+            if (rawInternal[i] != null) {
+                appendField(code, DESERIALIZATION_CONVERTER, "rawIn", i);
+            }
+        }
+        for (int i = 0; i < externalSize; i++) {
+            appendField(code, SERIALIZATION_CONVERTER, "out", i);
+            if (rawExternal[i] != null) {
+                appendField(code, SERIALIZATION_CONVERTER, "rawOut", i);
+            }
+        }
+
+        code.append("  public ")
+                .append(className)
+                .append("(Object[] internal, Object[] rawInternal,")
+                .append(" Object[] external, Object[] rawExternal) {\n");
+        for (int i = 0; i < internalSize; i++) {
+            appendAssignment(code, DESERIALIZATION_CONVERTER, "in", "internal", i);
+            if (rawInternal[i] != null) {
+                appendAssignment(code, DESERIALIZATION_CONVERTER, "rawIn", "rawInternal", i);
+            }
+        }
+        for (int i = 0; i < externalSize; i++) {
+            appendAssignment(code, SERIALIZATION_CONVERTER, "out", "external", i);
+            if (rawExternal[i] != null) {
+                appendAssignment(code, SERIALIZATION_CONVERTER, "rawOut", "rawExternal", i);
+            }
+        }
+        code.append("  }\n");
+
+        code.append("  public Object deserialize(int pos, Object field) throws Exception {\n")
+                .append("    switch (pos) {\n");
+        for (int i = 0; i < internalSize; i++) {
+            code.append("      case ").append(i).append(": ");
+            if (rawInternal[i] != null) {
+                code.append("return field == null ? null : rawIn")
+                        .append(i)
+                        .append(".deserialize(field);\n");
+            } else {
+                code.append("return in").append(i).append(".deserialize(field);\n");
+            }
+        }
+        code.append("      default: throw new IndexOutOfBoundsException(\"Index: \" + pos);\n")
+                .append("    }\n")
+                .append("  }\n");
+
+        code.append("  public void serialize(")
+                .append("org.apache.flink.table.data.RowData rowData, Object output)")
+                .append(" throws Exception {\n");
+        for (int i = 0; i < externalSize; i++) {
+            if (rawExternal[i] != null) {
+                code.append("    if (rowData.isNullAt(")
+                        .append(i)
+                        .append(")) {\n")
+                        .append("      out")
+                        .append(i)
+                        .append(".serialize(rowData, ")
+                        .append(i)
+                        .append(", output);\n")
+                        .append("    } else {\n")
+                        .append("      rawOut")
+                        .append(i)
+                        .append(".serialize(rowData, ")
+                        .append(i)
+                        .append(", output);\n")
+                        .append("    }\n");
+            } else {
+                code.append("    out")
+                        .append(i)
+                        .append(".serialize(rowData, ")
+                        .append(i)
+                        .append(", output);\n");
+            }
+        }
+        code.append("  }\n").append("}\n");
+        return code.toString();
+    }
+
+    private static void appendField(StringBuilder code, String type, String prefix, int index) {
+        code.append("  private final ")
+                .append(type)
+                .append(" ")
+                .append(prefix)
+                .append(index)
+                .append(";\n");
+    }
+
+    private static void appendAssignment(
+            StringBuilder code, String type, String prefix, String array, int index) {
+        code.append("    ")
+                .append(prefix)
+                .append(index)
+                .append(" = (")
+                .append(type)
+                .append(") ")
+                .append(array)
+                .append("[")
+                .append(index)
+                .append("];\n");
+    }
+}
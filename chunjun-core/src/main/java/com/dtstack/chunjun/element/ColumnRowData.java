@@ -49,6 +49,9 @@ public final class ColumnRowData implements RowData, Serializable {
     private static final long serialVersionUID = 1L;
     private final List<AbstractBaseColumn> columnList;
     private Map<String, Integer> header;
+    /** header由多行共享时为true，修改header前先复制一份 */
+    private boolean sharedHeader;
+
     private final Set<String> extHeader = new HashSet<>();
     private int byteSize;
 
@@ -74,6 +77,8 @@ public final class ColumnRowData implements RowData, Serializable {
     public void addHeader(String name) {
         if (this.header == null) {
             this.header = Maps.newLinkedHashMap();
+        } else {
+            ensureHeaderWritable();
         }
         this.header.put(name, this.header.size());
         byteSize += getStringSize(name);
@@ -81,6 +86,26 @@ public final class ColumnRowData implements RowData, Serializable {
 
     public void setHeader(Map<String, Integer> header) {
         this.header = header;
+        this.sharedHeader = false;
+    }
+
+    /**
+     * 设置多行共享的header，共享的header不会被修改，之后修改header时会先复制
+     *
+     * @param header 共享的header
+     * @param byteSizeDelta 与原header相比名称大小的变化
+     */
+    public void setSharedHeader(Map<String, Integer> header, int byteSizeDelta) {
+        this.header = header;
+        this.sharedHeader = true;
+        this.byteSize += byteSizeDelta;
+    }
+
+    private void ensureHeaderWritable() {
+        if (sharedHeader) {
+            this.header = Maps.newLinkedHashMap(header);
+            this.sharedHeader = false;
+        }
     }
 
     public void replaceHeader(String original, String another) {
@@ -88,6 +113,7 @@ public final class ColumnRowData implements RowData, Serializable {
             addHeader(another);
             return;
         }
+        ensureHeaderWritable();
         Integer value = this.header.get(original);
         this.header.remove(original);
         this.header.put(another, value);
@@ -120,6 +146,7 @@ public final class ColumnRowData implements RowData, Serializable {
     }
 
     public void removeExtHeaderInfo() {
+        ensureHeaderWritable();
         List<AbstractBaseColumn> needToRemove = new ArrayList<>();
         for (String key : extHeader) {
             Integer index = header.remove(key);
@@ -19,6 +19,7 @@ package com.dtstack.chunjun.element.column;
 
 import com.dtstack.chunjun.element.AbstractBaseColumn;
 import com.dtstack.chunjun.throwable.CastException;
+import com.dtstack.chunjun.util.CachedDateFormat;
 import com.dtstack.chunjun.util.DateUtil;
 
 import org.apache.commons.lang3.StringUtils;
@@ -28,8 +29,6 @@ import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.sql.Time;
 import java.sql.Timestamp;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import static com.dtstack.chunjun.element.ClassSizeUtil.getStringSize;
@@ -87,34 +86,23 @@ public class StringColumn extends AbstractBaseColumn {
         if (null == data) {
             return null;
         }
-        SimpleDateFormat dateFormat = DateUtil.buildDateFormatter(format);
-        Long time = null;
-        Date result = null;
+        CachedDateFormat dateFormat = CachedDateFormat.of(format);
+        Date result;
         String data = String.valueOf(this.data);
-        try {
-            // 如果string是时间戳
-            time = NumberUtils.createLong(data);
-        } catch (Exception ignored) {
-            // doNothing
-        }
+        // 如果string是时间戳
+        Long time = toLong(data);
         if (time != null) {
-            Date date = new Date(time);
-            try {
-                result = dateFormat.parse(dateFormat.format(date));
-            } catch (ParseException ignored) {
-                // doNothing
-            }
+            result = dateFormat.parse(dateFormat.format(time));
         } else {
-            try {
-                // 如果是日期格式字符串
-                result = dateFormat.parse(data);
-            } catch (ParseException ignored) {
-                // doNothing
-            }
+            // 如果是日期格式字符串
+            result = dateFormat.parse(data);
         }
 
+        if (result == null && time != null) {
+            result = dateFormat.parse(data);
+        }
         if (result == null) {
-            result = DateUtil.columnToDate(data, dateFormat);
+            result = DateUtil.columnToDate(data, null);
 
             if (result == null) {
                 throw new CastException("String", "Date", data);
@@ -241,14 +229,12 @@ public class StringColumn extends AbstractBaseColumn {
         if (null == data) {
             return null;
         }
-        SimpleDateFormat dateFormat = DateUtil.buildDateFormatter(format);
+        CachedDateFormat dateFormat = CachedDateFormat.of(format);
         String data = String.valueOf(this.data);
-        try {
-            // 如果string是时间戳
-            Long time = NumberUtils.createLong(data);
+        // 如果string是时间戳
+        Long time = toLong(data);
+        if (time != null) {
             return dateFormat.format(time);
-        } catch (Exception ignored) {
-            // doNothing
         }
 
         try {
@@ -265,6 +251,26 @@ public class StringColumn extends AbstractBaseColumn {
         }
     }
 
+    /**
+     * 按{@link NumberUtils#createLong(String)}的规则解析时间戳，日期字符串直接返回null，避免构造异常
+     *
+     * @param data 字符串
+     * @return 不是数值时返回null
+     */
+    private static Long toLong(String data) {
+        for (int i = 1; i < data.length(); i++) {
+            char c = data.charAt(i);
+            if (c == '-' || c == ':' || c == ' ' || c == '/' || c == '.') {
+                return null;
+            }
+        }
+        try {
+            return NumberUtils.createLong(data);
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
     public boolean isCustomFormat() {
         return isCustomFormat;
     }
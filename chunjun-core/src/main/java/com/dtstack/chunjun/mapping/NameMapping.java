@@ -24,6 +24,7 @@ import com.dtstack.chunjun.cdc.ddl.DdlConvent;
 import com.dtstack.chunjun.cdc.ddl.DdlRowDataConvented;
 import com.dtstack.chunjun.cdc.ddl.definition.DdlOperator;
 import com.dtstack.chunjun.cdc.ddl.definition.TableIdentifier;
+import com.dtstack.chunjun.element.AbstractBaseColumn;
 import com.dtstack.chunjun.element.ColumnRowData;
 import com.dtstack.chunjun.element.column.NullColumn;
 import com.dtstack.chunjun.element.column.StringColumn;
@@ -33,6 +34,9 @@ import org.apache.flink.table.data.RowData;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -46,11 +50,19 @@ public class NameMapping implements Mapping<RowData, RowData>, Serializable {
 
     public static final long serialVersionUID = 1L;
 
+    /** 缓存的源表及header种类上限，超过后清空重新缓存 */
+    private static final int MAX_CACHE_SIZE = 4096;
+
     private final MappingRule mappingRule;
     private DdlConvent sourceDdlConvent;
     private DdlConvent sinkDdlConvent;
     private Boolean useDdlConvent;
 
+    /** 多表CDC场景下源表的数量远小于数据条数，缓存每个源表映射后的table、schema、database */
+    private transient Map<TableIdentifier, MappedIdentifier> identifierCache;
+
+    private transient Map<Map<String, Integer>, HeaderLayout> layoutCache;
+
     public NameMapping(
             MappingConfig conf,
             Boolean useDdlConvent,
@@ -71,50 +83,28 @@ public class NameMapping implements Mapping<RowData, RowData>, Serializable {
 
         // Dml
         if (rowData instanceof ColumnRowData) {
-            Map<String, Integer> identityIndex = getIdentityIndex(rowData);
-            Integer tableIndex = identityIndex.get(TABLE);
-            Integer schemaIndex = identityIndex.get(SCHEMA);
-            Integer dataBaseIndex = identityIndex.get(DATABASE);
+            if (mappingRule == null) {
+                return Collections.singletonList(rowData);
+            }
+            ColumnRowData columnRowData = (ColumnRowData) rowData;
+            HeaderLayout layout = getHeaderLayout(columnRowData);
 
-            String table = rowData.getString(tableIndex).toString();
-            String schema = rowData.getString(schemaIndex).toString();
+            String table = columnRowData.getField(layout.tableIndex).asString();
+            String schema = columnRowData.getField(layout.schemaIndex).asString();
             String dataBase = null;
-            if (((ColumnRowData) rowData).getField(dataBaseIndex) != null
-                    && ((ColumnRowData) rowData).getField(dataBaseIndex).getData() != null) {
-                dataBase = rowData.getString(dataBaseIndex).toString();
+            AbstractBaseColumn dataBaseColumn = columnRowData.getField(layout.dataBaseIndex);
+            if (dataBaseColumn != null && dataBaseColumn.getData() != null) {
+                dataBase = dataBaseColumn.asString();
             }
+            MappedIdentifier identifier =
+                    getMappedIdentifier(new TableIdentifier(dataBase, schema, table));
 
-            if (mappingRule != null) {
-                TableIdentifier originalIdentifier = new TableIdentifier(dataBase, schema, table);
-                TableIdentifier tableIdentifier =
-                        mappingRule.tableIdentifierMapping(originalIdentifier);
-
-                if (mappingRule.getCasing() != Casing.UNCHANGE) {
-                    tableIdentifier = mappingRule.casingTableIdentifier(tableIdentifier);
-
-                    Set<String> extHeader = ((ColumnRowData) rowData).getExtHeader();
-                    for (String fieldName :
-                            ((ColumnRowData) rowData)
-                                    .getHeaderInfo().keySet().stream()
-                                            .filter(fieldName -> !extHeader.contains(fieldName))
-                                            .collect(Collectors.toList())) {
-                        ((ColumnRowData) rowData)
-                                .replaceHeader(fieldName, mappingRule.casingName(fieldName));
-                    }
-                }
-
-                ((ColumnRowData) rowData)
-                        .setField(tableIndex, new StringColumn(tableIdentifier.getTable()));
-                ((ColumnRowData) rowData)
-                        .setField(schemaIndex, new StringColumn(tableIdentifier.getSchema()));
-                if (tableIdentifier.getDataBase() != null) {
-                    ((ColumnRowData) rowData)
-                            .setField(
-                                    dataBaseIndex, new StringColumn(tableIdentifier.getDataBase()));
-                } else {
-                    ((ColumnRowData) rowData).setField(dataBaseIndex, new NullColumn());
-                }
+            if (layout.mappedHeader != null) {
+                columnRowData.setSharedHeader(layout.mappedHeader, layout.byteSizeDelta);
             }
+            columnRowData.setField(layout.tableIndex, identifier.table);
+            columnRowData.setField(layout.schemaIndex, identifier.schema);
+            columnRowData.setField(layout.dataBaseIndex, identifier.dataBase);
 
             return Collections.singletonList(rowData);
         } else if (rowData instanceof DdlRowData) {
@@ -183,4 +173,114 @@ public class NameMapping implements Mapping<RowData, RowData>, Serializable {
         }
         return Collections.singletonList(rowData);
     }
+
+    /** header相同的行共用table、schema、database的下标以及大小写转换后的header */
+    private HeaderLayout getHeaderLayout(ColumnRowData rowData) {
+        if (layoutCache == null) {
+            layoutCache = new HashMap<>();
+        }
+        Map<String, Integer> header = rowData.getHeaderInfo();
+        HeaderLayout layout = layoutCache.get(header);
+        if (layout != null && layout.extHeader.equals(rowData.getExtHeader())) {
+            return layout;
+        }
+
+        Map<String, Integer> identityIndex = getIdentityIndex(rowData);
+        Map<String, Integer> mappedHeader = null;
+        int byteSizeDelta = 0;
+        if (mappingRule.getCasing() != Casing.UNCHANGE) {
+            ColumnRowData probe = new ColumnRowData(rowData.getArity());
+            probe.setHeader(new LinkedHashMap<>(header));
+            int originalByteSize = probe.getByteSize();
+            Set<String> extHeader = rowData.getExtHeader();
+            for (String fieldName :
+                    header.keySet().stream()
+                            .filter(fieldName -> !extHeader.contains(fieldName))
+                            .collect(Collectors.toList())) {
+                probe.replaceHeader(fieldName, mappingRule.casingName(fieldName));
+            }
+            // 不能用unmodifiableMap包装：cdc的行走Kryo复制和序列化，Kryo无法重建不可修改的Map。
+            // 构建完成后不再修改，行修改header前会先复制
+            mappedHeader = probe.getHeaderInfo();
+            byteSizeDelta = probe.getByteSize() - originalByteSize;
+        }
+        layout =
+                new HeaderLayout(
+                        new HashSet<>(rowData.getExtHeader()),
+                        identityIndex.get(TABLE),
+                        identityIndex.get(SCHEMA),
+                        identityIndex.get(DATABASE),
+                        mappedHeader,
+                        byteSizeDelta);
+        if (layoutCache.size() >= MAX_CACHE_SIZE) {
+            layoutCache.clear();
+        }
+        layoutCache.put(new HashMap<>(header), layout);
+        return layout;
+    }
+
+    private MappedIdentifier getMappedIdentifier(TableIdentifier originalIdentifier) {
+        if (identifierCache == null) {
+            identifierCache = new HashMap<>();
+        }
+        MappedIdentifier identifier = identifierCache.get(originalIdentifier);
+        if (identifier == null) {
+            TableIdentifier tableIdentifier =
+                    mappingRule.tableIdentifierMapping(originalIdentifier);
+            if (mappingRule.getCasing() != Casing.UNCHANGE) {
+                tableIdentifier = mappingRule.casingTableIdentifier(tableIdentifier);
+            }
+            identifier =
+                    new MappedIdentifier(
+                            new StringColumn(tableIdentifier.getTable()),
+                            new StringColumn(tableIdentifier.getSchema()),
+                            tableIdentifier.getDataBase() == null
+                                    ? new NullColumn()
+                                    : new StringColumn(tableIdentifier.getDataBase()));
+            if (identifierCache.size() >= MAX_CACHE_SIZE) {
+                identifierCache.clear();
+            }
+            identifierCache.put(originalIdentifier, identifier);
+        }
+        return identifier;
+    }
+
+    private static final class HeaderLayout {
+        private final Set<String> extHeader;
+        private final Integer tableIndex;
+        private final Integer schemaIndex;
+        private final Integer dataBaseIndex;
+        /** 大小写转换后的header，不需要转换时为null */
+        private final Map<String, Integer> mappedHeader;
+
+        private final int byteSizeDelta;
+
+        private HeaderLayout(
+                Set<String> extHeader,
+                Integer tableIndex,
+                Integer schemaIndex,
+                Integer dataBaseIndex,
+                Map<String, Integer> mappedHeader,
+                int byteSizeDelta) {
+            this.extHeader = extHeader;
+            this.tableIndex = tableIndex;
+            this.schemaIndex = schemaIndex;
+            this.dataBaseIndex = dataBaseIndex;
+            this.mappedHeader = mappedHeader;
+            this.byteSizeDelta = byteSizeDelta;
+        }
+    }
+
+    private static final class MappedIdentifier {
+        private final StringColumn table;
+        private final StringColumn schema;
+        private final AbstractBaseColumn dataBase;
+
+        private MappedIdentifier(
+                StringColumn table, StringColumn schema, AbstractBaseColumn dataBase) {
+            this.table = table;
+            this.schema = schema;
+            this.dataBase = dataBase;
+        }
+    }
 }
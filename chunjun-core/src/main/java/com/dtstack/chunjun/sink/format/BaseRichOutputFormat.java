@@ -256,6 +256,9 @@ public abstract class BaseRichOutputFormat extends RichOutputFormat<RowData>
             initAccumulatorCollector();
         }
         openInternal(taskNumber, numTasks);
+        if (rowConverter != null) {
+            rowConverter.open(config, getRuntimeContext().getUserCodeClassLoader());
+        }
         this.startTime = System.currentTimeMillis();
 
         log.info(
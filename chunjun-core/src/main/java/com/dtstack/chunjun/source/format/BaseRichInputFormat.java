@@ -160,6 +160,9 @@ public abstract class BaseRichInputFormat extends RichInputFormat<RowData, Input
         }
 
         openInternal(inputSplit);
+        if (rowConverter != null) {
+            rowConverter.open(config, getRuntimeContext().getUserCodeClassLoader());
+        }
 
         log.info(
                 "[{}] open successfully, \ninputSplit = {}, \n[{}]: \n{} ",
@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.util;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.Date;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按pattern和时区缓存的日期格式，不可变且线程安全，解析和格式化的结果与同pattern、同时区的{@link SimpleDateFormat}一致。
+ *
+ * <p>yyyy-MM-dd HH:mm:ss与yyyy-MM-dd直接按字符解析；只包含年月日时分秒毫秒的pattern使用{@link DateTimeFormatter}；
+ * 其余pattern，以及宽松模式下的越界日期、1582年之前的日期等java.time无法等价处理的文本，回退到线程内复用的SimpleDateFormat。
+ */
+public final class CachedDateFormat {
+
+    private static final Map<ZoneId, Map<String, CachedDateFormat>> CACHE =
+            new ConcurrentHashMap<>();
+
+    private static final ZoneId DEFAULT_ZONE = ZoneId.of(DateUtil.TIME_ZONE);
+
+    private static final String STANDARD_DATETIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
+    private static final String STANDARD_DATE_PATTERN = "yyyy-MM-dd";
+
+    /** SimpleDateFormat在1582-10-15之前使用儒略历，与java.time不一致 */
+    private static final int GREGORIAN_CUTOVER_YEAR = 1582;
+
+    private static final long MIN_MILLIS = -12219292800000L;
+    /** java.time格式化五位数年份时会带上正号 */
+    private static final long MAX_MILLIS = 253402214400000L;
+
+    private static final long DAYS_0000_TO_1970 = 719528L;
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    private final ZoneId zone;
+    /** 固定偏移的时区直接计算时间戳，否则为null */
+    private final ZoneOffset fixedOffset;
+    /** 按字符解析的文本长度，0代表不支持 */
+    private final int fixedLength;
+    /** pattern无法与SimpleDateFormat保持一致时为null */
+    private final DateTimeFormatter formatter;
+
+    private final boolean hasTime;
+    private final ThreadLocal<SimpleDateFormat> fallback;
+
+    private CachedDateFormat(String pattern, ZoneId zone) {
+        // 与SimpleDateFormat一样，非法的pattern直接抛出IllegalArgumentException
+        new SimpleDateFormat(pattern);
+        TimeZone timeZone = TimeZone.getTimeZone(zone);
+        this.zone = zone;
+        this.fixedOffset =
+                zone.getRules().isFixedOffset() ? zone.getRules().getOffset(Instant.EPOCH) : null;
+        if (STANDARD_DATETIME_PATTERN.equals(pattern)) {
+            fixedLength = STANDARD_DATETIME_PATTERN.length();
+        } else if (STANDARD_DATE_PATTERN.equals(pattern)) {
+            fixedLength = STANDARD_DATE_PATTERN.length();
+        } else {
+            fixedLength = 0;
+        }
+        this.formatter = buildFormatter(pattern, zone);
+        this.hasTime =
+                pattern.indexOf('H') >= 0
+                        || pattern.indexOf('m') >= 0
+                        || pattern.indexOf('s') >= 0
+                        || pattern.indexOf('S') >= 0;
+        this.fallback =
+                ThreadLocal.withInitial(
+                        () -> {
+                            SimpleDateFormat sdf = new SimpleDateFormat(pattern);
+                            sdf.setTimeZone(timeZone);
+                            return sdf;
+                        });
+    }
+
+    /** 时区为GMT+8，与{@link DateUtil#buildDateFormatter(String)}一致 */
+    public static CachedDateFormat of(String pattern) {
+        return of(pattern, DEFAULT_ZONE);
+    }
+
+    public static CachedDateFormat of(String pattern, ZoneId zone) {
+        Map<String, CachedDateFormat> formats = CACHE.get(zone);
+        if (formats == null) {
+            formats = CACHE.computeIfAbsent(zone, k -> new ConcurrentHashMap<>());
+        }
+        CachedDateFormat format = formats.get(pattern);
+        if (format == null) {
+            format = formats.computeIfAbsent(pattern, k -> new CachedDateFormat(k, zone));
+        }
+        return format;
+    }
+
+    /**
+     * 解析日期，与{@link SimpleDateFormat#parse(String)}一样允许文本尾部存在多余字符
+     *
+     * @param text 日期字符串
+     * @return 无法解析时返回null
+     */
+    public Date parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        if (fixedLength > 0) {
+            long millis = parseFixed(text);
+            if (millis != Long.MIN_VALUE) {
+                return new Date(millis);
+            }
+        } else if (formatter != null) {
+            Date date = parseByFormatter(text);
+            if (date != null) {
+                return date;
+            }
+        }
+        return fallback.get().parse(text, new ParsePosition(0));
+    }
+
+    public String format(long millis) {
+        if (formatter != null && millis >= MIN_MILLIS && millis < MAX_MILLIS) {
+            return formatter.format(Instant.ofEpochMilli(millis));
+        }
+        return fallback.get().format(new Date(millis));
+    }
+
+    public String format(Date date) {
+        return format(date.getTime());
+    }
+
+    private long parseFixed(String text) {
+        int length = text.length();
+        if (length < fixedLength || (length > fixedLength && isDigit(text.charAt(fixedLength)))) {
+            return Long.MIN_VALUE;
+        }
+        int year = parseDigits(text, 0, 4);
+        int month = parseDigits(text, 5, 7);
+        int day = parseDigits(text, 8, 10);
+        if (year <= GREGORIAN_CUTOVER_YEAR
+                || text.charAt(4) != '-'
+                || text.charAt(7) != '-'
+                || month < 1
+                || month > 12
+                || day < 1
+                || day > lengthOfMonth(year, month)) {
+            return Long.MIN_VALUE;
+        }
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        if (fixedLength == STANDARD_DATETIME_PATTERN.length()) {
+            hour = parseDigits(text, 11, 13);
+            minute = parseDigits(text, 14, 16);
+            second = parseDigits(text, 17, 19);
+            if (text.charAt(10) != ' '
+                    || text.charAt(13) != ':'
+                    || text.charAt(16) != ':'
+                    || hour < 0
+                    || hour > 23
+                    || minute < 0
+                    || minute > 59
+                    || second < 0
+                    || second > 59) {
+                return Long.MIN_VALUE;
+            }
+        }
+        if (fixedOffset == null) {
+            return toEpochMilli(LocalDateTime.of(year, month, day, hour, minute, second));
+        }
+        long secondOfDay = hour * 3600L + minute * 60L + second - fixedOffset.getTotalSeconds();
+        return toEpochDay(year, month, day) * MILLIS_PER_DAY + secondOfDay * 1000L;
+    }
+
+    private Date parseByFormatter(String text) {
+        try {
+            ParsePosition position = new ParsePosition(0);
+            TemporalAccessor parsed = formatter.parse(text, position);
+            // SimpleDateFormat会把末尾字段之后的数字一并读入
+            if (position.getIndex() < text.length() && isDigit(text.charAt(position.getIndex()))) {
+                return null;
+            }
+            LocalDate date = parsed.query(TemporalQueries.localDate());
+            if (date == null || date.getYear() <= GREGORIAN_CUTOVER_YEAR) {
+                return null;
+            }
+            LocalTime time = parsed.query(TemporalQueries.localTime());
+            if (time == null) {
+                if (hasTime) {
+                    return null;
+                }
+                time = LocalTime.MIDNIGHT;
+            }
+            return new Date(toEpochMilli(LocalDateTime.of(date, time)));
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private long toEpochMilli(LocalDateTime dateTime) {
+        if (fixedOffset != null) {
+            return dateTime.toEpochSecond(fixedOffset) * 1000L + dateTime.getNano() / 1000_000;
+        }
+        return dateTime.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    /** 只包含y、M、d、H、m、s、SSS这些数字字段时，java.time的解析和格式化结果与SimpleDateFormat一致 */
+    private static DateTimeFormatter buildFormatter(String pattern, ZoneId zone) {
+        int length = pattern.length();
+        int i = 0;
+        while (i < length) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                int end = pattern.indexOf('\'', i + 1);
+                if (end < 0) {
+                    return null;
+                }
+                i = end + 1;
+                continue;
+            }
+            if (c == '[' || c == ']' || c == '{' || c == '}' || c == '#') {
+                return null;
+            }
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                i++;
+                continue;
+            }
+            int j = i;
+            while (j < length && pattern.charAt(j) == c) {
+                j++;
+            }
+            int count = j - i;
+            switch (c) {
+                case 'y':
+                    // 两位年份的世纪推断规则不同
+                    if (count == 2) {
+                        return null;
+                    }
+                    break;
+                case 'M':
+                case 'd':
+                case 'H':
+                case 'm':
+                case 's':
+                    if (count > 2) {
+                        return null;
+                    }
+                    break;
+                case 'S':
+                    // SimpleDateFormat中S代表毫秒数而不是秒的小数部分
+                    if (count != 3) {
+                        return null;
+                    }
+                    break;
+                default:
+                    return null;
+            }
+            i = j;
+        }
+        try {
+            return new DateTimeFormatterBuilder()
+                    .appendPattern(pattern)
+                    .parseDefaulting(ChronoField.ERA, 1)
+                    .toFormatter()
+                    .withResolverStyle(ResolverStyle.STRICT)
+                    .withZone(zone);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int parseDigits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /** 与{@link LocalDate#toEpochDay()}相同的计算，避免创建对象 */
+    private static long toEpochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y + (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
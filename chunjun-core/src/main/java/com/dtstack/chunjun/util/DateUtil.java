@@ -23,6 +23,7 @@ import org.apache.commons.lang3.StringUtils;
 import java.sql.Timestamp;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -44,7 +45,7 @@ import static java.time.format.DateTimeFormatter.ISO_INSTANT;
 
 public class DateUtil {
 
-    private static final String TIME_ZONE = "GMT+8";
+    static final String TIME_ZONE = "GMT+8";
 
     private static final String STANDARD_DATETIME_FORMAT = "standardDatetimeFormatter";
 
@@ -301,6 +302,12 @@ public class DateUtil {
         return datetimeFormatter.get().get(YEAR_FORMAT);
     }
 
+    /**
+     * 每次调用都会创建新的SimpleDateFormat，频繁解析或格式化时使用{@link CachedDateFormat#of(String)}
+     *
+     * @param timeFormat pattern
+     * @return GMT+8时区的SimpleDateFormat
+     */
     public static SimpleDateFormat buildDateFormatter(String timeFormat) {
         SimpleDateFormat sdf = new SimpleDateFormat(timeFormat);
         sdf.setTimeZone(TimeZone.getTimeZone(TIME_ZONE));
@@ -376,15 +383,20 @@ public class DateUtil {
             return new Timestamp(instant.getEpochSecond() * MILLIS_PER_SECOND);
         }
 
+        LocalDateTime localDateTime = parseIsoLocalDateTime(timeStr);
+        if (localDateTime != null) {
+            return Timestamp.valueOf(localDateTime);
+        }
+
         TemporalAccessor parsedTimestamp = null;
 
         try {
             parsedTimestamp = DateTimeFormatter.ISO_LOCAL_DATE_TIME.parse(timeStr);
         } catch (Exception e) {
-        }
-        try {
-            parsedTimestamp = DateTimeFormatter.ISO_OFFSET_DATE_TIME.parse(timeStr);
-        } catch (Exception e) {
+            try {
+                parsedTimestamp = DateTimeFormatter.ISO_OFFSET_DATE_TIME.parse(timeStr);
+            } catch (Exception ignored) {
+            }
         }
 
         if (parsedTimestamp != null) {
@@ -397,6 +409,61 @@ public class DateUtil {
         return null == date ? null : new Timestamp(date.getTime());
     }
 
+    /**
+     * 按字符解析yyyy-MM-ddTHH:mm:ss[.fraction]格式的字符串，结果与{@link
+     * DateTimeFormatter#ISO_LOCAL_DATE_TIME}一致，避免解析失败时构造异常
+     *
+     * @param str 时间字符串
+     * @return 不是该格式时返回null
+     */
+    static LocalDateTime parseIsoLocalDateTime(String str) {
+        int length = str.length();
+        if (length < 19
+                || str.charAt(4) != '-'
+                || str.charAt(7) != '-'
+                || str.charAt(10) != 'T'
+                || str.charAt(13) != ':'
+                || str.charAt(16) != ':') {
+            return null;
+        }
+        int year = parseDigits(str, 0, 4);
+        int month = parseDigits(str, 5, 7);
+        int day = parseDigits(str, 8, 10);
+        int hour = parseDigits(str, 11, 13);
+        int minute = parseDigits(str, 14, 16);
+        int second = parseDigits(str, 17, 19);
+        int nano = 0;
+        if (length > 19) {
+            if (str.charAt(19) != '.' || length == 20 || length > 29) {
+                return null;
+            }
+            nano = parseDigits(str, 20, length);
+            for (int i = length; i < 29; i++) {
+                nano *= 10;
+            }
+        }
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0 || nano < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int parseDigits(String str, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = str.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
     public static Date stringToDate(String strDate) {
         if (strDate == null) {
             return null;
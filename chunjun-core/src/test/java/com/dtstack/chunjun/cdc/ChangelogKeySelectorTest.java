@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.cdc;
+
+import com.dtstack.chunjun.element.ColumnRowData;
+import com.dtstack.chunjun.element.column.StringColumn;
+
+import org.apache.flink.types.RowKind;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ChangelogKeySelectorTest {
+
+    private ChangelogKeySelector keySelector;
+
+    @BeforeEach
+    void setUp() {
+        keySelector =
+                new ChangelogKeySelector(
+                        Collections.singletonMap("users", Collections.singletonList("id")));
+    }
+
+    private ColumnRowData row(RowKind kind, String table, String id, String name) {
+        ColumnRowData row = new ColumnRowData(kind, 5);
+        row.addHeader("database");
+        row.addField(new StringColumn("db"));
+        row.addHeader("schema");
+        row.addField(new StringColumn("public"));
+        row.addHeader("table");
+        row.addField(new StringColumn(table));
+        String prefix =
+                kind == RowKind.DELETE || kind == RowKind.UPDATE_BEFORE ? "before_" : "after_";
+        row.addHeader(prefix + "id");
+        row.addField(new StringColumn(id));
+        row.addHeader(prefix + "name");
+        row.addField(new StringColumn(name));
+        return row;
+    }
+
+    @Test
+    void testChangesOfOneKeyShareTheKey() {
+        Integer insert = keySelector.getKey(row(RowKind.INSERT, "users", "1", "a"));
+        assertEquals(insert, keySelector.getKey(row(RowKind.UPDATE_BEFORE, "users", "1", "a")));
+        assertEquals(insert, keySelector.getKey(row(RowKind.UPDATE_AFTER, "users", "1", "b")));
+        assertEquals(insert, keySelector.getKey(row(RowKind.DELETE, "users", "1", "b")));
+        assertNotEquals(insert, keySelector.getKey(row(RowKind.INSERT, "users", "2", "a")));
+    }
+
+    @Test
+    void testPrimaryKeyChangingUpdateKeepsBeforeAndAfterTogether() {
+        Integer oldKey = keySelector.getKey(row(RowKind.INSERT, "users", "1", "a"));
+        Integer newKey = keySelector.getKey(row(RowKind.INSERT, "users", "2", "a"));
+
+        assertEquals(oldKey, keySelector.getKey(row(RowKind.UPDATE_BEFORE, "users", "1", "a")));
+        assertEquals(oldKey, keySelector.getKey(row(RowKind.UPDATE_AFTER, "users", "2", "a")));
+        // only the UPDATE_AFTER right after the UPDATE_BEFORE follows it
+        assertEquals(newKey, keySelector.getKey(row(RowKind.UPDATE_AFTER, "users", "2", "b")));
+    }
+
+    @Test
+    void testUpdateAfterOfOtherRowDoesNotFollowUpdateBefore() {
+        Integer newKey = keySelector.getKey(row(RowKind.INSERT, "users", "2", "a"));
+
+        keySelector.getKey(row(RowKind.UPDATE_BEFORE, "users", "1", "a"));
+        assertEquals(newKey, keySelector.getKey(row(RowKind.INSERT, "users", "2", "a")));
+        assertEquals(newKey, keySelector.getKey(row(RowKind.UPDATE_AFTER, "users", "2", "a")));
+
+        keySelector.getKey(row(RowKind.UPDATE_BEFORE, "users", "1", "a"));
+        assertEquals(
+                keySelector.getKey(row(RowKind.INSERT, "orders", "2", "a")),
+                keySelector.getKey(row(RowKind.UPDATE_AFTER, "orders", "2", "a")));
+    }
+
+    @Test
+    void testTableWithoutPrimaryKeyIsKeyedByTable() {
+        assertEquals(
+                keySelector.getKey(row(RowKind.INSERT, "orders", "1", "a")),
+                keySelector.getKey(row(RowKind.INSERT, "orders", "2", "b")));
+    }
+
+    @Test
+    void testDdlAndLaterDmlOfTableShareTheChannel() {
+        ChangelogKeySelector ddlKeySelector =
+                new ChangelogKeySelector(
+                        Collections.singletonMap("users", Collections.singletonList("id")), true);
+        DdlRowData ddl = new DdlRowData(new String[] {"database", "schema", "table", "content"});
+        ddl.setDdlInfo("database", "db");
+        ddl.setDdlInfo("schema", "public");
+        ddl.setDdlInfo("table", "users");
+        ddl.setDdlInfo("content", "ALTER TABLE users ADD COLUMN age INT");
+
+        int parallelism = 4;
+        int ddlChannel = Math.floorMod(ddlKeySelector.getKey(ddl), parallelism);
+        for (int id = 0; id < 16; id++) {
+            ColumnRowData dml = row(RowKind.INSERT, "users", String.valueOf(id), "a");
+            assertEquals(ddlChannel, Math.floorMod(ddlKeySelector.getKey(dml), parallelism));
+        }
+    }
+
+    @Test
+    void testRowWithoutHeaderIsDistributedRoundRobin() {
+        ColumnRowData row = new ColumnRowData(1);
+        row.addField(new StringColumn("a"));
+        assertNotEquals(keySelector.getKey(row), keySelector.getKey(row));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.cdc;
+
+import com.dtstack.chunjun.cdc.handler.CacheHandler;
+import com.dtstack.chunjun.cdc.handler.DDLHandler;
+import com.dtstack.chunjun.throwable.ChunJunRuntimeException;
+
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.OperatorStateStore;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.runtime.state.FunctionInitializationContext;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RestorationFlatMapTest {
+
+    private CacheHandler cacheHandler;
+    private List<Tuple2<Integer, byte[]>> cacheStates;
+    private List<Integer> parallelismStates;
+
+    @BeforeEach
+    void setUp() {
+        cacheHandler = mock(CacheHandler.class);
+        cacheStates = new ArrayList<>();
+        parallelismStates = new ArrayList<>();
+    }
+
+    @Test
+    void restoreWithSameParallelismShouldKeepOwnState() throws Exception {
+        byte[] state0 = {0};
+        byte[] state1 = {1};
+        cacheStates.add(Tuple2.of(0, state0));
+        cacheStates.add(Tuple2.of(1, state1));
+        parallelismStates.addAll(Arrays.asList(2, 2));
+
+        newFlatMap(1, 2).initializeState(restoredContext());
+
+        verify(cacheHandler).restoreState(state1);
+        verify(cacheHandler, never()).restoreState(state0);
+    }
+
+    @Test
+    void restoreFromHigherParallelismShouldFail() throws Exception {
+        cacheStates.add(Tuple2.of(0, new byte[] {0}));
+        cacheStates.add(Tuple2.of(1, new byte[] {1}));
+        cacheStates.add(Tuple2.of(2, new byte[] {2}));
+        parallelismStates.addAll(Arrays.asList(3, 3, 3));
+
+        RestorationFlatMap flatMap = newFlatMap(0, 2);
+        ChunJunRuntimeException e =
+                assertThrows(
+                        ChunJunRuntimeException.class,
+                        () -> flatMap.initializeState(restoredContext()));
+        assertTrue(e.getMessage().contains("parallelism 3 with parallelism 2"));
+        verify(cacheHandler, never()).restoreState(any());
+    }
+
+    @Test
+    void restoreFromHigherParallelismWithoutRecordedParallelismShouldFail() {
+        cacheStates.add(Tuple2.of(0, new byte[] {0}));
+        cacheStates.add(Tuple2.of(2, new byte[] {2}));
+
+        RestorationFlatMap flatMap = newFlatMap(0, 2);
+        ChunJunRuntimeException e =
+                assertThrows(
+                        ChunJunRuntimeException.class,
+                        () -> flatMap.initializeState(restoredContext()));
+        assertTrue(e.getMessage().contains("parallelism at least 3 with parallelism 2"));
+    }
+
+    @Test
+    void restoreFromLowerParallelismShouldFail() {
+        cacheStates.add(Tuple2.of(0, new byte[] {0}));
+        parallelismStates.add(1);
+
+        RestorationFlatMap flatMap = newFlatMap(0, 2);
+        assertThrows(
+                ChunJunRuntimeException.class, () -> flatMap.initializeState(restoredContext()));
+    }
+
+    @Test
+    void rescaleWithoutCacheStateShouldRestore() throws Exception {
+        parallelismStates.addAll(Arrays.asList(3, 3, 3));
+
+        newFlatMap(0, 2).initializeState(restoredContext());
+
+        verify(cacheHandler, never()).restoreState(any());
+    }
+
+    private RestorationFlatMap newFlatMap(int indexOfThisSubtask, int parallelism) {
+        RestorationFlatMap flatMap =
+                new RestorationFlatMap(mock(DDLHandler.class), cacheHandler, new CdcConfig());
+        RuntimeContext runtimeContext = mock(RuntimeContext.class);
+        when(runtimeContext.getIndexOfThisSubtask()).thenReturn(indexOfThisSubtask);
+        when(runtimeContext.getNumberOfParallelSubtasks()).thenReturn(parallelism);
+        flatMap.setRuntimeContext(runtimeContext);
+        return flatMap;
+    }
+
+    @SuppressWarnings("unchecked")
+    private FunctionInitializationContext restoredContext() throws Exception {
+        ListState<Tuple2<Integer, byte[]>> cacheState = mock(ListState.class);
+        when(cacheState.get()).thenReturn(cacheStates);
+        ListState<Integer> parallelismState = mock(ListState.class);
+        when(parallelismState.get()).thenReturn(parallelismStates);
+
+        OperatorStateStore stateStore = mock(OperatorStateStore.class);
+        when(stateStore.getUnionListState(any(ListStateDescriptor.class)))
+                .thenAnswer(
+                        invocation -> {
+                            ListStateDescriptor<?> descriptor = invocation.getArgument(0);
+                            return "restoration-parallelism".equals(descriptor.getName())
+                                    ? parallelismState
+                                    : cacheState;
+                        });
+        FunctionInitializationContext context = mock(FunctionInitializationContext.class);
+        when(context.getOperatorStateStore()).thenReturn(stateStore);
+        when(context.isRestored()).thenReturn(true);
+        return context;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.converter;
+
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.StringData;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowConverterCodeGeneratorTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateTest() throws Exception {
+        List<IDeserializationConverter> internal =
+                Arrays.asList(
+                        val -> ((Integer) val) + 1,
+                        val -> StringData.fromString(String.valueOf(val)));
+        List<ISerializationConverter> external =
+                Arrays.asList(
+                        (ISerializationConverter<List<Object>>)
+                                (rowData, pos, output) -> output.add(rowData.getInt(pos)),
+                        (ISerializationConverter<List<Object>>)
+                                (rowData, pos, output) ->
+                                        output.add(rowData.getString(pos).toString()));
+
+        GeneratedFieldConverter converter =
+                RowConverterCodeGenerator.generate(
+                        "TestConverter", internal, external, null, getClass().getClassLoader());
+        assertNotNull(converter);
+
+        assertEquals(2, converter.deserialize(0, 1));
+        assertEquals(StringData.fromString("a"), converter.deserialize(1, "a"));
+
+        List<Object> output = new ArrayList<>();
+        converter.serialize(GenericRowData.of(1, StringData.fromString("a")), output);
+        assertEquals(Arrays.asList(1, "a"), output);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unwrappedConvertersAreCalledDirectlyTest() throws Exception {
+        AtomicInteger wrappedCalls = new AtomicInteger();
+        IDeserializationConverter rawIn = val -> ((Integer) val) + 1;
+        IDeserializationConverter wrappedIn =
+                val -> {
+                    wrappedCalls.incrementAndGet();
+                    return val == null ? null : rawIn.deserialize(val);
+                };
+        ISerializationConverter<List<Object>> rawOut =
+                (rowData, pos, output) -> output.add(rowData.getInt(pos));
+        ISerializationConverter<List<Object>> wrappedOut =
+                (rowData, pos, output) -> {
+                    wrappedCalls.incrementAndGet();
+                    if (rowData.isNullAt(pos)) {
+                        output.add("null");
+                    } else {
+                        rawOut.serialize(rowData, pos, output);
+                    }
+                };
+        // 未登记包装前转换器的字段仍调用包装后的转换器
+        IDeserializationConverter plainIn = val -> "plain:" + val;
+        ISerializationConverter<List<Object>> plainOut =
+                (rowData, pos, output) -> output.add("plain:" + rowData.isNullAt(pos));
+
+        Map<Object, Object> unwrapped = new IdentityHashMap<>();
+        unwrapped.put(wrappedIn, rawIn);
+        unwrapped.put(wrappedOut, rawOut);
+
+        GeneratedFieldConverter converter =
+                RowConverterCodeGenerator.generate(
+                        "TestConverter",
+                        Arrays.asList(wrappedIn, plainIn),
+                        Arrays.asList(wrappedOut, plainOut),
+                        unwrapped,
+                        getClass().getClassLoader());
+        assertNotNull(converter);
+
+        assertEquals(2, converter.deserialize(0, 1));
+        assertNull(converter.deserialize(0, null));
+        assertEquals("plain:null", converter.deserialize(1, null));
+
+        List<Object> output = new ArrayList<>();
+        converter.serialize(GenericRowData.of(1, null), output);
+        assertEquals(Arrays.asList(1, "plain:true"), output);
+        assertEquals(0, wrappedCalls.get());
+
+        output.clear();
+        converter.serialize(GenericRowData.of(null, 1), output);
+        assertEquals(Arrays.asList("null", "plain:false"), output);
+        assertEquals(1, wrappedCalls.get());
+    }
+
+    @Test
+    void generateCodeTest() {
+        String code =
+                RowConverterCodeGenerator.generateCode(
+                        "TestConverter", new Object[] {new Object(), null}, new Object[] {null});
+        assertTrue(
+                code.contains("case 0: return field == null ? null : rawIn0.deserialize(field);"));
+        assertTrue(code.contains("case 1: return in1.deserialize(field);"));
+        assertTrue(code.contains("out0.serialize(rowData, 0, output);"));
+        assertFalse(code.contains("rawOut0"));
+    }
+
+    @Test
+    void deserializeOutOfRangeTest() {
+        GeneratedFieldConverter converter =
+                RowConverterCodeGenerator.generate(
+                        "TestConverter",
+                        new ArrayList<>(),
+                        null,
+                        null,
+                        getClass().getClassLoader());
+        assertNotNull(converter);
+        assertThrows(IndexOutOfBoundsException.class, () -> converter.deserialize(0, 1));
+    }
+}
@@ -30,7 +30,9 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -42,6 +44,25 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ColumnRowDataTest {
 
+    @Test
+    @DisplayName("Should copy the shared header before modifying it")
+    public void setSharedHeaderShouldCopyBeforeModify() {
+        Map<String, Integer> shared = new LinkedHashMap<>();
+        shared.put("id", 0);
+        shared.put("table", 1);
+
+        ColumnRowData columnRowData = new ColumnRowData(2);
+        columnRowData.addField(new StringColumn("1"));
+        columnRowData.addField(new StringColumn("t"));
+        columnRowData.setSharedHeader(shared, 0);
+        columnRowData.addExtHeader("table");
+
+        columnRowData.removeExtHeaderInfo();
+
+        assertArrayEquals(new String[] {"id"}, columnRowData.getHeaders());
+        assertEquals(2, shared.size());
+    }
+
     @Test
     @DisplayName("Should return the string of the row data")
     public void getStringShouldReturnTheStringOfTheRowData() {
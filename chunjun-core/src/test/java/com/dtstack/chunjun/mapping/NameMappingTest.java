@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.mapping;
+
+import com.dtstack.chunjun.element.ColumnRowData;
+import com.dtstack.chunjun.element.column.NullColumn;
+import com.dtstack.chunjun.element.column.StringColumn;
+import com.dtstack.chunjun.util.GsonUtil;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.java.typeutils.runtime.kryo.KryoSerializer;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.table.data.RowData;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static com.dtstack.chunjun.constants.CDCConstantValue.DATABASE;
+import static com.dtstack.chunjun.constants.CDCConstantValue.SCHEMA;
+import static com.dtstack.chunjun.constants.CDCConstantValue.TABLE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NameMappingTest {
+
+    @Test
+    @DisplayName("Should map the table identifier of every row")
+    public void mapShouldReplaceTableIdentifier() {
+        LinkedHashMap<String, String> identifierMappings = new LinkedHashMap<>();
+        identifierMappings.put("db1\\.order_.*", "ods.${tableName}_sink");
+        NameMapping nameMapping =
+                new NameMapping(
+                        new MappingConfig(identifierMappings, new LinkedHashMap<>()),
+                        false,
+                        null,
+                        null);
+
+        // rows of the same table hit the cached identifier
+        for (String table : new String[] {"order_1", "order_1", "order_2", "user"}) {
+            List<RowData> result = nameMapping.map(row("db1", table));
+            assertEquals(1, result.size());
+            ColumnRowData mapped = (ColumnRowData) result.get(0);
+            if (table.startsWith("order_")) {
+                assertEquals(table + "_sink", mapped.getField(TABLE).asString());
+                assertEquals("ods", mapped.getField(SCHEMA).asString());
+                assertTrue(mapped.getField(DATABASE) instanceof NullColumn);
+            } else {
+                assertEquals(table, mapped.getField(TABLE).asString());
+                assertEquals("db1", mapped.getField(SCHEMA).asString());
+            }
+            assertEquals("1", mapped.getField("id").asString());
+        }
+    }
+
+    @Test
+    @DisplayName("Should copy and serialize rows with a cased header through kryo")
+    public void mappedRowShouldRoundTripThroughKryo() throws IOException {
+        MappingConfig mappingConfig =
+                GsonUtil.GSON.fromJson(
+                        "{\"casing\":\"UPPER\",\"identifierMappings\":{},\"columnTypeMappings\":{}}",
+                        MappingConfig.class);
+        NameMapping nameMapping = new NameMapping(mappingConfig, false, null, null);
+        // cdc rows are GenericTypeInfo<RowData>, flink copies and ships them with kryo
+        KryoSerializer<RowData> serializer =
+                new KryoSerializer<>(RowData.class, new ExecutionConfig());
+
+        ColumnRowData first = (ColumnRowData) nameMapping.map(row("db1", "t1")).get(0);
+        ColumnRowData second = (ColumnRowData) nameMapping.map(row("db1", "t1")).get(0);
+        assertTrue(first.getHeaderInfo() == second.getHeaderInfo());
+
+        ColumnRowData copy = (ColumnRowData) serializer.copy(first);
+        DataOutputSerializer out = new DataOutputSerializer(256);
+        serializer.serialize(first, out);
+        ColumnRowData deserialized =
+                (ColumnRowData)
+                        serializer.deserialize(new DataInputDeserializer(out.getCopyOfBuffer()));
+
+        String[] headers = {DATABASE, SCHEMA, TABLE, "ID"};
+        for (ColumnRowData rowData : new ColumnRowData[] {copy, deserialized}) {
+            assertArrayEquals(headers, rowData.getHeaders());
+            assertEquals("1", rowData.getField("ID").asString());
+            assertEquals("T1", rowData.getField(TABLE).asString());
+            assertEquals(first.getByteSize(), rowData.getByteSize());
+            // the copies can still be modified without touching the shared header
+            rowData.removeExtHeaderInfo();
+            assertEquals(Collections.singleton("ID"), rowData.getHeaderInfo().keySet());
+        }
+        assertArrayEquals(headers, first.getHeaders());
+        assertArrayEquals(headers, second.getHeaders());
+    }
+
+    private static ColumnRowData row(String schema, String table) {
+        ColumnRowData rowData = new ColumnRowData(4);
+        rowData.addHeader(DATABASE);
+        rowData.addExtHeader(DATABASE);
+        rowData.addField(new NullColumn());
+        rowData.addHeader(SCHEMA);
+        rowData.addExtHeader(SCHEMA);
+        rowData.addField(new StringColumn(schema));
+        rowData.addHeader(TABLE);
+        rowData.addExtHeader(TABLE);
+        rowData.addField(new StringColumn(table));
+        rowData.addHeader("id");
+        rowData.addField(new StringColumn("1"));
+        return rowData;
+    }
+}
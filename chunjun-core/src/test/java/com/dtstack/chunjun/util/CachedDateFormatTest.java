@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.TimeZone;
+
+public class CachedDateFormatTest {
+
+    private static final String[] PATTERNS = {
+        "yyyy-MM-dd HH:mm:ss",
+        "yyyy-MM-dd",
+        "yyyy-MM-dd HH:mm:ss.SSS",
+        "yyyy/MM/dd HH:mm",
+        "yyyyMMddHHmmss",
+        "yyyy-MM-dd'T'HH:mm:ss",
+        "yyyy年MM月dd日",
+        "yy-MM-dd",
+        "yyyy-MM-dd hh:mm:ss a"
+    };
+
+    private static final String[] VALUES = {
+        "2020-03-18 10:56:00",
+        "2020-03-18 10:56:00.123",
+        "2020-03-18",
+        "2020-02-30 10:56:00",
+        "2020-1-5 1:2:3",
+        "2020-03-18 10:56:001",
+        "2020/03/18 10:56",
+        "20200318105600",
+        "2020-03-18T10:56:00",
+        "2020年03月18日",
+        "20-03-18",
+        "1500-01-01 00:00:00",
+        "abc"
+    };
+
+    @Test
+    public void testParseSameAsSimpleDateFormat() {
+        for (String zone : new String[] {"GMT+8", "America/New_York"}) {
+            for (String pattern : PATTERNS) {
+                SimpleDateFormat sdf = new SimpleDateFormat(pattern);
+                sdf.setTimeZone(TimeZone.getTimeZone(zone));
+                CachedDateFormat format = CachedDateFormat.of(pattern, ZoneId.of(zone));
+                for (String value : VALUES) {
+                    Date expected = sdf.parse(value, new ParsePosition(0));
+                    Assert.assertEquals(
+                            pattern + " / " + value + " / " + zone, expected, format.parse(value));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFormatSameAsSimpleDateFormat() {
+        long[] times = {0L, 1584500160123L, -15000000000000L, 253402300799000L, 1700000000000L};
+        for (String pattern : PATTERNS) {
+            SimpleDateFormat sdf = new SimpleDateFormat(pattern);
+            sdf.setTimeZone(TimeZone.getTimeZone("GMT+8"));
+            CachedDateFormat format = CachedDateFormat.of(pattern);
+            for (long time : times) {
+                Assert.assertEquals(
+                        pattern + " / " + time, sdf.format(new Date(time)), format.format(time));
+            }
+        }
+    }
+
+    @Test
+    public void testCached() {
+        Assert.assertSame(
+                CachedDateFormat.of("yyyy-MM-dd HH:mm:ss"),
+                CachedDateFormat.of("yyyy-MM-dd HH:mm:ss", ZoneId.of("GMT+8")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalPattern() {
+        CachedDateFormat.of("yyyy-MM-dd bb");
+    }
+
+    @Test
+    public void testParseIsoLocalDateTime() {
+        Assert.assertEquals(
+                LocalDateTime.of(2020, 3, 18, 10, 56, 0, 123000000),
+                DateUtil.parseIsoLocalDateTime("2020-03-18T10:56:00.123"));
+        Assert.assertEquals(
+                LocalDateTime.of(2020, 3, 18, 10, 56, 0),
+                DateUtil.parseIsoLocalDateTime("2020-03-18T10:56:00"));
+        Assert.assertNull(DateUtil.parseIsoLocalDateTime("2020-03-18 10:56:00"));
+        Assert.assertNull(DateUtil.parseIsoLocalDateTime("2020-02-30T10:56:00"));
+        Assert.assertNull(DateUtil.parseIsoLocalDateTime("2020-03-18T10:56:00+08:00"));
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.restore.local;
+
+import com.dtstack.chunjun.cdc.cache.Cache;
+import com.dtstack.chunjun.cdc.config.CacheConfig;
+import com.dtstack.chunjun.cdc.ddl.definition.TableIdentifier;
+import com.dtstack.chunjun.cdc.handler.CacheHandler;
+import com.dtstack.chunjun.restore.local.codec.RowDataCodec;
+import com.dtstack.chunjun.restore.local.log.SegmentLog;
+import com.dtstack.chunjun.throwable.ChunJunRuntimeException;
+
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.util.FileUtils;
+
+import com.google.common.collect.Queues;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * 将缓存数据写入本地磁盘上只追加的分段日志，每张表一个日志目录。
+ *
+ * <p>各表日志的读写位点随checkpoint保存，任务恢复时截断写位点之后的数据并从读位点继续读取，不依赖外部服务。
+ * 内存队列中尚未下发的数据直接写入checkpoint状态，恢复时排在日志之前的数据先下发，排在日志之后的数据追加到日志末尾。
+ * 恢复时需要能访问到原来的目录，多个TaskManager部署时path应配置为共享存储的挂载目录。
+ *
+ * <p>日志目录为path/jobId/subtask下标/随机目录，未从checkpoint恢复时删除该subtask之前留下的目录，恢复时删除状态中未引用的目录。
+ */
+@Slf4j
+public class LocalCacheHandler extends CacheHandler {
+
+    private static final long serialVersionUID = 2553683215392520815L;
+
+    /** 缓存根目录 */
+    public static final String PATH_KEY = "path";
+    /** 单个段文件的大小上限，单位字节 */
+    public static final String SEGMENT_BYTES_KEY = "segmentBytes";
+
+    private static final long DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024L;
+
+    private static final int STATE_VERSION = 2;
+
+    private transient File dir;
+
+    private transient long segmentBytes;
+
+    private transient Map<TableIdentifier, TableLog> tableLogs;
+
+    /** 新建日志的目录编号 */
+    private transient int nextLogId;
+
+    private transient DataOutputSerializer buffer;
+
+    private transient DataInputDeserializer deserializer;
+
+    /** checkpoint id -> 各表的读位点，checkpoint完成后删除读位点之前的段 */
+    private transient TreeMap<Long, Map<TableIdentifier, Long>> pendingReadOffsets;
+
+    /** 从checkpoint恢复的状态，在init中使用 */
+    private transient byte[] restoredState;
+
+    public LocalCacheHandler(CacheConfig cacheConfig) {
+        super(cacheConfig);
+    }
+
+    @Override
+    public void init(Properties properties) throws Exception {
+        if (properties == null) {
+            properties = new Properties();
+        }
+        this.segmentBytes =
+                Long.parseLong(
+                        properties.getProperty(
+                                SEGMENT_BYTES_KEY, String.valueOf(DEFAULT_SEGMENT_BYTES)));
+        this.tableLogs = new HashMap<>();
+        this.nextLogId = 0;
+        this.buffer = new DataOutputSerializer(1024);
+        this.deserializer = new DataInputDeserializer();
+        this.pendingReadOffsets = new TreeMap<>();
+
+        String path =
+                properties.getProperty(
+                        PATH_KEY,
+                        System.getProperty("java.io.tmpdir") + File.separator + "chunjun-restore");
+        File subtaskDir =
+                jobId == null
+                        ? new File(path)
+                        : new File(path, jobId.toString() + File.separator + indexOfThisSubtask);
+        if (restoredState != null) {
+            restore(restoredState);
+            restoredState = null;
+        } else {
+            this.dir = new File(subtaskDir, UUID.randomUUID().toString());
+        }
+        if (jobId != null) {
+            cleanUp(subtaskDir);
+        }
+        log.info("local cache directory: {}", dir);
+    }
+
+    @Override
+    public void shutdown() throws Exception {
+        if (tableLogs != null) {
+            for (TableLog tableLog : tableLogs.values()) {
+                tableLog.segmentLog.close();
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean sendCache(
+            Collection<RowData> data, TableIdentifier tableIdentifier) {
+        try {
+            SegmentLog segmentLog = getOrCreateLog(tableIdentifier);
+            append(segmentLog, data);
+            return true;
+        } catch (IOException e) {
+            throw new ChunJunRuntimeException("Can not write cache data of " + tableIdentifier, e);
+        }
+    }
+
+    @Override
+    public synchronized Queue<RowData> fromCache(TableIdentifier tableIdentifier) {
+        int batchSize = cacheConfig.getCacheSize();
+        Queue<RowData> queue = Queues.newLinkedBlockingQueue(batchSize);
+        TableLog tableLog = tableLogs.get(tableIdentifier);
+        if (tableLog == null) {
+            return queue;
+        }
+        try {
+            byte[] bytes;
+            while (queue.size() < batchSize && (bytes = tableLog.segmentLog.next()) != null) {
+                deserializer.setBuffer(bytes);
+                RowData rowData = RowDataCodec.deserialize(deserializer);
+                queue.add(rowData);
+            }
+            return queue;
+        } catch (IOException e) {
+            throw new ChunJunRuntimeException("Can not read cache of " + tableIdentifier, e);
+        }
+    }
+
+    /** 读位点在fromCache中推进，已读的段在checkpoint完成后删除 */
+    @Override
+    public void deleteCache(TableIdentifier tableIdentifier, String lsn, int lsnSequence) {}
+
+    /**
+     * 保存各表日志的位点以及内存中尚未下发的数据。已下发但还未从队列中移除的数据在恢复后会重复下发
+     *
+     * <p>恢复后按temporary队列、out队列、日志读位点之后的数据、backup队列的顺序下发，与保存时的下发顺序一致
+     */
+    @Override
+    public synchronized byte[] snapshotState(long checkpointId) throws Exception {
+        Set<TableIdentifier> tableIdentifiers = new LinkedHashSet<>(tableLogs.keySet());
+        tableIdentifiers.addAll(getCachedTableIdentifiers());
+
+        Map<TableIdentifier, Long> readOffsets = new HashMap<>(tableLogs.size());
+        DataOutputSerializer out = new DataOutputSerializer(256);
+        out.writeInt(STATE_VERSION);
+        out.writeUTF(dir.getAbsolutePath());
+        out.writeInt(tableIdentifiers.size());
+        for (TableIdentifier tableIdentifier : tableIdentifiers) {
+            TableLog tableLog = tableLogs.get(tableIdentifier);
+            writeNullableString(out, tableIdentifier.getDataBase());
+            writeNullableString(out, tableIdentifier.getSchema());
+            writeNullableString(out, tableIdentifier.getTable());
+            out.writeBoolean(tableLog != null);
+            if (tableLog != null) {
+                tableLog.segmentLog.sync();
+                out.writeInt(tableLog.id);
+                out.writeLong(tableLog.segmentLog.getReadOffset());
+                out.writeLong(tableLog.segmentLog.getWriteOffset());
+                readOffsets.put(tableIdentifier, tableLog.segmentLog.getReadOffset());
+            }
+
+            List<RowData> pending = new ArrayList<>(copyOfTemporary(tableIdentifier));
+            List<RowData> backup = Collections.emptyList();
+            Cache cache = getCache(tableIdentifier);
+            if (cache != null) {
+                pending.addAll(cache.copyOfOut());
+                backup = cache.copyOfBackup();
+            }
+            writeRows(out, pending);
+            writeRows(out, backup);
+        }
+        pendingReadOffsets.put(checkpointId, readOffsets);
+        return out.getCopyOfBuffer();
+    }
+
+    @Override
+    public void restoreState(byte[] state) {
+        this.restoredState = state;
+    }
+
+    @Override
+    public synchronized void notifyCheckpointComplete(long checkpointId) {
+        Map<TableIdentifier, Long> readOffsets = pendingReadOffsets.get(checkpointId);
+        if (readOffsets == null) {
+            return;
+        }
+        pendingReadOffsets.headMap(checkpointId, true).clear();
+        for (Map.Entry<TableIdentifier, Long> entry : readOffsets.entrySet()) {
+            TableLog tableLog = tableLogs.get(entry.getKey());
+            if (tableLog != null) {
+                tableLog.segmentLog.deleteBefore(entry.getValue());
+            }
+        }
+    }
+
+    private SegmentLog getOrCreateLog(TableIdentifier tableIdentifier) throws IOException {
+        TableLog tableLog = tableLogs.get(tableIdentifier);
+        if (tableLog == null) {
+            int id = nextLogId++;
+            tableLog =
+                    new TableLog(
+                            id,
+                            new SegmentLog(new File(dir, String.valueOf(id)), segmentBytes, 0, 0));
+            tableLogs.put(tableIdentifier, tableLog);
+        }
+        return tableLog.segmentLog;
+    }
+
+    private void append(SegmentLog segmentLog, Collection<RowData> data) throws IOException {
+        for (RowData rowData : data) {
+            buffer.clear();
+            RowDataCodec.serialize(rowData, buffer);
+            segmentLog.append(buffer.getSharedBuffer(), buffer.length());
+        }
+        segmentLog.flush();
+    }
+
+    private void restore(byte[] state) throws IOException {
+        DataInputDeserializer in = new DataInputDeserializer(state);
+        int version = in.readInt();
+        if (version != STATE_VERSION) {
+            throw new IOException("unsupported local cache state version: " + version);
+        }
+        this.dir = new File(in.readUTF());
+        int size = in.readInt();
+        Map<TableIdentifier, List<RowData>> pendings = new HashMap<>(size);
+        Map<TableIdentifier, List<RowData>> backups = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            TableIdentifier tableIdentifier =
+                    new TableIdentifier(
+                            readNullableString(in), readNullableString(in), readNullableString(in));
+            if (in.readBoolean()) {
+                restoreLog(tableIdentifier, in.readInt(), in.readLong(), in.readLong());
+            }
+            pendings.put(tableIdentifier, readRows(in));
+            backups.put(tableIdentifier, readRows(in));
+        }
+
+        // 所有日志的编号确定之后再为没有日志的表新建日志
+        for (Map.Entry<TableIdentifier, List<RowData>> entry : pendings.entrySet()) {
+            TableIdentifier tableIdentifier = entry.getKey();
+            List<RowData> backup = backups.get(tableIdentifier);
+            if (!backup.isEmpty()) {
+                append(getOrCreateLog(tableIdentifier), backup);
+            }
+            TableLog tableLog = tableLogs.get(tableIdentifier);
+            if (!entry.getValue().isEmpty()
+                    || (tableLog != null && tableLog.segmentLog.hasNext())) {
+                restoreCache(tableIdentifier, entry.getValue());
+            }
+            log.info(
+                    "restore local cache of {}, pending rows: {}, backup rows: {}",
+                    tableIdentifier,
+                    entry.getValue().size(),
+                    backup.size());
+        }
+    }
+
+    private void restoreLog(
+            TableIdentifier tableIdentifier, int id, long readOffset, long writeOffset)
+            throws IOException {
+        File tableDir = new File(dir, String.valueOf(id));
+        if (readOffset < writeOffset && !tableDir.exists()) {
+            throw new ChunJunRuntimeException(
+                    String.format(
+                            "local cache directory [%s] of %s is missing, "
+                                    + "please configure [%s] to a directory shared by all TaskManagers",
+                            tableDir, tableIdentifier, PATH_KEY));
+        }
+        SegmentLog segmentLog = new SegmentLog(tableDir, segmentBytes, readOffset, writeOffset);
+        tableLogs.put(tableIdentifier, new TableLog(id, segmentLog));
+        nextLogId = Math.max(nextLogId, id + 1);
+        log.info(
+                "restore local cache log of {}, read offset: {}, write offset: {}",
+                tableIdentifier,
+                readOffset,
+                writeOffset);
+    }
+
+    /** 删除subtask目录下当前未使用的目录，这些目录由之前未完成checkpoint的运行留下 */
+    private void cleanUp(File subtaskDir) {
+        File[] files = subtaskDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.equals(dir)) {
+                continue;
+            }
+            try {
+                FileUtils.deleteFileOrDirectory(file);
+                log.info("delete stale local cache directory {}", file);
+            } catch (IOException e) {
+                log.warn("can not delete stale local cache directory {}", file, e);
+            }
+        }
+    }
+
+    private void writeRows(DataOutputSerializer out, List<RowData> rows) throws IOException {
+        out.writeInt(rows.size());
+        for (RowData rowData : rows) {
+            RowDataCodec.serialize(rowData, out);
+        }
+    }
+
+    private List<RowData> readRows(DataInputDeserializer in) throws IOException {
+        int size = in.readInt();
+        List<RowData> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(RowDataCodec.deserialize(in));
+        }
+        return rows;
+    }
+
+    private static void writeNullableString(DataOutputSerializer out, String value)
+            throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputDeserializer in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static class TableLog {
+        private final int id;
+        private final SegmentLog segmentLog;
+
+        private TableLog(int id, SegmentLog segmentLog) {
+            this.id = id;
+            this.segmentLog = segmentLog;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.restore.local.codec;
+
+import com.dtstack.chunjun.cdc.DdlRowData;
+import com.dtstack.chunjun.cdc.ddl.DdlRowDataConvented;
+import com.dtstack.chunjun.element.AbstractBaseColumn;
+import com.dtstack.chunjun.element.ColumnRowData;
+import com.dtstack.chunjun.element.column.BigDecimalColumn;
+import com.dtstack.chunjun.element.column.BooleanColumn;
+import com.dtstack.chunjun.element.column.ByteColumn;
+import com.dtstack.chunjun.element.column.BytesColumn;
+import com.dtstack.chunjun.element.column.MapColumn;
+import com.dtstack.chunjun.element.column.NullColumn;
+import com.dtstack.chunjun.element.column.SqlDateColumn;
+import com.dtstack.chunjun.element.column.StringColumn;
+import com.dtstack.chunjun.element.column.TimeColumn;
+import com.dtstack.chunjun.element.column.TimestampColumn;
+import com.dtstack.chunjun.throwable.ChunJunRuntimeException;
+import com.dtstack.chunjun.typeutil.serializer.base.BooleanColumnSerializer;
+import com.dtstack.chunjun.typeutil.serializer.base.ByteColumnSerializer;
+import com.dtstack.chunjun.typeutil.serializer.base.BytesColumnSerializer;
+import com.dtstack.chunjun.typeutil.serializer.base.DecimalColumnSerializer;
+import com.dtstack.chunjun.typeutil.serializer.base.MapColumnSerializer;
+import com.dtstack.chunjun.typeutil.serializer.base.SqlDateColumnSerializer;
+import com.dtstack.chunjun.typeutil.serializer.base.TimeColumnSerializer;
+import com.dtstack.chunjun.typeutil.serializer.base.TimestampColumnSerializer;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.types.RowKind;
+import org.apache.flink.types.StringValue;
+import org.apache.flink.util.InstantiationUtil;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 缓存数据的二进制编码，每个字段带一个字节的类型标记，不依赖表结构。
+ *
+ * <p>ColumnRowData：rowKind + byteSize + headerInfo + extHeader + 字段；DdlRowData：rowKind + headers +
+ * ddlInfos；DdlRowDataConvented在DdlRowData之后追加转换结果。
+ */
+public class RowDataCodec {
+
+    private static final byte COLUMN_ROW_DATA = 0;
+    private static final byte DDL_ROW_DATA = 1;
+    private static final byte DDL_ROW_DATA_CONVENTED = 2;
+
+    private static final byte NULL = 0;
+    private static final byte NULL_COLUMN = 1;
+    private static final byte STRING = 2;
+    private static final byte DECIMAL = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte BYTE = 5;
+    private static final byte BYTES = 6;
+    private static final byte TIMESTAMP = 7;
+    private static final byte DATE = 8;
+    private static final byte TIME = 9;
+    private static final byte MAP = 10;
+    /** 其余类型使用java序列化 */
+    private static final byte OBJECT = 11;
+
+    private static final byte NULL_ROW_KIND = -1;
+
+    private static final String DEFAULT_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    private RowDataCodec() throws IllegalAccessException {
+        throw new IllegalAccessException(getClass() + " can not be instantiated.");
+    }
+
+    public static void serialize(RowData rowData, DataOutputView target) throws IOException {
+        if (rowData instanceof ColumnRowData) {
+            target.writeByte(COLUMN_ROW_DATA);
+            serializeColumnRowData((ColumnRowData) rowData, target);
+        } else if (rowData instanceof DdlRowDataConvented) {
+            DdlRowDataConvented convented = (DdlRowDataConvented) rowData;
+            target.writeByte(DDL_ROW_DATA_CONVENTED);
+            serializeDdlRowData(originalOf(convented), target);
+            target.writeBoolean(convented.conventSuccessful());
+            StringValue.writeString(convented.getConventInfo(), target);
+        } else if (rowData instanceof DdlRowData) {
+            target.writeByte(DDL_ROW_DATA);
+            serializeDdlRowData((DdlRowData) rowData, target);
+        } else {
+            throw new ChunJunRuntimeException(
+                    "unsupported cache data type: " + rowData.getClass().getName());
+        }
+    }
+
+    public static RowData deserialize(DataInputView source) throws IOException {
+        byte type = source.readByte();
+        switch (type) {
+            case COLUMN_ROW_DATA:
+                return deserializeColumnRowData(source);
+            case DDL_ROW_DATA:
+                return deserializeDdlRowData(source);
+            case DDL_ROW_DATA_CONVENTED:
+                DdlRowData rowData = deserializeDdlRowData(source);
+                boolean successful = source.readBoolean();
+                String conventInfo = StringValue.readString(source);
+                if (successful) {
+                    return new DdlRowDataConvented(rowData, null, conventInfo);
+                }
+                return new DdlRowDataConvented(
+                        rowData, new ChunJunRuntimeException(conventInfo), null);
+            default:
+                throw new IOException("unknown cache data type: " + type);
+        }
+    }
+
+    private static void serializeColumnRowData(ColumnRowData rowData, DataOutputView target)
+            throws IOException {
+        target.writeByte(rowData.getRowKind().toByteValue());
+        target.writeInt(rowData.getByteSize());
+
+        Map<String, Integer> headerInfo = rowData.getHeaderInfo();
+        if (headerInfo == null) {
+            target.writeInt(-1);
+        } else {
+            target.writeInt(headerInfo.size());
+            for (Map.Entry<String, Integer> entry : headerInfo.entrySet()) {
+                StringValue.writeString(entry.getKey(), target);
+                target.writeInt(entry.getValue() == null ? -1 : entry.getValue());
+            }
+        }
+
+        Set<String> extHeader = rowData.getExtHeader();
+        target.writeInt(extHeader.size());
+        for (String ext : extHeader) {
+            StringValue.writeString(ext, target);
+        }
+
+        int arity = rowData.getArity();
+        target.writeInt(arity);
+        for (int i = 0; i < arity; i++) {
+            serializeColumn(rowData.getField(i), target);
+        }
+    }
+
+    private static ColumnRowData deserializeColumnRowData(DataInputView source) throws IOException {
+        RowKind rowKind = RowKind.fromByteValue(source.readByte());
+        int byteSize = source.readInt();
+
+        int headerSize = source.readInt();
+        Map<String, Integer> headerInfo = null;
+        if (headerSize >= 0) {
+            headerInfo = new HashMap<>(headerSize * 4 / 3 + 1);
+            for (int i = 0; i < headerSize; i++) {
+                String key = StringValue.readString(source);
+                int index = source.readInt();
+                headerInfo.put(key, index < 0 ? null : index);
+            }
+        }
+
+        int extHeaderSize = source.readInt();
+        String[] extHeader = new String[extHeaderSize];
+        for (int i = 0; i < extHeaderSize; i++) {
+            extHeader[i] = StringValue.readString(source);
+        }
+
+        int arity = source.readInt();
+        ColumnRowData rowData = new ColumnRowData(rowKind, arity, byteSize);
+        if (headerInfo != null) {
+            rowData.setHeader(headerInfo);
+        }
+        // byteSize中已包含extHeader的大小，不通过addExtHeader重复累加
+        Collections.addAll(rowData.getExtHeader(), extHeader);
+        for (int i = 0; i < arity; i++) {
+            rowData.addFieldWithOutByteSize(deserializeColumn(source));
+        }
+        return rowData;
+    }
+
+    private static void serializeDdlRowData(DdlRowData rowData, DataOutputView target)
+            throws IOException {
+        RowKind rowKind = rowData.getRowKind();
+        target.writeByte(rowKind == null ? NULL_ROW_KIND : rowKind.toByteValue());
+        target.writeInt(rowData.getByteSize());
+        String[] headers = rowData.getHeaders();
+        target.writeInt(headers.length);
+        for (int i = 0; i < headers.length; i++) {
+            StringValue.writeString(headers[i], target);
+            StringValue.writeString(rowData.getInfo(i), target);
+        }
+    }
+
+    private static DdlRowData deserializeDdlRowData(DataInputView source) throws IOException {
+        byte rowKind = source.readByte();
+        int byteSize = source.readInt();
+        int length = source.readInt();
+        String[] headers = new String[length];
+        String[] ddlInfos = new String[length];
+        for (int i = 0; i < length; i++) {
+            headers[i] = StringValue.readString(source);
+            ddlInfos[i] = StringValue.readString(source);
+        }
+        DdlRowData rowData = new DdlRowData(headers, ddlInfos, byteSize);
+        if (rowKind != NULL_ROW_KIND) {
+            rowData.setRowKind(RowKind.fromByteValue(rowKind));
+        }
+        return rowData;
+    }
+
+    /** DdlRowDataConvented的getString、getRowKind等方法返回的是转换前的数据 */
+    private static DdlRowData originalOf(DdlRowDataConvented convented) {
+        String[] headers = convented.getHeaders();
+        DdlRowData rowData = new DdlRowData(headers);
+        for (int i = 0; i < headers.length; i++) {
+            StringData info = convented.getString(i);
+            rowData.setDdlInfo(i, info == null ? null : info.toString());
+        }
+        rowData.setRowKind(convented.getRowKind());
+        return rowData;
+    }
+
+    private static void serializeColumn(AbstractBaseColumn column, DataOutputView target)
+            throws IOException {
+        if (column == null) {
+            target.writeByte(NULL);
+        } else if (column instanceof NullColumn) {
+            target.writeByte(NULL_COLUMN);
+        } else if (column instanceof StringColumn) {
+            StringColumn stringColumn = (StringColumn) column;
+            target.writeByte(STRING);
+            StringValue.writeString((String) stringColumn.getData(), target);
+            target.writeBoolean(stringColumn.isCustomFormat());
+            // 绝大多数字段使用默认的format，不重复写入
+            if (DEFAULT_FORMAT.equals(stringColumn.getFormat())) {
+                target.writeBoolean(false);
+            } else {
+                target.writeBoolean(true);
+                StringValue.writeString(stringColumn.getFormat(), target);
+            }
+        } else if (column instanceof BigDecimalColumn) {
+            writeColumn(DECIMAL, DecimalColumnSerializer.INSTANCE, column, target);
+        } else if (column instanceof BooleanColumn) {
+            writeColumn(BOOLEAN, BooleanColumnSerializer.INSTANCE, column, target);
+        } else if (column instanceof ByteColumn) {
+            writeColumn(BYTE, ByteColumnSerializer.INSTANCE, column, target);
+        } else if (column instanceof BytesColumn) {
+            writeColumn(BYTES, BytesColumnSerializer.INSTANCE, column, target);
+        } else if (column instanceof TimestampColumn) {
+            writeColumn(TIMESTAMP, TimestampColumnSerializer.INSTANCE, column, target);
+        } else if (column instanceof SqlDateColumn) {
+            writeColumn(DATE, SqlDateColumnSerializer.INSTANCE, column, target);
+        } else if (column instanceof TimeColumn) {
+            writeColumn(TIME, TimeColumnSerializer.INSTANCE, column, target);
+        } else if (column instanceof MapColumn) {
+            writeColumn(MAP, MapColumnSerializer.INSTANCE, column, target);
+        } else {
+            target.writeByte(OBJECT);
+            byte[] bytes = InstantiationUtil.serializeObject(column);
+            target.writeInt(bytes.length);
+            target.write(bytes);
+        }
+    }
+
+    private static AbstractBaseColumn deserializeColumn(DataInputView source) throws IOException {
+        byte type = source.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case NULL_COLUMN:
+                return new NullColumn();
+            case STRING:
+                String data = StringValue.readString(source);
+                boolean isCustomFormat = source.readBoolean();
+                String format =
+                        source.readBoolean() ? StringValue.readString(source) : DEFAULT_FORMAT;
+                return StringColumn.from(data, format, isCustomFormat);
+            case DECIMAL:
+                return DecimalColumnSerializer.INSTANCE.deserialize(source);
+            case BOOLEAN:
+                return BooleanColumnSerializer.INSTANCE.deserialize(source);
+            case BYTE:
+                return ByteColumnSerializer.INSTANCE.deserialize(source);
+            case BYTES:
+                return BytesColumnSerializer.INSTANCE.deserialize(source);
+            case TIMESTAMP:
+                return TimestampColumnSerializer.INSTANCE.deserialize(source);
+            case DATE:
+                return SqlDateColumnSerializer.INSTANCE.deserialize(source);
+            case TIME:
+                return TimeColumnSerializer.INSTANCE.deserialize(source);
+            case MAP:
+                return MapColumnSerializer.INSTANCE.deserialize(source);
+            case OBJECT:
+                byte[] bytes = new byte[source.readInt()];
+                source.readFully(bytes);
+                try {
+                    return InstantiationUtil.deserializeObject(
+                            bytes, RowDataCodec.class.getClassLoader());
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            default:
+                throw new IOException("unknown column type: " + type);
+        }
+    }
+
+    private static void writeColumn(
+            byte type,
+            TypeSerializer<AbstractBaseColumn> serializer,
+            AbstractBaseColumn column,
+            DataOutputView target)
+            throws IOException {
+        target.writeByte(type);
+        serializer.serialize(column, target);
+    }
+}
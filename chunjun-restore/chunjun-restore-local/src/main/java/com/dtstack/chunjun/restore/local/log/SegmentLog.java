@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.chunjun.restore.local.log;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 只追加的分段日志，每条记录为 长度 + 内容，记录不会跨段。
+ *
+ * <p>位点是日志内的字节偏移，段文件以段内第一条记录的位点命名；读位点之前的段在checkpoint完成后删除。
+ */
+@Slf4j
+public class SegmentLog implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File dir;
+    private final long segmentBytes;
+
+    /** 段的起始位点 -> 段文件 */
+    private final TreeMap<Long, File> segments = new TreeMap<>();
+
+    private long writeOffset;
+    private long readOffset;
+
+    private FileOutputStream writeFile;
+    private BufferedOutputStream writer;
+    private long writeSegmentBase = -1;
+
+    private DataInputStream reader;
+    private long readerSegmentBase = -1;
+    private long readerOffset = -1;
+
+    /**
+     * @param dir 日志目录
+     * @param segmentBytes 单个段文件的大小上限
+     * @param readOffset 恢复的读位点，新建时为0
+     * @param writeOffset 恢复的写位点，之后写入的数据会被截断
+     */
+    public SegmentLog(File dir, long segmentBytes, long readOffset, long writeOffset)
+            throws IOException {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("can not create directory " + dir);
+        }
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                segments.put(
+                        Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())),
+                        file);
+            }
+        }
+        if (segments.isEmpty() && readOffset < writeOffset) {
+            throw new IOException(
+                    "segments between offset "
+                            + readOffset
+                            + " and "
+                            + writeOffset
+                            + " are missing in "
+                            + dir);
+        }
+        truncate(writeOffset);
+        this.writeOffset = writeOffset;
+        this.readOffset = readOffset;
+    }
+
+    public long getReadOffset() {
+        return readOffset;
+    }
+
+    public long getWriteOffset() {
+        return writeOffset;
+    }
+
+    public boolean hasNext() {
+        return readOffset < writeOffset;
+    }
+
+    public void append(byte[] bytes, int length) throws IOException {
+        if (writer == null || writeOffset - writeSegmentBase >= segmentBytes) {
+            rollSegment();
+        }
+        writer.write(length >>> 24);
+        writer.write(length >>> 16);
+        writer.write(length >>> 8);
+        writer.write(length);
+        writer.write(bytes, 0, length);
+        writeOffset += 4 + length;
+    }
+
+    /** 写入的数据在flush之后才能被读取 */
+    public void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /** 落盘，checkpoint时调用 */
+    public void sync() throws IOException {
+        if (writer != null) {
+            writer.flush();
+            writeFile.getFD().sync();
+        }
+    }
+
+    /**
+     * 读取下一条记录并推进读位点
+     *
+     * @return 没有数据时返回null
+     */
+    public byte[] next() throws IOException {
+        if (!hasNext()) {
+            return null;
+        }
+        Map.Entry<Long, File> segment = segments.floorEntry(readOffset);
+        if (segment == null) {
+            throw new IOException("can not find segment of offset " + readOffset + " in " + dir);
+        }
+        if (segment.getKey() == writeSegmentBase) {
+            flush();
+        }
+        if (reader == null || readerSegmentBase != segment.getKey() || readerOffset != readOffset) {
+            openReader(segment.getKey(), segment.getValue());
+        }
+        int length = reader.readInt();
+        byte[] bytes = new byte[length];
+        reader.readFully(bytes);
+        readOffset += 4 + length;
+        readerOffset = readOffset;
+        return bytes;
+    }
+
+    /** 删除位点之前已读完的段 */
+    public void deleteBefore(long offset) {
+        while (true) {
+            Map.Entry<Long, File> first = segments.firstEntry();
+            Long next = first == null ? null : segments.higherKey(first.getKey());
+            if (next == null || next > offset) {
+                return;
+            }
+            if (readerSegmentBase == first.getKey()) {
+                closeReader();
+            }
+            segments.remove(first.getKey());
+            if (!first.getValue().delete()) {
+                log.warn("can not delete segment {}", first.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeReader();
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+        File file = new File(dir, String.format("%020d%s", writeOffset, SEGMENT_SUFFIX));
+        segments.put(writeOffset, file);
+        writeFile = new FileOutputStream(file, true);
+        writer = new BufferedOutputStream(writeFile, BUFFER_SIZE);
+        writeSegmentBase = writeOffset;
+    }
+
+    private void openReader(long base, File file) throws IOException {
+        closeReader();
+        FileInputStream in = new FileInputStream(file);
+        long skip = readOffset - base;
+        while (skip > 0) {
+            long skipped = in.skip(skip);
+            if (skipped <= 0) {
+                in.close();
+                throw new IOException("can not seek to offset " + readOffset + " in " + file);
+            }
+            skip -= skipped;
+        }
+        reader = new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+        readerSegmentBase = base;
+        readerOffset = readOffset;
+    }
+
+    private void closeReader() {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                log.warn("close segment reader of {} failed", dir, e);
+            }
+            reader = null;
+            readerSegmentBase = -1;
+        }
+    }
+
+    /** 截断恢复位点之后写入的数据，这部分数据会由source重新下发 */
+    private void truncate(long offset) throws IOException {
+        while (!segments.isEmpty() && segments.lastKey() > offset) {
+            File file = segments.remove(segments.lastKey());
+            if (!file.delete()) {
+                throw new IOException("can not delete segment " + file);
+            }
+        }
+        Map.Entry<Long, File> last = segments.lastEntry();
+        if (last != null) {
+            try (RandomAccessFile file = new RandomAccessFile(last.getValue(), "rw")) {
+                if (file.length() < offset - last.getKey()) {
+                    throw new IOException(
+                            "segment " + last.getValue() + " is shorter than offset " + offset);
+                }
+                file.setLength(offset - last.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.chunjun.restore.local;
+
+import com.dtstack.chunjun.cdc.config.CacheConfig;
+import com.dtstack.chunjun.cdc.ddl.definition.TableIdentifier;
+import com.dtstack.chunjun.element.ColumnRowData;
+import com.dtstack.chunjun.element.column.StringColumn;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.table.data.RowData;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalCacheHandlerTest {
+
+    private static final TableIdentifier TABLE = new TableIdentifier("db", "schema", "table");
+
+    @TempDir File path;
+
+    private final JobID jobId = new JobID();
+
+    private final List<LocalCacheHandler> handlers = new ArrayList<>();
+
+    private CacheConfig cacheConfig;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty(LocalCacheHandler.PATH_KEY, path.getAbsolutePath());
+        properties.setProperty(LocalCacheHandler.SEGMENT_BYTES_KEY, "64");
+        cacheConfig = new CacheConfig();
+        cacheConfig.setCacheSize(2);
+        cacheConfig.setProperties(properties);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (LocalCacheHandler handler : handlers) {
+            handler.close();
+        }
+    }
+
+    @Test
+    void testRestoreInMemoryAndSpilledRows() throws Exception {
+        LocalCacheHandler handler = open(null);
+        // 前两条进入out队列，之后两条写满backup后写入日志，最后一条留在backup中
+        for (int i = 0; i < 5; i++) {
+            handler.add(TABLE, row(i));
+        }
+        assertTrue(handler.getCache(TABLE).isCached());
+
+        byte[] state = handler.snapshotState(1);
+
+        assertEquals(Arrays.asList("0", "1", "2", "3", "4"), drain(open(state)));
+    }
+
+    @Test
+    void testRestoreKeepsDeliveryOrder() throws Exception {
+        LocalCacheHandler handler = open(null);
+        for (int i = 0; i < 5; i++) {
+            handler.add(TABLE, row(i));
+        }
+        consume(handler, 2);
+        // 日志中的第一条已读入内存但还未下发
+        RowData head = handler.get(TABLE);
+        assertEquals("2", value(head));
+        // out队列清空后新到的数据排在日志剩余数据之前下发
+        handler.add(TABLE, row(5));
+
+        byte[] state = handler.snapshotState(1);
+        handler.notifyCheckpointComplete(1);
+
+        assertEquals(Arrays.asList("2", "3", "5", "4"), drain(open(state)));
+        assertEquals(Arrays.asList("2", "3", "5", "4"), drain(handler));
+    }
+
+    @Test
+    void testRestoreTableWithoutLog() throws Exception {
+        LocalCacheHandler handler = open(null);
+        handler.add(TABLE, row(0));
+        handler.add(TABLE, row(1));
+        handler.add(TABLE, row(2));
+        assertFalse(handler.getCache(TABLE).isCached());
+
+        byte[] state = handler.snapshotState(1);
+
+        assertEquals(Arrays.asList("0", "1", "2"), drain(open(state)));
+    }
+
+    @Test
+    void testCleanUpStaleDirectories() throws Exception {
+        File subtaskDir = new File(path, jobId + File.separator + "0");
+        File stale = new File(subtaskDir, "stale");
+        assertTrue(new File(stale, "0").mkdirs());
+
+        LocalCacheHandler handler = open(null);
+        assertFalse(stale.exists());
+
+        for (int i = 0; i < 4; i++) {
+            handler.add(TABLE, row(i));
+        }
+        byte[] state = handler.snapshotState(1);
+        File[] dirs = subtaskDir.listFiles();
+        assertEquals(1, dirs.length);
+
+        // 恢复时保留状态中的目录，删除之后新建的目录
+        assertTrue(new File(subtaskDir, "stale").mkdirs());
+        LocalCacheHandler restored = open(state);
+        assertTrue(dirs[0].exists());
+        assertFalse(stale.exists());
+        assertEquals(Arrays.asList("0", "1", "2", "3"), drain(restored));
+    }
+
+    private LocalCacheHandler open(byte[] state) throws Exception {
+        LocalCacheHandler handler = new LocalCacheHandler(cacheConfig);
+        handlers.add(handler);
+        if (state != null) {
+            handler.restoreState(state);
+        }
+        handler.setRuntimeInfo(jobId, 0);
+        handler.open();
+        return handler;
+    }
+
+    private static List<String> drain(LocalCacheHandler handler) {
+        List<String> values = new ArrayList<>();
+        RowData rowData;
+        while ((rowData = handler.get(TABLE)) != null) {
+            values.add(value(rowData));
+            handler.remove(TABLE, rowData);
+        }
+        return values;
+    }
+
+    private static void consume(LocalCacheHandler handler, int count) {
+        for (int i = 0; i < count; i++) {
+            handler.remove(TABLE, handler.get(TABLE));
+        }
+    }
+
+    private static ColumnRowData row(int i) {
+        ColumnRowData rowData = new ColumnRowData(1);
+        rowData.addHeader("id");
+        rowData.addField(new StringColumn(String.valueOf(i)));
+        return rowData;
+    }
+
+    private static String value(RowData rowData) {
+        return ((ColumnRowData) rowData).getField(0).asString();
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.chunjun.restore.local.codec;
+
+import com.dtstack.chunjun.cdc.DdlRowData;
+import com.dtstack.chunjun.cdc.ddl.DdlRowDataConvented;
+import com.dtstack.chunjun.element.AbstractBaseColumn;
+import com.dtstack.chunjun.element.ColumnRowData;
+import com.dtstack.chunjun.element.column.BigDecimalColumn;
+import com.dtstack.chunjun.element.column.BooleanColumn;
+import com.dtstack.chunjun.element.column.ByteColumn;
+import com.dtstack.chunjun.element.column.BytesColumn;
+import com.dtstack.chunjun.element.column.MapColumn;
+import com.dtstack.chunjun.element.column.NullColumn;
+import com.dtstack.chunjun.element.column.SqlDateColumn;
+import com.dtstack.chunjun.element.column.StringColumn;
+import com.dtstack.chunjun.element.column.TimeColumn;
+import com.dtstack.chunjun.element.column.TimestampColumn;
+
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.types.RowKind;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowDataCodecTest {
+
+    @Test
+    void testColumnRowDataWithEveryColumnType() throws IOException {
+        Map<String, Object> map = new HashMap<>();
+        map.put("k", "v");
+        Timestamp timestamp = Timestamp.valueOf("2022-01-02 03:04:05.123456");
+        AbstractBaseColumn[] columns = {
+            null,
+            new NullColumn(),
+            new StringColumn("a"),
+            new StringColumn("2022-01-02", "yyyy-MM-dd"),
+            new BigDecimalColumn(new BigDecimal("-123.4500")),
+            new BooleanColumn(true),
+            new ByteColumn((byte) 7),
+            new BytesColumn(new byte[] {1, 2, 3}),
+            new TimestampColumn(timestamp, 6),
+            new SqlDateColumn(Date.valueOf("2022-01-02")),
+            new TimeColumn(Time.valueOf("03:04:05")),
+            new MapColumn(map),
+            new BigIntegerColumn(new BigInteger("123456789012345678901234567890"))
+        };
+
+        for (RowKind rowKind : RowKind.values()) {
+            ColumnRowData rowData = new ColumnRowData(rowKind, columns.length);
+            for (int i = 0; i < columns.length; i++) {
+                rowData.addHeader("c" + i);
+                rowData.addField(columns[i]);
+            }
+            rowData.addExtHeader("c0");
+
+            ColumnRowData result = (ColumnRowData) roundTrip(rowData);
+
+            assertEquals(rowKind, result.getRowKind());
+            assertEquals(rowData.getByteSize(), result.getByteSize());
+            assertEquals(rowData.getHeaderInfo(), result.getHeaderInfo());
+            assertEquals(rowData.getExtHeader(), result.getExtHeader());
+            assertEquals(columns.length, result.getArity());
+            assertNull(result.getField(0));
+            for (int i = 1; i < columns.length; i++) {
+                AbstractBaseColumn expected = columns[i];
+                AbstractBaseColumn actual = result.getField(i);
+                assertSame(expected.getClass(), actual.getClass());
+                if (expected instanceof BytesColumn) {
+                    assertArrayEquals((byte[]) expected.getData(), (byte[]) actual.getData());
+                } else {
+                    assertEquals(expected.getData(), actual.getData());
+                }
+            }
+
+            StringColumn formatted = (StringColumn) result.getField(3);
+            assertTrue(formatted.isCustomFormat());
+            assertEquals("yyyy-MM-dd", formatted.getFormat());
+            assertFalse(((StringColumn) result.getField(2)).isCustomFormat());
+            assertEquals(6, ((TimestampColumn) result.getField(8)).getPrecision());
+        }
+    }
+
+    @Test
+    void testColumnRowDataWithoutHeader() throws IOException {
+        ColumnRowData rowData = new ColumnRowData(RowKind.DELETE, 1);
+        rowData.addField(new StringColumn("a"));
+
+        ColumnRowData result = (ColumnRowData) roundTrip(rowData);
+
+        assertNull(result.getHeaderInfo());
+        assertEquals(RowKind.DELETE, result.getRowKind());
+        assertEquals("a", result.getField(0).asString());
+    }
+
+    @Test
+    void testDdlRowData() throws IOException {
+        DdlRowData rowData = newDdlRowData();
+        rowData.setRowKind(RowKind.UPDATE_AFTER);
+
+        RowData result = roundTrip(rowData);
+
+        assertSame(DdlRowData.class, result.getClass());
+        assertEquals(RowKind.UPDATE_AFTER, result.getRowKind());
+        assertArrayEquals(rowData.getHeaders(), ((DdlRowData) result).getHeaders());
+        for (int i = 0; i < rowData.getArity(); i++) {
+            assertEquals(rowData.getInfo(i), ((DdlRowData) result).getInfo(i));
+        }
+    }
+
+    @Test
+    void testDdlRowDataConvented() throws IOException {
+        DdlRowDataConvented successful =
+                new DdlRowDataConvented(newDdlRowData(), null, "alter table t1");
+        DdlRowDataConvented result = (DdlRowDataConvented) roundTrip(successful);
+        assertTrue(result.conventSuccessful());
+        assertEquals(successful.getConventInfo(), result.getConventInfo());
+        assertEquals(successful.getInfo(3), result.getInfo(3));
+        assertEquals(successful.getRowKind(), result.getRowKind());
+
+        DdlRowDataConvented failed =
+                new DdlRowDataConvented(newDdlRowData(), new RuntimeException("unsupported"), null);
+        result = (DdlRowDataConvented) roundTrip(failed);
+        assertFalse(result.conventSuccessful());
+        assertEquals(failed.getInfo(3), result.getInfo(3));
+    }
+
+    private static DdlRowData newDdlRowData() {
+        DdlRowData rowData =
+                new DdlRowData(new String[] {"database", "schema", "table", "content"});
+        rowData.setDdlInfo("database", "db");
+        rowData.setDdlInfo("schema", null);
+        rowData.setDdlInfo("table", "t");
+        rowData.setDdlInfo("content", "alter table t");
+        return rowData;
+    }
+
+    private static RowData roundTrip(RowData rowData) throws IOException {
+        DataOutputSerializer out = new DataOutputSerializer(64);
+        RowDataCodec.serialize(rowData, out);
+        // 编码自带长度信息，连续写入的数据可以依次读出
+        RowDataCodec.serialize(rowData, out);
+        DataInputDeserializer in = new DataInputDeserializer(out.getCopyOfBuffer());
+        RowData first = RowDataCodec.deserialize(in);
+        RowDataCodec.deserialize(in);
+        assertEquals(0, in.available());
+        return first;
+    }
+
+    /** 没有专门编码的字段类型，使用java序列化 */
+    private static class BigIntegerColumn extends AbstractBaseColumn {
+
+        private static final long serialVersionUID = 1L;
+
+        private BigIntegerColumn(BigInteger data) {
+            super(data, 0);
+        }
+
+        @Override
+        public String type() {
+            return "BIGINTEGER";
+        }
+
+        @Override
+        public Boolean asBoolean() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public byte[] asBytes() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String asString() {
+            return data.toString();
+        }
+
+        @Override
+        public BigDecimal asBigDecimal() {
+            return new BigDecimal((BigInteger) data);
+        }
+
+        @Override
+        public Timestamp asTimestamp() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Time asTime() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Date asSqlDate() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String asTimestampStr() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
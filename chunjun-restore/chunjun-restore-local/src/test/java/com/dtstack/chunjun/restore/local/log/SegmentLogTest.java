@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.chunjun.restore.local.log;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentLogTest {
+
+    /** 每条记录4字节长度 + 6字节数据，每个段放两条记录 */
+    private static final long SEGMENT_BYTES = 20;
+
+    @TempDir File dir;
+
+    @Test
+    void testAppendAndRollSegments() throws IOException {
+        try (SegmentLog log = new SegmentLog(dir, SEGMENT_BYTES, 0, 0)) {
+            for (int i = 0; i < 5; i++) {
+                append(log, i);
+            }
+            log.flush();
+
+            assertEquals(50, log.getWriteOffset());
+            assertEquals(
+                    Arrays.asList(
+                            "00000000000000000000.log",
+                            "00000000000000000020.log",
+                            "00000000000000000040.log"),
+                    segmentNames());
+            for (int i = 0; i < 5; i++) {
+                assertArrayEquals(record(i), log.next());
+            }
+            assertFalse(log.hasNext());
+            assertNull(log.next());
+            assertEquals(50, log.getReadOffset());
+        }
+    }
+
+    @Test
+    void testReadWhileWriting() throws IOException {
+        try (SegmentLog log = new SegmentLog(dir, SEGMENT_BYTES, 0, 0)) {
+            append(log, 0);
+            // 读取正在写入的段时先flush
+            assertArrayEquals(record(0), log.next());
+            append(log, 1);
+            append(log, 2);
+            assertArrayEquals(record(1), log.next());
+            assertArrayEquals(record(2), log.next());
+            assertNull(log.next());
+        }
+    }
+
+    @Test
+    void testDeleteBefore() throws IOException {
+        try (SegmentLog log = new SegmentLog(dir, SEGMENT_BYTES, 0, 0)) {
+            for (int i = 0; i < 5; i++) {
+                append(log, i);
+            }
+            for (int i = 0; i < 3; i++) {
+                log.next();
+            }
+
+            // 位点30位于第二个段中，只有第一个段已读完
+            log.deleteBefore(log.getReadOffset());
+            assertEquals(
+                    Arrays.asList("00000000000000000020.log", "00000000000000000040.log"),
+                    segmentNames());
+
+            assertArrayEquals(record(3), log.next());
+            assertArrayEquals(record(4), log.next());
+            log.deleteBefore(log.getReadOffset());
+            assertEquals(Arrays.asList("00000000000000000040.log"), segmentNames());
+        }
+    }
+
+    @Test
+    void testRestoreFromOffsets() throws IOException {
+        try (SegmentLog log = new SegmentLog(dir, SEGMENT_BYTES, 0, 0)) {
+            for (int i = 0; i < 5; i++) {
+                append(log, i);
+            }
+            log.sync();
+        }
+
+        // checkpoint时读到第一条之后、写到第三条之后，之后写入的数据被截断
+        try (SegmentLog log = new SegmentLog(dir, SEGMENT_BYTES, 10, 30)) {
+            assertEquals(
+                    Arrays.asList("00000000000000000000.log", "00000000000000000020.log"),
+                    segmentNames());
+            assertEquals(10, new File(dir, "00000000000000000020.log").length());
+            assertTrue(log.hasNext());
+            assertArrayEquals(record(1), log.next());
+            assertArrayEquals(record(2), log.next());
+            assertFalse(log.hasNext());
+
+            append(log, 5);
+            assertArrayEquals(record(5), log.next());
+            assertEquals(40, log.getWriteOffset());
+        }
+    }
+
+    @Test
+    void testMissingSegments() {
+        assertThrows(IOException.class, () -> new SegmentLog(dir, SEGMENT_BYTES, 0, 10));
+    }
+
+    private static void append(SegmentLog log, int i) throws IOException {
+        byte[] bytes = record(i);
+        log.append(bytes, bytes.length);
+    }
+
+    private static byte[] record(int i) {
+        return String.format("row-%02d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private List<String> segmentNames() {
+        String[] names = dir.list();
+        Arrays.sort(names);
+        return Arrays.asList(names);
+    }
+}